@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Run the benchmarks on two commits and compare the results.
+#
+# Usage: benchmarks/compare-commits.sh <base-ref> <head-ref> [JMH options]
+# Example: benchmarks/compare-commits.sh master HEAD -f 1 -wi 2 -i 3 'TrackerBenchmark|IssueStoreBenchmark'
+#
+# Each commit is checked out in a temporary git worktree, so the current working copy is left untouched.
+# The benchmarks of the current working copy are run against the core of each commit, so both commits must have the same
+# project version. Benchmarks that don't compile against the core of a commit, e.g. because they use classes added later,
+# are left out for that commit. Note that the core of each commit is installed in the local Maven repository.
+# Results are written in benchmarks/target/compare/<sha>.json
+
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  sed -n '2,10p' "$0"
+  exit 2
+fi
+
+BASE_REF=$1
+HEAD_REF=$2
+shift 2
+
+ROOT=$(git rev-parse --show-toplevel)
+VERSION=$(sed -n 's#^  <version>\(.*\)</version>#\1#p' "$ROOT/pom.xml" | head -1)
+for ref in "$BASE_REF" "$HEAD_REF"; do
+  if ! git -C "$ROOT" show "$ref:pom.xml" | grep -q "^  <version>$VERSION</version>"; then
+    echo "$ref is not at version $VERSION, results can't be compared with the current benchmarks" >&2
+    exit 2
+  fi
+done
+OUT="$ROOT/benchmarks/target/compare"
+mkdir -p "$OUT"
+
+# Remove the benchmark sources reported by the compiler until the module builds
+build_benchmarks() {
+  local worktree=$1
+  local log="$worktree/benchmarks-build.log"
+  local attempt
+  for attempt in 1 2 3 4 5 6 7 8 9 10; do
+    if (cd "$worktree" && mvn -B -q -f benchmarks/pom.xml package >"$log" 2>&1); then
+      return 0
+    fi
+    local failing
+    failing=$(sed -n 's#^\[ERROR\] \(/.*/benchmarks/src/main/java/.*\.java\):\[.*#\1#p' "$log" | sort -u)
+    if [ -z "$failing" ]; then
+      break
+    fi
+    for source in $failing; do
+      echo "Leaving out $(basename "$source" .java): it doesn't compile against this commit" >&2
+      rm -f "$source"
+    done
+  done
+  cat "$log" >&2
+  return 1
+}
+
+run_benchmarks() {
+  local ref=$1
+  shift
+  local sha
+  sha=$(git -C "$ROOT" rev-parse --short "$ref")
+  local worktree
+  worktree=$(mktemp -d)
+  git -C "$ROOT" worktree add --detach "$worktree" "$sha" >&2
+  rm -rf "$worktree/benchmarks"
+  cp -r "$ROOT/benchmarks" "$worktree/benchmarks"
+  rm -rf "$worktree/benchmarks/target"
+  # Older commits don't know the benchmarks module: install their core, then build the module against it
+  (cd "$worktree" && mvn -B -q install -pl core -am -DskipTests >&2)
+  build_benchmarks "$worktree"
+  java -jar "$worktree/benchmarks/target/benchmarks.jar" -rf json -rff "$OUT/$sha.json" "$@" >&2
+  cp "$worktree/benchmarks/target/benchmarks.jar" "$OUT/benchmarks-$sha.jar"
+  git -C "$ROOT" worktree remove --force "$worktree" >&2
+  echo "$sha"
+}
+
+BASE_SHA=$(run_benchmarks "$BASE_REF" "$@")
+HEAD_SHA=$(run_benchmarks "$HEAD_REF" "$@")
+
+java -cp "$OUT/benchmarks-$HEAD_SHA.jar" org.sonarsource.sonarlint.core.benchmarks.CompareResults "$OUT/$BASE_SHA.json" "$OUT/$HEAD_SHA.json"
@@ -0,0 +1,121 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare two JMH result files produced with <code>-rf json</code>, typically of two commits.
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar org.sonarsource.sonarlint.core.benchmarks.CompareResults base.json head.json [threshold%]</code>
+ * <p>
+ * All benchmarks report a time per operation, so a higher score is worse. A benchmark is reported as a regression when its score increased
+ * by more than the threshold (10% by default) and by more than the sum of the error margins. Exit code is 1 when there is at least one regression.
+ */
+public class CompareResults {
+
+  private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: CompareResults <base.json> <head.json> [threshold%]");
+      System.exit(2);
+    }
+    double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+    Map<String, Score> base = read(args[0]);
+    Map<String, Score> head = read(args[1]);
+
+    int regressions = 0;
+    System.out.println(String.format(Locale.ENGLISH, "%-90s %14s %14s %9s", "Benchmark", "Base", "Head", "Change"));
+    for (Map.Entry<String, Score> entry : head.entrySet()) {
+      Score headScore = entry.getValue();
+      Score baseScore = base.get(entry.getKey());
+      if (baseScore == null) {
+        System.out.println(String.format(Locale.ENGLISH, "%-90s %14s %14s %9s", entry.getKey(), "-", headScore, "new"));
+        continue;
+      }
+      double changePercent = (headScore.value - baseScore.value) * 100 / baseScore.value;
+      boolean regression = changePercent > threshold && headScore.value - baseScore.value > headScore.error + baseScore.error;
+      if (regression) {
+        regressions++;
+      }
+      System.out.println(String.format(Locale.ENGLISH, "%-90s %14s %14s %+8.1f%%%s", entry.getKey(), baseScore, headScore, changePercent, regression ? "  REGRESSION" : ""));
+    }
+    System.out.println();
+    System.out.println(regressions + " regression(s) above " + threshold + "%");
+    if (regressions > 0) {
+      System.exit(1);
+    }
+  }
+
+  private static Map<String, Score> read(String file) throws IOException {
+    Map<String, Score> scores = new TreeMap<>();
+    try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+      JsonArray results = JsonParser.parseReader(reader).getAsJsonArray();
+      for (JsonElement element : results) {
+        JsonObject result = element.getAsJsonObject();
+        JsonObject metric = result.getAsJsonObject("primaryMetric");
+        double error = metric.get("scoreError").isJsonPrimitive() ? metric.get("scoreError").getAsDouble() : 0;
+        scores.put(name(result), new Score(metric.get("score").getAsDouble(), Double.isNaN(error) ? 0 : error, metric.get("scoreUnit").getAsString()));
+      }
+    }
+    return scores;
+  }
+
+  private static String name(JsonObject result) {
+    String benchmark = result.get("benchmark").getAsString();
+    StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+    if (result.has("params")) {
+      Map<String, String> params = new LinkedHashMap<>();
+      result.getAsJsonObject("params").entrySet().forEach(e -> params.put(e.getKey(), e.getValue().getAsString()));
+      name.append(params);
+    }
+    return name.toString();
+  }
+
+  private static class Score {
+    private final double value;
+    private final double error;
+    private final String unit;
+
+    private Score(double value, double error, String unit) {
+      this.value = value;
+      this.error = error;
+      this.unit = unit;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ENGLISH, "%.3f %s", value, unit);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.benchmarks.data.MapConfiguration;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
+
+/**
+ * Evaluation of the server inclusion/exclusion patterns, done for each file of a bound project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExclusionFiltersBenchmark {
+
+  private static final int FILE_COUNT = 10_000;
+
+  private ExclusionFilters filters;
+  private List<String> relativePaths;
+
+  @Setup
+  public void generate() {
+    MapConfiguration configuration = new MapConfiguration()
+      .set("sonar.inclusions", "**/src/main/**,**/src/test/**")
+      .set("sonar.exclusions", "**/generated/**,**/repository/**/*.java,web/**,**/*Dto.java,**/config/security/**")
+      .set("sonar.test.inclusions", "**/src/test/**")
+      .set("sonar.test.exclusions", "**/it/**,**/*IT.java");
+    filters = new ExclusionFilters(configuration);
+    filters.prepare();
+    relativePaths = SyntheticData.relativePaths(FILE_COUNT, 6, SyntheticData.DEFAULT_SEED);
+  }
+
+  @Benchmark
+  public int acceptAll() {
+    int accepted = 0;
+    for (String relativePath : relativePaths) {
+      if (filters.accept(relativePath, relativePath.contains("/src/test/") ? InputFile.Type.TEST : InputFile.Type.MAIN)) {
+        accepted++;
+      }
+    }
+    return accepted;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.container.storage.FileMatcher;
+import org.sonarsource.sonarlint.core.util.ReversePathTree;
+
+/**
+ * Computation of the path prefixes between the IDE project and the server project, done when a project is bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileMatcherBenchmark {
+
+  @Param({"1000", "50000"})
+  int fileCount;
+
+  @Param({"4", "12"})
+  int depth;
+
+  private List<Path> serverPaths;
+  private List<String> idePaths;
+  private ReversePathTree serverPathTree;
+
+  @Setup
+  public void generate() {
+    List<String> relativePaths = SyntheticData.relativePaths(fileCount, depth, SyntheticData.DEFAULT_SEED);
+    serverPaths = SyntheticData.toPaths(relativePaths);
+    idePaths = new ArrayList<>(relativePaths.size());
+    // The IDE project is rooted one level above the server project
+    relativePaths.forEach(p -> idePaths.add("workspace/" + p));
+    serverPathTree = buildTree();
+  }
+
+  @Benchmark
+  public ReversePathTree buildTree() {
+    ReversePathTree tree = new ReversePathTree();
+    serverPaths.forEach(tree::index);
+    return tree;
+  }
+
+  @Benchmark
+  public FileMatcher.Result match() {
+    return new FileMatcher().match(serverPathTree, idePaths);
+  }
+}
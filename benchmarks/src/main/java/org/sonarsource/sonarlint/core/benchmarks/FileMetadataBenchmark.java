@@ -0,0 +1,69 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.Metadata;
+
+/**
+ * Computation of line count and line offsets, done for each analyzed file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileMetadataBenchmark {
+
+  private static final URI FILE_URI = URI.create("file:///benchmark/Generated.java");
+
+  @Param({"1000", "50000"})
+  int lineCount;
+
+  private final FileMetadata fileMetadata = new FileMetadata();
+  private byte[] content;
+
+  @Setup
+  public void generate() {
+    content = SyntheticData.sourceFile(lineCount, SyntheticData.DEFAULT_SEED).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Metadata readMetadata() {
+    return fileMetadata.readMetadata(new ByteArrayInputStream(content), StandardCharsets.UTF_8, FILE_URI, null);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.container.connected.IssueStore;
+import org.sonarsource.sonarlint.core.container.connected.ServerIssueStore;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Storage of the issues downloaded from the server, and lookup of the issues of a file after each analysis.
+ */
+public class IssueStoreBenchmark {
+
+  public enum StoreType {
+    LEGACY(ServerIssueStore::new),
+    INDEXED(StoreType::newIndexedStore);
+
+    private final Function<Path, IssueStore> factory;
+
+    StoreType(Function<Path, IssueStore> factory) {
+      this.factory = factory;
+    }
+
+    /**
+     * Created by name, so that the legacy store can still be compared with older commits that don't have the indexed store.
+     */
+    private static IssueStore newIndexedStore(Path base) {
+      try {
+        return (IssueStore) Class.forName("org.sonarsource.sonarlint.core.container.connected.IndexedServerIssueStore")
+          .getConstructor(Path.class)
+          .newInstance(base);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("The indexed issue store is not available in this version of the core", e);
+      }
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    @Param({"LEGACY", "INDEXED"})
+    StoreType storeType;
+
+    @Param({"1000"})
+    int fileCount;
+
+    @Param({"20"})
+    int issuesPerFile;
+
+    List<String> filePaths;
+    List<ServerIssue> issues;
+    Path root;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+      filePaths = SyntheticData.relativePaths(fileCount, 6, SyntheticData.DEFAULT_SEED);
+      issues = SyntheticData.serverIssues(filePaths, issuesPerFile, SyntheticData.DEFAULT_SEED);
+      root = Files.createTempDirectory("sonarlint-issue-store-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void clean() {
+      FileUtils.deleteRecursively(root);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class EmptyStore {
+    IssueStore store;
+
+    @Setup(Level.Iteration)
+    public void create(Data data) throws IOException {
+      store = data.storeType.factory.apply(Files.createTempDirectory(data.root, "empty"));
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class FilledStore {
+    IssueStore store;
+    private final Random random = new Random(SyntheticData.DEFAULT_SEED);
+
+    @Setup(Level.Trial)
+    public void create(Data data) throws IOException {
+      store = data.storeType.factory.apply(Files.createTempDirectory(data.root, "filled"));
+      store.save(data.issues);
+    }
+
+    String randomFile(Data data) {
+      return data.filePaths.get(random.nextInt(data.filePaths.size()));
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  @Fork(1)
+  public IssueStore saveAll(Data data, EmptyStore emptyStore) {
+    emptyStore.store.save(data.issues);
+    return emptyStore.store;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Fork(1)
+  public List<ServerIssue> loadFile(Data data, FilledStore filledStore) {
+    return filledStore.store.load(filledStore.randomFile(data));
+  }
+}
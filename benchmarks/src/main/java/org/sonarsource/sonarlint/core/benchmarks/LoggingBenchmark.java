@@ -0,0 +1,111 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.util.AsyncLogOutput;
+
+/**
+ * Logging from analysis threads through {@code SonarLintLogger}, with debug logs enabled or not in the output, and with the output
+ * called synchronously or through an {@link AsyncLogOutput}.
+ * The state is per thread because the log target is set for the current thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+  private static final Logger LOG = Loggers.get(LoggingBenchmark.class);
+
+  @Param({"true", "false"})
+  boolean debug;
+
+  @Param({"sync", "async"})
+  String output;
+
+  private AsyncLogOutput asyncOutput;
+  private long fileIndex;
+  // Written by the dispatcher thread of the async output, only to keep messages alive
+  private long loggedChars;
+
+  @Setup
+  public void setTarget() {
+    LogOutput.Level enabledLevel = debug ? LogOutput.Level.DEBUG : LogOutput.Level.INFO;
+    LogOutput sink = new LogOutput() {
+      @Override
+      public void log(String formattedMessage, Level level) {
+        loggedChars += formattedMessage.length();
+      }
+
+      @Override
+      public Level enabledLevel() {
+        return enabledLevel;
+      }
+    };
+    if ("async".equals(output)) {
+      asyncOutput = new AsyncLogOutput(sink);
+      Loggers.setTarget(asyncOutput);
+    } else {
+      Loggers.setTarget(sink);
+    }
+  }
+
+  @TearDown
+  public void clearTarget() {
+    Loggers.setTarget(null);
+    if (asyncOutput != null) {
+      asyncOutput.close();
+    }
+  }
+
+  @Benchmark
+  public void debugWithArguments() {
+    fileIndex++;
+    LOG.debug("Initializing metadata of file {} ({} bytes)", "src/main/java/Generated" + (fileIndex % 100) + ".java", fileIndex);
+  }
+
+  @Benchmark
+  public void debugWithoutArguments() {
+    LOG.debug("Execute Sensor: JavaSensor");
+  }
+
+  @Benchmark
+  public void info() {
+    LOG.info("Index files");
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectComponents;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Serialization used by the storage: single messages in files, and streams of delimited messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtobufUtilBenchmark {
+
+  @Param({"10000"})
+  int messageCount;
+
+  private Path dir;
+  private Path componentsFile;
+  private ProjectComponents components;
+  private List<ServerIssue> issues;
+  private byte[] delimitedIssues;
+
+  @Setup
+  public void generate() throws IOException {
+    List<String> filePaths = SyntheticData.relativePaths(messageCount, 6, SyntheticData.DEFAULT_SEED);
+    components = ProjectComponents.newBuilder().addAllComponent(filePaths).build();
+    issues = SyntheticData.serverIssues(filePaths.subList(0, messageCount / 10), 10, SyntheticData.DEFAULT_SEED);
+    dir = Files.createTempDirectory("sonarlint-protobuf-benchmark");
+    componentsFile = dir.resolve("component_list.pb");
+    ProtobufUtil.writeToFile(components, componentsFile);
+    delimitedIssues = writeDelimited();
+  }
+
+  @TearDown
+  public void clean() {
+    FileUtils.deleteRecursively(dir);
+  }
+
+  @Benchmark
+  public Path writeFile() {
+    ProtobufUtil.writeToFile(components, componentsFile);
+    return componentsFile;
+  }
+
+  @Benchmark
+  public ProjectComponents readFile() {
+    return ProtobufUtil.readFile(componentsFile, ProjectComponents.parser());
+  }
+
+  @Benchmark
+  public byte[] writeDelimited() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProtobufUtil.writeMessages(out, issues);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public List<ServerIssue> readDelimited() {
+    return ProtobufUtil.readMessages(new ByteArrayInputStream(delimitedIssues), ServerIssue.parser());
+  }
+}
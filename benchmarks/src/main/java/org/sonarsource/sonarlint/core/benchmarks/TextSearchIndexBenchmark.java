@@ -0,0 +1,85 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.client.api.util.TextSearchIndex;
+
+/**
+ * Indexing and search of project keys and names, used when binding a project in the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextSearchIndexBenchmark {
+
+  @Param({"1000", "50000"})
+  int documentCount;
+
+  private List<String> documents;
+  private TextSearchIndex<String> index;
+
+  @Setup
+  public void generate() {
+    documents = SyntheticData.relativePaths(documentCount, 3, SyntheticData.DEFAULT_SEED);
+    Random random = new Random(SyntheticData.DEFAULT_SEED);
+    index = new TextSearchIndex<>();
+    for (String document : documents) {
+      index.index(document, document.replace('/', ' ') + " " + SyntheticData.sentence(random, 3));
+    }
+  }
+
+  @Benchmark
+  public TextSearchIndex<String> buildIndex() {
+    TextSearchIndex<String> newIndex = new TextSearchIndex<>();
+    for (String document : documents) {
+      newIndex.index(document, document.replace('/', ' '));
+    }
+    return newIndex;
+  }
+
+  @Benchmark
+  public Map<String, Double> searchPrefix() {
+    return index.search("serv");
+  }
+
+  @Benchmark
+  public Map<String, Double> searchPhrase() {
+    return index.search("main java org acme");
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticTrackable;
+import org.sonarsource.sonarlint.core.tracking.Tracker;
+import org.sonarsource.sonarlint.core.tracking.Tracking;
+
+/**
+ * Matching of the issues of a new analysis with the previous ones, as done after each analysis of a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackerBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  int issueCount;
+
+  private List<SyntheticTrackable> base;
+  private List<SyntheticTrackable> raw;
+
+  @Setup
+  public void generate() {
+    base = SyntheticData.trackables(issueCount, issueCount * 5, SyntheticData.DEFAULT_SEED);
+    raw = SyntheticData.evolve(base, SyntheticData.DEFAULT_SEED);
+  }
+
+  @Benchmark
+  public Tracking<SyntheticTrackable, SyntheticTrackable> track() {
+    return new Tracker<SyntheticTrackable, SyntheticTrackable>().track(() -> raw, () -> base);
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Generators of realistic but deterministic data (large source files, many issues, deep path trees).
+ * The same seed always produces the same data, so that results of two commits can be compared.
+ */
+public final class SyntheticData {
+
+  public static final long DEFAULT_SEED = 42;
+
+  private static final String[] RULE_KEYS = {"S100", "S1068", "S1118", "S1172", "S1192", "S1481", "S2259", "S3776", "S4144", "S5993"};
+  private static final String[] SEVERITIES = {"INFO", "MINOR", "MAJOR", "CRITICAL", "BLOCKER"};
+  private static final String[] WORDS = {"remove", "unused", "private", "field", "method", "parameter", "rename", "this", "local", "variable", "define", "constant",
+    "instead", "of", "duplicating", "literal", "times", "refactor", "reduce", "cognitive", "complexity", "from", "to", "allowed", "null", "pointer", "dereference"};
+  private static final String[] MODULES = {"core", "api", "server", "client", "common", "plugins", "web"};
+  private static final String[] PACKAGE_SEGMENTS = {"acme", "internal", "impl", "util", "service", "model", "repository", "controller", "config", "security"};
+
+  private SyntheticData() {
+    // only static stuff
+  }
+
+  /**
+   * Java-like source code, with indentation, comments and blank lines, and an average line length close to real code.
+   */
+  public static String sourceFile(int lineCount, long seed) {
+    Random random = new Random(seed);
+    StringBuilder sb = new StringBuilder(lineCount * 40);
+    sb.append("package org.acme.generated;\n\n");
+    sb.append("public class Generated {\n");
+    int depth = 1;
+    for (int line = 3; line < lineCount - 1; line++) {
+      int kind = random.nextInt(10);
+      if (kind == 0) {
+        sb.append('\n');
+        continue;
+      }
+      indent(sb, depth);
+      if (kind == 1) {
+        sb.append("// ").append(sentence(random, 4 + random.nextInt(8))).append('\n');
+      } else if (kind == 2 && depth < 6) {
+        sb.append("if (value").append(random.nextInt(100)).append(" != null) {\n");
+        depth++;
+      } else if (kind == 3 && depth > 1) {
+        sb.setLength(sb.length() - 2);
+        indent(sb, depth - 1);
+        sb.append("}\n");
+        depth--;
+      } else {
+        sb.append("String value").append(random.nextInt(100)).append(" = compute(\"").append(sentence(random, 1 + random.nextInt(5))).append("\", ")
+          .append(random.nextInt(1000)).append(");\n");
+      }
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void indent(StringBuilder sb, int depth) {
+    for (int i = 0; i < depth; i++) {
+      sb.append("  ");
+    }
+  }
+
+  public static String sentence(Random random, int wordCount) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < wordCount; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Relative paths of files in a multi-module project, like "server/src/main/java/org/acme/impl/util/File12.java".
+   *
+   * @param depth number of package segments below "org"
+   */
+  public static List<String> relativePaths(int count, int depth, long seed) {
+    Random random = new Random(seed);
+    List<String> paths = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StringBuilder sb = new StringBuilder();
+      sb.append(MODULES[random.nextInt(MODULES.length)]).append(random.nextInt(5) == 0 ? "/src/test/java/org" : "/src/main/java/org");
+      for (int d = 0; d < depth; d++) {
+        sb.append('/').append(PACKAGE_SEGMENTS[random.nextInt(PACKAGE_SEGMENTS.length)]);
+      }
+      sb.append("/File").append(i).append(".java");
+      paths.add(sb.toString());
+    }
+    return paths;
+  }
+
+  public static List<Path> toPaths(List<String> relativePaths) {
+    List<Path> paths = new ArrayList<>(relativePaths.size());
+    relativePaths.forEach(p -> paths.add(Paths.get(p)));
+    return paths;
+  }
+
+  /**
+   * Issues as stored after download from the server, spread on the given files.
+   */
+  public static List<ServerIssue> serverIssues(List<String> filePaths, int issuesPerFile, long seed) {
+    Random random = new Random(seed);
+    List<ServerIssue> issues = new ArrayList<>(filePaths.size() * issuesPerFile);
+    ServerIssue.Builder builder = ServerIssue.newBuilder();
+    int key = 0;
+    for (String filePath : filePaths) {
+      for (int i = 0; i < issuesPerFile; i++) {
+        int line = 1 + random.nextInt(2000);
+        builder.clear()
+          .setKey("AX" + (key++))
+          .setRuleRepository("java")
+          .setRuleKey(RULE_KEYS[random.nextInt(RULE_KEYS.length)])
+          .setSeverity(SEVERITIES[random.nextInt(SEVERITIES.length)])
+          .setStatus("OPEN")
+          .setType("CODE_SMELL")
+          .setLineHash(Integer.toHexString(random.nextInt()))
+          .setCreationDate(1_600_000_000_000L + random.nextInt(1_000_000_000))
+          .setPrimaryLocation(ServerIssue.Location.newBuilder()
+            .setPath(filePath)
+            .setMsg(sentence(random, 5 + random.nextInt(10)))
+            .setTextRange(ServerIssue.TextRange.newBuilder()
+              .setStartLine(line)
+              .setStartLineOffset(random.nextInt(40))
+              .setEndLine(line)
+              .setEndLineOffset(40 + random.nextInt(40))));
+        issues.add(builder.build());
+      }
+    }
+    return issues;
+  }
+
+  /**
+   * Issues of an analysis, as tracked against the previous analysis or the server.
+   */
+  public static List<SyntheticTrackable> trackables(int count, int lineCount, long seed) {
+    Random random = new Random(seed);
+    List<SyntheticTrackable> trackables = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int line = 1 + random.nextInt(lineCount);
+      String message = sentence(random, 5 + random.nextInt(10));
+      trackables.add(new SyntheticTrackable("java:" + RULE_KEYS[random.nextInt(RULE_KEYS.length)], message, line, random.nextInt(), random.nextInt(),
+        random.nextInt(3) == 0 ? ("AX" + i) : null));
+    }
+    return trackables;
+  }
+
+  /**
+   * Simulate the evolution of issues between two analyses: some lines shifted, some messages changed, some issues fixed.
+   */
+  public static List<SyntheticTrackable> evolve(List<SyntheticTrackable> previous, long seed) {
+    Random random = new Random(seed);
+    List<SyntheticTrackable> next = new ArrayList<>(previous.size());
+    for (SyntheticTrackable t : previous) {
+      int change = random.nextInt(10);
+      if (change == 0) {
+        // fixed
+        continue;
+      }
+      Integer line = t.getLine();
+      String message = t.getMessage();
+      Integer lineHash = t.getLineHash();
+      if (change <= 3 && line != null) {
+        line = line + 1 + random.nextInt(5);
+      } else if (change == 4) {
+        message = message + " " + sentence(random, 1);
+      } else if (change == 5) {
+        lineHash = random.nextInt();
+      }
+      next.add(new SyntheticTrackable(t.getRuleKey(), message, line, lineHash, t.getTextRangeHash(), t.getServerIssueKey()));
+    }
+    return next;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.throughput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Compare results with the ones of a baseline, for the scenarios present in both. Throughputs are regressions when they are lower than the
+ * baseline by more than the threshold. Peak heap and GC time are regressions when they are higher by more than the threshold, ignoring
+ * GC time differences below {@link #GC_MILLIS_NOISE}.
+ */
+class BaselineCheck {
+
+  static final long GC_MILLIS_NOISE = 100;
+
+  private final double thresholdPercent;
+  private final List<String> regressions = new ArrayList<>();
+
+  BaselineCheck(double thresholdPercent) {
+    this.thresholdPercent = thresholdPercent;
+  }
+
+  List<String> check(List<ThroughputResult> baseline, List<ThroughputResult> results) {
+    Map<String, ThroughputResult> baseByScenario = baseline.stream().collect(Collectors.toMap(ThroughputResult::scenario, r -> r, (a, b) -> b));
+    for (ThroughputResult head : results) {
+      ThroughputResult base = baseByScenario.get(head.scenario());
+      if (base == null) {
+        continue;
+      }
+      lowerIsWorse(head, base, "files/s", r -> r.filesPerSecond);
+      lowerIsWorse(head, base, "issues/s", r -> r.issuesPerSecond);
+      higherIsWorse(head, base, "peak heap MB", r -> r.peakHeapMb, 0);
+      higherIsWorse(head, base, "GC ms", r -> r.gcMillis, GC_MILLIS_NOISE);
+    }
+    return regressions;
+  }
+
+  private void lowerIsWorse(ThroughputResult head, ThroughputResult base, String metric, ToDoubleFunction<ThroughputResult> value) {
+    double baseValue = value.applyAsDouble(base);
+    double headValue = value.applyAsDouble(head);
+    if (headValue < baseValue * (1 - thresholdPercent / 100)) {
+      report(head, metric, baseValue, headValue);
+    }
+  }
+
+  private void higherIsWorse(ThroughputResult head, ThroughputResult base, String metric, ToDoubleFunction<ThroughputResult> value, double noise) {
+    double baseValue = value.applyAsDouble(base);
+    double headValue = value.applyAsDouble(head);
+    if (headValue > baseValue * (1 + thresholdPercent / 100) && headValue - baseValue > noise) {
+      report(head, metric, baseValue, headValue);
+    }
+  }
+
+  private void report(ThroughputResult head, String metric, double baseValue, double headValue) {
+    double changePercent = baseValue == 0 ? Double.POSITIVE_INFINITY : (headValue - baseValue) * 100 / baseValue;
+    regressions.add(String.format(Locale.ENGLISH, "%-22s %-13s %12.1f -> %12.1f (%+.1f%%)", head.scenario(), metric, baseValue, headValue, changePercent));
+  }
+}
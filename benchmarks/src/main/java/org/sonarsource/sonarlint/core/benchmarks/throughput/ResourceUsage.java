@@ -0,0 +1,93 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.throughput;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Heap and garbage collection usage of the JVM between {@link #start()} and {@link #stop()}.
+ * <p>
+ * The peak heap is the sum of the peak usage of each heap memory pool, so it is an upper bound of the real peak.
+ */
+class ResourceUsage {
+
+  private final long gcMillisAtStart;
+  private final long gcCountAtStart;
+  private long peakHeapBytes;
+  private long gcMillis;
+  private long gcCount;
+
+  private ResourceUsage() {
+    this.gcMillisAtStart = totalGcMillis();
+    this.gcCountAtStart = totalGcCount();
+  }
+
+  static ResourceUsage start() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+    return new ResourceUsage();
+  }
+
+  ResourceUsage stop() {
+    gcMillis = totalGcMillis() - gcMillisAtStart;
+    gcCount = totalGcCount() - gcCountAtStart;
+    peakHeapBytes = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peakHeapBytes += pool.getPeakUsage().getUsed();
+      }
+    }
+    return this;
+  }
+
+  long peakHeapBytes() {
+    return peakHeapBytes;
+  }
+
+  long gcMillis() {
+    return gcMillis;
+  }
+
+  long gcCount() {
+    return gcCount;
+  }
+
+  private static long totalGcMillis() {
+    long total = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, gc.getCollectionTime());
+    }
+    return total;
+  }
+
+  private static long totalGcCount() {
+    long total = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, gc.getCollectionCount());
+    }
+    return total;
+  }
+}
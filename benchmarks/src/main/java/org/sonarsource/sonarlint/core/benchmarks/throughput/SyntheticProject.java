@@ -0,0 +1,99 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.throughput;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.sonarsource.sonarlint.core.benchmarks.data.OnDiskClientInputFile;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * A project of Xoo files written on disk. Files are Java-like sources from {@link SyntheticData}, where some lines contain the "xoo" tag
+ * reported by the Xoo rule <code>xoo:HasTag</code>.
+ * <p>
+ * A project is generated only once for a given number of files, number of lines and seed, and reused by later runs.
+ */
+class SyntheticProject {
+
+  private static final String COMPLETE_MARKER = ".complete";
+  private static final int TAGGED_LINES_RATIO = 10;
+
+  private final Path baseDir;
+  private final List<ClientInputFile> inputFiles;
+
+  private SyntheticProject(Path baseDir, List<ClientInputFile> inputFiles) {
+    this.baseDir = baseDir;
+    this.inputFiles = inputFiles;
+  }
+
+  static SyntheticProject generate(Path workDir, int fileCount, int lineCount, long seed) throws IOException {
+    Path baseDir = workDir.resolve("project-" + fileCount + "-" + lineCount + "-" + seed);
+    boolean complete = Files.exists(baseDir.resolve(COMPLETE_MARKER));
+    List<String> relativePaths = SyntheticData.relativePaths(fileCount, 4, seed);
+    List<ClientInputFile> inputFiles = new ArrayList<>(fileCount);
+    Random random = new Random(seed);
+    for (String relativePath : relativePaths) {
+      Path file = baseDir.resolve(relativePath.replace(".java", ".xoo"));
+      if (!complete) {
+        Files.createDirectories(file.getParent());
+        Files.write(file, xooFile(lineCount, random.nextLong()).getBytes(StandardCharsets.UTF_8));
+      }
+      inputFiles.add(new OnDiskClientInputFile(baseDir, file));
+    }
+    if (!complete) {
+      Files.createFile(baseDir.resolve(COMPLETE_MARKER));
+    }
+    return new SyntheticProject(baseDir, inputFiles);
+  }
+
+  static String xooFile(int lineCount, long seed) {
+    Random random = new Random(seed);
+    String[] lines = SyntheticData.sourceFile(lineCount, seed).split("\n", -1);
+    StringBuilder sb = new StringBuilder(lineCount * 45);
+    for (int i = 0; i < lines.length; i++) {
+      if (i > 0) {
+        sb.append('\n');
+      }
+      sb.append(lines[i]);
+      if (!lines[i].isEmpty() && random.nextInt(TAGGED_LINES_RATIO) == 0) {
+        sb.append(" // xoo");
+      }
+    }
+    return sb.toString();
+  }
+
+  Path baseDir() {
+    return baseDir;
+  }
+
+  List<ClientInputFile> inputFiles() {
+    return inputFiles;
+  }
+
+  int fileCount() {
+    return inputFiles.size();
+  }
+}
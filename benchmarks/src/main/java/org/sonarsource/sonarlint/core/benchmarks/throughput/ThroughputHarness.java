@@ -0,0 +1,293 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.throughput;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonarsource.sonarlint.core.ConnectedSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+
+/**
+ * End-to-end analysis throughput of the standalone and connected engines, on synthetic Xoo projects of increasing size.
+ * No network access is needed: the connected engine uses a storage written by {@link XooStorage}.
+ * <p>
+ * Usage: <code>java -cp benchmarks.jar org.sonarsource.sonarlint.core.benchmarks.throughput.ThroughputHarness [--option value]...</code>
+ * <p>
+ * Each scenario (mode and number of files) is analyzed after warm-up analyses of the same project, and the iteration with the median
+ * duration is reported, with the highest peak heap of all iterations. Results are written as JSON. When a baseline produced by a previous
+ * run is given, the exit code is 1 if any measure is worse than the baseline by more than the threshold.
+ */
+public class ThroughputHarness {
+
+  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+  private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+  static {
+    DEFAULTS.put("files", "1000,10000,100000");
+    DEFAULTS.put("lines", "60");
+    DEFAULTS.put("modes", "standalone,connected");
+    DEFAULTS.put("warmup", "1");
+    DEFAULTS.put("iterations", "3");
+    DEFAULTS.put("seed", Long.toString(SyntheticData.DEFAULT_SEED));
+    DEFAULTS.put("plugin", "benchmarks/target/plugins/sonar-xoo-plugin.jar");
+    DEFAULTS.put("work-dir", "benchmarks/target/throughput");
+    DEFAULTS.put("threshold", "20");
+  }
+
+  private static final LogOutput STDERR_WARNINGS = new LogOutput() {
+    @Override
+    public void log(String formattedMessage, Level level) {
+      System.err.println(level + " " + formattedMessage);
+    }
+
+    @Override
+    public Level enabledLevel() {
+      return Level.WARN;
+    }
+  };
+
+  private final Map<String, String> options;
+  private final Path workDir;
+  private final Path plugin;
+  private final int linesPerFile;
+
+  ThroughputHarness(Map<String, String> options) {
+    this.options = options;
+    this.workDir = Paths.get(options.get("work-dir")).toAbsolutePath();
+    this.plugin = Paths.get(options.get("plugin")).toAbsolutePath();
+    this.linesPerFile = Integer.parseInt(options.get("lines"));
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parse(args);
+    ThroughputHarness harness = new ThroughputHarness(options);
+    List<ThroughputResult> results = harness.run();
+
+    Path output = options.containsKey("output") ? Paths.get(options.get("output")) : harness.workDir.resolve("results.json");
+    write(results, output);
+    System.out.println("Results written to " + output);
+
+    if (options.containsKey("baseline")) {
+      double threshold = Double.parseDouble(options.get("threshold"));
+      List<String> regressions = new BaselineCheck(threshold).check(read(Paths.get(options.get("baseline"))), results);
+      regressions.forEach(r -> System.out.println("REGRESSION " + r));
+      System.out.println(regressions.size() + " regression(s) above " + threshold + "%");
+      if (!regressions.isEmpty()) {
+        System.exit(1);
+      }
+    }
+  }
+
+  private static Map<String, String> parse(String[] args) {
+    Map<String, String> options = new HashMap<>(DEFAULTS);
+    for (int i = 0; i < args.length; i += 2) {
+      if (!args[i].startsWith("--") || i + 1 == args.length) {
+        System.err.println("Usage: ThroughputHarness [--option value]..., with options and their defaults:");
+        DEFAULTS.forEach((k, v) -> System.err.println("  --" + k + " " + v));
+        System.err.println("  --output <work-dir>/results.json");
+        System.err.println("  --baseline <previous results.json>");
+        System.exit(2);
+      }
+      options.put(args[i].substring(2), args[i + 1]);
+    }
+    return options;
+  }
+
+  List<ThroughputResult> run() throws IOException {
+    if (!Files.exists(plugin)) {
+      throw new IllegalStateException("Xoo plugin not found: " + plugin + ". Build the benchmarks module first, or use --plugin.");
+    }
+    List<SyntheticProject> projects = new ArrayList<>();
+    for (String count : options.get("files").split(",")) {
+      System.out.println("Generating project of " + count.trim() + " files");
+      projects.add(SyntheticProject.generate(workDir, Integer.parseInt(count.trim()), linesPerFile, Long.parseLong(options.get("seed"))));
+    }
+    List<ThroughputResult> results = new ArrayList<>();
+    for (String mode : options.get("modes").split(",")) {
+      try (Engine engine = start(mode.trim())) {
+        for (SyntheticProject project : projects) {
+          ThroughputResult result = measure(mode.trim(), engine, project);
+          System.out.println(result);
+          results.add(result);
+        }
+      }
+    }
+    return results;
+  }
+
+  private ThroughputResult measure(String mode, Engine engine, SyntheticProject project) {
+    for (int i = 0; i < Integer.parseInt(options.get("warmup")); i++) {
+      analyze(engine, project, new AtomicLong());
+    }
+    List<ThroughputResult> iterations = new ArrayList<>();
+    for (int i = 0; i < Integer.parseInt(options.get("iterations")); i++) {
+      System.gc();
+      AtomicLong issues = new AtomicLong();
+      ResourceUsage usage = ResourceUsage.start();
+      long start = System.nanoTime();
+      analyze(engine, project, issues);
+      long duration = System.nanoTime() - start;
+      iterations.add(ThroughputResult.of(mode, project, linesPerFile, issues.get(), duration, usage.stop()));
+    }
+    iterations.sort(Comparator.comparingLong(r -> r.durationMillis));
+    ThroughputResult median = iterations.get(iterations.size() / 2);
+    median.peakHeapMb = iterations.stream().mapToDouble(r -> r.peakHeapMb).max().orElse(0);
+    return median;
+  }
+
+  private static void analyze(Engine engine, SyntheticProject project, AtomicLong issues) {
+    AnalysisResults results = engine.analyze(project, issue -> issues.incrementAndGet());
+    if (results.indexedFileCount() != project.fileCount() || !results.failedAnalysisFiles().isEmpty()) {
+      throw new IllegalStateException(String.format(Locale.ENGLISH, "Analysis of %d files indexed %d files, and failed for %d files", project.fileCount(),
+        results.indexedFileCount(), results.failedAnalysisFiles().size()));
+    }
+  }
+
+  private Engine start(String mode) throws IOException {
+    Path userHome = workDir.resolve(mode + "-home");
+    deleteRecursively(userHome);
+    switch (mode) {
+      case "standalone":
+        return standalone(userHome);
+      case "connected":
+        return connected(userHome);
+      default:
+        throw new IllegalArgumentException("Unknown mode: " + mode);
+    }
+  }
+
+  private StandaloneGlobalConfiguration standaloneConfiguration(Path userHome) throws MalformedURLException {
+    return StandaloneGlobalConfiguration.builder()
+      .addPlugin(plugin.toUri().toURL())
+      .addEnabledLanguage(Language.XOO)
+      .setSonarLintUserHome(userHome)
+      .setLogOutput(STDERR_WARNINGS)
+      .build();
+  }
+
+  private Engine standalone(Path userHome) throws MalformedURLException {
+    StandaloneSonarLintEngineImpl engine = new StandaloneSonarLintEngineImpl(standaloneConfiguration(userHome));
+    return new Engine() {
+      @Override
+      public AnalysisResults analyze(SyntheticProject project, IssueListener listener) {
+        return engine.analyze(StandaloneAnalysisConfiguration.builder()
+          .setBaseDir(project.baseDir())
+          .addInputFiles(project.inputFiles())
+          .build(), listener, null, null);
+      }
+
+      @Override
+      public void close() {
+        engine.stop();
+      }
+    };
+  }
+
+  private Engine connected(Path userHome) throws IOException {
+    ConnectedGlobalConfiguration configuration = ConnectedGlobalConfiguration.builder()
+      .setServerId(XooStorage.SERVER_ID)
+      .addEnabledLanguage(Language.XOO)
+      .setSonarLintUserHome(userHome)
+      .setLogOutput(STDERR_WARNINGS)
+      .build();
+    StandaloneSonarLintEngineImpl rulesEngine = new StandaloneSonarLintEngineImpl(standaloneConfiguration(userHome.resolve("rules")));
+    try {
+      XooStorage.write(configuration, plugin, rulesEngine.getAllRuleDetails());
+    } finally {
+      rulesEngine.stop();
+    }
+    ConnectedSonarLintEngineImpl engine = new ConnectedSonarLintEngineImpl(configuration);
+    return new Engine() {
+      @Override
+      public AnalysisResults analyze(SyntheticProject project, IssueListener listener) {
+        return engine.analyze(ConnectedAnalysisConfiguration.builder()
+          .setProjectKey(XooStorage.PROJECT_KEY)
+          .setBaseDir(project.baseDir())
+          .addInputFiles(project.inputFiles())
+          .build(), listener, null, null);
+      }
+
+      @Override
+      public void close() {
+        engine.stop(false);
+      }
+    };
+  }
+
+  private static void deleteRecursively(Path dir) throws IOException {
+    if (Files.exists(dir)) {
+      try (Stream<Path> paths = Files.walk(dir)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  static void write(List<ThroughputResult> results, Path file) throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      GSON.toJson(results, writer);
+    }
+  }
+
+  static List<ThroughputResult> read(Path file) throws IOException {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      ThroughputResult[] results = GSON.fromJson(reader, ThroughputResult[].class);
+      return Arrays.asList(results);
+    }
+  }
+
+  private interface Engine extends AutoCloseable {
+    AnalysisResults analyze(SyntheticProject project, IssueListener listener);
+
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.throughput;
+
+import java.util.Locale;
+
+/**
+ * Measures of the analysis of one synthetic project in one mode. Serialized as is in the JSON result files.
+ */
+class ThroughputResult {
+
+  String mode;
+  int files;
+  int linesPerFile;
+  long issues;
+  long durationMillis;
+  double filesPerSecond;
+  double issuesPerSecond;
+  double peakHeapMb;
+  long gcMillis;
+  long gcCount;
+
+  String scenario() {
+    return mode + "/" + files;
+  }
+
+  static ThroughputResult of(String mode, SyntheticProject project, int linesPerFile, long issues, long durationNanos, ResourceUsage usage) {
+    ThroughputResult result = new ThroughputResult();
+    result.mode = mode;
+    result.files = project.fileCount();
+    result.linesPerFile = linesPerFile;
+    result.issues = issues;
+    result.durationMillis = durationNanos / 1_000_000;
+    double seconds = Math.max(durationNanos, 1) / 1e9;
+    result.filesPerSecond = result.files / seconds;
+    result.issuesPerSecond = issues / seconds;
+    result.peakHeapMb = usage.peakHeapBytes() / (1024.0 * 1024.0);
+    result.gcMillis = usage.gcMillis();
+    result.gcCount = usage.gcCount();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(Locale.ENGLISH, "%-22s %10d ms %12.1f files/s %12.1f issues/s %10.1f MB heap %8d ms GC (%d)", scenario(), durationMillis, filesPerSecond,
+      issuesPerSecond, peakHeapMb, gcMillis, gcCount);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.benchmarks.throughput;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneRuleDetails;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginHashes;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.util.VersionUtils;
+
+/**
+ * Writes the storage of a server that would have been synchronized before, with the Xoo plugin and one project. The quality profile of the
+ * project activates the rules that are active by default in standalone mode, so that both modes report the same issues. The connected
+ * engine can then analyze without any network access.
+ */
+class XooStorage {
+
+  static final String SERVER_ID = "local";
+  static final String PROJECT_KEY = "synthetic";
+
+  private static final String SERVER_VERSION = "8.5.1.38104";
+  private static final String XOO = "xoo";
+  private static final String QPROFILE_KEY = "xoo-sonar-way";
+
+  private XooStorage() {
+    // only static stuff
+  }
+
+  /**
+   * Write the storage in the storage root of the configuration, and copy the plugin to the plugin cache of the SonarLint user home.
+   *
+   * @param rules all rules of the plugin, as loaded by the standalone engine
+   */
+  static void write(ConnectedGlobalConfiguration configuration, Path xooPlugin, Collection<StandaloneRuleDetails> rules) throws IOException {
+    String hash = new PluginHashes().of(xooPlugin);
+    String filename = xooPlugin.getFileName().toString();
+    PluginCache.create(configuration.getSonarLintUserHome().resolve("plugins"))
+      .get(filename, hash, (name, toFile) -> Files.copy(xooPlugin, toFile, StandardCopyOption.REPLACE_EXISTING));
+
+    StoragePaths paths = new StoragePaths(configuration);
+    Files.createDirectories(paths.getActiveRulesPath(QPROFILE_KEY).getParent());
+    Files.createDirectories(paths.getProjectStorageRoot(PROJECT_KEY));
+
+    ProtobufUtil.writeToFile(Sonarlint.ServerInfos.newBuilder().setId(SERVER_ID).setVersion(SERVER_VERSION).setStatus("UP").build(), paths.getServerInfosPath());
+    ProtobufUtil.writeToFile(Sonarlint.PluginReferences.newBuilder()
+      .addReference(Sonarlint.PluginReferences.PluginReference.newBuilder().setKey(XOO).setHash(hash).setFilename(filename))
+      .build(), paths.getPluginReferencesPath());
+    ProtobufUtil.writeToFile(Sonarlint.GlobalProperties.newBuilder().build(), paths.getGlobalPropertiesPath());
+
+    Sonarlint.Rules.Builder storageRules = Sonarlint.Rules.newBuilder();
+    Sonarlint.ActiveRules.Builder activeRules = Sonarlint.ActiveRules.newBuilder();
+    for (StandaloneRuleDetails rule : rules) {
+      RuleKey ruleKey = RuleKey.parse(rule.getKey());
+      storageRules.putRulesByKey(rule.getKey(), Sonarlint.Rules.Rule.newBuilder()
+        .setRepo(ruleKey.repository())
+        .setKey(ruleKey.rule())
+        .setName(rule.getName())
+        .setSeverity(rule.getSeverity())
+        .setLang(rule.getLanguage().getLanguageKey())
+        .setHtmlDesc(nullToEmpty(rule.getHtmlDescription()))
+        .setType(nullToEmpty(rule.getType()))
+        .build());
+      if (rule.isActiveByDefault()) {
+        Sonarlint.ActiveRules.ActiveRule.Builder activeRule = Sonarlint.ActiveRules.ActiveRule.newBuilder()
+          .setRepo(ruleKey.repository())
+          .setKey(ruleKey.rule())
+          .setSeverity(rule.getSeverity());
+        rule.paramDetails().stream()
+          .filter(param -> param.defaultValue() != null)
+          .forEach(param -> activeRule.putParams(param.key(), param.defaultValue()));
+        activeRules.putActiveRulesByKey(rule.getKey(), activeRule.build());
+      }
+    }
+    ProtobufUtil.writeToFile(storageRules.build(), paths.getRulesPath());
+    ProtobufUtil.writeToFile(activeRules.build(), paths.getActiveRulesPath(QPROFILE_KEY));
+    ProtobufUtil.writeToFile(Sonarlint.QProfiles.newBuilder()
+      .putQprofilesByKey(QPROFILE_KEY, Sonarlint.QProfiles.QProfile.newBuilder()
+        .setKey(QPROFILE_KEY)
+        .setName("Sonar way")
+        .setLanguage(XOO)
+        .setLanguageName("Xoo")
+        .setActiveRuleCount(activeRules.getActiveRulesByKeyCount())
+        .build())
+      .putDefaultQProfilesByLanguage(XOO, QPROFILE_KEY)
+      .build(), paths.getQProfilesPath());
+    ProtobufUtil.writeToFile(Sonarlint.ProjectList.newBuilder()
+      .putProjectsByKey(PROJECT_KEY, Sonarlint.ProjectList.Project.newBuilder().setKey(PROJECT_KEY).setName("Synthetic").build())
+      .build(), paths.getProjectListPath());
+    ProtobufUtil.writeToFile(Sonarlint.ProjectConfiguration.newBuilder()
+      .putQprofilePerLanguage(XOO, QPROFILE_KEY)
+      .build(), paths.getProjectConfigurationPath(PROJECT_KEY));
+
+    Sonarlint.StorageStatus status = Sonarlint.StorageStatus.newBuilder()
+      .setStorageVersion(StoragePaths.STORAGE_VERSION)
+      .setSonarlintCoreVersion(VersionUtils.getLibraryVersion())
+      .setUpdateTimestamp(System.currentTimeMillis())
+      .build();
+    ProtobufUtil.writeToFile(status, paths.getProjectUpdateStatusPath(PROJECT_KEY));
+    ProtobufUtil.writeToFile(status, paths.getStorageStatusPath());
+  }
+
+  private static String nullToEmpty(@Nullable String s) {
+    return s == null ? "" : s;
+  }
+}
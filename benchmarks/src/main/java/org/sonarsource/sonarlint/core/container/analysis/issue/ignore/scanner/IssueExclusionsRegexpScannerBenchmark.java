@@ -0,0 +1,88 @@
+/*
+ * SonarLint Core - Benchmarks
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarlint.core.benchmarks.data.InMemoryClientInputFile;
+import org.sonarsource.sonarlint.core.benchmarks.data.SyntheticData;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.Metadata;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner.IssueExclusionsLoader.DoubleRegexpMatcher;
+
+/**
+ * Scan of file content for the "ignore issues in blocks/files" patterns, done while reading file metadata when such patterns are configured.
+ * In the same package as the scanner to be able to create it without a full analysis container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssueExclusionsRegexpScannerBenchmark {
+
+  private static final URI FILE_URI = URI.create("file:///benchmark/Generated.java");
+
+  @Param({"1000", "50000"})
+  int lineCount;
+
+  private final FileMetadata fileMetadata = new FileMetadata();
+  private byte[] content;
+  private SonarLintInputFile inputFile;
+  private List<Pattern> allFilePatterns;
+  private List<DoubleRegexpMatcher> blockMatchers;
+
+  @Setup
+  public void generate() {
+    String source = SyntheticData.sourceFile(lineCount, SyntheticData.DEFAULT_SEED);
+    content = source.getBytes(StandardCharsets.UTF_8);
+    inputFile = new SonarLintInputFile(new InMemoryClientInputFile("src/main/java/Generated.java", source), f -> null);
+    // Realistic patterns that never match the generated code, so that every line is evaluated
+    allFilePatterns = Collections.singletonList(Pattern.compile("@javax\\.annotation\\.Generated"));
+    blockMatchers = Arrays.asList(
+      new DoubleRegexpMatcher(Pattern.compile("//\\s*BEGIN-NOSCAN"), Pattern.compile("//\\s*END-NOSCAN")),
+      new DoubleRegexpMatcher(Pattern.compile("/\\*\\s*generated code starts"), Pattern.compile("generated code ends\\s*\\*/")));
+  }
+
+  @Benchmark
+  public Metadata scan() {
+    IssueExclusionsRegexpScanner scanner = new IssueExclusionsRegexpScanner(inputFile, allFilePatterns, blockMatchers);
+    return fileMetadata.readMetadata(new ByteArrayInputStream(content), StandardCharsets.UTF_8, FILE_URI, scanner);
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.api.utils.log;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.log.LogOutputDelegator;
+import org.sonarsource.sonarlint.core.log.LogScope;
 import org.sonarsource.sonarlint.core.log.SonarLintLoggerFactory;
 
 /**
@@ -29,6 +30,7 @@ import org.sonarsource.sonarlint.core.log.SonarLintLoggerFactory;
  * Basically the factory always returns {@link SonarLintLogger}, which uses {@link LogOutputDelegator} to delegate
  * the logging to an {@link LogOutput}.
  * The LogOutput can be set dynamically at any time, for the executing thread. 
+ * Engine calls open a {@link LogScope}, so that concurrent calls each log to their own output.
  */
 public abstract class Loggers {
   private static final LogOutputDelegator logOutputDelegator = new LogOutputDelegator();
@@ -56,4 +58,8 @@ public abstract class Loggers {
   public static void setTarget(@Nullable LogOutput output) {
     logOutputDelegator.setTarget(output);
   }
+
+  public static LogScope openScope(@Nullable LogOutput output) {
+    return logOutputDelegator.openScope(output);
+  }
 }
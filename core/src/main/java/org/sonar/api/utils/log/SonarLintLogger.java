@@ -56,47 +56,53 @@ public class SonarLintLogger extends BaseLogger {
   @Override
   void doDebug(String msg) {
     logOutput.log(msg, Level.DEBUG);
-
   }
 
   @Override
   void doDebug(String msg, Object arg) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg}), Level.DEBUG);
-
+    if (logOutput.isEnabled(Level.DEBUG)) {
+      logOutput.log(MessageFormat.format(msg, arg), Level.DEBUG);
+    }
   }
 
   @Override
   void doDebug(String msg, Object arg1, Object arg2) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg1, arg2}), Level.DEBUG);
-
+    if (logOutput.isEnabled(Level.DEBUG)) {
+      logOutput.log(MessageFormat.format(msg, arg1, arg2), Level.DEBUG);
+    }
   }
 
   @Override
   void doDebug(String msg, Object... args) {
-    logOutput.log(MessageFormat.format(msg, args), Level.DEBUG);
-
+    if (logOutput.isEnabled(Level.DEBUG)) {
+      logOutput.log(MessageFormat.format(msg, args), Level.DEBUG);
+    }
   }
 
   @Override
   void doInfo(String msg) {
     logOutput.log(msg, Level.INFO);
-
   }
 
   @Override
   void doInfo(String msg, Object arg) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg}), Level.INFO);
-
+    if (logOutput.isEnabled(Level.INFO)) {
+      logOutput.log(MessageFormat.format(msg, arg), Level.INFO);
+    }
   }
 
   @Override
   void doInfo(String msg, Object arg1, Object arg2) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg1, arg2}), Level.INFO);
+    if (logOutput.isEnabled(Level.INFO)) {
+      logOutput.log(MessageFormat.format(msg, arg1, arg2), Level.INFO);
+    }
   }
 
   @Override
   void doInfo(String msg, Object... args) {
-    logOutput.log(MessageFormat.format(msg, args), Level.INFO);
+    if (logOutput.isEnabled(Level.INFO)) {
+      logOutput.log(MessageFormat.format(msg, args), Level.INFO);
+    }
   }
 
   @Override
@@ -111,17 +117,23 @@ public class SonarLintLogger extends BaseLogger {
 
   @Override
   void doWarn(String msg, Object arg) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg}), Level.WARN);
+    if (logOutput.isEnabled(Level.WARN)) {
+      logOutput.log(MessageFormat.format(msg, arg), Level.WARN);
+    }
   }
 
   @Override
   void doWarn(String msg, Object arg1, Object arg2) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg1, arg2}), Level.WARN);
+    if (logOutput.isEnabled(Level.WARN)) {
+      logOutput.log(MessageFormat.format(msg, arg1, arg2), Level.WARN);
+    }
   }
 
   @Override
   void doWarn(String msg, Object... args) {
-    logOutput.log(MessageFormat.format(msg, args), Level.WARN);
+    if (logOutput.isEnabled(Level.WARN)) {
+      logOutput.log(MessageFormat.format(msg, args), Level.WARN);
+    }
   }
 
   @Override
@@ -131,17 +143,23 @@ public class SonarLintLogger extends BaseLogger {
 
   @Override
   void doError(String msg, Object arg) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg}), Level.ERROR);
+    if (logOutput.isEnabled(Level.ERROR)) {
+      logOutput.log(MessageFormat.format(msg, arg), Level.ERROR);
+    }
   }
 
   @Override
   void doError(String msg, Object arg1, Object arg2) {
-    logOutput.log(MessageFormat.format(msg, new Object[] {arg1, arg2}), Level.ERROR);
+    if (logOutput.isEnabled(Level.ERROR)) {
+      logOutput.log(MessageFormat.format(msg, arg1, arg2), Level.ERROR);
+    }
   }
 
   @Override
   void doError(String msg, Object... args) {
-    logOutput.log(MessageFormat.format(msg, args), Level.ERROR);
+    if (logOutput.isEnabled(Level.ERROR)) {
+      logOutput.log(MessageFormat.format(msg, args), Level.ERROR);
+    }
   }
 
   @Override
@@ -156,7 +174,7 @@ public class SonarLintLogger extends BaseLogger {
 
   @Override
   public boolean isDebugEnabled() {
-    return true;
+    return logOutput.isEnabled(Level.DEBUG);
   }
 
   @Override
@@ -166,7 +184,14 @@ public class SonarLintLogger extends BaseLogger {
 
   @Override
   public LoggerLevel getLevel() {
-    return LoggerLevel.DEBUG;
+    if (logOutput.isEnabled(Level.DEBUG)) {
+      return LoggerLevel.DEBUG;
+    } else if (logOutput.isEnabled(Level.INFO)) {
+      return LoggerLevel.INFO;
+    } else if (logOutput.isEnabled(Level.WARN)) {
+      return LoggerLevel.WARN;
+    }
+    return LoggerLevel.ERROR;
   }
 
 }
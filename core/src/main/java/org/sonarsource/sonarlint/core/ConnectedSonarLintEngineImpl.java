@@ -23,11 +23,14 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -36,11 +39,14 @@ import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.EngineMetrics;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedRuleDetails;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
+import org.sonarsource.sonarlint.core.client.api.connected.ProjectBatchResult;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectStorageStatus;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
@@ -52,8 +58,15 @@ import org.sonarsource.sonarlint.core.client.api.exceptions.GlobalStorageUpdateR
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.container.connected.ConnectedContainer;
+import org.sonarsource.sonarlint.core.container.storage.IssueStoreReader;
+import org.sonarsource.sonarlint.core.container.storage.ServerPathTreeCache;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainer;
 import org.sonarsource.sonarlint.core.container.storage.StorageContainerHandler;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
+import org.sonarsource.sonarlint.core.log.LogScope;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.metrics.MetricsRegistry;
+import org.sonarsource.sonarlint.core.metrics.MetricsScope;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient;
 import org.sonarsource.sonarlint.core.serverapi.project.ServerProject;
@@ -66,18 +79,31 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   private static final Logger LOG = Loggers.get(ConnectedSonarLintEngineImpl.class);
 
   private final ConnectedGlobalConfiguration globalConfig;
-  private StorageContainer storageContainer;
+  private volatile StorageContainer storageContainer;
   private final ReadWriteLock rwl = new ReentrantReadWriteLock();
+  /**
+   * Serializes updates of the storage. Updates download new storage snapshots without holding {@link #rwl}, and only take
+   * the write lock to switch to the new snapshot.
+   */
+  private final Lock updateLock = new ReentrantLock();
   private final List<StateListener> stateListeners = new CopyOnWriteArrayList<>();
   private volatile State state = State.UNKNOWN;
   private LogOutput logOutput = null;
+  private final MetricsRegistry metrics = new MetricsRegistry();
 
   public ConnectedSonarLintEngineImpl(ConnectedGlobalConfiguration globalConfig) {
     this.globalConfig = globalConfig;
     this.logOutput = globalConfig.getLogOutput();
+    metrics.registerGauge(MetricNames.SERVER_ISSUES_CACHE_SIZE, () -> sampleStorage(c -> c.getComponentByType(IssueStoreReader.class).cachedFileCount()));
+    metrics.registerGauge(MetricNames.PATH_TREE_CACHE_SIZE, () -> sampleStorage(c -> c.getComponentByType(ServerPathTreeCache.class).size()));
     start();
   }
 
+  private long sampleStorage(ToLongFunction<StorageContainer> gauge) {
+    StorageContainer container = storageContainer;
+    return container != null ? gauge.applyAsLong(container) : 0;
+  }
+
   @Override
   public State getState() {
     return state;
@@ -113,25 +139,27 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
 
   public void start() {
     setLogging(null);
-    rwl.writeLock().lock();
-    storageContainer = StorageContainer.create(globalConfig);
-    try {
-      storageContainer.startComponents();
-      if (getHandler().getGlobalStorageStatus() == null) {
-        changeState(State.NEVER_UPDATED);
-      } else if (getHandler().getGlobalStorageStatus().isStale()) {
+    try (MetricsScope metricsScope = Metrics.openScope(metrics)) {
+      metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
+      storageContainer = StorageContainer.create(globalConfig, this::switchUnderWriteLock);
+      try {
+        storageContainer.startComponents();
+        if (getHandler().getGlobalStorageStatus() == null) {
+          changeState(State.NEVER_UPDATED);
+        } else if (getHandler().getGlobalStorageStatus().isStale()) {
+          changeState(State.NEED_UPDATE);
+        } else {
+          changeState(State.UPDATED);
+        }
+      } catch (StorageException e) {
+        LOG.debug(e.getMessage(), e);
         changeState(State.NEED_UPDATE);
-      } else {
-        changeState(State.UPDATED);
+      } catch (RuntimeException e) {
+        LOG.error("Unable to start the SonarLint engine", e);
+        changeState(State.UNKNOWN);
+      } finally {
+        rwl.writeLock().unlock();
       }
-    } catch (StorageException e) {
-      LOG.debug(e.getMessage(), e);
-      changeState(State.NEED_UPDATE);
-    } catch (RuntimeException e) {
-      LOG.error("Unable to start the SonarLint engine", e);
-      changeState(State.UNKNOWN);
-    } finally {
-      rwl.writeLock().unlock();
     }
   }
 
@@ -143,19 +171,36 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     }
   }
 
+  @Override
+  public EngineMetrics getMetrics() {
+    return metrics;
+  }
+
   @Override
   public AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     requireNonNull(configuration);
     requireNonNull(issueListener);
     return withReadLock(() -> {
-      try {
-        setLogging(logOutput);
-        return getHandler().analyze(storageContainer.getGlobalExtensionContainer(), configuration, issueListener, new ProgressWrapper(monitor));
+      try (LogScope logScope = openLogScope(logOutput)) {
+        return metrics.recordAnalysis(issueListener,
+          listener -> getHandler().analyze(storageContainer.getGlobalExtensionContainer(), configuration, listener, new ProgressWrapper(monitor)));
       } catch (RuntimeException e) {
         throw SonarLintWrappedException.wrap(e);
       }
     });
+  }
 
+  /**
+   * Route logs and metrics of the current call, including threads it creates, to the given output, or to the one of the engine. Unlike
+   * {@link #setLogging(LogOutput)}, the previous output is restored when the scope is closed, so that concurrent calls don't mix their logs.
+   */
+  private LogScope openLogScope(@Nullable LogOutput logOutput) {
+    MetricsScope metricsScope = Metrics.openScope(metrics);
+    LogScope logScope = Loggers.openScope(logOutput != null ? logOutput : this.logOutput);
+    return () -> {
+      logScope.close();
+      metricsScope.close();
+    };
   }
 
   @Override
@@ -167,17 +212,39 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   public UpdateResult update(EndpointParams endpoint, HttpClient client, @Nullable ProgressMonitor monitor) {
     requireNonNull(endpoint);
     setLogging(null);
-    return withRwLock(() -> {
-      stop(false);
-      changeState(State.UPDATING);
-      List<SonarAnalyzer> analyzers;
+    return withUpdateLock(() -> {
+      List<SonarAnalyzer> analyzers = runInConnectedContainer(endpoint, client, globalStorageSwitch(), container -> container.update(new ProgressWrapper(monitor)));
+      return new UpdateResult(withReadLock(getHandler()::getGlobalStorageStatus, false), analyzers);
+    });
+  }
+
+  /**
+   * Plugins are loaded from the global storage, so the storage container is restarted around the switch.
+   */
+  private StorageSwitch globalStorageSwitch() {
+    return switchAction -> {
+      metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
       try {
-        analyzers = runInConnectedContainer(endpoint, client, container -> container.update(new ProgressWrapper(monitor)));
+        stop(false);
+        changeState(State.UPDATING);
+        switchAction.run();
       } finally {
-        start();
+        try {
+          start();
+        } finally {
+          rwl.writeLock().unlock();
+        }
       }
-      return new UpdateResult(getHandler().getGlobalStorageStatus(), analyzers);
-    });
+    };
+  }
+
+  private void switchUnderWriteLock(Runnable switchAction) {
+    metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
+    try {
+      switchAction.run();
+    } finally {
+      rwl.writeLock().unlock();
+    }
   }
 
   @Override
@@ -198,7 +265,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   @Override
   public StorageUpdateCheckResult checkIfGlobalStorageNeedUpdate(EndpointParams endpoint, HttpClient client, @Nullable ProgressMonitor monitor) {
     requireNonNull(endpoint);
-    return withReadLock(() -> runInConnectedContainer(endpoint, client, container -> container.checkForUpdate(new ProgressWrapper(monitor))));
+    return withReadLock(() -> runInConnectedContainer(endpoint, client, StorageSwitch.IMMEDIATE, container -> container.checkForUpdate(new ProgressWrapper(monitor))));
   }
 
   @Override
@@ -206,7 +273,17 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     @Nullable ProgressMonitor monitor) {
     requireNonNull(endpoint);
     requireNonNull(projectKey);
-    return withReadLock(() -> runInConnectedContainer(endpoint, client, container -> container.checkForUpdate(projectKey, new ProgressWrapper(monitor))));
+    return withReadLock(
+      () -> runInConnectedContainer(endpoint, client, StorageSwitch.IMMEDIATE, container -> container.checkForUpdate(projectKey, new ProgressWrapper(monitor))));
+  }
+
+  @Override
+  public ProjectBatchResult<StorageUpdateCheckResult> checkIfProjectsStorageNeedUpdate(EndpointParams endpoint, HttpClient client, Collection<String> projectKeys,
+    @Nullable ProgressMonitor monitor) {
+    requireNonNull(endpoint);
+    requireNonNull(projectKeys);
+    return withReadLock(
+      () -> runInConnectedContainer(endpoint, client, StorageSwitch.IMMEDIATE, container -> container.checkForUpdate(projectKeys, new ProgressWrapper(monitor))));
   }
 
   @Override
@@ -216,7 +293,7 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
 
   @Override
   public Map<String, ServerProject> downloadAllProjects(EndpointParams endpoint, HttpClient client, @Nullable ProgressMonitor monitor) {
-    return withRwLock(() -> {
+    return withUpdateLock(() -> {
       checkUpdateStatus();
       return getHandler().downloadProjectList(endpoint, client, new ProgressWrapper(monitor));
     });
@@ -241,15 +318,24 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   @Override
   public List<ServerIssue> downloadServerIssues(EndpointParams endpoint, HttpClient client, ProjectBinding projectBinding, String ideFilePath,
     boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor) {
-    return withRwLock(() -> {
+    return withUpdateLock(() -> {
       checkUpdateStatus();
       return getHandler().downloadServerIssues(endpoint, client, projectBinding, ideFilePath, fetchTaintVulnerabilities, new ProgressWrapper(monitor));
     });
   }
 
+  @Override
+  public Map<String, List<ServerIssue>> downloadServerIssues(EndpointParams endpoint, HttpClient client, ProjectBinding projectBinding, Collection<String> ideFilePaths,
+    boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor) {
+    return withUpdateLock(() -> {
+      checkUpdateStatus();
+      return getHandler().downloadServerIssues(endpoint, client, projectBinding, ideFilePaths, fetchTaintVulnerabilities, new ProgressWrapper(monitor));
+    });
+  }
+
   @Override
   public void downloadServerIssues(EndpointParams endpoint, HttpClient client, String projectKey, boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor) {
-    withRwLock(() -> {
+    withUpdateLock(() -> {
       getHandler().downloadServerIssues(endpoint, client, projectKey, fetchTaintVulnerabilities, new ProgressWrapper(monitor));
       return null;
     });
@@ -265,24 +351,35 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
     requireNonNull(endpoint);
     requireNonNull(projectKey);
     setLogging(null);
-    rwl.writeLock().lock();
-    checkUpdateStatus();
-    ConnectedContainer connectedContainer = new ConnectedContainer(globalConfig, endpoint, client);
-    try {
-      changeState(State.UPDATING);
-      connectedContainer.startComponents();
-      connectedContainer.updateProject(projectKey, fetchTaintVulnerabilities, new ProgressWrapper(monitor));
-    } catch (RuntimeException e) {
-      throw SonarLintWrappedException.wrap(e);
-    } finally {
-      try {
-        connectedContainer.stopComponents(false);
-      } catch (Exception e) {
-        // Ignore
-      }
-      changeState(getHandler().getGlobalStorageStatus() != null ? State.UPDATED : State.NEVER_UPDATED);
-      rwl.writeLock().unlock();
-    }
+    withUpdateLock(() -> {
+      checkUpdateStatus();
+      StorageSwitch projectStorageSwitch = switchAction -> switchUnderWriteLock(() -> {
+        switchAction.run();
+        getHandler().projectUpdated(projectKey);
+      });
+      return runInConnectedContainer(endpoint, client, projectStorageSwitch, container -> {
+        container.updateProject(projectKey, fetchTaintVulnerabilities, new ProgressWrapper(monitor));
+        return null;
+      });
+    });
+  }
+
+  @Override
+  public ProjectBatchResult<ProjectStorageStatus> updateProjects(EndpointParams endpoint, HttpClient client, Collection<String> projectKeys, boolean fetchTaintVulnerabilities,
+    @Nullable ProgressMonitor monitor) {
+    requireNonNull(endpoint);
+    requireNonNull(projectKeys);
+    setLogging(null);
+    return withUpdateLock(() -> {
+      checkUpdateStatus();
+      // The switch doesn't tell which project was replaced, so forget what is cached about all of them
+      StorageSwitch projectStorageSwitch = switchAction -> switchUnderWriteLock(() -> {
+        switchAction.run();
+        projectKeys.forEach(getHandler()::projectUpdated);
+      });
+      return runInConnectedContainer(endpoint, client, projectStorageSwitch,
+        container -> container.updateProjects(projectKeys, fetchTaintVulnerabilities, new ProgressWrapper(monitor)));
+    });
   }
 
   @Override
@@ -294,7 +391,9 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
   @Override
   public void stop(boolean deleteStorage) {
     setLogging(null);
-    rwl.writeLock().lock();
+    // wait for the end of any ongoing update, that would otherwise restart the storage container when switching
+    metrics.lock(updateLock, MetricNames.LOCK_UPDATE_WAIT);
+    metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
     try {
       if (storageContainer == null) {
         return;
@@ -309,11 +408,12 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
       this.storageContainer = null;
       changeState(State.UNKNOWN);
       rwl.writeLock().unlock();
+      updateLock.unlock();
     }
   }
 
-  private <U> U runInConnectedContainer(EndpointParams endpoint, HttpClient client, Function<ConnectedContainer, U> func) {
-    ConnectedContainer connectedContainer = new ConnectedContainer(globalConfig, endpoint, client);
+  private <U> U runInConnectedContainer(EndpointParams endpoint, HttpClient client, StorageSwitch storageSwitch, Function<ConnectedContainer, U> func) {
+    ConnectedContainer connectedContainer = new ConnectedContainer(globalConfig, endpoint, client, storageSwitch);
     try {
       connectedContainer.startComponents();
       return func.apply(connectedContainer);
@@ -328,13 +428,29 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
 
   private <T> T withRwLock(Supplier<T> callable) {
     setLogging(null);
-    rwl.writeLock().lock();
-    try {
-      return callable.get();
-    } catch (RuntimeException e) {
-      throw SonarLintWrappedException.wrap(e);
-    } finally {
-      rwl.writeLock().unlock();
+    try (MetricsScope metricsScope = Metrics.openScope(metrics)) {
+      metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
+      try {
+        return callable.get();
+      } catch (RuntimeException e) {
+        throw SonarLintWrappedException.wrap(e);
+      } finally {
+        rwl.writeLock().unlock();
+      }
+    }
+  }
+
+  private <T> T withUpdateLock(Supplier<T> callable) {
+    setLogging(null);
+    try (MetricsScope metricsScope = Metrics.openScope(metrics)) {
+      metrics.lock(updateLock, MetricNames.LOCK_UPDATE_WAIT);
+      try {
+        return callable.get();
+      } catch (RuntimeException e) {
+        throw SonarLintWrappedException.wrap(e);
+      } finally {
+        updateLock.unlock();
+      }
     }
   }
 
@@ -344,16 +460,18 @@ public final class ConnectedSonarLintEngineImpl implements ConnectedSonarLintEng
 
   private <T> T withReadLock(Supplier<T> callable, boolean checkUpdateStatus) {
     setLogging(null);
-    rwl.readLock().lock();
-    try {
-      if (checkUpdateStatus) {
-        checkUpdateStatus();
+    try (MetricsScope metricsScope = Metrics.openScope(metrics)) {
+      metrics.lock(rwl.readLock(), MetricNames.LOCK_READ_WAIT);
+      try {
+        if (checkUpdateStatus) {
+          checkUpdateStatus();
+        }
+        return callable.get();
+      } catch (RuntimeException e) {
+        throw SonarLintWrappedException.wrap(e);
+      } finally {
+        rwl.readLock().unlock();
       }
-      return callable.get();
-    } catch (RuntimeException e) {
-      throw SonarLintWrappedException.wrap(e);
-    } finally {
-      rwl.readLock().unlock();
     }
   }
 }
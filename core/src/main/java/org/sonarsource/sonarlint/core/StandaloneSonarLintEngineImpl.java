@@ -30,12 +30,18 @@ import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.EngineMetrics;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneRuleDetails;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
 import org.sonarsource.sonarlint.core.container.standalone.StandaloneGlobalContainer;
+import org.sonarsource.sonarlint.core.log.LogScope;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.metrics.MetricsRegistry;
+import org.sonarsource.sonarlint.core.metrics.MetricsScope;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static java.util.Objects.requireNonNull;
@@ -45,6 +51,7 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
   private final StandaloneGlobalConfiguration globalConfig;
   private StandaloneGlobalContainer globalContainer;
   private final ReadWriteLock rwl = new ReentrantReadWriteLock();
+  private final MetricsRegistry metrics = new MetricsRegistry();
   private LogOutput logOutput;
 
   public StandaloneSonarLintEngineImpl(StandaloneGlobalConfiguration globalConfig) {
@@ -59,14 +66,16 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
 
   public void start() {
     setLogging(null);
-    rwl.writeLock().lock();
-    this.globalContainer = StandaloneGlobalContainer.create(globalConfig);
-    try {
-      globalContainer.startComponents();
-    } catch (RuntimeException e) {
-      throw SonarLintWrappedException.wrap(e);
-    } finally {
-      rwl.writeLock().unlock();
+    try (MetricsScope metricsScope = Metrics.openScope(metrics)) {
+      metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
+      this.globalContainer = StandaloneGlobalContainer.create(globalConfig);
+      try {
+        globalContainer.startComponents();
+      } catch (RuntimeException e) {
+        throw SonarLintWrappedException.wrap(e);
+      } finally {
+        rwl.writeLock().unlock();
+      }
     }
   }
 
@@ -84,17 +93,31 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
   public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     requireNonNull(configuration);
     requireNonNull(issueListener);
-    setLogging(logOutput);
-    rwl.readLock().lock();
-    try {
-      return globalContainer.analyze(configuration, issueListener, new ProgressWrapper(monitor));
-    } catch (RuntimeException e) {
-      throw SonarLintWrappedException.wrap(e);
-    } finally {
-      rwl.readLock().unlock();
+    try (LogScope logScope = openLogScope(logOutput)) {
+      metrics.lock(rwl.readLock(), MetricNames.LOCK_READ_WAIT);
+      try {
+        return metrics.recordAnalysis(issueListener, listener -> globalContainer.analyze(configuration, listener, new ProgressWrapper(monitor)));
+      } catch (RuntimeException e) {
+        throw SonarLintWrappedException.wrap(e);
+      } finally {
+        rwl.readLock().unlock();
+      }
     }
   }
 
+  /**
+   * Route logs and metrics of the current call, including threads it creates, to the given output, or to the one of the engine. Unlike
+   * {@link #setLogging(LogOutput)}, the previous output is restored when the scope is closed, so that concurrent calls don't mix their logs.
+   */
+  private LogScope openLogScope(@Nullable LogOutput logOutput) {
+    MetricsScope metricsScope = Metrics.openScope(metrics);
+    LogScope logScope = Loggers.openScope(logOutput != null ? logOutput : this.logOutput);
+    return () -> {
+      logScope.close();
+      metricsScope.close();
+    };
+  }
+
   private void setLogging(@Nullable LogOutput logOutput) {
     if (logOutput != null) {
       Loggers.setTarget(logOutput);
@@ -103,10 +126,15 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
     }
   }
 
+  @Override
+  public EngineMetrics getMetrics() {
+    return metrics;
+  }
+
   @Override
   public void stop() {
     setLogging(null);
-    rwl.writeLock().lock();
+    metrics.lock(rwl.writeLock(), MetricNames.LOCK_WRITE_WAIT);
     try {
       if (globalContainer == null) {
         return;
@@ -123,7 +151,7 @@ public final class StandaloneSonarLintEngineImpl implements StandaloneSonarLintE
   @Override
   public Collection<PluginDetails> getPluginDetails() {
     setLogging(null);
-    rwl.readLock().lock();
+    metrics.lock(rwl.readLock(), MetricNames.LOCK_READ_WAIT);
     try {
       return globalContainer.getPluginDetails();
     } finally {
@@ -0,0 +1,168 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.BatchIssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.Phase;
+
+/**
+ * Hand over issues to the client {@link IssueListener}.
+ * <p>
+ * By default the listener is called synchronously on the thread that raised the issue. When {@link #ASYNC_PROPERTY} is true, issues are
+ * put in a bounded queue and delivered by a dedicated thread, in batches if the listener is a {@link BatchIssueListener}. Analyzers are
+ * blocked when the queue is full, and {@link #finish()} waits for all queued issues to be delivered.
+ */
+public class IssueDispatcher implements Startable {
+
+  public static final String ASYNC_PROPERTY = "sonarlint.issues.async";
+  public static final String QUEUE_SIZE_PROPERTY = "sonarlint.issues.async.queueSize";
+  static final int DEFAULT_QUEUE_SIZE = 1000;
+
+  private static final Object END = new Object();
+
+  private final IssueListener issueListener;
+  private final DefaultAnalysisTimings timings;
+  @CheckForNull
+  private final BlockingQueue<Object> queue;
+  private Thread deliveryThread;
+  private volatile RuntimeException deliveryFailure;
+
+  public IssueDispatcher(IssueListener issueListener, DefaultAnalysisTimings timings, Configuration config) {
+    this.issueListener = issueListener;
+    this.timings = timings;
+    if (config.getBoolean(ASYNC_PROPERTY).orElse(false)) {
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getInt(QUEUE_SIZE_PROPERTY).orElse(DEFAULT_QUEUE_SIZE)));
+    } else {
+      this.queue = null;
+    }
+  }
+
+  @Override
+  public void start() {
+    if (queue != null) {
+      deliveryThread = new Thread(this::deliverQueuedIssues, "sonarlint-issue-delivery");
+      deliveryThread.setDaemon(true);
+      deliveryThread.start();
+    }
+  }
+
+  public void dispatch(Issue issue) {
+    if (queue == null) {
+      long start = timings.start();
+      issueListener.handle(issue);
+      timings.record(Phase.ISSUE_DELIVERY, start);
+      return;
+    }
+    checkDeliveryFailure();
+    try {
+      queue.put(issue);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to deliver issue", e);
+    }
+  }
+
+  /**
+   * Wait for all queued issues to be delivered. Failures of the listener are rethrown on the calling thread.
+   */
+  public void finish() {
+    if (queue == null || deliveryThread == null) {
+      return;
+    }
+    try {
+      queue.put(END);
+      deliveryThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for issues to be delivered", e);
+    } finally {
+      deliveryThread = null;
+    }
+    checkDeliveryFailure();
+  }
+
+  @Override
+  public void stop() {
+    // Only happens if the analysis failed before finish() was called
+    if (deliveryThread != null) {
+      deliveryThread.interrupt();
+      deliveryThread = null;
+    }
+  }
+
+  private void checkDeliveryFailure() {
+    RuntimeException failure = deliveryFailure;
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void deliverQueuedIssues() {
+    List<Object> batch = new ArrayList<>();
+    try {
+      while (true) {
+        batch.add(queue.take());
+        queue.drainTo(batch);
+        boolean ended = batch.get(batch.size() - 1) == END;
+        if (ended) {
+          batch.remove(batch.size() - 1);
+        }
+        deliver(batch);
+        batch.clear();
+        if (ended) {
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deliver(List<Object> batch) {
+    if (batch.isEmpty() || deliveryFailure != null) {
+      // Keep consuming the queue after a failure so that producers are never blocked
+      return;
+    }
+    long start = timings.start();
+    try {
+      if (issueListener instanceof BatchIssueListener) {
+        List<Issue> issues = new ArrayList<>(batch.size());
+        batch.forEach(i -> issues.add((Issue) i));
+        ((BatchIssueListener) issueListener).handle(issues);
+      } else {
+        batch.forEach(i -> issueListener.handle((Issue) i));
+      }
+    } catch (RuntimeException e) {
+      deliveryFailure = e;
+    } finally {
+      timings.record(Phase.ISSUE_DELIVERY, start);
+    }
+  }
+}
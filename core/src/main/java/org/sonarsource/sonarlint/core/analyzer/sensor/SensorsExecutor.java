@@ -19,21 +19,40 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.sonar.api.batch.DependedUpon;
 import org.sonar.api.batch.DependsUpon;
 import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.sensor.Sensor;
-import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.dag.DirectAcyclicGraph;
+import org.sonar.api.utils.dag.Node;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.SensorStep;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
+import org.sonarsource.sonarlint.core.jfr.SensorEvent;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
 
@@ -41,50 +60,206 @@ import static java.util.Arrays.asList;
 
 /**
  * Execute Sensors.
+ * <p>
+ * By default sensors are executed one after the other, in the order given by their {@link DependsUpon}, {@link DependedUpon} and {@link Phase}
+ * annotations. When {@link #PARALLELISM_PROPERTY} is greater than 1, sensors listed in {@link #PARALLEL_SENSORS_PROPERTY} that have no
+ * ordering constraint between them are executed concurrently on a bounded pool. Other sensors still act as barriers.
  */
 public class SensorsExecutor {
 
+  /**
+   * Maximum number of sensors executed concurrently. Default is 1 (sequential execution).
+   */
+  public static final String PARALLELISM_PROPERTY = "sonarlint.sensors.parallelism";
+  /**
+   * Comma separated list of sensor names (or class names) allowed to run concurrently with other sensors. Use '*' to allow all sensors.
+   */
+  public static final String PARALLEL_SENSORS_PROPERTY = "sonarlint.sensors.parallel";
+
   private static final Logger LOG = Loggers.get(SensorsExecutor.class);
 
   private final SensorOptimizer sensorOptimizer;
   private final ProgressWrapper progress;
   private final Sensor[] sensors;
   private final DefaultSensorContext context;
+  private final DefaultAnalysisResult analysisResult;
+  private final DefaultAnalysisTimings timings;
 
-  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress) {
-    this(context, sensorOptimizer, progress, new Sensor[0]);
+  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, DefaultAnalysisResult analysisResult,
+    DefaultAnalysisTimings timings) {
+    this(context, sensorOptimizer, progress, analysisResult, timings, new Sensor[0]);
   }
 
-  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, Sensor[] sensors) {
+  public SensorsExecutor(DefaultSensorContext context, SensorOptimizer sensorOptimizer, ProgressWrapper progress, DefaultAnalysisResult analysisResult,
+    DefaultAnalysisTimings timings, Sensor[] sensors) {
     this.context = context;
     this.sensors = sensors;
     this.sensorOptimizer = sensorOptimizer;
     this.progress = progress;
+    this.analysisResult = analysisResult;
+    this.timings = timings;
   }
 
   public void execute() {
-    for (Sensor sensor : sort(asList(sensors))) {
+    Map<Sensor, Node> nodes = new IdentityHashMap<>();
+    Collection<Sensor> sortedSensors = sort(asList(sensors), nodes);
+    int parallelism = context.config().getInt(PARALLELISM_PROPERTY).orElse(1);
+    if (parallelism > 1) {
+      executeInParallel(sortedSensors, nodes, parallelism);
+      return;
+    }
+    for (Sensor sensor : sortedSensors) {
+      progress.checkCancel();
+      DefaultSensorDescriptor descriptor = describe(sensor);
+      if (shouldExecute(sensor, descriptor)) {
+        executeSensor(sensor, descriptor);
+      }
+    }
+  }
+
+  private DefaultSensorDescriptor describe(Sensor sensor) {
+    long start = timings.start();
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+    sensor.describe(descriptor);
+    timings.recordSensor(sensorName(sensor, descriptor), SensorStep.DESCRIBE, start);
+    return descriptor;
+  }
+
+  private boolean shouldExecute(Sensor sensor, DefaultSensorDescriptor descriptor) {
+    long start = timings.start();
+    boolean shouldExecute = sensorOptimizer.shouldExecute(descriptor);
+    timings.recordSensor(sensorName(sensor, descriptor), SensorStep.OPTIMIZE, start);
+    return shouldExecute;
+  }
+
+  private static String sensorName(Sensor sensor, DefaultSensorDescriptor descriptor) {
+    return descriptor.name() != null ? descriptor.name() : StringUtils.describe(sensor);
+  }
+
+  private void executeInParallel(Collection<Sensor> sortedSensors, Map<Sensor, Node> nodes, int parallelism) {
+    // Describe and filter sensors on the calling thread, only the execution is concurrent
+    Map<Sensor, DefaultSensorDescriptor> toExecute = new LinkedHashMap<>();
+    for (Sensor sensor : sortedSensors) {
       progress.checkCancel();
-      DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
-      sensor.describe(descriptor);
-      if (sensorOptimizer.shouldExecute(descriptor)) {
-        executeSensor(context, sensor, descriptor);
+      DefaultSensorDescriptor descriptor = describe(sensor);
+      if (shouldExecute(sensor, descriptor)) {
+        toExecute.put(sensor, descriptor);
       }
     }
+    Set<String> allowList = Arrays.stream(context.config().getStringArray(PARALLEL_SENSORS_PROPERTY)).collect(Collectors.toSet());
+
+    ClassLoader callerClassLoader = Thread.currentThread().getContextClassLoader();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-sensor-%d")
+      .setDaemon(true)
+      .build());
+    AtomicBoolean aborted = new AtomicBoolean();
+    Map<Sensor, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+    List<CompletableFuture<Void>> barriers = new ArrayList<>();
+    try {
+      for (Map.Entry<Sensor, DefaultSensorDescriptor> entry : toExecute.entrySet()) {
+        Sensor sensor = entry.getKey();
+        DefaultSensorDescriptor descriptor = entry.getValue();
+        boolean concurrent = isAllowedToRunConcurrently(allowList, sensor, descriptor);
+        List<CompletableFuture<Void>> predecessors = new ArrayList<>(barriers);
+        if (concurrent) {
+          predecessorsInGraph(sensor, nodes).stream().map(futures::get).filter(Objects::nonNull).forEach(predecessors::add);
+        } else {
+          predecessors.addAll(futures.values());
+        }
+        CompletableFuture<Void> future = CompletableFuture.allOf(predecessors.toArray(new CompletableFuture[0]))
+          .thenRunAsync(() -> {
+            if (aborted.get() || progress.isCanceled()) {
+              return;
+            }
+            Thread.currentThread().setContextClassLoader(callerClassLoader);
+            try {
+              executeSensor(sensor, descriptor);
+            } catch (RuntimeException e) {
+              aborted.set(true);
+              throw e;
+            }
+          }, executor);
+        futures.put(sensor, future);
+        if (!concurrent) {
+          barriers.add(future);
+        }
+      }
+      waitForCompletion(futures.values());
+    } finally {
+      executor.shutdownNow();
+    }
+    progress.checkCancel();
+  }
+
+  private static void waitForCompletion(Collection<CompletableFuture<Void>> futures) {
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    } catch (CompletionException e) {
+      // Report the failure of the first sensor in execution order, not the one of a dependent sensor
+      for (CompletableFuture<Void> future : futures) {
+        try {
+          future.join();
+        } catch (CompletionException sensorFailure) {
+          Throwable cause = sensorFailure.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    }
+  }
+
+  private static boolean isAllowedToRunConcurrently(Set<String> allowList, Sensor sensor, DefaultSensorDescriptor descriptor) {
+    return allowList.contains("*")
+      || allowList.contains(sensor.getClass().getName())
+      || (descriptor.name() != null && allowList.contains(descriptor.name()));
   }
 
-  private static void executeSensor(SensorContext context, Sensor sensor, DefaultSensorDescriptor descriptor) {
+  /**
+   * Sensors that have to be executed before the given one, following the dependency graph transitively (including through phases).
+   */
+  private static Set<Sensor> predecessorsInGraph(Sensor sensor, Map<Sensor, Node> nodes) {
+    Set<Sensor> result = Collections.newSetFromMap(new IdentityHashMap<>());
+    Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Node> toVisit = new ArrayDeque<>(nodes.get(sensor).getDependencies());
+    while (!toVisit.isEmpty()) {
+      Node node = toVisit.pop();
+      if (visited.add(node)) {
+        Object object = node.getObject();
+        if (object instanceof Sensor && nodes.containsKey(object)) {
+          result.add((Sensor) object);
+        }
+        toVisit.addAll(node.getDependencies());
+      }
+    }
+    return result;
+  }
+
+  private void executeSensor(Sensor sensor, DefaultSensorDescriptor descriptor) {
+    String sensorName = sensorName(sensor, descriptor);
     if (LOG.isDebugEnabled()) {
-      LOG.debug("Execute Sensor: {}", descriptor.name() != null ? descriptor.name() : StringUtils.describe(sensor));
+      LOG.debug("Execute Sensor: {}", sensorName);
+    }
+    long start = System.nanoTime();
+    SensorEvent event = JfrEvents.isRecording() ? SensorEvent.start(sensorName) : null;
+    try {
+      sensor.execute(context);
+    } finally {
+      if (event != null) {
+        event.commit();
+      }
+      timings.recordSensor(sensorName, SensorStep.EXECUTE, start);
+      analysisResult.addSensorExecutionTime(sensorName, (System.nanoTime() - start) / 1_000_000);
     }
-    sensor.execute(context);
   }
 
-  private static <T> Collection<T> sort(Collection<T> extensions) {
+  private static <T> Collection<T> sort(Collection<T> extensions, Map<T, Node> nodes) {
     DirectAcyclicGraph dag = new DirectAcyclicGraph();
 
     for (T extension : extensions) {
-      dag.add(extension);
+      nodes.put(extension, dag.add(extension));
       for (Object dependency : getDependencies(extension)) {
         dag.add(extension, dependency);
       }
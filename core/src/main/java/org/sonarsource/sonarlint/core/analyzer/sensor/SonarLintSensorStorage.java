@@ -43,12 +43,15 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.MessageException;
 import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
 import org.sonarsource.sonarlint.core.analyzer.issue.DefaultFlow;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueDispatcher;
 import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
-import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.container.analysis.SonarLintRule;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.Phase;
 
 import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang.StringUtils.defaultIfEmpty;
@@ -59,15 +62,22 @@ public class SonarLintSensorStorage implements SensorStorage {
   private final ActiveRules activeRules;
   private final Rules rules;
   private final IssueFilters filters;
-  private final IssueListener issueListener;
+  private final IssueDispatcher issueDispatcher;
   private final DefaultAnalysisResult analysisResult;
+  private final DefaultAnalysisTimings timings;
+  private final AnalysisResultCache analysisResultCache;
+  // Sensors may be executed concurrently, but the filters and the IssueListener are not expected to be thread safe
+  private final Object deliveryLock = new Object();
 
-  public SonarLintSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
+  public SonarLintSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueDispatcher issueDispatcher, DefaultAnalysisResult analysisResult,
+    DefaultAnalysisTimings timings, AnalysisResultCache analysisResultCache) {
     this.activeRules = activeRules;
     this.rules = rules;
     this.filters = filters;
-    this.issueListener = issueListener;
+    this.issueDispatcher = issueDispatcher;
     this.analysisResult = analysisResult;
+    this.timings = timings;
+    this.analysisResultCache = analysisResultCache;
   }
 
   @Override
@@ -99,8 +109,14 @@ public class SonarLintSensorStorage implements SensorStorage {
 
     DefaultClientIssue newIssue = new DefaultClientIssue(severity, type, activeRule, rules.find(activeRule.ruleKey()), primaryMessage, issue.primaryLocation().textRange(),
       inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, flows);
-    if (filters.accept(inputComponent, newIssue)) {
-      issueListener.handle(newIssue);
+    synchronized (deliveryLock) {
+      long filteringStart = timings.start();
+      boolean accepted = filters.accept(inputComponent, newIssue);
+      timings.record(Phase.ISSUE_FILTERING, filteringStart);
+      if (accepted) {
+        analysisResultCache.record(newIssue);
+        issueDispatcher.dispatch(newIssue);
+      }
     }
   }
 
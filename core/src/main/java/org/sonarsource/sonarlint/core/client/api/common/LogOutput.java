@@ -27,6 +27,14 @@ public interface LogOutput {
 
   void log(String formattedMessage, Level level);
 
+  /**
+   * The most verbose level this output is interested in. Messages of more verbose levels are neither formatted nor passed to
+   * {@link #log(String, Level)}. Only queried when the output is set as the log target, not for each message.
+   */
+  default Level enabledLevel() {
+    return Level.DEBUG;
+  }
+
   enum Level {
     ERROR, WARN, INFO, DEBUG, TRACE;
   }
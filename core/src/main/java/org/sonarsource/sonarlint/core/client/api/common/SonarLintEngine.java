@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.client.api.common;
 
 import java.util.Collection;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.EngineMetrics;
 
 /**
  * Entry point for SonarLint.
@@ -32,4 +33,12 @@ public interface SonarLintEngine {
    */
   Collection<PluginDetails> getPluginDetails();
 
+  /**
+   * Runtime metrics of the engine: lock contention, storage and HTTP activity, plugin loading and analyses.
+   * Metrics are kept across restarts of the engine.
+   *
+   * @since 5.2
+   */
+  EngineMetrics getMetrics();
+
 }
@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.client.api.common.analysis;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
 
 public interface AnalysisResults {
@@ -43,4 +44,15 @@ public interface AnalysisResults {
    */
   Map<ClientInputFile, Language> languagePerFile();
 
+  /**
+   * Wall time in milliseconds spent executing each sensor, by sensor name, in execution order.
+   * Sensors skipped by SonarLint are not present.
+   */
+  Map<String, Long> sensorExecutionTimes();
+
+  /**
+   * Detailed timings of the analysis, only present if enabled with {@link AnalysisTimings#ENABLED_PROPERTY}.
+   */
+  Optional<AnalysisTimings> timings();
+
 }
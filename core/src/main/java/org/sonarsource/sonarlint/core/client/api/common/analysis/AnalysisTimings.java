@@ -0,0 +1,81 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.util.Map;
+
+/**
+ * Breakdown of the time spent in the different steps of an analysis. Collected only when the property {@link #ENABLED_PROPERTY} is set to
+ * true, either in the global or in the analysis configuration extra properties.
+ * All durations are wall times, in milliseconds.
+ */
+public interface AnalysisTimings {
+
+  String ENABLED_PROPERTY = "sonarlint.analysis.timings";
+
+  /**
+   * Time spent from the beginning of the analysis to the end of the execution of sensors.
+   */
+  long totalMs();
+
+  /**
+   * Time spent instantiating the components of the analysis, including plugin extensions.
+   */
+  long containerStartMs();
+
+  /**
+   * Time spent building and indexing input files, including language detection and {@link org.sonar.api.batch.fs.InputFileFilter}s.
+   */
+  long fileIndexingMs();
+
+  /**
+   * Cumulated time spent reading file metadata (lines, hashes, exclusion patterns). Metadata is computed lazily, so this time is
+   * also included in the indexing or sensor execution time of the step that first needed it.
+   */
+  long fileMetadataMs();
+
+  /**
+   * Cumulated time spent in issue filters (exclusions, NOSONAR, ...), also included in sensor execution times.
+   */
+  long issueFilteringMs();
+
+  /**
+   * Cumulated time spent in the {@link IssueListener}. Unless issues are delivered asynchronously, also included in sensor execution times.
+   */
+  long issueDeliveryMs();
+
+  /**
+   * Timings of each sensor, by sensor name, in execution order. Sensors that were described but not executed only have
+   * {@link SensorTimings#describeMs()} and {@link SensorTimings#optimizeMs()}.
+   */
+  Map<String, SensorTimings> sensors();
+
+  interface SensorTimings {
+
+    long describeMs();
+
+    /**
+     * Time spent deciding if the sensor should be executed, based on its descriptor.
+     */
+    long optimizeMs();
+
+    long executeMs();
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An {@link IssueListener} able to receive several issues at once. When asynchronous issue delivery is enabled, issues raised by analyzers
+ * are queued and handed over in batches, from a thread different from the analysis one. In both modes all issues have been delivered
+ * when the analysis returns.
+ */
+public interface BatchIssueListener extends IssueListener {
+
+  void handle(List<Issue> issues);
+
+  @Override
+  default void handle(Issue issue) {
+    handle(Collections.singletonList(issue));
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Runtime metrics of an engine: counters, gauges and timers, identified by name. Names of the metrics recorded by the engine are
+ * listed in {@link MetricNames}. Clients can record their own metrics in the same registry.
+ * <p>
+ * Recording is always on and costs about as much as incrementing an atomic counter. Listeners are only called when at least one is registered.
+ *
+ * @since 5.2
+ */
+public interface EngineMetrics {
+
+  /**
+   * Get or create the counter with the given name.
+   */
+  Counter counter(String name);
+
+  /**
+   * Get or create the timer with the given name.
+   */
+  Timer timer(String name);
+
+  /**
+   * Register a gauge, sampled each time a snapshot is taken. A gauge registered with the same name is replaced.
+   */
+  void registerGauge(String name, LongSupplier gauge);
+
+  void unregisterGauge(String name);
+
+  /**
+   * Current value of all metrics.
+   */
+  MetricsSnapshot snapshot();
+
+  /**
+   * Listeners are called synchronously, on the thread recording the metric, so they should return quickly.
+   */
+  void addListener(MetricsListener listener);
+
+  void removeListener(MetricsListener listener);
+
+}
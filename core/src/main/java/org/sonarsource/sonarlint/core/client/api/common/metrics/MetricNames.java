@@ -0,0 +1,102 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.metrics;
+
+/**
+ * Names of the metrics recorded by the engines.
+ *
+ * @since 5.2
+ */
+public final class MetricNames {
+
+  /**
+   * Timers of the time spent waiting for the engine locks, before executing a call. The update lock only exists in connected mode.
+   */
+  public static final String LOCK_READ_WAIT = "lock.read.wait";
+  public static final String LOCK_WRITE_WAIT = "lock.write.wait";
+  public static final String LOCK_UPDATE_WAIT = "lock.update.wait";
+
+  /**
+   * Counters of the protocol buffer files read and written in the storage, and of their size in bytes.
+   */
+  public static final String STORAGE_READ_FILES = "storage.read.files";
+  public static final String STORAGE_READ_BYTES = "storage.read.bytes";
+  public static final String STORAGE_WRITE_FILES = "storage.write.files";
+  public static final String STORAGE_WRITE_BYTES = "storage.write.bytes";
+
+  /**
+   * Counters of lookups in the cache of server issues per file, and gauge of the number of cached files.
+   */
+  public static final String SERVER_ISSUES_CACHE_HITS = "storage.server_issues_cache.hits";
+  public static final String SERVER_ISSUES_CACHE_MISSES = "storage.server_issues_cache.misses";
+  public static final String SERVER_ISSUES_CACHE_SIZE = "storage.server_issues_cache.size";
+
+  /**
+   * Counters of lookups in the cache of server file trees, used to calculate path prefixes, and gauge of the number of cached projects.
+   */
+  public static final String PATH_TREE_CACHE_HITS = "storage.path_tree_cache.hits";
+  public static final String PATH_TREE_CACHE_MISSES = "storage.path_tree_cache.misses";
+  public static final String PATH_TREE_CACHE_SIZE = "storage.path_tree_cache.size";
+
+  /**
+   * Timer of the HTTP requests sent to the server, counter of the requests that failed, and counter of the responses served from the
+   * HTTP cache after a "304 Not Modified".
+   */
+  public static final String HTTP_REQUESTS = "http.requests";
+  public static final String HTTP_ERRORS = "http.errors";
+  public static final String HTTP_NOT_MODIFIED = "http.not_modified";
+
+  /**
+   * Timer of the loading of plugins when the engine starts, and counter of the loaded plugins.
+   */
+  public static final String PLUGINS_LOAD = "plugins.load";
+  public static final String PLUGINS_LOADED = "plugins.loaded";
+
+  /**
+   * Timer of analyses, and counters of the analyzed files, of the files that analyzers failed to analyze, and of the reported issues.
+   */
+  public static final String ANALYSIS = "analysis";
+  public static final String ANALYSIS_FILES = "analysis.files";
+  public static final String ANALYSIS_FAILED_FILES = "analysis.failed_files";
+  public static final String ANALYSIS_ISSUES = "analysis.issues";
+
+  /**
+   * Counters of the files whose issues were replayed from the analysis result cache, of the files that had to be analyzed, of the files
+   * whose issues were added to the cache, and of the entries deleted to keep the cache under its maximum size. Only recorded when the
+   * cache is enabled with the {@code sonarlint.analysis.cache} property.
+   */
+  public static final String ANALYSIS_CACHE_HITS = "analysis.cache.hits";
+  public static final String ANALYSIS_CACHE_MISSES = "analysis.cache.misses";
+  public static final String ANALYSIS_CACHE_STORED = "analysis.cache.stored";
+  public static final String ANALYSIS_CACHE_EVICTED = "analysis.cache.evicted";
+
+  /**
+   * Counters of lookups in a {@link org.sonarsource.sonarlint.core.tracking.PersistentIssueTrackerCache}, of the entries persisted to
+   * disk when the cache is full, and gauge of the number of entries in memory. Only recorded when the cache is created with metrics.
+   */
+  public static final String TRACKER_CACHE_HITS = "tracking.cache.hits";
+  public static final String TRACKER_CACHE_MISSES = "tracking.cache.misses";
+  public static final String TRACKER_CACHE_PERSISTED = "tracking.cache.persisted";
+  public static final String TRACKER_CACHE_SIZE = "tracking.cache.size";
+
+  private MetricNames() {
+    // only constants
+  }
+}
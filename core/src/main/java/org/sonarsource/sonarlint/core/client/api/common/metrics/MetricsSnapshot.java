@@ -0,0 +1,82 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Values of all metrics of an engine at a point in time. The difference of two snapshots gives the activity in between, for example
+ * the bytes read from the storage during one analysis.
+ *
+ * @since 5.2
+ */
+public class MetricsSnapshot {
+  private final long timestamp;
+  private final Map<String, Long> counters;
+  private final Map<String, Long> gauges;
+  private final Map<String, TimerSnapshot> timers;
+
+  public MetricsSnapshot(long timestamp, Map<String, Long> counters, Map<String, Long> gauges, Map<String, TimerSnapshot> timers) {
+    this.timestamp = timestamp;
+    this.counters = Collections.unmodifiableMap(new TreeMap<>(counters));
+    this.gauges = Collections.unmodifiableMap(new TreeMap<>(gauges));
+    this.timers = Collections.unmodifiableMap(new TreeMap<>(timers));
+  }
+
+  /**
+   * Time of the snapshot, in milliseconds since epoch.
+   */
+  public long timestamp() {
+    return timestamp;
+  }
+
+  public Map<String, Long> counters() {
+    return counters;
+  }
+
+  public Map<String, Long> gauges() {
+    return gauges;
+  }
+
+  public Map<String, TimerSnapshot> timers() {
+    return timers;
+  }
+
+  /**
+   * Value of a counter, or 0 if it was never incremented.
+   */
+  public long counter(String name) {
+    return counters.getOrDefault(name, 0L);
+  }
+
+  /**
+   * Value of a timer, or an empty one if it was never recorded.
+   */
+  public TimerSnapshot timer(String name) {
+    return timers.getOrDefault(name, new TimerSnapshot(0, 0, 0));
+  }
+
+  @Override
+  public String toString() {
+    return "counters=" + counters + ", gauges=" + gauges + ", timers=" + timers;
+  }
+}
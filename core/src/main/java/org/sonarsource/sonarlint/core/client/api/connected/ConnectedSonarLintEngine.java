@@ -147,6 +147,17 @@ public interface ConnectedSonarLintEngine extends SonarLintEngine {
    */
   void updateProject(EndpointParams endpoint, HttpClient client, String projectKey, boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Update given projects, a few of them in parallel. This is more efficient than calling
+   * {@link #updateProject(EndpointParams, HttpClient, String, boolean, ProgressMonitor)} for each project.
+   *
+   * @return storage status of updated projects, and failure of each project that could not be updated
+   * @throws CanceledException if the update task was cancelled
+   * @since 5.2
+   */
+  ProjectBatchResult<ProjectStorageStatus> updateProjects(EndpointParams endpoint, HttpClient client, Collection<String> projectKeys, boolean fetchTaintVulnerabilities,
+    @Nullable ProgressMonitor monitor);
+
   /**
    * Check server to see if global storage need updates.
    *
@@ -165,6 +176,17 @@ public interface ConnectedSonarLintEngine extends SonarLintEngine {
    */
   StorageUpdateCheckResult checkIfProjectStorageNeedUpdate(EndpointParams endpoint, HttpClient client, String projectKey, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Check server to see if storage of given projects need updates. Global settings are downloaded once for all projects.
+   *
+   * @return check result of each project, and failure of each project that could not be checked
+   *   (see {@link #checkIfProjectStorageNeedUpdate(EndpointParams, HttpClient, String, ProgressMonitor)} for possible failures)
+   * @throws DownloadException if it fails to download global settings
+   * @since 5.2
+   */
+  ProjectBatchResult<StorageUpdateCheckResult> checkIfProjectsStorageNeedUpdate(EndpointParams endpoint, HttpClient client, Collection<String> projectKeys,
+    @Nullable ProgressMonitor monitor);
+
   /**
    * Downloads, stores and returns server issues for a given file.
    *
@@ -177,6 +199,19 @@ public interface ConnectedSonarLintEngine extends SonarLintEngine {
   List<ServerIssue> downloadServerIssues(EndpointParams endpoint, HttpClient client, ProjectBinding projectBinding, String ideFilePath,
     boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Downloads, stores and returns server issues for several files of the same project, typically all files opened in the IDE.
+   * This is more efficient than calling {@link #downloadServerIssues(EndpointParams, HttpClient, ProjectBinding, String, boolean, ProgressMonitor)} for each file.
+   *
+   * @param projectBinding information about the project (must have been previously updated with {@link #updateProject(EndpointParams, HttpClient, String, ProgressMonitor)})
+   * @param ideFilePaths   relative to the project in the IDE.
+   * @return All server issues in the local storage for each of the given files, by IDE path. If a file has no issues, an empty list is associated.
+   * @throws DownloadException if it fails to download issues of some files. Issues that were successfully downloaded are stored anyway.
+   * @since 5.2
+   */
+  Map<String, List<ServerIssue>> downloadServerIssues(EndpointParams endpoint, HttpClient client, ProjectBinding projectBinding, Collection<String> ideFilePaths,
+    boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor);
+
   /**
    * Downloads and stores server issues for a given project.
    *
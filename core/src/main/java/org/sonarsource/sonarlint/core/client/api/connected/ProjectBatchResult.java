@@ -0,0 +1,50 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.connected;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of an operation run on several projects at once. Each project either succeeded with a result, or failed.
+ *
+ * @since 5.2
+ */
+public class ProjectBatchResult<T> {
+  private final Map<String, T> resultsByProjectKey;
+  private final Map<String, RuntimeException> failuresByProjectKey;
+
+  public ProjectBatchResult(Map<String, T> resultsByProjectKey, Map<String, RuntimeException> failuresByProjectKey) {
+    this.resultsByProjectKey = Collections.unmodifiableMap(resultsByProjectKey);
+    this.failuresByProjectKey = Collections.unmodifiableMap(failuresByProjectKey);
+  }
+
+  public Map<String, T> results() {
+    return resultsByProjectKey;
+  }
+
+  public Map<String, RuntimeException> failures() {
+    return failuresByProjectKey;
+  }
+
+  public boolean isSuccessful() {
+    return failuresByProjectKey.isEmpty();
+  }
+}
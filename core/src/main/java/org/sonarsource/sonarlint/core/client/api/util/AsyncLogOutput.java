@@ -0,0 +1,196 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+
+/**
+ * Decorates a {@link LogOutput} so that messages are written to it from a dedicated thread, for example when the IDE console is slow.
+ * Messages are stored in a fixed size ring buffer. When it is full, the logging thread waits for some room to be available, so that
+ * no message is lost. Messages are delivered in the order they were logged.
+ * <p>
+ * {@link #close()} delivers pending messages and stops the dispatching thread.
+ * <p>
+ * Failures of the decorated output don't stop the delivery of next messages. They are counted, see {@link #failures()}.
+ */
+public class AsyncLogOutput implements LogOutput, AutoCloseable {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final LogOutput delegate;
+  private final String[] messages;
+  private final Level[] levels;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Condition drained = lock.newCondition();
+  private final Thread dispatcher;
+  private final AtomicLong failures = new AtomicLong();
+  private volatile RuntimeException firstFailure;
+  private int head;
+  private int count;
+  private boolean dispatching;
+  private boolean closed;
+
+  public AsyncLogOutput(LogOutput delegate) {
+    this(delegate, DEFAULT_CAPACITY);
+  }
+
+  public AsyncLogOutput(LogOutput delegate, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.delegate = delegate;
+    this.messages = new String[capacity];
+    this.levels = new Level[capacity];
+    this.dispatcher = new Thread(this::dispatch, "sonarlint-log-dispatcher");
+    this.dispatcher.setDaemon(true);
+    this.dispatcher.start();
+  }
+
+  @Override
+  public Level enabledLevel() {
+    return delegate.enabledLevel();
+  }
+
+  @Override
+  public void log(String formattedMessage, Level level) {
+    lock.lock();
+    try {
+      while (count == messages.length && !closed) {
+        notFull.awaitUninterruptibly();
+      }
+      if (closed) {
+        delegate.log(formattedMessage, level);
+        return;
+      }
+      int tail = (head + count) % messages.length;
+      messages[tail] = formattedMessage;
+      levels[tail] = level;
+      count++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Wait until all messages logged so far have been written to the decorated output, or the timeout elapsed.
+   * @return true if all messages were written
+   */
+  public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (count > 0 || dispatching) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = drained.awaitNanos(remainingNanos);
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of messages the decorated output failed to write.
+   */
+  public long failures() {
+    return failures.get();
+  }
+
+  /**
+   * First exception thrown by the decorated output, if any.
+   */
+  @CheckForNull
+  public RuntimeException firstFailure() {
+    return firstFailure;
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      dispatcher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void dispatch() {
+    String[] batchMessages = new String[messages.length];
+    Level[] batchLevels = new Level[messages.length];
+    while (true) {
+      int batchSize;
+      lock.lock();
+      try {
+        dispatching = false;
+        if (count == 0) {
+          drained.signalAll();
+        }
+        while (count == 0 && !closed) {
+          notEmpty.awaitUninterruptibly();
+        }
+        if (count == 0) {
+          return;
+        }
+        batchSize = count;
+        for (int i = 0; i < batchSize; i++) {
+          int index = (head + i) % messages.length;
+          batchMessages[i] = messages[index];
+          batchLevels[i] = levels[index];
+          messages[index] = null;
+          levels[index] = null;
+        }
+        head = (head + batchSize) % messages.length;
+        count = 0;
+        dispatching = true;
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      for (int i = 0; i < batchSize; i++) {
+        try {
+          delegate.log(batchMessages[i], batchLevels[i]);
+        } catch (RuntimeException e) {
+          // a failing output must not stop the delivery of next messages
+          if (failures.getAndIncrement() == 0) {
+            firstFailure = e;
+          }
+        }
+        batchMessages[i] = null;
+      }
+    }
+  }
+}
@@ -231,6 +231,16 @@ public class FileUtils {
    */
   public static void replaceDir(Consumer<Path> dirContentUpdater, Path target, Path work) {
     dirContentUpdater.accept(work);
+    replaceDir(target, work);
+  }
+
+  /**
+   * Replace the target directory with an already populated directory.
+   *
+   * @param target target location to replace
+   * @param work directory with the new content
+   */
+  public static void replaceDir(Path target, Path work) {
     FileUtils.deleteRecursively(target);
     FileUtils.mkdirs(target.getParent());
     FileUtils.moveDir(work, target);
@@ -20,59 +20,71 @@
 package org.sonarsource.sonarlint.core.client.api.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 /**
  * Indexes text associated to objects, and performs full text search to find matching objects.
  * It is a positional index, so it supports queries consisted of multiple terms, in which case it will find partial term matches in sequence (distance = 1).
  * The result is sorted by score. The score of each term matches is the ratio of the term matches (1 for exact match), 
  * and the global score is the sum of the term's scores in the object divided by the total term frequency in the object.
+ * Objects with the same score are returned in the order they were indexed.
  * 
  * The generic type should properly implement equals and hashCode.
  * <b>An object cannot be indexed twice</b>. 
  * 
+ * Indexed objects are given an int id, and each term keeps its postings as a sorted array of (object id, position) pairs packed in a long.
+ * Prefix lookup is a binary search in the sorted array of terms, and phrase matching is a merge-join of sorted postings.
+ * 
  * Performance of indexing: O(N)
- * Performance of search: O(log N) on the number of indexed terms + O(N) on the number of results
+ * Performance of search: O(log N) on the number of indexed terms + O(N log K) on the number of postings of the K terms matching a prefix
  */
 public class TextSearchIndex<T> {
   private static final String SPLIT_PATTERN = "\\W";
-  private TreeMap<String, List<DictEntry>> termToObj;
-  private Map<T, Integer> objToWordFrequency;
+  private List<T> objects;
+  private Map<T, Integer> objToId;
+  private int[] objWordFrequency;
+  private Map<String, Postings> termToPostings;
+  /**
+   * Built on the first search after indexing. Volatile, as searches may run concurrently.
+   */
+  private volatile String[] sortedTerms;
 
   public TextSearchIndex() {
     clear();
   }
 
   public int size() {
-    return objToWordFrequency.size();
+    return objects.size();
   }
 
   public boolean isEmpty() {
-    return objToWordFrequency.isEmpty();
+    return objects.isEmpty();
   }
 
   public void index(T obj, String text) {
-    if (objToWordFrequency.containsKey(obj)) {
+    if (objToId.containsKey(obj)) {
       throw new IllegalArgumentException("Already indexed");
     }
     List<String> terms = tokenize(text);
-    objToWordFrequency.put(obj, terms.size());
+    int id = objects.size();
+    objects.add(obj);
+    objToId.put(obj, id);
+    if (id == objWordFrequency.length) {
+      objWordFrequency = Arrays.copyOf(objWordFrequency, Math.max(16, id * 2));
+    }
+    objWordFrequency[id] = terms.size();
 
     int i = 0;
     for (String s : terms) {
-      addToDictionary(s, i, obj);
+      addToDictionary(s, id, i);
       i++;
     }
   }
@@ -90,18 +102,14 @@ public class TextSearchIndex<T> {
       return Collections.emptyMap();
     }
 
-    List<SearchResult> matched;
-
     // positional search
-    Iterator<String> it = terms.iterator();
-    matched = searchTerm(it.next());
+    Matches matched = null;
+    for (String term : terms) {
+      Matches termMatches = searchTerm(term);
+      matched = matched == null ? termMatches : matchNext(matched, termMatches);
 
-    while (it.hasNext()) {
-      List<SearchResult> termMatches = searchTerm(it.next());
-      matched = matchPositional(matched, termMatches, 1);
-
-      if (matched.isEmpty()) {
-        break;
+      if (matched.size == 0) {
+        return Collections.emptyMap();
       }
     }
 
@@ -109,83 +117,150 @@ public class TextSearchIndex<T> {
     return prepareResult(matched);
   }
 
-  private List<SearchResult> matchPositional(List<SearchResult> previousMatches, List<SearchResult> termMatches, int maxDistance) {
-    List<SearchResult> matches = new LinkedList<>();
-
-    for (SearchResult e1 : previousMatches) {
-      for (SearchResult e2 : termMatches) {
-        if (!e1.obj.equals(e2.obj)) {
-          continue;
-        }
-
-        int dist = e2.lastIdx - e1.lastIdx;
-        if (dist > 0 && dist <= maxDistance) {
-          e2.score += e1.score;
-          matches.add(e2);
-        }
+  /**
+   * Keeps the matches of the next term that directly follow a match of the previous terms, accumulating their score.
+   * Both inputs are sorted by (object id, position), so a single merge-join is enough.
+   */
+  private static Matches matchNext(Matches previousMatches, Matches termMatches) {
+    Matches matches = new Matches(Math.min(previousMatches.size, termMatches.size));
+    int i = 0;
+    int j = 0;
+    while (i < previousMatches.size && j < termMatches.size) {
+      long expected = previousMatches.keys[i] + 1;
+      long actual = termMatches.keys[j];
+      if (expected < actual) {
+        i++;
+      } else if (expected > actual) {
+        j++;
+      } else {
+        matches.add(actual, previousMatches.scores[i] + termMatches.scores[j]);
+        i++;
+        j++;
       }
     }
     return matches;
   }
 
-  private Map<T, Double> prepareResult(List<SearchResult> entries) {
-    Map<T, Double> objToScore = new HashMap<>();
-
-    for (SearchResult e : entries) {
-      double score = e.score / objToWordFrequency.get(e.obj);
-      Double previousScore = objToScore.get(e.obj);
-
-      if (previousScore == null || previousScore < score) {
-        objToScore.put(e.obj, score);
+  private Map<T, Double> prepareResult(Matches matches) {
+    // matches are grouped by object id, keep the best score of each object
+    int count = 0;
+    int[] ids = new int[matches.size];
+    double[] scores = new double[matches.size];
+    for (int i = 0; i < matches.size; i++) {
+      int id = objectId(matches.keys[i]);
+      double score = matches.scores[i] / objWordFrequency[id];
+      if (count > 0 && ids[count - 1] == id) {
+        scores[count - 1] = Math.max(scores[count - 1], score);
+      } else {
+        ids[count] = id;
+        scores[count] = score;
+        count++;
       }
     }
 
-    return objToScore.entrySet().stream()
-      .sorted(Map.Entry.<T, Double>comparingByValue().reversed())
-      .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    // stable sort, so objects with the same score keep the indexing order
+    Arrays.sort(order, (o1, o2) -> Double.compare(scores[o2], scores[o1]));
+
+    Map<T, Double> result = new LinkedHashMap<>(count * 2);
+    for (int i : order) {
+      result.put(objects.get(ids[i]), scores[i]);
+    }
+    return result;
   }
 
   /**
-   * Returns any term prefixed by the given text
+   * Returns the postings of any term prefixed by the given text, sorted by (object id, position)
    */
-  private List<SearchResult> searchTerm(String termPrefix) {
-    List<SearchResult> entries = new LinkedList<>();
+  private Matches searchTerm(String termPrefix) {
+    String[] terms = sortedTerms();
+    int idx = Arrays.binarySearch(terms, termPrefix);
+    int from = idx >= 0 ? idx : (-idx - 1);
+
+    List<Matches> perTerm = new ArrayList<>();
+    for (int i = from; i < terms.length && terms[i].startsWith(termPrefix); i++) {
+      double score = ((double) termPrefix.length()) / terms[i].length();
+      perTerm.add(termToPostings.get(terms[i]).toMatches(score));
+    }
+    return mergeAll(perTerm, 0, perTerm.size());
+  }
 
-    SortedMap<String, List<DictEntry>> tailMap = termToObj.tailMap(termPrefix);
-    for (Entry<String, List<DictEntry>> e : tailMap.entrySet()) {
-      if (!e.getKey().startsWith(termPrefix)) {
-        break;
-      }
-      double score = ((double) termPrefix.length()) / e.getKey().length();
-      e.getValue().stream()
-        .map(v -> new SearchResult(score, v.obj, v.tokenIndex))
-        .forEach(entries::add);
+  private static Matches mergeAll(List<Matches> list, int from, int to) {
+    if (to - from == 0) {
+      return new Matches(0);
     }
+    if (to - from == 1) {
+      return list.get(from);
+    }
+    int mid = (from + to) >>> 1;
+    return merge(mergeAll(list, from, mid), mergeAll(list, mid, to));
+  }
 
-    return entries;
+  private static Matches merge(Matches m1, Matches m2) {
+    Matches merged = new Matches(m1.size + m2.size);
+    int i = 0;
+    int j = 0;
+    while (i < m1.size || j < m2.size) {
+      // a position holds a single term, so keys are never equal
+      if (j == m2.size || (i < m1.size && m1.keys[i] < m2.keys[j])) {
+        merged.add(m1.keys[i], m1.scores[i]);
+        i++;
+      } else {
+        merged.add(m2.keys[j], m2.scores[j]);
+        j++;
+      }
+    }
+    return merged;
   }
 
   public void clear() {
-    termToObj = new TreeMap<>();
-    objToWordFrequency = new HashMap<>();
+    objects = new ArrayList<>();
+    objToId = new HashMap<>();
+    objWordFrequency = new int[0];
+    termToPostings = new HashMap<>();
+    sortedTerms = null;
   }
 
   /**
    * @return Can be empty, but never null
    */
   public Set<String> getTokens() {
-    return Collections.unmodifiableSet(termToObj.keySet());
+    return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(sortedTerms())));
   }
 
-  private void addToDictionary(String token, int tokenIndex, T obj) {
-    List<DictEntry> entries = termToObj.get(token);
+  private String[] sortedTerms() {
+    String[] terms = sortedTerms;
+    if (terms == null) {
+      // concurrent searches may all build it, they get the same content
+      terms = termToPostings.keySet().toArray(new String[0]);
+      Arrays.sort(terms);
+      sortedTerms = terms;
+    }
+    return terms;
+  }
 
-    if (entries == null) {
-      entries = new LinkedList<>();
-      termToObj.put(token, entries);
+  private void addToDictionary(String token, int objId, int tokenIndex) {
+    Postings postings = termToPostings.get(token);
+
+    if (postings == null) {
+      postings = new Postings();
+      termToPostings.put(token, postings);
+      sortedTerms = null;
     }
 
-    entries.add(new DictEntry(obj, tokenIndex));
+    // objects get increasing ids and are tokenized in order, so postings stay sorted
+    postings.add(key(objId, tokenIndex));
+  }
+
+  private static long key(int objId, int tokenIndex) {
+    return (((long) objId) << 32) | tokenIndex;
+  }
+
+  private static int objectId(long key) {
+    return (int) (key >>> 32);
   }
 
   private static List<String> tokenize(String text) {
@@ -201,25 +276,43 @@ public class TextSearchIndex<T> {
     return terms;
   }
 
-  private class SearchResult {
-    private double score;
-    private T obj;
-    private int lastIdx;
+  private static class Postings {
+    private long[] keys = new long[2];
+    private int size;
 
-    public SearchResult(double score, T obj, int lastIdx) {
-      this.score = score;
-      this.obj = obj;
-      this.lastIdx = lastIdx;
+    void add(long key) {
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      keys[size++] = key;
+    }
+
+    Matches toMatches(double score) {
+      Matches matches = new Matches(size);
+      System.arraycopy(keys, 0, matches.keys, 0, size);
+      Arrays.fill(matches.scores, 0, size, score);
+      matches.size = size;
+      return matches;
     }
   }
 
-  private class DictEntry {
-    T obj;
-    int tokenIndex;
+  /**
+   * Matches of a search, sorted by (object id, position) of their last term
+   */
+  private static class Matches {
+    private final long[] keys;
+    private final double[] scores;
+    private int size;
+
+    Matches(int capacity) {
+      keys = new long[capacity];
+      scores = new double[capacity];
+    }
 
-    public DictEntry(T obj, int tokenIndex) {
-      this.obj = obj;
-      this.tokenIndex = tokenIndex;
+    void add(long key, double score) {
+      keys[size] = key;
+      scores[size] = score;
+      size++;
     }
   }
 }
@@ -24,6 +24,7 @@ import org.sonar.api.resources.Languages;
 import org.sonar.api.scan.filesystem.PathResolver;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueDispatcher;
 import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
 import org.sonarsource.sonarlint.core.analyzer.noop.NoOpFileLinesContextFactory;
 import org.sonarsource.sonarlint.core.analyzer.noop.NoOpTestPlanBuilder;
@@ -34,10 +35,12 @@ import org.sonarsource.sonarlint.core.analyzer.sensor.SensorOptimizer;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SensorsExecutor;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SonarLintSensorStorage;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileIndexer;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileBuilder;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileCache;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileContents;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.LanguageDetection;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintFileSystem;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputProject;
@@ -48,12 +51,16 @@ import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.Is
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.pattern.IssueInclusionPatternInitializer;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner.IssueExclusionsLoader;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.Phase;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class AnalysisContainer extends ComponentContainer {
 
   private static final Logger LOG = Loggers.get(AnalysisContainer.class);
   private final ProgressWrapper progress;
+  private long startNanos;
 
   public AnalysisContainer(ComponentContainer globalContainer, ProgressWrapper progress) {
     super(globalContainer);
@@ -62,6 +69,7 @@ public class AnalysisContainer extends ComponentContainer {
 
   @Override
   protected void doBeforeStart() {
+    startNanos = System.nanoTime();
     addCoreComponents();
     addPluginExtensions();
   }
@@ -90,6 +98,7 @@ public class AnalysisContainer extends ComponentContainer {
 
       // file system
       InputFileCache.class,
+      InputFileContents.class,
       InputFileBuilder.class,
       FileMetadata.class,
       LanguageDetection.class,
@@ -105,10 +114,13 @@ public class AnalysisContainer extends ComponentContainer {
       IssueExclusionsLoader.class,
 
       SensorOptimizer.class,
+      DefaultAnalysisTimings.class,
 
       DefaultSensorContext.class,
       SonarLintSensorStorage.class,
       IssueFilters.class,
+      IssueDispatcher.class,
+      AnalysisResultCache.class,
 
       // rules
       CheckFactory.class,
@@ -127,9 +139,19 @@ public class AnalysisContainer extends ComponentContainer {
   @Override
   protected void doAfterStart() {
     LOG.debug("Start analysis");
+    DefaultAnalysisTimings timings = getComponentByType(DefaultAnalysisTimings.class);
+    timings.record(Phase.CONTAINER_START, startNanos);
     // Don't initialize Sensors before the FS is indexed
+    long indexingStart = timings.start();
     getComponentByType(FileIndexer.class).index();
+    timings.record(Phase.FILE_INDEXING, indexingStart);
     getComponentByType(SensorsExecutor.class).execute();
+    getComponentByType(IssueDispatcher.class).finish();
+    getComponentByType(AnalysisResultCache.class).store();
+    timings.record(Phase.TOTAL, startNanos);
+    if (timings.isEnabled()) {
+      getComponentByType(DefaultAnalysisResult.class).setTimings(timings);
+    }
   }
 
 }
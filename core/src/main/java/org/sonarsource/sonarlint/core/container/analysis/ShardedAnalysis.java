@@ -0,0 +1,301 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.BatchIssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+/**
+ * Analysis of the input files in several shards, each one analyzed in its own {@link AnalysisContainer} on a bounded pool.
+ * Issues of all shards are reported to the same listener, one at a time, and the results of the shards are combined.
+ * <p>
+ * Analyzers only see the files of their shard, so issues relying on cross-file state may differ from a single container analysis.
+ * This is why sharding is only enabled when {@link #SHARDS_PROPERTY} is greater than 1.
+ */
+public class ShardedAnalysis {
+
+  /**
+   * Number of shards the input files are partitioned into. Default is 1 (no sharding).
+   */
+  public static final String SHARDS_PROPERTY = "sonarlint.analysis.shards";
+  /**
+   * How input files are partitioned: "size" (default) to balance the total size of the files of each shard, or "language" to keep all
+   * files of a language in the same shard.
+   */
+  public static final String PARTITIONING_PROPERTY = "sonarlint.analysis.shards.partitioning";
+
+  private static final Logger LOG = Loggers.get(ShardedAnalysis.class);
+
+  enum Partitioning {
+    SIZE, LANGUAGE
+  }
+
+  /**
+   * Analyze the given files in a dedicated container, like a non sharded analysis would do for all files.
+   */
+  @FunctionalInterface
+  public interface ShardAnalyzer {
+    DefaultAnalysisResult analyze(List<ClientInputFile> inputFiles, IssueListener issueListener, ProgressWrapper progress);
+  }
+
+  private ShardedAnalysis() {
+    // only static stuff
+  }
+
+  public static int shardCount(AbstractAnalysisConfiguration configuration) {
+    String value = configuration.extraProperties().get(SHARDS_PROPERTY);
+    if (value == null) {
+      return 1;
+    }
+    try {
+      return Math.max(1, Integer.parseInt(value.trim()));
+    } catch (NumberFormatException e) {
+      LOG.warn("Invalid value for '{}', analysis will not be sharded: {}", SHARDS_PROPERTY, value);
+      return 1;
+    }
+  }
+
+  public static AnalysisResults analyze(AbstractAnalysisConfiguration configuration, int shardCount, IssueListener issueListener, ProgressWrapper progress,
+    ShardAnalyzer analyzer) {
+    return analyze(configuration, shardCount, issueListener, progress, analyzer, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param maxThreads shards are analyzed on at most this number of threads, more shards only queue up
+   */
+  static AnalysisResults analyze(AbstractAnalysisConfiguration configuration, int shardCount, IssueListener issueListener, ProgressWrapper progress,
+    ShardAnalyzer analyzer, int maxThreads) {
+    List<List<ClientInputFile>> shards = partition(configuration.inputFiles(), shardCount, partitioning(configuration));
+    LOG.debug("Analyze files in {} shards", shards.size());
+    AtomicBoolean failed = new AtomicBoolean();
+    // Shards run concurrently, so only cancellation is forwarded to the caller's monitor. A failed shard cancels the others.
+    ProgressWrapper shardProgress = new ProgressWrapper(new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return failed.get() || progress.isCanceled();
+      }
+    });
+    IssueListener shardIssueListener = synchronizedListener(issueListener);
+    int threads = Math.max(1, Math.min(shards.size(), maxThreads));
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-analysis-shard-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<Future<DefaultAnalysisResult>> futures = new ArrayList<>();
+      for (List<ClientInputFile> shard : shards) {
+        futures.add(executor.submit(() -> {
+          try {
+            return analyzer.analyze(shard, shardIssueListener, shardProgress);
+          } catch (RuntimeException e) {
+            failed.set(true);
+            throw e;
+          }
+        }));
+      }
+      return combine(futures, progress);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Shards deliver their issues concurrently. Keep the listener a {@link BatchIssueListener} if it is one, so that issues can still be
+   * delivered in batches.
+   */
+  private static IssueListener synchronizedListener(IssueListener issueListener) {
+    Object issueLock = new Object();
+    if (issueListener instanceof BatchIssueListener) {
+      BatchIssueListener batchIssueListener = (BatchIssueListener) issueListener;
+      return new BatchIssueListener() {
+        @Override
+        public void handle(List<Issue> issues) {
+          synchronized (issueLock) {
+            batchIssueListener.handle(issues);
+          }
+        }
+
+        @Override
+        public void handle(Issue issue) {
+          synchronized (issueLock) {
+            batchIssueListener.handle(issue);
+          }
+        }
+      };
+    }
+    return issue -> {
+      synchronized (issueLock) {
+        issueListener.handle(issue);
+      }
+    };
+  }
+
+  private static DefaultAnalysisResult combine(List<Future<DefaultAnalysisResult>> futures, ProgressWrapper progress) {
+    DefaultAnalysisResult result = new DefaultAnalysisResult();
+    RuntimeException failure = null;
+    for (int i = 0; i < futures.size(); i++) {
+      progress.setProgress("Analyze shard " + (i + 1) + "/" + futures.size(), i / (float) futures.size());
+      try {
+        result.merge(futures.get(i).get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while analyzing shards", e);
+      } catch (ExecutionException e) {
+        RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+          : new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        // Other shards are canceled after a failure, report the failure rather than the cancellation
+        if (failure == null || (failure instanceof CanceledException && !(cause instanceof CanceledException))) {
+          failure = cause;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    progress.setProgress("Done", 1.0f);
+    return result;
+  }
+
+  private static Partitioning partitioning(AbstractAnalysisConfiguration configuration) {
+    String value = configuration.extraProperties().get(PARTITIONING_PROPERTY);
+    if (value == null) {
+      return Partitioning.SIZE;
+    }
+    try {
+      return Partitioning.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Invalid value for '{}', files will be partitioned by size: {}", PARTITIONING_PROPERTY, value);
+      return Partitioning.SIZE;
+    }
+  }
+
+  /**
+   * Assign groups of files to shards, largest group first to the lightest shard. Each file is its own group when partitioning by size.
+   * Files keep their original order in each shard, and empty shards are omitted.
+   */
+  static List<List<ClientInputFile>> partition(Iterable<ClientInputFile> inputFiles, int shardCount, Partitioning partitioning) {
+    Map<String, Group> groups = new LinkedHashMap<>();
+    int index = 0;
+    for (ClientInputFile inputFile : inputFiles) {
+      String key = partitioning == Partitioning.LANGUAGE ? languageKey(inputFile) : Integer.toString(index);
+      groups.computeIfAbsent(key, k -> new Group()).add(index, inputFile);
+      index++;
+    }
+
+    List<Shard> shards = new ArrayList<>();
+    PriorityQueue<Shard> lightestFirst = new PriorityQueue<>(Comparator.comparingLong((Shard s) -> s.weight).thenComparingInt(s -> s.id));
+    for (int i = 0; i < Math.max(1, shardCount); i++) {
+      Shard shard = new Shard(i);
+      shards.add(shard);
+      lightestFirst.add(shard);
+    }
+    groups.values().stream()
+      .sorted(Comparator.comparingLong((Group g) -> g.weight).reversed())
+      .forEachOrdered(group -> {
+        Shard lightest = lightestFirst.poll();
+        lightest.add(group);
+        lightestFirst.add(lightest);
+      });
+
+    return shards.stream()
+      .filter(s -> !s.files.isEmpty())
+      .map(s -> s.files.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey())
+        .map(Map.Entry::getValue)
+        .collect(Collectors.toList()))
+      .collect(Collectors.toList());
+  }
+
+  private static String languageKey(ClientInputFile inputFile) {
+    Language language = inputFile.language();
+    if (language != null) {
+      return language.getLanguageKey();
+    }
+    // Language detection happens in the container, group files by suffix meanwhile
+    String path = inputFile.relativePath();
+    int lastDot = path.lastIndexOf('.');
+    return lastDot > path.lastIndexOf('/') ? path.substring(lastDot + 1).toLowerCase(Locale.ENGLISH) : "";
+  }
+
+  private static long weight(ClientInputFile inputFile) {
+    try {
+      URI uri = inputFile.uri();
+      if ("file".equals(uri.getScheme())) {
+        return Math.max(1, Files.size(Paths.get(uri)));
+      }
+    } catch (Exception e) {
+      // size is only a hint
+    }
+    return 1;
+  }
+
+  private static class Group {
+    private final Map<Integer, ClientInputFile> files = new LinkedHashMap<>();
+    private long weight;
+
+    private void add(int index, ClientInputFile inputFile) {
+      files.put(index, inputFile);
+      weight += weight(inputFile);
+    }
+  }
+
+  private static class Shard {
+    private final int id;
+    private final Map<Integer, ClientInputFile> files = new LinkedHashMap<>();
+    private long weight;
+
+    private Shard(int id) {
+      this.id = id;
+    }
+
+    private void add(Group group) {
+      files.putAll(group.files);
+      weight += group.weight;
+    }
+  }
+}
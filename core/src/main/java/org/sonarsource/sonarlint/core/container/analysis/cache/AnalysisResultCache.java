@@ -0,0 +1,368 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rule;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultLocation;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueDispatcher;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.container.analysis.MutableAnalysisSettings;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultTextPointer;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultTextRange;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileContents;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.AnalysisCacheEntry;
+import org.sonarsource.sonarlint.core.tracking.DigestUtils;
+import org.sonarsource.sonarlint.core.util.VersionUtils;
+
+/**
+ * Skip the analysis of files that were already analyzed with the same content, rules, plugins and settings, when
+ * {@link #ENABLED_PROPERTY} is true. The issues found in these files are replayed from the {@link AnalysisResultStore}, and the
+ * issues found in the other files are added to the store at the end of the analysis.
+ * <p>
+ * This assumes that analyzers only look at the file they raise issues on, which doesn't hold for all of them. This is why only the
+ * languages listed in {@link #LANGUAGES_PROPERTY} are cached. Results of files with issue locations in other files, and of files that
+ * failed to be analyzed, are never cached.
+ */
+public class AnalysisResultCache {
+
+  public static final String ENABLED_PROPERTY = "sonarlint.analysis.cache";
+  /**
+   * Comma-separated keys of the languages whose analyzers only look at the analyzed file. Empty by default, so that nothing is cached.
+   */
+  public static final String LANGUAGES_PROPERTY = "sonarlint.analysis.cache.languages";
+
+  private static final Logger LOG = Loggers.get(AnalysisResultCache.class);
+  // Increment when the content of the entries or the computation of the keys change
+  private static final String FORMAT_VERSION = "1";
+
+  private final Configuration config;
+  private final MutableAnalysisSettings settings;
+  private final ActiveRules activeRules;
+  private final Rules rules;
+  private final PluginRepository pluginRepository;
+  private final AbstractAnalysisConfiguration analysisConfiguration;
+  private final AnalysisResultStore store;
+  private final InputFileContents contents;
+  private final IssueDispatcher issueDispatcher;
+  private final DefaultAnalysisResult analysisResult;
+
+  private final Map<ClientInputFile, String> keysByMissedFile = new LinkedHashMap<>();
+  private final Map<ClientInputFile, List<Issue>> issuesByMissedFile = new LinkedHashMap<>();
+  private final Set<ClientInputFile> uncacheableFiles = new HashSet<>();
+  private Boolean enabled;
+  private Set<String> languages;
+  private byte[] fingerprint;
+  private int hits;
+
+  public AnalysisResultCache(Configuration config, MutableAnalysisSettings settings, ActiveRules activeRules, Rules rules, PluginRepository pluginRepository,
+    AbstractAnalysisConfiguration analysisConfiguration, AnalysisResultStore store, InputFileContents contents, IssueDispatcher issueDispatcher,
+    DefaultAnalysisResult analysisResult) {
+    this.config = config;
+    this.settings = settings;
+    this.activeRules = activeRules;
+    this.rules = rules;
+    this.pluginRepository = pluginRepository;
+    this.analysisConfiguration = analysisConfiguration;
+    this.store = store;
+    this.contents = contents;
+    this.issueDispatcher = issueDispatcher;
+    this.analysisResult = analysisResult;
+  }
+
+  public boolean isEnabled() {
+    if (enabled == null) {
+      enabled = config.getBoolean(ENABLED_PROPERTY).orElse(false);
+    }
+    return enabled;
+  }
+
+  /**
+   * Replay the issues of a file that was already analyzed.
+   * @param language detected language of the file
+   * @return true if the issues were replayed, and the file doesn't need to be analyzed
+   */
+  public boolean replay(ClientInputFile file, @Nullable Language language) {
+    if (!isEnabled() || !isCacheable(language)) {
+      return false;
+    }
+    String key;
+    try {
+      key = key(file);
+    } catch (IOException e) {
+      LOG.debug("Unable to compute the analysis cache key of " + file.uri(), e);
+      return false;
+    }
+    List<Issue> issues = store.get(key).map(entry -> toIssues(entry, file)).orElse(null);
+    if (issues == null) {
+      Metrics.counter(MetricNames.ANALYSIS_CACHE_MISSES).increment();
+      synchronized (this) {
+        keysByMissedFile.put(file, key);
+        issuesByMissedFile.put(file, new ArrayList<>());
+      }
+      return false;
+    }
+    Metrics.counter(MetricNames.ANALYSIS_CACHE_HITS).increment();
+    // Read only to compute the key
+    contents.release(file);
+    synchronized (this) {
+      hits++;
+    }
+    issues.forEach(issueDispatcher::dispatch);
+    return true;
+  }
+
+  /**
+   * Remember an issue raised by an analyzer, to store it with the other issues of the same file at the end of the analysis.
+   */
+  public synchronized void record(Issue issue) {
+    ClientInputFile file = issue.getInputFile();
+    List<Issue> issues = file != null ? issuesByMissedFile.get(file) : null;
+    if (issues == null) {
+      return;
+    }
+    if (isCacheable(issue, file)) {
+      issues.add(issue);
+    } else {
+      issuesByMissedFile.remove(file);
+      uncacheableFiles.add(file);
+    }
+  }
+
+  /**
+   * Store the issues of the files that were analyzed successfully.
+   */
+  public synchronized void store() {
+    if (!isEnabled()) {
+      return;
+    }
+    int stored = 0;
+    for (Map.Entry<ClientInputFile, List<Issue>> e : issuesByMissedFile.entrySet()) {
+      ClientInputFile file = e.getKey();
+      if (analysisResult.failedAnalysisFiles().contains(file)) {
+        continue;
+      }
+      AnalysisCacheEntry.Builder entry = AnalysisCacheEntry.newBuilder();
+      e.getValue().forEach(issue -> entry.addIssue(toProto(issue)));
+      store.put(keysByMissedFile.get(file), entry.build());
+      stored++;
+    }
+    Metrics.counter(MetricNames.ANALYSIS_CACHE_STORED).add(stored);
+    LOG.debug("Analysis cache: {} hit(s), {} miss(es), {} stored, {} not cacheable", hits, keysByMissedFile.size(), stored, uncacheableFiles.size());
+    issuesByMissedFile.clear();
+  }
+
+  private synchronized boolean isCacheable(@Nullable Language language) {
+    if (languages == null) {
+      languages = Arrays.stream(config.getStringArray(LANGUAGES_PROPERTY))
+        .map(String::trim)
+        .filter(key -> !key.isEmpty())
+        .collect(Collectors.toSet());
+    }
+    return language != null && languages.contains(language.getLanguageKey());
+  }
+
+  private static boolean isCacheable(Issue issue, ClientInputFile file) {
+    return isComplete(issue.getTextRange()) && issue.flows().stream()
+      .flatMap(f -> f.locations().stream())
+      .allMatch(l -> (l.getInputFile() == null || l.getInputFile().equals(file)) && isComplete(l.getTextRange()));
+  }
+
+  private static boolean isComplete(@Nullable org.sonarsource.sonarlint.core.client.api.common.TextRange textRange) {
+    return textRange == null || (textRange.getStartLineOffset() != null && textRange.getEndLine() != null && textRange.getEndLineOffset() != null);
+  }
+
+  private String key(ClientInputFile file) throws IOException {
+    MessageDigest digest = sha256();
+    digest.update(fingerprint());
+    update(digest, file.relativePath());
+    update(digest, String.valueOf(file.isTest()));
+    update(digest, String.valueOf(file.getCharset()));
+    update(digest, file.language() != null ? file.language().getLanguageKey() : "");
+    byte[] buffer = new byte[8192];
+    try (InputStream in = contents.inputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return DigestUtils.encodeHexString(digest.digest());
+  }
+
+  /**
+   * Hash of everything, except the file itself, that can change the issues found in a file.
+   */
+  private synchronized byte[] fingerprint() {
+    if (fingerprint == null) {
+      MessageDigest digest = sha256();
+      update(digest, FORMAT_VERSION);
+      update(digest, VersionUtils.getLibraryVersion());
+      update(digest, String.valueOf(analysisConfiguration.baseDir()));
+      new TreeMap<>(settings.getProperties()).forEach((k, v) -> {
+        update(digest, k);
+        update(digest, v);
+      });
+      activeRules.findAll().stream()
+        .sorted(Comparator.comparing(r -> r.ruleKey().toString()))
+        .forEach(r -> update(digest, r));
+      pluginRepository.getActivePluginInfos().stream()
+        .sorted()
+        .forEach(p -> update(digest, p));
+      fingerprint = digest.digest();
+    }
+    return fingerprint;
+  }
+
+  private static void update(MessageDigest digest, ActiveRule rule) {
+    update(digest, rule.ruleKey().toString());
+    update(digest, rule.severity());
+    update(digest, String.valueOf(rule.internalKey()));
+    update(digest, String.valueOf(rule.templateRuleKey()));
+    new TreeMap<>(rule.params()).forEach((k, v) -> {
+      update(digest, k);
+      update(digest, v);
+    });
+  }
+
+  private static void update(MessageDigest digest, PluginInfo plugin) {
+    update(digest, plugin.getKey());
+    update(digest, String.valueOf(plugin.getVersion()));
+    if (plugin.getJarFile() != null) {
+      update(digest, plugin.getJarFile().getName());
+      update(digest, String.valueOf(plugin.getJarFile().length()));
+    }
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    // Separator, so that ("ab", "c") and ("a", "bc") have different hashes
+    digest.update((byte) 0);
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static AnalysisCacheEntry.Issue toProto(Issue issue) {
+    AnalysisCacheEntry.Issue.Builder builder = AnalysisCacheEntry.Issue.newBuilder()
+      .setRuleKey(issue.getRuleKey())
+      .setSeverity(issue.getSeverity())
+      .setType(issue.getType());
+    Optional.ofNullable(issue.getMessage()).ifPresent(builder::setMessage);
+    Optional.ofNullable(toProto(issue.getTextRange())).ifPresent(builder::setTextRange);
+    for (Issue.Flow flow : issue.flows()) {
+      AnalysisCacheEntry.Flow.Builder flowBuilder = builder.addFlowBuilder();
+      for (IssueLocation location : flow.locations()) {
+        AnalysisCacheEntry.Location.Builder locationBuilder = flowBuilder.addLocationBuilder()
+          .setInFile(location.getInputFile() != null);
+        Optional.ofNullable(location.getMessage()).ifPresent(locationBuilder::setMessage);
+        Optional.ofNullable(toProto(location.getTextRange())).ifPresent(locationBuilder::setTextRange);
+      }
+    }
+    return builder.build();
+  }
+
+  @CheckForNull
+  private static AnalysisCacheEntry.TextRange toProto(@Nullable org.sonarsource.sonarlint.core.client.api.common.TextRange textRange) {
+    if (textRange == null) {
+      return null;
+    }
+    return AnalysisCacheEntry.TextRange.newBuilder()
+      .setStartLine(textRange.getStartLine())
+      .setStartLineOffset(textRange.getStartLineOffset())
+      .setEndLine(textRange.getEndLine())
+      .setEndLineOffset(textRange.getEndLineOffset())
+      .build();
+  }
+
+  /**
+   * @return null if one of the rules is not active anymore
+   */
+  @CheckForNull
+  private List<Issue> toIssues(AnalysisCacheEntry entry, ClientInputFile file) {
+    List<Issue> issues = new ArrayList<>(entry.getIssueCount());
+    for (AnalysisCacheEntry.Issue issue : entry.getIssueList()) {
+      RuleKey ruleKey = RuleKey.parse(issue.getRuleKey());
+      ActiveRule activeRule = activeRules.find(ruleKey);
+      Rule rule = rules.find(ruleKey);
+      if (activeRule == null || rule == null) {
+        return null;
+      }
+      List<Issue.Flow> flows = new ArrayList<>(issue.getFlowCount());
+      for (AnalysisCacheEntry.Flow flow : issue.getFlowList()) {
+        List<IssueLocation> locations = new ArrayList<>(flow.getLocationCount());
+        for (AnalysisCacheEntry.Location location : flow.getLocationList()) {
+          locations.add(new DefaultLocation(location.getInFile() ? file : null, location.hasTextRange() ? toTextRange(location.getTextRange()) : null,
+            location.getMessage().isEmpty() ? null : location.getMessage()));
+        }
+        flows.add(() -> locations);
+      }
+      issues.add(new DefaultClientIssue(issue.getSeverity(), issue.getType(), activeRule, rule, issue.getMessage(),
+        issue.hasTextRange() ? toTextRange(issue.getTextRange()) : null, file, flows));
+    }
+    return issues;
+  }
+
+  private static TextRange toTextRange(AnalysisCacheEntry.TextRange textRange) {
+    return new DefaultTextRange(new DefaultTextPointer(textRange.getStartLine(), textRange.getStartLineOffset()),
+      new DefaultTextPointer(textRange.getEndLine(), textRange.getEndLineOffset()));
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.AnalysisCacheEntry;
+
+/**
+ * On-disk store of the issues found in analyzed files, shared by all the analyses of an engine. Entries are keyed by a hash of the file
+ * content and of everything else that can change the result of the analysis, so they never need to be invalidated.
+ * <p>
+ * The total size of the entries is bounded: the least recently used entries are deleted when it is exceeded. The last access is kept
+ * in the modification time of the files, so that it survives restarts.
+ * <p>
+ * Engines using the same directory share the same instance, see {@link #forDirectory(Path, long)}. Entries written by other processes
+ * are still read when they are missing from the index.
+ */
+public class AnalysisResultStore {
+
+  public static final String MAX_BYTES_PROPERTY = "sonarlint.analysis.cache.maxBytes";
+  static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static final Logger LOG = Loggers.get(AnalysisResultStore.class);
+  private static final String EXTENSION = ".pb";
+  private static final Map<Path, AnalysisResultStore> STORES_BY_DIR = new ConcurrentHashMap<>();
+
+  private final Path dir;
+  private final long maxBytes;
+  // Size of the entries by key, in access order
+  private Map<String, Long> sizesByKey;
+  private long totalBytes;
+
+  AnalysisResultStore(Path dir, long maxBytes) {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Get the store of a directory, creating it if needed. The maximum size is the one given when the store is created.
+   */
+  public static AnalysisResultStore forDirectory(Path dir, long maxBytes) {
+    return STORES_BY_DIR.computeIfAbsent(dir.toAbsolutePath().normalize(), d -> new AnalysisResultStore(d, maxBytes));
+  }
+
+  public synchronized Optional<AnalysisCacheEntry> get(String key) {
+    loadIndex();
+    Path file = entryFile(key);
+    // Also moves the entry to the end of the access order
+    boolean indexed = sizesByKey.get(key) != null;
+    if (!indexed && !Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try {
+      AnalysisCacheEntry entry = ProtobufUtil.readFile(file, AnalysisCacheEntry.parser());
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      if (!indexed) {
+        // Written by another process since the index was loaded
+        sizesByKey.put(key, (long) entry.getSerializedSize());
+        totalBytes += entry.getSerializedSize();
+        evict();
+      }
+      return Optional.of(entry);
+    } catch (StorageException | IOException e) {
+      // Deleted or corrupted by another process: forget about it
+      LOG.debug("Unable to read analysis cache entry " + file, e);
+      remove(key);
+      return Optional.empty();
+    }
+  }
+
+  public synchronized void put(String key, AnalysisCacheEntry entry) {
+    loadIndex();
+    Path file = entryFile(key);
+    Path tmpFile = null;
+    try {
+      // Unique name, other processes may write the same entry at the same time
+      tmpFile = Files.createTempFile(dir, key, ".tmp");
+      ProtobufUtil.writeToFile(entry, tmpFile);
+      Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (StorageException | IOException e) {
+      LOG.debug("Unable to write analysis cache entry " + file, e);
+      if (tmpFile != null) {
+        deleteQuietly(tmpFile);
+      }
+      return;
+    }
+    Long previousSize = sizesByKey.put(key, (long) entry.getSerializedSize());
+    totalBytes += entry.getSerializedSize() - (previousSize != null ? previousSize : 0L);
+    evict();
+  }
+
+  synchronized long totalBytes() {
+    loadIndex();
+    return totalBytes;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> it = sizesByKey.entrySet().iterator();
+    // Always keep the most recent entry, even if it is bigger than the limit
+    while (totalBytes > maxBytes && sizesByKey.size() > 1) {
+      Map.Entry<String, Long> eldest = it.next();
+      it.remove();
+      totalBytes -= eldest.getValue();
+      deleteQuietly(entryFile(eldest.getKey()));
+      Metrics.counter(MetricNames.ANALYSIS_CACHE_EVICTED).increment();
+    }
+  }
+
+  private void remove(String key) {
+    Long size = sizesByKey.remove(key);
+    if (size != null) {
+      totalBytes -= size;
+    }
+    deleteQuietly(entryFile(key));
+  }
+
+  private void loadIndex() {
+    if (sizesByKey != null) {
+      return;
+    }
+    sizesByKey = new LinkedHashMap<>(16, 0.75f, true);
+    totalBytes = 0;
+    try {
+      Files.createDirectories(dir);
+      List<Path> files;
+      try (Stream<Path> list = Files.list(dir)) {
+        files = list.filter(f -> f.getFileName().toString().endsWith(EXTENSION))
+          .sorted(Comparator.comparing(AnalysisResultStore::lastModified))
+          .collect(Collectors.toList());
+      }
+      for (Path file : files) {
+        String fileName = file.getFileName().toString();
+        long size = Files.size(file);
+        sizesByKey.put(fileName.substring(0, fileName.length() - EXTENSION.length()), size);
+        totalBytes += size;
+      }
+    } catch (IOException e) {
+      throw new StorageException("Unable to load the analysis cache in " + dir, e);
+    }
+    evict();
+  }
+
+  private Path entryFile(String key) {
+    return dir.resolve(key + EXTENSION);
+  }
+
+  private static FileTime lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Unable to delete analysis cache entry " + file, e);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.nio.file.Path;
+import javax.annotation.Nullable;
+import org.picocontainer.injectors.ProviderAdapter;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+
+public class AnalysisResultStoreProvider extends ProviderAdapter {
+  private static final Logger LOG = Loggers.get(AnalysisResultStoreProvider.class);
+
+  private AnalysisResultStore store;
+
+  public AnalysisResultStore provide(AbstractGlobalConfiguration globalConfiguration) {
+    if (store == null) {
+      Path dir = globalConfiguration.getSonarLintUserHome().resolve("analysis-cache");
+      store = AnalysisResultStore.forDirectory(dir, maxBytes(globalConfiguration.extraProperties().get(AnalysisResultStore.MAX_BYTES_PROPERTY)));
+    }
+    return store;
+  }
+
+  static long maxBytes(@Nullable String value) {
+    if (value == null) {
+      return AnalysisResultStore.DEFAULT_MAX_BYTES;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      LOG.warn("Invalid value for '{}', using the default size: {}", AnalysisResultStore.MAX_BYTES_PROPERTY, value);
+      return AnalysisResultStore.DEFAULT_MAX_BYTES;
+    }
+  }
+
+}
@@ -31,8 +31,11 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 import org.sonarsource.sonarlint.core.client.api.common.AbstractAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner.IssueExclusionsLoader;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.jfr.FileIndexingEvent;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
 import org.sonarsource.sonarlint.core.util.ProgressReport;
 
 /**
@@ -49,23 +52,25 @@ public class FileIndexer {
   private final InputFileFilter[] filters;
   private final IssueExclusionsLoader issueExclusionsLoader;
   private final InputFileCache inputFileCache;
+  private final AnalysisResultCache analysisResultCache;
 
   private ProgressReport progressReport;
 
   public FileIndexer(InputFileCache inputFileCache, InputFileBuilder inputFileBuilder, AbstractAnalysisConfiguration analysisConfiguration,
-    DefaultAnalysisResult analysisResult, IssueExclusionsLoader issueExclusionsLoader,
+    DefaultAnalysisResult analysisResult, IssueExclusionsLoader issueExclusionsLoader, AnalysisResultCache analysisResultCache,
     InputFileFilter[] filters) {
     this.inputFileCache = inputFileCache;
     this.inputFileBuilder = inputFileBuilder;
     this.analysisConfiguration = analysisConfiguration;
     this.analysisResult = analysisResult;
     this.issueExclusionsLoader = issueExclusionsLoader;
+    this.analysisResultCache = analysisResultCache;
     this.filters = filters;
   }
 
   public FileIndexer(InputFileCache inputFileCache, InputFileBuilder inputFileBuilder, AbstractAnalysisConfiguration analysisConfiguration,
-    DefaultAnalysisResult analysisResult, IssueExclusionsLoader issueExclusionsLoader) {
-    this(inputFileCache, inputFileBuilder, analysisConfiguration, analysisResult, issueExclusionsLoader, new InputFileFilter[0]);
+    DefaultAnalysisResult analysisResult, IssueExclusionsLoader issueExclusionsLoader, AnalysisResultCache analysisResultCache) {
+    this(inputFileCache, inputFileBuilder, analysisConfiguration, analysisResult, issueExclusionsLoader, analysisResultCache, new InputFileFilter[0]);
   }
 
   public void index() {
@@ -73,6 +78,7 @@ public class FileIndexer {
     progressReport.start("Index files");
 
     Progress progress = new Progress();
+    FileIndexingEvent event = JfrEvents.isRecording() ? FileIndexingEvent.start() : null;
 
     try {
       indexFiles(inputFileCache, progress, analysisConfiguration.inputFiles());
@@ -83,6 +89,9 @@ public class FileIndexer {
     int totalIndexed = progress.count();
     progressReport.stop(totalIndexed + " " + pluralizeFiles(totalIndexed) + " indexed");
     analysisResult.setIndexedFileCount(totalIndexed);
+    if (event != null) {
+      event.commit(totalIndexed);
+    }
   }
 
   private static String pluralizeFiles(int count) {
@@ -99,6 +108,11 @@ public class FileIndexer {
     SonarLintInputFile inputFile = inputFileBuilder.create(file);
     if (accept(inputFile)) {
       analysisResult.setLanguageForFile(file, inputFile.getLanguage());
+      if (analysisResultCache.replay(file, inputFile.getLanguage())) {
+        // Issues already known: don't give the file to the sensors
+        progress.markAsIndexed(inputFile);
+        return;
+      }
       indexFile(inputFileCache, progress, inputFile);
       issueExclusionsLoader.addMulticriteriaPatterns(inputFile);
     }
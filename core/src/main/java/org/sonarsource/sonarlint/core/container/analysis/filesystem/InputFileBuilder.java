@@ -27,17 +27,24 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner.IssueExclusionsLoader;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.Phase;
 
 public class InputFileBuilder {
   private static final Logger LOG = Loggers.get(InputFileBuilder.class);
   private final LanguageDetection langDetection;
   private final FileMetadata fileMetadata;
   private final IssueExclusionsLoader exclusionsScanner;
+  private final DefaultAnalysisTimings timings;
+  private final InputFileContents contents;
 
-  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata, IssueExclusionsLoader exclusionsScanner) {
+  public InputFileBuilder(LanguageDetection langDetection, FileMetadata fileMetadata, IssueExclusionsLoader exclusionsScanner, DefaultAnalysisTimings timings,
+    InputFileContents contents) {
     this.langDetection = langDetection;
     this.fileMetadata = fileMetadata;
     this.exclusionsScanner = exclusionsScanner;
+    this.timings = timings;
+    this.contents = contents;
   }
 
   LanguageDetection langDetection() {
@@ -47,6 +54,7 @@ public class InputFileBuilder {
   SonarLintInputFile create(ClientInputFile inputFile) {
     SonarLintInputFile defaultInputFile = new SonarLintInputFile(inputFile, f -> {
       LOG.debug("Initializing metadata of file {}", f.uri());
+      long start = timings.start();
       Charset charset = f.charset();
       InputStream stream;
       try {
@@ -54,8 +62,12 @@ public class InputFileBuilder {
       } catch (IOException e) {
         throw new IllegalStateException("Failed to open a stream on file: " + f.uri(), e);
       }
-      return fileMetadata.readMetadata(stream, charset != null ? charset : Charset.defaultCharset(), f.uri(), exclusionsScanner.createCharHandlerFor(f));
-    });
+      try {
+        return fileMetadata.readMetadata(stream, charset != null ? charset : Charset.defaultCharset(), f.uri(), exclusionsScanner.createCharHandlerFor(f));
+      } finally {
+        timings.record(Phase.FILE_METADATA, start);
+      }
+    }, contents);
     defaultInputFile.setType(inputFile.isTest() ? Type.TEST : Type.MAIN);
     if (inputFile.language() != null) {
       LOG.debug("Language of file '{}' is set to '{}'", inputFile.uri(), inputFile.language());
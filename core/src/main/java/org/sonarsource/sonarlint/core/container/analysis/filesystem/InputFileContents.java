@@ -0,0 +1,264 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BOMInputStream;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.api.sonarlint.SonarLintSide;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+
+/**
+ * Content of the input files, read only once from the client during an analysis when {@link #ENABLED_PROPERTY} is true. File metadata,
+ * analyzers and the analysis result cache all read the same buffer, instead of asking the client for the content again.
+ * <p>
+ * Buffers are kept in memory until the end of the analysis, up to {@link #MAX_BYTES_PROPERTY}. What happens to the files that don't fit
+ * depends on {@link #SPILL_PROPERTY}.
+ */
+@SonarLintSide
+public class InputFileContents implements Startable {
+
+  public static final String ENABLED_PROPERTY = "sonarlint.analysis.contentBuffer";
+  /**
+   * Maximum total size in bytes of the buffered files. Default is 64 MiB.
+   */
+  public static final String MAX_BYTES_PROPERTY = "sonarlint.analysis.contentBuffer.maxBytes";
+  /**
+   * What to do when a file doesn't fit: "reread" (default) to read it from the client each time it is needed, or "evict" to make room
+   * by dropping the least recently used buffers.
+   */
+  public static final String SPILL_PROPERTY = "sonarlint.analysis.contentBuffer.spill";
+  static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  private static final Logger LOG = Loggers.get(InputFileContents.class);
+
+  enum Spill {
+    REREAD,
+    EVICT
+  }
+
+  private final boolean enabled;
+  private final long maxBytes;
+  private final Spill spill;
+  // In access order, for eviction
+  private final Map<ClientInputFile, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bufferedBytes;
+  private int clientReads;
+  private int bufferReads;
+
+  public InputFileContents(Configuration config) {
+    this.enabled = config.getBoolean(ENABLED_PROPERTY).orElse(false);
+    this.maxBytes = config.getLong(MAX_BYTES_PROPERTY).orElse(DEFAULT_MAX_BYTES);
+    this.spill = spill(config);
+  }
+
+  private static Spill spill(Configuration config) {
+    String value = config.get(SPILL_PROPERTY).orElse(null);
+    if (value == null) {
+      return Spill.REREAD;
+    }
+    try {
+      return Spill.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Invalid value for '{}', files that don't fit will be read again: {}", SPILL_PROPERTY, value);
+      return Spill.REREAD;
+    }
+  }
+
+  public InputStream inputStream(ClientInputFile file) throws IOException {
+    if (!enabled) {
+      return file.inputStream();
+    }
+    Entry entry = entry(file);
+    synchronized (entry) {
+      byte[] buffer = entry.buffer;
+      if (buffer != null) {
+        countBufferRead();
+        return new ByteArrayInputStream(buffer);
+      }
+      return entry.tooBig ? readFromClient(file) : load(file, entry);
+    }
+  }
+
+  public String contents(ClientInputFile file, Charset charset) throws IOException {
+    if (!enabled) {
+      return file.contents();
+    }
+    Entry entry = entry(file);
+    synchronized (entry) {
+      byte[] buffer = entry.buffer;
+      if (buffer != null) {
+        countBufferRead();
+        return decode(new ByteArrayInputStream(buffer), charset);
+      }
+      if (entry.tooBig) {
+        countClientRead();
+        return file.contents();
+      }
+      try (InputStream in = load(file, entry)) {
+        return decode(in, charset);
+      }
+    }
+  }
+
+  /**
+   * Drop the buffer of a file that won't be read anymore during this analysis.
+   */
+  public synchronized void release(ClientInputFile file) {
+    Entry entry = entries.remove(file);
+    if (entry != null && entry.buffer != null) {
+      bufferedBytes -= entry.buffer.length;
+      entry.buffer = null;
+    }
+  }
+
+  @CheckForNull
+  synchronized byte[] buffer(ClientInputFile file) {
+    Entry entry = entries.get(file);
+    return entry != null ? entry.buffer : null;
+  }
+
+  synchronized long bufferedBytes() {
+    return bufferedBytes;
+  }
+
+  synchronized int clientReads() {
+    return clientReads;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (enabled) {
+      LOG.debug("Content of input files read {} time(s) from the client, {} time(s) from memory", clientReads, bufferReads);
+    }
+    entries.clear();
+    bufferedBytes = 0;
+  }
+
+  private synchronized Entry entry(ClientInputFile file) {
+    return entries.computeIfAbsent(file, f -> new Entry());
+  }
+
+  private InputStream readFromClient(ClientInputFile file) throws IOException {
+    countClientRead();
+    return file.inputStream();
+  }
+
+  /**
+   * Read a file from the client and keep it in memory if it fits. Files that are too big are streamed without being buffered.
+   */
+  private InputStream load(ClientInputFile file, Entry entry) throws IOException {
+    InputStream in = readFromClient(file);
+    byte[] head;
+    try {
+      head = readAtMost(in, maxBytes);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+    if (head.length > maxBytes) {
+      entry.tooBig = true;
+      return new SequenceInputStream(new ByteArrayInputStream(head), in);
+    }
+    in.close();
+    if (!reserve(file, head.length)) {
+      entry.tooBig = true;
+    } else {
+      entry.buffer = head;
+    }
+    return new ByteArrayInputStream(head);
+  }
+
+  private synchronized boolean reserve(ClientInputFile file, int size) {
+    if (spill == Spill.EVICT) {
+      Iterator<Map.Entry<ClientInputFile, Entry>> it = entries.entrySet().iterator();
+      while (bufferedBytes + size > maxBytes && it.hasNext()) {
+        Map.Entry<ClientInputFile, Entry> eldest = it.next();
+        byte[] evicted = eldest.getValue().buffer;
+        if (!eldest.getKey().equals(file) && evicted != null) {
+          // Evicted files can be buffered again later
+          eldest.getValue().buffer = null;
+          bufferedBytes -= evicted.length;
+        }
+      }
+    }
+    if (bufferedBytes + size > maxBytes) {
+      return false;
+    }
+    bufferedBytes += size;
+    return true;
+  }
+
+  private synchronized void countClientRead() {
+    clientReads++;
+  }
+
+  private synchronized void countBufferRead() {
+    bufferReads++;
+  }
+
+  /**
+   * The byte order mark is skipped, as in {@link FileMetadata}, so that offsets in the content match the line offsets of the metadata.
+   */
+  private static String decode(InputStream in, Charset charset) throws IOException {
+    return IOUtils.toString(new BOMInputStream(in, ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE,
+      ByteOrderMark.UTF_32BE), charset);
+  }
+
+  /**
+   * @return all the bytes of the stream, or the first limit + 1 bytes if it is longer than limit
+   */
+  private static byte[] readAtMost(InputStream in, long limit) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] chunk = new byte[8192];
+    long remaining = limit < Long.MAX_VALUE ? (limit + 1) : limit;
+    int read;
+    while (remaining > 0 && (read = in.read(chunk, 0, (int) Math.min(chunk.length, remaining))) != -1) {
+      out.write(chunk, 0, read);
+      remaining -= read;
+    }
+    return out.toByteArray();
+  }
+
+  private static class Entry {
+    private volatile byte[] buffer;
+    private volatile boolean tooBig;
+  }
+}
@@ -47,19 +47,29 @@ public class SonarLintInputFile implements InputFile {
   private final String relativePath;
   private Language language;
   private Type type;
-  private Metadata metadata;
+  private volatile Metadata metadata;
   private final Function<SonarLintInputFile, Metadata> metadataGenerator;
+  @Nullable
+  private final InputFileContents contents;
   private boolean ignoreAllIssues;
   private final Set<Integer> noSonarLines = new HashSet<>();
   private Collection<int[]> ignoreIssuesOnlineRanges;
 
   public SonarLintInputFile(ClientInputFile clientInputFile, Function<SonarLintInputFile, Metadata> metadataGenerator) {
+    this(clientInputFile, metadataGenerator, null);
+  }
+
+  /**
+   * @param contents if not null, content is read through it instead of directly from the client
+   */
+  public SonarLintInputFile(ClientInputFile clientInputFile, Function<SonarLintInputFile, Metadata> metadataGenerator, @Nullable InputFileContents contents) {
     this.clientInputFile = clientInputFile;
     this.metadataGenerator = metadataGenerator;
+    this.contents = contents;
     this.relativePath = PathUtils.sanitize(clientInputFile.relativePath());
   }
 
-  public void checkMetadata() {
+  public synchronized void checkMetadata() {
     if (metadata == null) {
       this.metadata = metadataGenerator.apply(this);
     }
@@ -129,12 +139,12 @@ public class SonarLintInputFile implements InputFile {
 
   @Override
   public InputStream inputStream() throws IOException {
-    return clientInputFile.inputStream();
+    return contents != null ? contents.inputStream(clientInputFile) : clientInputFile.inputStream();
   }
 
   @Override
   public String contents() throws IOException {
-    return clientInputFile.contents();
+    return contents != null ? contents.contents(clientInputFile, charset()) : clientInputFile.contents();
   }
 
   @Override
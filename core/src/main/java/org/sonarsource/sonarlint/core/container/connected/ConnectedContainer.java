@@ -19,11 +19,14 @@
  */
 package org.sonarsource.sonarlint.core.container.connected;
 
+import java.util.Collection;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
+import org.sonarsource.sonarlint.core.client.api.connected.ProjectBatchResult;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectStorageStatus;
 import org.sonarsource.sonarlint.core.client.api.connected.SonarAnalyzer;
 import org.sonarsource.sonarlint.core.client.api.connected.StorageUpdateCheckResult;
@@ -57,10 +60,13 @@ import org.sonarsource.sonarlint.core.container.global.GlobalTempFolderProvider;
 import org.sonarsource.sonarlint.core.container.storage.ProjectStorageStatusReader;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCacheProvider;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginHashes;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient;
+import org.sonarsource.sonarlint.core.serverapi.HttpValidatorCache;
 import org.sonarsource.sonarlint.core.serverapi.ServerApiHelper;
 import org.sonarsource.sonarlint.core.serverapi.issue.IssueApi;
 import org.sonarsource.sonarlint.core.serverapi.source.SourceApi;
@@ -73,11 +79,13 @@ public class ConnectedContainer extends ComponentContainer {
   private final EndpointParams endpoint;
   private final ConnectedGlobalConfiguration globalConfig;
   private final HttpClient client;
+  private final StorageSwitch storageSwitch;
 
-  public ConnectedContainer(ConnectedGlobalConfiguration globalConfig, EndpointParams endpoint, HttpClient client) {
+  public ConnectedContainer(ConnectedGlobalConfiguration globalConfig, EndpointParams endpoint, HttpClient client, StorageSwitch storageSwitch) {
     this.globalConfig = globalConfig;
     this.endpoint = endpoint;
     this.client = client;
+    this.storageSwitch = storageSwitch;
   }
 
   @Override
@@ -85,10 +93,11 @@ public class ConnectedContainer extends ComponentContainer {
     add(
       globalConfig,
       endpoint,
+      storageSwitch,
       new GlobalTempFolderProvider(),
       ServerVersionAndStatusChecker.class,
       PluginVersionChecker.class,
-      new ServerApiHelper(endpoint, client),
+      new ServerApiHelper(endpoint, client, new HttpValidatorCache(new StoragePaths(globalConfig).getHttpCacheRoot())),
       GlobalStorageUpdateExecutor.class,
       GlobalStorageUpdateChecker.class,
       ProjectStorageUpdateChecker.class,
@@ -131,6 +140,24 @@ public class ConnectedContainer extends ComponentContainer {
     getComponentByType(ProjectStorageUpdateExecutor.class).update(projectKey, fetchTaintVulnerabilities, progress);
   }
 
+  /**
+   * Update several projects in parallel, see {@link ProjectBatch}.
+   *
+   * @return the storage status of each project successfully updated
+   */
+  public ProjectBatchResult<ProjectStorageStatus> updateProjects(Collection<String> projectKeys, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
+    GlobalStorageStatus updateStatus = getComponentByType(StorageReader.class).getGlobalStorageStatus();
+    if (updateStatus == null) {
+      throw new GlobalStorageUpdateRequiredException(globalConfig.getServerId());
+    }
+    ProjectStorageUpdateExecutor executor = getComponentByType(ProjectStorageUpdateExecutor.class);
+    ProjectStorageStatusReader statusReader = getComponentByType(ProjectStorageStatusReader.class);
+    return ProjectBatch.run(projectKeys, "Updating project", progress, (projectKey, projectProgress) -> {
+      executor.update(projectKey, fetchTaintVulnerabilities, projectProgress);
+      return statusReader.apply(projectKey);
+    });
+  }
+
   public StorageUpdateCheckResult checkForUpdate(ProgressWrapper progress) {
     try {
       return getComponentByType(GlobalStorageUpdateChecker.class).checkForUpdate(progress);
@@ -143,12 +170,33 @@ public class ConnectedContainer extends ComponentContainer {
   }
 
   public StorageUpdateCheckResult checkForUpdate(String projectKey, ProgressWrapper progress) {
+    return checkForUpdate(projectKey, null, progress);
+  }
+
+  /**
+   * Check several projects in parallel, see {@link ProjectBatch}. Global settings are fetched only once for all projects.
+   */
+  public ProjectBatchResult<StorageUpdateCheckResult> checkForUpdate(Collection<String> projectKeys, ProgressWrapper progress) {
+    GlobalProperties globalProps;
+    try {
+      globalProps = getComponentByType(SettingsDownloader.class).fetchGlobalSettings();
+    } catch (Exception e) {
+      String msg = "Error when fetching global settings";
+      LOG.debug(msg, e);
+      // null as cause so that it doesn't get wrapped
+      throw new DownloadException(msg + ": " + e.getMessage(), null);
+    }
+    return ProjectBatch.run(projectKeys, "Checking project", progress, (projectKey, projectProgress) -> checkForUpdate(projectKey, globalProps, projectProgress));
+  }
+
+  private StorageUpdateCheckResult checkForUpdate(String projectKey, @Nullable GlobalProperties globalProps, ProgressWrapper progress) {
     ProjectStorageStatus moduleUpdateStatus = getComponentByType(ProjectStorageStatusReader.class).apply(projectKey);
     if (moduleUpdateStatus == null || moduleUpdateStatus.isStale()) {
       throw new StorageException(String.format("No data stored for project '%s' or invalid format. Please update the binding.", projectKey), false);
     }
     try {
-      return getComponentByType(ProjectStorageUpdateChecker.class).checkForUpdates(projectKey, progress);
+      ProjectStorageUpdateChecker checker = getComponentByType(ProjectStorageUpdateChecker.class);
+      return globalProps != null ? checker.checkForUpdates(projectKey, globalProps, progress) : checker.checkForUpdates(projectKey, progress);
     } catch (Exception e) {
       String msg = "Error when checking for configuration update of project '" + projectKey + "'";
       LOG.debug(msg, e);
@@ -0,0 +1,444 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Stores all the server issues of a project in a single data file, instead of one file per source file.
+ * The data file is a sequence of blocks of length-delimited issues, one block per source file. An index file lists
+ * the source file paths, sorted by their UTF-8 bytes, with the location of their block, so that loading the issues of a
+ * file is a binary search in the (memory-mapped) index followed by a single read in the data file.
+ *
+ * Saving issues of some files appends new blocks to the data file and atomically replaces the index, so concurrent readers
+ * always see a consistent store. When more than half of the data file is made of replaced blocks, it is compacted into a new
+ * data file. Stores written by {@link ServerIssueStore} are still readable, and are migrated on first write.
+ *
+ * Several stores, possibly in different processes, can share the same directory. Writes are serialized by a lock on a sibling
+ * lock file, and always start from the index found on disk once the lock is acquired.
+ */
+public class IndexedServerIssueStore implements IssueStore {
+  static final String INDEX_FILE = "issues.idx";
+  private static final String LOCK_FILE = "issues.lock";
+  private static final String DATA_FILE_PREFIX = "issues-";
+  private static final String DATA_FILE_SUFFIX = ".dat";
+
+  private static final int MAGIC = 0x534c4958;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+  private static final int ENTRY_SIZE = 4 + 4 + 8 + 4;
+
+  /**
+   * Mapped files can't be deleted nor replaced on Windows until they are garbage collected, so the index is read instead.
+   */
+  private static final boolean MAP_INDEX = !System.getProperty("os.name", "").startsWith("Windows");
+  /**
+   * File locks are held on behalf of the whole JVM, so stores of the same directory in this JVM also need a common monitor.
+   */
+  private static final Map<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+  private final Path base;
+  @Nullable
+  private ByteBuffer indexBuffer;
+  @Nullable
+  private Object indexFileKey;
+  private long indexFileSize;
+
+  public IndexedServerIssueStore(Path base) {
+    this.base = base;
+  }
+
+  @Override
+  public synchronized void save(List<ServerIssue> issues) {
+    withWriteLock("failed to save issues in " + base, () -> {
+      migrateLegacyStore();
+      append(issues);
+    });
+  }
+
+  private void append(List<ServerIssue> issues) {
+    Map<String, List<ServerIssue>> issuesPerFile = issues.stream()
+      .collect(Collectors.groupingBy(issue -> issue.getPrimaryLocation().getPath(), LinkedHashMap::new, Collectors.toList()));
+    if (issuesPerFile.isEmpty()) {
+      return;
+    }
+    try {
+      Index index = readIndex();
+      Path dataFile = dataFile(index.generation);
+      long offset = Files.exists(dataFile) ? Files.size(dataFile) : 0L;
+      try (OutputStream out = Files.newOutputStream(dataFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        for (Map.Entry<String, List<ServerIssue>> fileIssues : issuesPerFile.entrySet()) {
+          byte[] block = toBlock(fileIssues.getValue());
+          out.write(block);
+          index.entries.put(fileIssues.getKey(), new Location(offset, block.length));
+          offset += block.length;
+        }
+      }
+      writeIndex(compactIfNeeded(index, offset), index.generation);
+    } catch (IOException e) {
+      throw new StorageException("failed to save issues in " + base, e);
+    }
+  }
+
+  @Override
+  public synchronized void delete(String fileKey) {
+    withWriteLock("failed to delete issues for fileKey = " + fileKey, () -> {
+      migrateLegacyStore();
+      Index index = readIndex();
+      if (index.entries.remove(fileKey) != null) {
+        writeIndex(index, index.generation);
+      }
+    });
+  }
+
+  private void withWriteLock(String failureMessage, Write write) {
+    FileUtils.mkdirs(base);
+    synchronized (JVM_LOCKS.computeIfAbsent(base.toAbsolutePath().normalize(), dir -> new Object())) {
+      try (FileChannel channel = FileChannel.open(base.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = channel.lock()) {
+        write.run();
+      } catch (IOException e) {
+        throw new StorageException(failureMessage, e);
+      }
+    }
+  }
+
+  @Override
+  public synchronized List<ServerIssue> load(String fileKey) {
+    Path indexFile = base.resolve(INDEX_FILE);
+    if (!Files.exists(indexFile)) {
+      return isLegacyStore() ? new ServerIssueStore(base).load(fileKey) : Collections.emptyList();
+    }
+    try {
+      try {
+        return load(indexFile, fileKey);
+      } catch (NoSuchFileException e) {
+        // the data file of the cached index was removed by later writes of another store, so the index was replaced meanwhile
+        indexBuffer = null;
+        return load(indexFile, fileKey);
+      }
+    } catch (IOException e) {
+      throw new StorageException("failed to load issues for fileKey = " + fileKey, e);
+    }
+  }
+
+  private List<ServerIssue> load(Path indexFile, String fileKey) throws IOException {
+    ByteBuffer index = cachedIndex(indexFile);
+    long generation = index.getLong(8);
+    int count = index.getInt(16);
+    int entry = binarySearch(index, count, fileKey.getBytes(StandardCharsets.UTF_8));
+    if (entry < 0) {
+      return Collections.emptyList();
+    }
+    int entryPos = HEADER_SIZE + entry * ENTRY_SIZE;
+    return readBlock(dataFile(generation), index.getLong(entryPos + 8), index.getInt(entryPos + 16));
+  }
+
+  /**
+   * The index is replaced atomically on each write, so a mapping can be reused as long as the index file is the same.
+   */
+  private ByteBuffer cachedIndex(Path indexFile) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(indexFile, BasicFileAttributes.class);
+    Object fileKey = attributes.fileKey() != null ? attributes.fileKey() : attributes.lastModifiedTime();
+    if (indexBuffer == null || !fileKey.equals(indexFileKey) || indexFileSize != attributes.size()) {
+      ByteBuffer buffer = openIndex(indexFile);
+      checkHeader(buffer, indexFile);
+      indexBuffer = buffer;
+      indexFileKey = fileKey;
+      indexFileSize = attributes.size();
+    }
+    return indexBuffer;
+  }
+
+  private static ByteBuffer openIndex(Path indexFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      if (MAP_INDEX) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      readFully(channel, buffer, 0);
+      return buffer;
+    }
+  }
+
+  private static int binarySearch(ByteBuffer index, int count, byte[] key) {
+    int keysStart = HEADER_SIZE + count * ENTRY_SIZE;
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int entryPos = HEADER_SIZE + mid * ENTRY_SIZE;
+      int cmp = compare(index, keysStart + index.getInt(entryPos), index.getInt(entryPos + 4), key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  private static int compare(ByteBuffer index, int keyPos, int keyLength, byte[] key) {
+    int len = Math.min(keyLength, key.length);
+    for (int i = 0; i < len; i++) {
+      int cmp = Integer.compare(index.get(keyPos + i) & 0xFF, key[i] & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(keyLength, key.length);
+  }
+
+  private static int compare(byte[] key1, byte[] key2) {
+    return compare(ByteBuffer.wrap(key1), 0, key1.length, key2);
+  }
+
+  private static List<ServerIssue> readBlock(Path dataFile, long offset, int length) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(length);
+    try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+      readFully(channel, block, offset);
+    }
+    return ProtobufUtil.readMessages(new ByteArrayInputStream(block.array()), ServerIssue.parser());
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, pos);
+      if (read < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+      pos += read;
+    }
+  }
+
+  private static byte[] toBlock(List<ServerIssue> issues) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProtobufUtil.writeMessages(out, issues);
+    return out.toByteArray();
+  }
+
+  private Index compactIfNeeded(Index index, long dataSize) throws IOException {
+    long liveSize = index.entries.values().stream().mapToLong(l -> l.length).sum();
+    if (dataSize - liveSize <= liveSize) {
+      return index;
+    }
+    Index compacted = new Index(index.generation + 1);
+    Path oldDataFile = dataFile(index.generation);
+    long offset = 0;
+    try (FileChannel in = FileChannel.open(oldDataFile, StandardOpenOption.READ);
+      OutputStream out = Files.newOutputStream(dataFile(compacted.generation))) {
+      for (Map.Entry<String, Location> entry : index.entries.entrySet()) {
+        ByteBuffer block = ByteBuffer.allocate(entry.getValue().length);
+        readFully(in, block, entry.getValue().offset);
+        out.write(block.array());
+        compacted.entries.put(entry.getKey(), new Location(offset, entry.getValue().length));
+        offset += entry.getValue().length;
+      }
+    }
+    return compacted;
+  }
+
+  private Index readIndex() throws IOException {
+    Path indexFile = base.resolve(INDEX_FILE);
+    if (!Files.exists(indexFile)) {
+      return new Index(0);
+    }
+    ByteBuffer buffer = openIndex(indexFile);
+    checkHeader(buffer, indexFile);
+    Index index = new Index(buffer.getLong(8));
+    int count = buffer.getInt(16);
+    int keysStart = HEADER_SIZE + count * ENTRY_SIZE;
+    for (int i = 0; i < count; i++) {
+      int entryPos = HEADER_SIZE + i * ENTRY_SIZE;
+      byte[] key = new byte[buffer.getInt(entryPos + 4)];
+      for (int j = 0; j < key.length; j++) {
+        key[j] = buffer.get(keysStart + buffer.getInt(entryPos) + j);
+      }
+      index.entries.put(new String(key, StandardCharsets.UTF_8), new Location(buffer.getLong(entryPos + 8), buffer.getInt(entryPos + 16)));
+    }
+    return index;
+  }
+
+  /**
+   * The data file of the previous generation is kept until the next write, as other stores may still be reading it through the
+   * index they loaded before this one replaced it.
+   */
+  private void writeIndex(Index index, long previousGeneration) throws IOException {
+    // sort by UTF-8 bytes, which is the order used by the binary search
+    Map<byte[], Location> sorted = new TreeMap<>(IndexedServerIssueStore::compare);
+    index.entries.forEach((path, location) -> sorted.put(path.getBytes(StandardCharsets.UTF_8), location));
+
+    Path tmp = Files.createTempFile(base, INDEX_FILE, ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(index.generation);
+      out.writeInt(sorted.size());
+      int keyOffset = 0;
+      for (Map.Entry<byte[], Location> entry : sorted.entrySet()) {
+        out.writeInt(keyOffset);
+        out.writeInt(entry.getKey().length);
+        out.writeLong(entry.getValue().offset);
+        out.writeInt(entry.getValue().length);
+        keyOffset += entry.getKey().length;
+      }
+      for (byte[] key : sorted.keySet()) {
+        out.write(key);
+      }
+    }
+    try {
+      Files.move(tmp, base.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, base.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+    }
+    deleteOtherDataFiles(index.generation, previousGeneration);
+  }
+
+  private void deleteOtherDataFiles(long generation, long previousGeneration) throws IOException {
+    String current = dataFile(generation).getFileName().toString();
+    String previous = dataFile(previousGeneration).getFileName().toString();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(base, DATA_FILE_PREFIX + "*" + DATA_FILE_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (!name.equals(current) && !name.equals(previous)) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private static void checkHeader(ByteBuffer index, Path indexFile) throws IOException {
+    if (index.limit() < HEADER_SIZE || index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+      throw new IOException("Invalid issue index: " + indexFile);
+    }
+  }
+
+  private Path dataFile(long generation) {
+    return base.resolve(DATA_FILE_PREFIX + generation + DATA_FILE_SUFFIX);
+  }
+
+  /**
+   * {@link ServerIssueStore} keeps one file per source file, in directories named after the hash of the path.
+   */
+  private boolean isLegacyStore() {
+    if (!Files.isDirectory(base)) {
+      return false;
+    }
+    try (Stream<Path> children = Files.list(base)) {
+      return children.anyMatch(Files::isDirectory);
+    } catch (IOException e) {
+      throw new StorageException("failed to read " + base, e);
+    }
+  }
+
+  /**
+   * Issues contain the path of their file, so the content of a legacy store can be imported without knowing the hashed paths.
+   */
+  private void migrateLegacyStore() {
+    if (Files.exists(base.resolve(INDEX_FILE)) || !isLegacyStore()) {
+      return;
+    }
+    List<Path> legacyDirs;
+    List<ServerIssue> issues = new ArrayList<>();
+    try (Stream<Path> children = Files.list(base)) {
+      legacyDirs = children.filter(Files::isDirectory).collect(Collectors.toList());
+      for (Path dir : legacyDirs) {
+        try (Stream<Path> files = Files.walk(dir)) {
+          for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+            try (InputStream input = Files.newInputStream(file)) {
+              issues.addAll(ProtobufUtil.readMessages(input, ServerIssue.parser()));
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new StorageException("failed to migrate issues in " + base, e);
+    }
+    append(issues);
+    if (issues.isEmpty()) {
+      // nothing was appended, but an empty index still marks the store as migrated
+      try {
+        writeIndex(new Index(0), 0);
+      } catch (IOException e) {
+        throw new StorageException("failed to migrate issues in " + base, e);
+      }
+    }
+    legacyDirs.forEach(FileUtils::deleteRecursively);
+  }
+
+  @FunctionalInterface
+  private interface Write {
+    void run() throws IOException;
+  }
+
+  private static class Index {
+    private final long generation;
+    private final Map<String, Location> entries = new LinkedHashMap<>();
+
+    Index(long generation) {
+      this.generation = generation;
+    }
+  }
+
+  private static class Location {
+    private final long offset;
+    private final int length;
+
+    Location(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -24,11 +24,12 @@ import java.util.function.Function;
 
 /**
  * Create a filesystem-backed issue store at specified base directory.
+ * Stores in the previous format of {@link ServerIssueStore} are migrated on first write.
  */
 public class IssueStoreFactory implements Function<Path, IssueStore> {
 
   @Override
   public IssueStore apply(Path path) {
-    return new ServerIssueStore(path);
+    return new IndexedServerIssueStore(path);
   }
 }
@@ -0,0 +1,91 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.connected.ProjectBatchResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+/**
+ * Run a task on several projects, with a bounded number of projects processed in parallel.
+ * Progress is reported as the fraction of completed projects, and a failure on a project doesn't stop the others.
+ */
+class ProjectBatch {
+
+  static final int MAX_CONCURRENT_PROJECTS = 4;
+
+  private ProjectBatch() {
+    // only static stuff
+  }
+
+  static <T> ProjectBatchResult<T> run(Collection<String> projectKeys, String taskName, ProgressWrapper progress, BiFunction<String, ProgressWrapper, T> task) {
+    Map<String, T> results = new LinkedHashMap<>();
+    Map<String, RuntimeException> failures = new LinkedHashMap<>();
+    Collection<String> distinctKeys = new LinkedHashSet<>(projectKeys);
+    if (distinctKeys.isEmpty()) {
+      return new ProjectBatchResult<>(results, failures);
+    }
+    // Projects run concurrently, so only cancellation is forwarded to the caller's monitor
+    ProgressWrapper projectProgress = new ProgressWrapper(new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return progress.isCanceled();
+      }
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_CONCURRENT_PROJECTS, distinctKeys.size()), new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-project-batch-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      Map<String, Future<T>> futures = new LinkedHashMap<>();
+      for (String projectKey : distinctKeys) {
+        futures.put(projectKey, executor.submit(() -> task.apply(projectKey, projectProgress)));
+      }
+      int done = 0;
+      for (Map.Entry<String, Future<T>> entry : futures.entrySet()) {
+        progress.setProgressAndCheckCancel(taskName + " '" + entry.getKey() + "'", done / (float) futures.size());
+        try {
+          results.put(entry.getKey(), entry.getValue().get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while processing projects", e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          failures.put(entry.getKey(), cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause.getMessage(), cause));
+        }
+        done++;
+      }
+      progress.setProgressAndCheckCancel("Done", 1.0f);
+    } finally {
+      executor.shutdownNow();
+    }
+    return new ProjectBatchResult<>(results, failures);
+  }
+}
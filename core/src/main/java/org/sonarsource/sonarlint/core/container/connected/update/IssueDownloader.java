@@ -21,11 +21,13 @@ package org.sonarsource.sonarlint.core.container.connected.update;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -41,9 +43,8 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.Location;
 import org.sonarsource.sonarlint.core.serverapi.issue.IssueApi;
 import org.sonarsource.sonarlint.core.serverapi.issue.IssueApi.DownloadIssuesResult;
 import org.sonarsource.sonarlint.core.serverapi.source.SourceApi;
-import org.sonarsource.sonarlint.core.serverapi.util.ServerApiUtils;
+import org.sonarsource.sonarlint.core.serverapi.util.SourceLines;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
-import org.sonarsource.sonarlint.core.util.StringUtils;
 
 public class IssueDownloader {
 
@@ -54,6 +55,7 @@ public class IssueDownloader {
   private final IssueStorePaths issueStorePaths;
   private final IssueApi issueApi;
   private final SourceApi sourceApi;
+  private final ExecutorService sourcesExecutor = TaintSourceCodes.newExecutor();
 
   public IssueDownloader(IssueApi issueApi, SourceApi sourceApi, IssueStorePaths issueStorePaths) {
     this.sourceApi = sourceApi;
@@ -90,13 +92,15 @@ public class IssueDownloader {
     }
 
     if (fetchTaintVulnerabilities && !taintRuleKeys.isEmpty()) {
-      Map<String, String> sourceCodeByKey = new HashMap<>();
       try {
         DownloadIssuesResult downloadVulnerabilitiesForRules = issueApi.downloadVulnerabilitiesForRules(key, taintRuleKeys, progress);
-        downloadVulnerabilitiesForRules.getIssues()
-          .forEach(i -> result.add(
-            convertTaintIssue(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, flowBuilder, i, downloadVulnerabilitiesForRules.getComponentsByKey(),
-              sourceCodeByKey)));
+        try (TaintSourceCodes sources = new TaintSourceCodes(sourceApi, countLocationsWithTextRangeByFileKey(downloadVulnerabilitiesForRules.getIssues()),
+          sourcesExecutor)) {
+          downloadVulnerabilitiesForRules.getIssues()
+            .forEach(i -> result.add(
+              convertTaintIssue(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, flowBuilder, i, downloadVulnerabilitiesForRules.getComponentsByKey(),
+                sources)));
+        }
       } catch (Exception e) {
         LOG.warn("Unable to fetch taint vulnerabilities", e);
       }
@@ -105,6 +109,23 @@ public class IssueDownloader {
     return result;
   }
 
+  private static Map<String, Integer> countLocationsWithTextRangeByFileKey(List<Issue> issues) {
+    Map<String, Integer> usesByFileKey = new LinkedHashMap<>();
+    for (Issue issue : issues) {
+      if (issue.hasTextRange()) {
+        usesByFileKey.merge(issue.getComponent(), 1, Integer::sum);
+      }
+      for (Flow flow : issue.getFlowsList()) {
+        for (org.sonarqube.ws.Common.Location location : flow.getLocationsList()) {
+          if (location.hasTextRange()) {
+            usesByFileKey.merge(location.getComponent(), 1, Integer::sum);
+          }
+        }
+      }
+    }
+    return usesByFileKey;
+  }
+
   public Sonarlint.ServerIssue toStorageIssue(ScannerInput.ServerIssue batchIssueFromWs, Sonarlint.ProjectConfiguration projectConfiguration,
     Sonarlint.ServerIssue.Builder issueBuilder, Location.Builder locationBuilder,
     Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder) {
@@ -144,10 +165,10 @@ public class IssueDownloader {
 
   private ServerIssue convertTaintIssue(ProjectConfiguration projectConfiguration, Sonarlint.ServerIssue.Builder issueBuilder, Location.Builder locationBuilder,
     Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder, Sonarlint.ServerIssue.Flow.Builder flowBuilder, Issue issueFromWs,
-    Map<String, Component> componentsByKey, Map<String, String> sourceCodeByKey) {
+    Map<String, Component> componentsByKey, TaintSourceCodes sources) {
     issueBuilder.clear();
     RuleKey ruleKey = RuleKey.parse(issueFromWs.getRule());
-    Location primary = buildPrimaryLocation(projectConfiguration, locationBuilder, textRangeBuilder, issueFromWs, componentsByKey, sourceCodeByKey);
+    Location primary = buildPrimaryLocation(projectConfiguration, locationBuilder, textRangeBuilder, issueFromWs, componentsByKey, sources);
     issueBuilder
       .setAssigneeLogin(issueFromWs.getAssignee())
       .setLineHash(issueFromWs.getHash())
@@ -161,14 +182,14 @@ public class IssueDownloader {
       .setStatus(issueFromWs.getStatus())
       .setType(issueFromWs.getType().name());
 
-    buildFlows(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, flowBuilder, issueFromWs, componentsByKey, sourceCodeByKey);
+    buildFlows(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, flowBuilder, issueFromWs, componentsByKey, sources);
 
     return issueBuilder.build();
   }
 
   private void buildFlows(ProjectConfiguration projectConfiguration, Sonarlint.ServerIssue.Builder issueBuilder, Location.Builder locationBuilder,
     Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder, Sonarlint.ServerIssue.Flow.Builder flowBuilder, Issue issueFromWs, Map<String, Component> componentsByKey,
-    Map<String, String> sourceCodeByKey) {
+    TaintSourceCodes sources) {
     for (Flow flowFromWs : issueFromWs.getFlowsList()) {
       flowBuilder.clear();
 
@@ -180,7 +201,7 @@ public class IssueDownloader {
         locationBuilder.setPath(sqPath);
         if (locationFromWs.hasTextRange()) {
           copyTextRangeFromWs(locationBuilder, textRangeBuilder, locationFromWs.getTextRange());
-          setCodeSnippet(locationBuilder, locationFromWs.getComponent(), locationFromWs.getTextRange(), sourceCodeByKey);
+          setCodeSnippet(locationBuilder, locationFromWs.getComponent(), locationFromWs.getTextRange(), sources);
         }
         flowBuilder.addLocation(locationBuilder);
       }
@@ -190,7 +211,7 @@ public class IssueDownloader {
   }
 
   private Location buildPrimaryLocation(ProjectConfiguration projectConfiguration, Location.Builder locationBuilder, Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder,
-    Issue issueFromWs, Map<String, Component> componentsByKey, Map<String, String> sourceCodeByKey) {
+    Issue issueFromWs, Map<String, Component> componentsByKey, TaintSourceCodes sources) {
     locationBuilder.clear();
     locationBuilder.setMsg(issueFromWs.getMessage());
     Component component = componentsByKey.get(issueFromWs.getComponent());
@@ -198,7 +219,7 @@ public class IssueDownloader {
     locationBuilder.setPath(sqPath);
     if (issueFromWs.hasTextRange()) {
       copyTextRangeFromWs(locationBuilder, textRangeBuilder, issueFromWs.getTextRange());
-      setCodeSnippet(locationBuilder, issueFromWs.getComponent(), issueFromWs.getTextRange(), sourceCodeByKey);
+      setCodeSnippet(locationBuilder, issueFromWs.getComponent(), issueFromWs.getTextRange(), sources);
     }
     return locationBuilder.build();
   }
@@ -212,21 +233,15 @@ public class IssueDownloader {
     locationBuilder.setTextRange(textRangeBuilder);
   }
 
-  private void setCodeSnippet(Location.Builder locationBuilder, String fileKey, TextRange textRange, Map<String, String> sourceCodeByKey) {
-    String sourceCode = getOrFetchSourceCode(fileKey, sourceCodeByKey);
-    if (StringUtils.isEmpty(sourceCode)) {
+  private static void setCodeSnippet(Location.Builder locationBuilder, String fileKey, TextRange textRange, TaintSourceCodes sources) {
+    Optional<SourceLines> sourceLines = sources.take(fileKey);
+    if (!sourceLines.isPresent()) {
       return;
     }
     try {
-      locationBuilder.setCodeSnippet(ServerApiUtils.extractCodeSnippet(sourceCode, textRange));
+      locationBuilder.setCodeSnippet(sourceLines.get().extractSnippet(textRange));
     } catch (Exception e) {
       LOG.debug("Unable to compute code snippet of '" + fileKey + "' for text range: " + textRange, e);
     }
   }
-
-  private String getOrFetchSourceCode(String fileKey, Map<String, String> sourceCodeByKey) {
-    return sourceCodeByKey.computeIfAbsent(fileKey, k -> sourceApi
-      .getRawSourceCode(fileKey)
-      .orElse(""));
-  }
 }
@@ -19,17 +19,31 @@
  */
 package org.sonarsource.sonarlint.core.container.connected.update;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonarqube.ws.Components;
 import org.sonarqube.ws.Components.Component;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.serverapi.ServerApi;
 import org.sonarsource.sonarlint.core.serverapi.ServerApiHelper;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
@@ -38,16 +52,24 @@ import org.sonarsource.sonarlint.core.util.StringUtils;
 import static org.sonarsource.sonarlint.core.client.api.util.FileUtils.toSonarQubePath;
 
 public class ModuleHierarchyDownloader {
+  private static final Logger LOG = Loggers.get(ModuleHierarchyDownloader.class);
+
   static final int PAGE_SIZE = 500;
+  static final int MAX_CONCURRENT_REQUESTS = 8;
   private final ServerApiHelper serverApiHelper;
+  private final StoragePaths storagePaths;
 
-  public ModuleHierarchyDownloader(ServerApiHelper serverApiHelper) {
+  public ModuleHierarchyDownloader(ServerApiHelper serverApiHelper, StoragePaths storagePaths) {
     this.serverApiHelper = serverApiHelper;
+    this.storagePaths = storagePaths;
   }
 
   /**
    * Downloads the module hierarchy information starting from a given module key.
    * It returns the relative paths to the given root module for all its sub projects.
+   * <p>
+   * The tree endpoint doesn't return the parent of each module. The hierarchy stored by the previous update is used to resolve
+   * it locally, and only the modules that can't be placed consistently in that hierarchy are looked up on the server.
    *
    * @param projectKey project for which the hierarchy will be returned.
    * @return Mapping of moduleKey -&gt; relativePath from given module
@@ -66,10 +88,21 @@ public class ModuleHierarchyDownloader {
     // doesn't include root
     Map<String, Component> modulesByKey = modules.stream().collect(Collectors.toMap(Component::getKey, Function.identity()));
 
+    // module key -> ancestor key. Doesn't include root
+    Map<String, String> ancestorKeys = resolveAncestorsFromStorage(projectKey, modulesByKey);
+    List<String> unresolved = modules.stream()
+      .map(Component::getKey)
+      .filter(k -> !ancestorKeys.containsKey(k))
+      .collect(Collectors.toList());
+    if (!unresolved.isEmpty()) {
+      LOG.debug("Fetching ancestors of {} module(s)", unresolved.size());
+      ancestorKeys.putAll(fetchAncestorKeys(unresolved, progress));
+    }
+
     // component -> ancestorComponent. Doesn't include root
     Map<Component, Component> ancestors = new HashMap<>();
     for (Component c : modules) {
-      ancestors.put(c, modulesByKey.get(fetchAncestorKey(c.getKey())));
+      ancestors.put(c, modulesByKey.get(ancestorKeys.get(c.getKey())));
     }
 
     // module key -> path from root project base directory
@@ -80,6 +113,95 @@ public class ModuleHierarchyDownloader {
     return modulesWithPath;
   }
 
+  /**
+   * A module keeps the ancestor it had in the stored hierarchy when its stored path is still the stored path of that ancestor
+   * followed by the relative path returned by the server, and the ancestor itself is still part of the project.
+   */
+  private Map<String, String> resolveAncestorsFromStorage(String projectKey, Map<String, Component> modulesByKey) {
+    Map<String, String> ancestorKeys = new HashMap<>();
+    Map<String, String> storedPaths = readStoredHierarchy(projectKey);
+    if (storedPaths.isEmpty()) {
+      return ancestorKeys;
+    }
+    Map<String, String> storedKeysByPath = new HashMap<>();
+    storedPaths.forEach((key, path) -> storedKeysByPath.putIfAbsent(path, key));
+
+    for (Component c : modulesByKey.values()) {
+      String storedPath = storedPaths.get(c.getKey());
+      String relativePath = toSonarQubePath(c.getPath());
+      if (storedPath == null || relativePath.isEmpty()) {
+        continue;
+      }
+      String ancestorPath;
+      if (storedPath.equals(relativePath)) {
+        ancestorPath = "";
+      } else if (storedPath.endsWith("/" + relativePath)) {
+        ancestorPath = storedPath.substring(0, storedPath.length() - relativePath.length() - 1);
+      } else {
+        continue;
+      }
+      String ancestorKey = storedKeysByPath.get(ancestorPath);
+      if (ancestorKey != null && !ancestorKey.equals(c.getKey()) && (ancestorKey.equals(projectKey) || modulesByKey.containsKey(ancestorKey))) {
+        ancestorKeys.put(c.getKey(), ancestorKey);
+      }
+    }
+    return ancestorKeys;
+  }
+
+  private Map<String, String> readStoredHierarchy(String projectKey) {
+    Path configurationPath = storagePaths.getProjectConfigurationPath(projectKey);
+    if (!Files.exists(configurationPath)) {
+      return Collections.emptyMap();
+    }
+    try {
+      return ProtobufUtil.readFile(configurationPath, Sonarlint.ProjectConfiguration.parser()).getModulePathByKeyMap();
+    } catch (StorageException e) {
+      LOG.debug("Unable to read stored module hierarchy of '{}'", projectKey, e);
+      return Collections.emptyMap();
+    }
+  }
+
+  private Map<String, String> fetchAncestorKeys(List<String> moduleKeys, ProgressWrapper progress) {
+    ServerApi serverApi = new ServerApi(serverApiHelper);
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_CONCURRENT_REQUESTS, moduleKeys.size()), new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-module-hierarchy-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      Map<String, Future<String>> futures = new LinkedHashMap<>();
+      for (String moduleKey : moduleKeys) {
+        futures.put(moduleKey, executor.submit(() -> progress.isCanceled() ? null : fetchAncestorKey(serverApi, moduleKey)));
+      }
+      Map<String, String> ancestorKeys = new HashMap<>();
+      for (Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+        String ancestorKey = waitFor(entry.getValue());
+        progress.checkCancel();
+        if (ancestorKey != null) {
+          ancestorKeys.put(entry.getKey(), ancestorKey);
+        }
+      }
+      return ancestorKeys;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @CheckForNull
+  private static String waitFor(Future<String> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while fetching module hierarchy", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
   private static String findPathFromRoot(Component component, Map<Component, Component> ancestors) {
     Component c = component;
     Path path = Paths.get("");
@@ -93,8 +215,8 @@ public class ModuleHierarchyDownloader {
   }
 
   @CheckForNull
-  private String fetchAncestorKey(String moduleKey) {
-    return new ServerApi(serverApiHelper)
+  private static String fetchAncestorKey(ServerApi serverApi, String moduleKey) {
+    return serverApi
       .project()
       .fetchComponent(moduleKey)
       .flatMap(r -> r.getAncestorsList().stream().map(Component::getKey).findFirst())
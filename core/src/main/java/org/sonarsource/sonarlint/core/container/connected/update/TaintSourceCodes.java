@@ -0,0 +1,136 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.sonarsource.sonarlint.core.serverapi.source.SourceApi;
+import org.sonarsource.sonarlint.core.serverapi.util.SourceLines;
+
+/**
+ * Sources of the files referenced by taint vulnerability locations. They are requested ahead of their use on an executor shared by all
+ * the downloads of an {@link IssueDownloader}, so that the concurrency stays bounded when several files are downloaded in parallel.
+ * Each source is only kept until the last location referencing it has been resolved, and at most {@link #PREFETCH_SIZE} sources are
+ * requested or held at once, unless locations are resolved in a different order than the requests.
+ */
+class TaintSourceCodes implements AutoCloseable {
+
+  static final int MAX_CONCURRENT_REQUESTS = 8;
+  static final int PREFETCH_SIZE = 2 * MAX_CONCURRENT_REQUESTS;
+
+  private final SourceApi sourceApi;
+  private final ExecutorService executor;
+  // Requested sources, until all their locations have been served
+  private final Map<String, Future<Optional<SourceLines>>> sourcesByFileKey = new HashMap<>();
+  private final Map<String, Integer> remainingUsesByFileKey;
+  private final Iterator<String> fileKeysToRequest;
+
+  /**
+   * @param usesByFileKey number of locations referencing each file. Requests are sent in the iteration order of this map.
+   */
+  TaintSourceCodes(SourceApi sourceApi, Map<String, Integer> usesByFileKey, ExecutorService executor) {
+    this.sourceApi = sourceApi;
+    this.executor = executor;
+    this.remainingUsesByFileKey = new HashMap<>(usesByFileKey);
+    this.fileKeysToRequest = new ArrayList<>(usesByFileKey.keySet()).iterator();
+    prefetch();
+  }
+
+  /**
+   * Returns the source of the given file for one of the locations referencing it. The source is released once all its locations have been served.
+   */
+  Optional<SourceLines> take(String fileKey) {
+    if (!remainingUsesByFileKey.containsKey(fileKey)) {
+      return Optional.empty();
+    }
+    // Not requested yet if locations are resolved out of order
+    Future<Optional<SourceLines>> source = sourcesByFileKey.computeIfAbsent(fileKey, this::request);
+    if (remainingUsesByFileKey.merge(fileKey, -1, Integer::sum) <= 0) {
+      sourcesByFileKey.remove(fileKey);
+      remainingUsesByFileKey.remove(fileKey);
+      prefetch();
+    }
+    return waitFor(source);
+  }
+
+  int heldSourceCount() {
+    return sourcesByFileKey.size();
+  }
+
+  private void prefetch() {
+    while (sourcesByFileKey.size() < PREFETCH_SIZE && fileKeysToRequest.hasNext()) {
+      String fileKey = fileKeysToRequest.next();
+      // Skip the files already requested out of order
+      if (remainingUsesByFileKey.containsKey(fileKey) && !sourcesByFileKey.containsKey(fileKey)) {
+        sourcesByFileKey.put(fileKey, request(fileKey));
+      }
+    }
+  }
+
+  private Future<Optional<SourceLines>> request(String fileKey) {
+    return executor.submit(() -> sourceApi.getRawSourceCode(fileKey)
+      .filter(source -> !source.isEmpty())
+      .map(SourceLines::new));
+  }
+
+  private static Optional<SourceLines> waitFor(Future<Optional<SourceLines>> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while fetching source code", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Idle threads are stopped after a while, so the executor doesn't need to be shut down.
+   */
+  static ExecutorService newExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+      new ThreadFactoryBuilder()
+        .setNameFormat("sonarlint-taint-sources-%d")
+        .setDaemon(true)
+        .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  @Override
+  public void close() {
+    sourcesByFileKey.values().forEach(source -> source.cancel(true));
+    sourcesByFileKey.clear();
+  }
+}
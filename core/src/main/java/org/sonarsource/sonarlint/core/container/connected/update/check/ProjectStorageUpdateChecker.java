@@ -48,8 +48,14 @@ public class ProjectStorageUpdateChecker {
   }
 
   public StorageUpdateCheckResult checkForUpdates(String projectKey, ProgressWrapper progress) {
+    return checkForUpdates(projectKey, settingsDownloader.fetchGlobalSettings(), progress);
+  }
+
+  /**
+   * @param globalProps global settings fetched from the server, that can be shared between projects
+   */
+  public StorageUpdateCheckResult checkForUpdates(String projectKey, GlobalProperties globalProps, ProgressWrapper progress) {
     DefaultStorageUpdateCheckResult result = new DefaultStorageUpdateCheckResult();
-    GlobalProperties globalProps = settingsDownloader.fetchGlobalSettings();
 
     ProjectConfiguration serverProjectConfiguration = projectConfigurationDownloader
       .fetch(projectKey, globalProps, progress);
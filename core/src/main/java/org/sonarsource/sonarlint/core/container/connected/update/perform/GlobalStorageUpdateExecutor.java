@@ -35,6 +35,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloa
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
@@ -51,10 +52,12 @@ public class GlobalStorageUpdateExecutor {
   private final ServerVersionAndStatusChecker statusChecker;
   private final QualityProfilesDownloader qualityProfilesDownloader;
   private final PluginListDownloader pluginListDownloader;
+  private final StorageSwitch storageSwitch;
 
   public GlobalStorageUpdateExecutor(StoragePaths storageManager, ServerVersionAndStatusChecker statusChecker,
     PluginReferencesDownloader pluginReferenceDownloader, SettingsDownloader globalPropertiesDownloader, RulesDownloader rulesDownloader,
-    ProjectListDownloader projectListDownloader, QualityProfilesDownloader qualityProfilesDownloader, PluginListDownloader pluginListDownloader, TempFolder tempFolder) {
+    ProjectListDownloader projectListDownloader, QualityProfilesDownloader qualityProfilesDownloader, PluginListDownloader pluginListDownloader, TempFolder tempFolder,
+    StorageSwitch storageSwitch) {
     this.storageManager = storageManager;
     this.statusChecker = statusChecker;
     this.pluginReferenceDownloader = pluginReferenceDownloader;
@@ -64,6 +67,7 @@ public class GlobalStorageUpdateExecutor {
     this.qualityProfilesDownloader = qualityProfilesDownloader;
     this.pluginListDownloader = pluginListDownloader;
     this.tempFolder = tempFolder;
+    this.storageSwitch = storageSwitch;
   }
 
   public List<SonarAnalyzer> update(ProgressWrapper progress) {
@@ -103,10 +107,7 @@ public class GlobalStorageUpdateExecutor {
           .build();
         ProtobufUtil.writeToFile(storageStatus, temp.resolve(StoragePaths.STORAGE_STATUS_PB));
 
-        Path dest = storageManager.getGlobalStorageRoot();
-        FileUtils.deleteRecursively(dest);
-        FileUtils.mkdirs(dest.getParent());
-        FileUtils.moveDir(temp, dest);
+        storageSwitch.run(() -> FileUtils.replaceDir(storageManager.getGlobalStorageRoot(), temp));
       });
       return analyzers;
     } catch (RuntimeException e) {
@@ -32,6 +32,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.ProjectFileList
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectConfiguration;
@@ -47,26 +48,34 @@ public class ProjectStorageUpdateExecutor {
   private final ProjectFileListDownloader projectFileListDownloader;
   private final ServerIssueUpdater serverIssueUpdater;
   private final StoragePaths storagePaths;
+  private final StorageSwitch storageSwitch;
 
   public ProjectStorageUpdateExecutor(StorageReader storageReader, StoragePaths storagePaths, TempFolder tempFolder,
-    ProjectConfigurationDownloader projectConfigurationDownloader, ProjectFileListDownloader projectFileListDownloader, ServerIssueUpdater serverIssueUpdater) {
+    ProjectConfigurationDownloader projectConfigurationDownloader, ProjectFileListDownloader projectFileListDownloader, ServerIssueUpdater serverIssueUpdater,
+    StorageSwitch storageSwitch) {
     this.storageReader = storageReader;
     this.storagePaths = storagePaths;
     this.tempFolder = tempFolder;
     this.projectConfigurationDownloader = projectConfigurationDownloader;
     this.projectFileListDownloader = projectFileListDownloader;
     this.serverIssueUpdater = serverIssueUpdater;
+    this.storageSwitch = storageSwitch;
   }
 
   public void update(String projectKey, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
     GlobalProperties globalProps = storageReader.readGlobalProperties();
 
-    FileUtils.replaceDir(temp -> {
+    Path temp = tempFolder.newDir().toPath();
+    try {
       ProjectConfiguration projectConfiguration = updateConfiguration(projectKey, globalProps, temp, progress);
       updateServerIssues(projectKey, temp, projectConfiguration, fetchTaintVulnerabilities, progress);
       updateComponents(projectKey, temp, projectConfiguration, progress);
       updateStatus(temp);
-    }, storagePaths.getProjectStorageRoot(projectKey), tempFolder.newDir().toPath());
+    } catch (RuntimeException e) {
+      FileUtils.deleteRecursively(temp);
+      throw e;
+    }
+    storageSwitch.run(() -> FileUtils.replaceDir(storagePaths.getProjectStorageRoot(projectKey), temp));
   }
 
   private ProjectConfiguration updateConfiguration(String projectKey, GlobalProperties globalProps, Path temp, ProgressWrapper progress) {
@@ -20,19 +20,24 @@
 package org.sonarsource.sonarlint.core.container.model;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 
 public class DefaultAnalysisResult implements AnalysisResults {
-  private Set<ClientInputFile> failedAnalysisFiles = new LinkedHashSet<>();
+  private Set<ClientInputFile> failedAnalysisFiles = Collections.synchronizedSet(new LinkedHashSet<>());
   private int indexedFileCount;
   private Map<ClientInputFile, Language> languagePerFile = new LinkedHashMap<>();
+  private Map<String, Long> sensorExecutionTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+  private DefaultAnalysisTimings timings;
 
   public DefaultAnalysisResult setIndexedFileCount(int indexedFileCount) {
     this.indexedFileCount = indexedFileCount;
@@ -62,4 +67,39 @@ public class DefaultAnalysisResult implements AnalysisResults {
     return failedAnalysisFiles;
   }
 
+  public void addSensorExecutionTime(String sensorName, long durationMs) {
+    sensorExecutionTimes.merge(sensorName, durationMs, Long::sum);
+  }
+
+  @Override
+  public Map<String, Long> sensorExecutionTimes() {
+    return Collections.unmodifiableMap(sensorExecutionTimes);
+  }
+
+  public void setTimings(@Nullable DefaultAnalysisTimings timings) {
+    this.timings = timings;
+  }
+
+  @Override
+  public Optional<AnalysisTimings> timings() {
+    return Optional.ofNullable(timings);
+  }
+
+  /**
+   * Add the results of a shard of the same analysis. Timings are summed, so they measure the work done by all shards rather than the elapsed time.
+   */
+  public void merge(DefaultAnalysisResult shard) {
+    indexedFileCount += shard.indexedFileCount;
+    languagePerFile.putAll(shard.languagePerFile);
+    failedAnalysisFiles.addAll(shard.failedAnalysisFiles);
+    shard.sensorExecutionTimes.forEach(this::addSensorExecutionTime);
+    if (shard.timings != null) {
+      if (timings == null) {
+        timings = shard.timings;
+      } else {
+        timings.add(shard.timings);
+      }
+    }
+  }
+
 }
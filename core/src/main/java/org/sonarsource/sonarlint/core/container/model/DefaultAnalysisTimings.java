@@ -0,0 +1,161 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.sonar.api.config.Configuration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
+
+/**
+ * Collects timings of an analysis. When disabled, {@link #start()} does not read the clock and recording is a no-op.
+ */
+public class DefaultAnalysisTimings implements AnalysisTimings {
+
+  public enum Phase {
+    TOTAL, CONTAINER_START, FILE_INDEXING, FILE_METADATA, ISSUE_FILTERING, ISSUE_DELIVERY
+  }
+
+  public enum SensorStep {
+    DESCRIBE, OPTIMIZE, EXECUTE
+  }
+
+  private final boolean enabled;
+  private final Map<Phase, LongAdder> phases = new EnumMap<>(Phase.class);
+  private final Map<String, DefaultSensorTimings> sensors = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  public DefaultAnalysisTimings(Configuration config) {
+    this.enabled = config.getBoolean(ENABLED_PROPERTY).orElse(false);
+    for (Phase phase : Phase.values()) {
+      phases.put(phase, new LongAdder());
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return a start timestamp to be given to one of the record methods
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  public void record(Phase phase, long startNanos) {
+    if (enabled) {
+      phases.get(phase).add(System.nanoTime() - startNanos);
+    }
+  }
+
+  public void recordSensor(String sensorName, SensorStep step, long startNanos) {
+    if (enabled) {
+      long duration = System.nanoTime() - startNanos;
+      sensors.computeIfAbsent(sensorName, k -> new DefaultSensorTimings()).steps.get(step).add(duration);
+    }
+  }
+
+  /**
+   * Add the timings of another analysis, for example of another shard of the same analysis.
+   */
+  public void add(DefaultAnalysisTimings other) {
+    other.phases.forEach((phase, duration) -> phases.get(phase).add(duration.sum()));
+    synchronized (other.sensors) {
+      other.sensors.forEach((sensorName, sensor) -> {
+        DefaultSensorTimings sensorTimings = sensors.computeIfAbsent(sensorName, k -> new DefaultSensorTimings());
+        sensor.steps.forEach((step, duration) -> sensorTimings.steps.get(step).add(duration.sum()));
+      });
+    }
+  }
+
+  private long millis(Phase phase) {
+    return TimeUnit.NANOSECONDS.toMillis(phases.get(phase).sum());
+  }
+
+  @Override
+  public long totalMs() {
+    return millis(Phase.TOTAL);
+  }
+
+  @Override
+  public long containerStartMs() {
+    return millis(Phase.CONTAINER_START);
+  }
+
+  @Override
+  public long fileIndexingMs() {
+    return millis(Phase.FILE_INDEXING);
+  }
+
+  @Override
+  public long fileMetadataMs() {
+    return millis(Phase.FILE_METADATA);
+  }
+
+  @Override
+  public long issueFilteringMs() {
+    return millis(Phase.ISSUE_FILTERING);
+  }
+
+  @Override
+  public long issueDeliveryMs() {
+    return millis(Phase.ISSUE_DELIVERY);
+  }
+
+  @Override
+  public Map<String, SensorTimings> sensors() {
+    synchronized (sensors) {
+      return Collections.unmodifiableMap(new LinkedHashMap<>(sensors));
+    }
+  }
+
+  private static class DefaultSensorTimings implements SensorTimings {
+    private final Map<SensorStep, LongAdder> steps = new EnumMap<>(SensorStep.class);
+
+    private DefaultSensorTimings() {
+      for (SensorStep step : SensorStep.values()) {
+        steps.put(step, new LongAdder());
+      }
+    }
+
+    private long millis(SensorStep step) {
+      return TimeUnit.NANOSECONDS.toMillis(steps.get(step).sum());
+    }
+
+    @Override
+    public long describeMs() {
+      return millis(SensorStep.DESCRIBE);
+    }
+
+    @Override
+    public long optimizeMs() {
+      return millis(SensorStep.OPTIMIZE);
+    }
+
+    @Override
+    public long executeMs() {
+      return millis(SensorStep.EXECUTE);
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.container.standalone;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -36,12 +37,15 @@ import org.sonarsource.sonarlint.core.analyzer.sensor.SensorsExecutor;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.client.api.common.RuleKey;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneRuleDetails;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainer;
+import org.sonarsource.sonarlint.core.container.analysis.ShardedAnalysis;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultStoreProvider;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
 import org.sonarsource.sonarlint.core.container.global.GlobalConfigurationProvider;
@@ -96,6 +100,7 @@ public class StandaloneGlobalContainer extends ComponentContainer {
       new GlobalTempFolderProvider(),
       UriReader.class,
       new PluginCacheProvider(),
+      new AnalysisResultStoreProvider(),
       System2.INSTANCE);
   }
 
@@ -135,6 +140,26 @@ public class StandaloneGlobalContainer extends ComponentContainer {
   }
 
   public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, ProgressWrapper progress) {
+    int shardCount = ShardedAnalysis.shardCount(configuration);
+    if (shardCount > 1) {
+      return ShardedAnalysis.analyze(configuration, shardCount, issueListener, progress,
+        (inputFiles, shardIssueListener, shardProgress) -> analyzeInOneContainer(shardConfiguration(configuration, inputFiles), shardIssueListener, shardProgress));
+    }
+    return analyzeInOneContainer(configuration, issueListener, progress);
+  }
+
+  private static StandaloneAnalysisConfiguration shardConfiguration(StandaloneAnalysisConfiguration configuration, List<ClientInputFile> inputFiles) {
+    return StandaloneAnalysisConfiguration.builder()
+      .setBaseDir(configuration.baseDir())
+      .putAllExtraProperties(configuration.extraProperties())
+      .addInputFiles(inputFiles)
+      .addExcludedRules(configuration.excludedRules())
+      .addIncludedRules(configuration.includedRules())
+      .addRuleParameters(configuration.ruleParameters())
+      .build();
+  }
+
+  private DefaultAnalysisResult analyzeInOneContainer(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, ProgressWrapper progress) {
     AnalysisContainer analysisContainer = new AnalysisContainer(globalExtensionContainer, progress);
     analysisContainer.add(configuration);
     analysisContainer.add(issueListener);
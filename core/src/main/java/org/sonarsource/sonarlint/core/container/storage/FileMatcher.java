@@ -21,13 +21,17 @@ package org.sonarsource.sonarlint.core.container.storage;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.util.ReversePathTree;
 
@@ -38,36 +42,60 @@ public class FileMatcher {
   public Result match(List<Path> serverRelativePaths, List<Path> ideRelativePaths) {
     ReversePathTree reversePathTree = new ReversePathTree();
 
-    Map<Result, Double> resultScores = new LinkedHashMap<>();
-
     // No need to index server files if no ide path ends with the same filename
     Set<Path> ideFilenames = ideRelativePaths.stream().map(Path::getFileName).collect(Collectors.toSet());
     serverRelativePaths.stream().filter(sqPath -> ideFilenames.contains(sqPath.getFileName())).forEach(reversePathTree::index);
 
-    for (Path ide : ideRelativePaths) {
-      ReversePathTree.Match match = reversePathTree.findLongestSuffixMatches(ide);
-      if (match.matchLen() > 0) {
-        Path idePrefix = getIdePrefix(ide, match);
+    return match(reversePathTree, ideRelativePaths.stream().map(ReversePathTree::segments).collect(Collectors.toList()));
+  }
+
+  /**
+   * Match IDE paths against a tree of all the server paths of the project, typically cached between calls.
+   */
+  public Result match(ReversePathTree serverPathTree, Collection<String> ideFilePaths) {
+    return match(serverPathTree, ideFilePaths.stream().map(ReversePathTree::segments).collect(Collectors.toList()));
+  }
+
+  private static Result match(ReversePathTree reversePathTree, List<String[]> ideRelativePaths) {
+    // Many IDE paths end on the same node of the tree, only collect its prefixes once
+    Map<ReversePathTree.Match, List<Path>> prefixesByMatch = new ConcurrentHashMap<>();
 
-        for (Path sqPrefix : match.matchPrefixes()) {
-          Result r = new Result(idePrefix, sqPrefix);
-          resultScores.compute(r, (p, i) -> computeScore(i, match));
-        }
+    // Tree lookups are independent, only the score aggregation needs to be sequential to be deterministic
+    List<IdeMatch> ideMatches = ideRelativePaths.parallelStream()
+      .map(ide -> matchIdePath(reversePathTree, ide, prefixesByMatch))
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+
+    Map<Result, Double> resultScores = new LinkedHashMap<>();
+    for (IdeMatch ideMatch : ideMatches) {
+      for (Path sqPrefix : ideMatch.sqPrefixes) {
+        Result r = new Result(ideMatch.idePrefix, sqPrefix);
+        resultScores.compute(r, (p, i) -> computeScore(i, ideMatch));
       }
     }
 
     return higherScoreResult(resultScores);
   }
 
-  private static double computeScore(@Nullable Double currentScore, ReversePathTree.Match match) {
-    double matchScore = (double) match.matchLen() / match.matchPrefixes().size();
+  @CheckForNull
+  private static IdeMatch matchIdePath(ReversePathTree reversePathTree, String[] ide, Map<ReversePathTree.Match, List<Path>> prefixesByMatch) {
+    ReversePathTree.Match match = reversePathTree.findLongestSuffixMatches(ide);
+    if (match.matchLen() == 0) {
+      return null;
+    }
+    List<Path> sqPrefixes = prefixesByMatch.computeIfAbsent(match, ReversePathTree.Match::matchPrefixes);
+    return new IdeMatch(getIdePrefix(ide, match), sqPrefixes, match.matchLen());
+  }
+
+  private static double computeScore(@Nullable Double currentScore, IdeMatch match) {
+    double matchScore = (double) match.matchLen / match.sqPrefixes.size();
     return currentScore != null ? (currentScore.doubleValue() + matchScore) : matchScore;
   }
 
-  private static Path getIdePrefix(Path idePath, ReversePathTree.Match match) {
-    int prefixLen = depth(idePath) - match.matchLen();
+  private static Path getIdePrefix(String[] idePath, ReversePathTree.Match match) {
+    int prefixLen = idePath.length - match.matchLen();
     if (prefixLen > 0) {
-      return idePath.subpath(0, depth(idePath) - match.matchLen());
+      return Paths.get(idePath[0], Arrays.copyOfRange(idePath, 1, prefixLen));
     }
     return Paths.get("");
   }
@@ -91,6 +119,18 @@ public class FileMatcher {
     return path.toString().length() == 0 ? 0 : path.getNameCount();
   }
 
+  private static class IdeMatch {
+    private final Path idePrefix;
+    private final List<Path> sqPrefixes;
+    private final int matchLen;
+
+    IdeMatch(Path idePrefix, List<Path> sqPrefixes, int matchLen) {
+      this.idePrefix = idePrefix;
+      this.sqPrefixes = sqPrefixes;
+      this.matchLen = matchLen;
+    }
+  }
+
   public static class Result {
     private Path idePrefix;
     private Path sqPrefix;
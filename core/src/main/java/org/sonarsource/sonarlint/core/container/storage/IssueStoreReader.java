@@ -19,22 +19,42 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
 import org.sonarsource.sonarlint.core.container.connected.IssueStore;
 import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 
+/**
+ * Reads server issues from the storage. Converted issues are cached per file, so that repeated lookups of the same files
+ * don't hit the disk. The cache has to be invalidated when issues of a file or of a whole project are updated. Issues of a project
+ * whose storage was removed are never served from the cache.
+ */
 public class IssueStoreReader {
+  static final int MAX_CACHED_FILES = 1000;
+
   private final IssueStoreFactory issueStoreFactory;
   private final StoragePaths storagePaths;
   private final IssueStorePaths issueStorePaths;
   private final StorageReader storageReader;
+  private final Map<String, IssueStore> issueStoresByProjectKey = new ConcurrentHashMap<>();
+  private final Map<FileKey, CachedIssues> cache = new LimitedSizeLinkedHashMap();
+  /**
+   * Incremented on each invalidation, so that issues loaded concurrently with an invalidation are not cached
+   */
+  private long generation;
 
   public IssueStoreReader(IssueStoreFactory issueStoreFactory, IssueStorePaths issueStorePaths, StoragePaths storagePaths, StorageReader storageReader) {
     this.issueStoreFactory = issueStoreFactory;
@@ -44,23 +64,117 @@ public class IssueStoreReader {
   }
 
   public List<ServerIssue> getServerIssues(ProjectBinding projectBinding, String ideFilePath) {
+    String sqPath = issueStorePaths.idePathToSqPath(projectBinding, ideFilePath);
+    FileKey fileKey = sqPath != null ? new FileKey(projectBinding.projectKey(), sqPath) : null;
+    if (!Files.exists(storagePaths.getProjectConfigurationPath(projectBinding.projectKey()))) {
+      // Removed without going through an update, reading the configuration below fails as without the cache
+      invalidate(projectBinding.projectKey());
+    }
+    long loadGeneration;
+    synchronized (this) {
+      CachedIssues cached = fileKey != null ? cache.get(fileKey) : null;
+      if (cached != null && cached.ideFilePath.equals(ideFilePath)) {
+        Metrics.counter(MetricNames.SERVER_ISSUES_CACHE_HITS).increment();
+        return cached.issues;
+      }
+      loadGeneration = generation;
+    }
+    Metrics.counter(MetricNames.SERVER_ISSUES_CACHE_MISSES).increment();
+
     Sonarlint.ProjectConfiguration projectConfiguration = storageReader.readProjectConfig(projectBinding.projectKey());
 
     if (projectConfiguration == null) {
       throw new IllegalStateException("project not in storage: " + projectBinding.projectKey());
     }
 
-    String sqPath = issueStorePaths.idePathToSqPath(projectBinding, ideFilePath);
-    if (sqPath == null) {
+    if (fileKey == null) {
       return Collections.emptyList();
     }
-    Path serverIssuesPath = storagePaths.getServerIssuesPath(projectBinding.projectKey());
-    IssueStore issueStore = issueStoreFactory.apply(serverIssuesPath);
+    IssueStore issueStore = issueStoresByProjectKey.computeIfAbsent(projectBinding.projectKey(),
+      projectKey -> issueStoreFactory.apply(storagePaths.getServerIssuesPath(projectKey)));
 
     List<Sonarlint.ServerIssue> loadedIssues = issueStore.load(sqPath);
 
-    return loadedIssues.stream()
+    List<ServerIssue> issues = Collections.unmodifiableList(loadedIssues.stream()
       .map(pbIssue -> IssueStorePaths.toApiIssue(pbIssue, ideFilePath))
-      .collect(Collectors.toList());
+      .collect(Collectors.toList()));
+    synchronized (this) {
+      if (generation == loadGeneration) {
+        cache.put(fileKey, new CachedIssues(ideFilePath, issues));
+      }
+    }
+    return issues;
+  }
+
+  public synchronized int cachedFileCount() {
+    return cache.size();
+  }
+
+  /**
+   * Forget cached issues of a file, after they were updated.
+   */
+  public synchronized void invalidate(ProjectBinding projectBinding, String ideFilePath) {
+    generation++;
+    String sqPath = issueStorePaths.idePathToSqPath(projectBinding, ideFilePath);
+    if (sqPath != null) {
+      cache.remove(new FileKey(projectBinding.projectKey(), sqPath));
+    }
+  }
+
+  /**
+   * Forget cached issues of all files of a project, after the project was updated.
+   */
+  public synchronized void invalidate(String projectKey) {
+    generation++;
+    cache.keySet().removeIf(key -> key.projectKey.equals(projectKey));
+    issueStoresByProjectKey.remove(projectKey);
+  }
+
+  private static class LimitedSizeLinkedHashMap extends LinkedHashMap<FileKey, CachedIssues> {
+    LimitedSizeLinkedHashMap() {
+      super(MAX_CACHED_FILES, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<FileKey, CachedIssues> eldest) {
+      return size() > MAX_CACHED_FILES;
+    }
+  }
+
+  private static class FileKey {
+    private final String projectKey;
+    private final String sqPath;
+
+    FileKey(String projectKey, String sqPath) {
+      this.projectKey = projectKey;
+      this.sqPath = sqPath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FileKey fileKey = (FileKey) o;
+      return projectKey.equals(fileKey.projectKey) && sqPath.equals(fileKey.sqPath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(projectKey, sqPath);
+    }
+  }
+
+  private static class CachedIssues {
+    private final String ideFilePath;
+    private final List<ServerIssue> issues;
+
+    CachedIssues(String ideFilePath, List<ServerIssue> issues) {
+      this.ideFilePath = ideFilePath;
+      this.issues = issues;
+    }
   }
 }
@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
+import com.google.common.io.CountingInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
@@ -26,7 +27,12 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
+import org.sonarsource.sonarlint.core.jfr.StorageReadEvent;
+import org.sonarsource.sonarlint.core.jfr.StorageWriteEvent;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,16 +46,29 @@ public class ProtobufUtil {
   }
 
   public static <T extends Message> T readFile(Path file, Parser<T> parser) {
-    try (InputStream input = Files.newInputStream(file)) {
-      return parser.parseFrom(input);
+    StorageReadEvent event = JfrEvents.isRecording() ? StorageReadEvent.start(file) : null;
+    try (CountingInputStream input = new CountingInputStream(Files.newInputStream(file))) {
+      T message = parser.parseFrom(input);
+      Metrics.counter(MetricNames.STORAGE_READ_FILES).increment();
+      Metrics.counter(MetricNames.STORAGE_READ_BYTES).add(input.getCount());
+      if (event != null) {
+        event.commit(input.getCount());
+      }
+      return message;
     } catch (IOException e) {
       throw new StorageException("Failed to read file: " + file, e);
     }
   }
 
   public static void writeToFile(Message message, Path toFile) {
+    StorageWriteEvent event = JfrEvents.isRecording() ? StorageWriteEvent.start(toFile) : null;
     try (OutputStream out = Files.newOutputStream(toFile)) {
       message.writeTo(out);
+      Metrics.counter(MetricNames.STORAGE_WRITE_FILES).increment();
+      Metrics.counter(MetricNames.STORAGE_WRITE_BYTES).add(message.getSerializedSize());
+      if (event != null) {
+        event.commit(message.getSerializedSize());
+      }
     } catch (IOException e) {
       throw new StorageException("Unable to write protocol buffer data to file " + toFile, e);
     }
@@ -0,0 +1,109 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.util.ReversePathTree;
+
+/**
+ * Keeps the tree of server file paths of each project, so that the component list of big projects is not read and parsed
+ * again every time path prefixes are calculated. Trees are invalidated when the storage of their project is updated by this engine.
+ * Updates by other processes replace the component list, and are detected by a change of its file key, modification time or size.
+ */
+public class ServerPathTreeCache {
+  private final StoragePaths storagePaths;
+  private final StorageReader storageReader;
+  private final Map<String, CachedTree> treesByProjectKey = new ConcurrentHashMap<>();
+
+  public ServerPathTreeCache(StoragePaths storagePaths, StorageReader storageReader) {
+    this.storagePaths = storagePaths;
+    this.storageReader = storageReader;
+  }
+
+  public ReversePathTree get(String projectKey) {
+    Path componentListPath = storagePaths.getComponentListPath(projectKey);
+    BasicFileAttributes attributes = readAttributes(componentListPath);
+    CachedTree cached = treesByProjectKey.get(projectKey);
+    if (cached != null && cached.isUpToDate(attributes)) {
+      Metrics.counter(MetricNames.PATH_TREE_CACHE_HITS).increment();
+      return cached.tree;
+    }
+    Metrics.counter(MetricNames.PATH_TREE_CACHE_MISSES).increment();
+
+    ReversePathTree tree = new ReversePathTree();
+    storageReader.readProjectComponents(projectKey).getComponentList()
+      .forEach(component -> tree.index(ReversePathTree.segments(component)));
+    treesByProjectKey.put(projectKey, new CachedTree(tree, attributes));
+    return tree;
+  }
+
+  public int size() {
+    return treesByProjectKey.size();
+  }
+
+  public void clear() {
+    treesByProjectKey.clear();
+  }
+
+  /**
+   * Forget the tree of a project, after its storage was updated.
+   */
+  public void invalidate(String projectKey) {
+    treesByProjectKey.remove(projectKey);
+  }
+
+  private static BasicFileAttributes readAttributes(Path file) {
+    try {
+      return Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      throw new StorageException("Failed to read file: " + file, e);
+    }
+  }
+
+  private static class CachedTree {
+    private final ReversePathTree tree;
+    @Nullable
+    private final Object fileKey;
+    private final FileTime lastModifiedTime;
+    private final long size;
+
+    CachedTree(ReversePathTree tree, BasicFileAttributes attributes) {
+      this.tree = tree;
+      this.fileKey = attributes.fileKey();
+      this.lastModifiedTime = attributes.lastModifiedTime();
+      this.size = attributes.size();
+    }
+
+    boolean isUpToDate(BasicFileAttributes attributes) {
+      return Objects.equals(fileKey, attributes.fileKey()) && lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+    }
+  }
+}
@@ -19,9 +19,11 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
+import java.util.List;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SensorsExecutor;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
@@ -29,6 +31,7 @@ import org.sonarsource.sonarlint.core.client.api.connected.ProjectStorageStatus;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainer;
+import org.sonarsource.sonarlint.core.container.analysis.ShardedAnalysis;
 import org.sonarsource.sonarlint.core.container.connected.DefaultServer;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
@@ -61,6 +64,25 @@ public class StorageAnalyzer {
   public AnalysisResults analyze(ComponentContainer parent, ConnectedAnalysisConfiguration configuration, IssueListener issueListener, ProgressWrapper progress) {
     checkStatus(configuration.projectKey());
 
+    int shardCount = ShardedAnalysis.shardCount(configuration);
+    if (shardCount > 1) {
+      return ShardedAnalysis.analyze(configuration, shardCount, issueListener, progress,
+        (inputFiles, shardIssueListener, shardProgress) -> analyzeInOneContainer(parent, shardConfiguration(configuration, inputFiles), shardIssueListener, shardProgress));
+    }
+    return analyzeInOneContainer(parent, configuration, issueListener, progress);
+  }
+
+  private static ConnectedAnalysisConfiguration shardConfiguration(ConnectedAnalysisConfiguration configuration, List<ClientInputFile> inputFiles) {
+    return ConnectedAnalysisConfiguration.builder()
+      .setProjectKey(configuration.projectKey())
+      .setBaseDir(configuration.baseDir())
+      .putAllExtraProperties(configuration.extraProperties())
+      .addInputFiles(inputFiles)
+      .build();
+  }
+
+  private static DefaultAnalysisResult analyzeInOneContainer(ComponentContainer parent, ConnectedAnalysisConfiguration configuration, IssueListener issueListener,
+    ProgressWrapper progress) {
     AnalysisContainer analysisContainer = new AnalysisContainer(parent, progress);
     DefaultAnalysisResult defaultAnalysisResult = new DefaultAnalysisResult();
 
@@ -32,6 +32,7 @@ import org.sonarsource.sonarlint.core.NodeJsHelper;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultStoreProvider;
 import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
@@ -55,9 +56,9 @@ public class StorageContainer extends ComponentContainer {
   private static final Logger LOG = Loggers.get(StorageContainer.class);
   private static final DateFormat DATE_FORMAT = new SimpleDateFormat();
 
-  public static StorageContainer create(ConnectedGlobalConfiguration globalConfig) {
+  public static StorageContainer create(ConnectedGlobalConfiguration globalConfig, StorageSwitch storageSwitch) {
     StorageContainer container = new StorageContainer();
-    container.add(globalConfig);
+    container.add(globalConfig, storageSwitch);
     return container;
   }
 
@@ -73,6 +74,7 @@ public class StorageContainer extends ComponentContainer {
       // storage directories and tmp
       StoragePaths.class,
       StorageReader.class,
+      ServerPathTreeCache.class,
       IssueStorePaths.class,
       new GlobalTempFolderProvider(),
 
@@ -85,6 +87,7 @@ public class StorageContainer extends ComponentContainer {
       DefaultPluginJarExploder.class,
       StoragePluginIndexProvider.class,
       new PluginCacheProvider(),
+      new AnalysisResultStoreProvider(),
 
       // storage readers
       AllProjectReader.class,
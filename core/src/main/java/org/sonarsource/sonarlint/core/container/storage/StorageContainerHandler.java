@@ -19,14 +19,12 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FilenameUtils;
 import org.sonar.api.rule.RuleKey;
@@ -65,10 +63,12 @@ public class StorageContainerHandler {
   private final StorageFileExclusions storageExclusions;
   private final IssueStoreReader issueStoreReader;
   private final PartialUpdaterFactory partialUpdaterFactory;
+  private final ServerPathTreeCache serverPathTreeCache;
 
   public StorageContainerHandler(StorageAnalyzer storageAnalyzer, GlobalUpdateStatusReader globalUpdateStatusReader,
     PluginRepository pluginRepository, ProjectStorageStatusReader projectStorageStatusReader, AllProjectReader allProjectReader, StoragePaths storagePaths,
-    StorageReader storageReader, StorageFileExclusions storageExclusions, IssueStoreReader issueStoreReader, PartialUpdaterFactory partialUpdaterFactory) {
+    StorageReader storageReader, StorageFileExclusions storageExclusions, IssueStoreReader issueStoreReader, PartialUpdaterFactory partialUpdaterFactory,
+    ServerPathTreeCache serverPathTreeCache) {
     this.storageAnalyzer = storageAnalyzer;
     this.globalUpdateStatusReader = globalUpdateStatusReader;
     this.pluginRepository = pluginRepository;
@@ -79,6 +79,7 @@ public class StorageContainerHandler {
     this.storageExclusions = storageExclusions;
     this.issueStoreReader = issueStoreReader;
     this.partialUpdaterFactory = partialUpdaterFactory;
+    this.serverPathTreeCache = serverPathTreeCache;
   }
 
   public AnalysisResults analyze(GlobalExtensionContainer globalExtensionContainer, ConnectedAnalysisConfiguration configuration, IssueListener issueListener,
@@ -155,27 +156,49 @@ public class StorageContainerHandler {
     boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
     PartialUpdater updater = partialUpdaterFactory.create(endpoint, client);
     Sonarlint.ProjectConfiguration configuration = storageReader.readProjectConfig(projectBinding.projectKey());
-    updater.updateFileIssues(projectBinding, configuration, ideFilePath, fetchTaintVulnerabilities, progress);
+    try {
+      updater.updateFileIssues(projectBinding, configuration, ideFilePath, fetchTaintVulnerabilities, progress);
+    } finally {
+      issueStoreReader.invalidate(projectBinding, ideFilePath);
+    }
     return getServerIssues(projectBinding, ideFilePath);
   }
 
+  public Map<String, List<ServerIssue>> downloadServerIssues(EndpointParams endpoint, HttpClient client, ProjectBinding projectBinding, Collection<String> ideFilePaths,
+    boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
+    PartialUpdater updater = partialUpdaterFactory.create(endpoint, client);
+    Sonarlint.ProjectConfiguration configuration = storageReader.readProjectConfig(projectBinding.projectKey());
+    try {
+      updater.updateFileIssues(projectBinding, configuration, ideFilePaths, fetchTaintVulnerabilities, progress);
+    } finally {
+      issueStoreReader.invalidate(projectBinding.projectKey());
+    }
+    Map<String, List<ServerIssue>> issuesByIdePath = new LinkedHashMap<>();
+    ideFilePaths.forEach(ideFilePath -> issuesByIdePath.put(ideFilePath, getServerIssues(projectBinding, ideFilePath)));
+    return issuesByIdePath;
+  }
+
   public void downloadServerIssues(EndpointParams endpoint, HttpClient client, String projectKey, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
     PartialUpdater updater = partialUpdaterFactory.create(endpoint, client);
     Sonarlint.ProjectConfiguration configuration = storageReader.readProjectConfig(projectKey);
-    updater.updateFileIssues(projectKey, configuration, fetchTaintVulnerabilities, progress);
+    try {
+      updater.updateFileIssues(projectKey, configuration, fetchTaintVulnerabilities, progress);
+    } finally {
+      issueStoreReader.invalidate(projectKey);
+    }
   }
 
-  public ProjectBinding calculatePathPrefixes(String projectKey, Collection<String> ideFilePaths) {
-    List<Path> idePathList = ideFilePaths.stream()
-      .map(Paths::get)
-      .collect(Collectors.toList());
-    List<Path> sqPathList = storageReader.readProjectComponents(projectKey)
-      .getComponentList().stream()
-      .map(Paths::get)
-      .collect(Collectors.toList());
+  /**
+   * The project storage was replaced by an update, forget anything cached about it.
+   */
+  public void projectUpdated(String projectKey) {
+    issueStoreReader.invalidate(projectKey);
+    serverPathTreeCache.invalidate(projectKey);
+  }
 
+  public ProjectBinding calculatePathPrefixes(String projectKey, Collection<String> ideFilePaths) {
     FileMatcher fileMatcher = new FileMatcher();
-    FileMatcher.Result match = fileMatcher.match(sqPathList, idePathList);
+    FileMatcher.Result match = fileMatcher.match(serverPathTreeCache.get(projectKey), ideFilePaths);
     return new ProjectBinding(projectKey, FilenameUtils.separatorsToUnix(match.sqPrefix().toString()),
       FilenameUtils.separatorsToUnix(match.idePrefix().toString()));
 
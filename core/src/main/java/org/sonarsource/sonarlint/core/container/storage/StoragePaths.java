@@ -45,6 +45,7 @@ public class StoragePaths {
   public static final String PROJECT_LIST_PB = "project_list.pb";
   public static final String SERVER_ISSUES_DIR = "server_issues";
   public static final String COMPONENT_LIST_PB = "component_list.pb";
+  public static final String HTTP_CACHE_DIR = "http_cache";
 
   private final Path serverStorageRoot;
   private final Path globalStorageRoot;
@@ -60,6 +61,13 @@ public class StoragePaths {
     return serverStorageRoot;
   }
 
+  /**
+   * Not part of the global storage, so that it survives global storage updates
+   */
+  public Path getHttpCacheRoot() {
+    return serverStorageRoot.resolve(HTTP_CACHE_DIR);
+  }
+
   public Path getGlobalStorageRoot() {
     return globalStorageRoot;
   }
@@ -0,0 +1,38 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+/**
+ * Storage updates are fully written in a new temporary directory (a snapshot) before replacing the live storage.
+ * Only this final switch has to be exclusive with readers of the storage, so downloads can run while the storage is in use.
+ */
+@FunctionalInterface
+public interface StorageSwitch {
+
+  /**
+   * Switch without any synchronization, when there is no concurrent reader of the storage.
+   */
+  StorageSwitch IMMEDIATE = Runnable::run;
+
+  /**
+   * Run the action replacing live storage with a snapshot, exclusively from readers of the storage.
+   */
+  void run(Runnable switchAction);
+}
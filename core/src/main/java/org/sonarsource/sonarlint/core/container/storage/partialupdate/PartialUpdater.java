@@ -19,38 +19,69 @@
  */
 package org.sonarsource.sonarlint.core.container.storage.partialupdate;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 import org.sonarsource.sonarlint.core.container.connected.IssueStore;
 import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
 import org.sonarsource.sonarlint.core.container.connected.update.ProjectListDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.perform.ServerIssueUpdater;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
+import static java.util.stream.Collectors.toList;
+
 public class PartialUpdater {
+  private static final Logger LOG = Loggers.get(PartialUpdater.class);
+
+  static final int MAX_CONCURRENT_REQUESTS = 8;
+  /**
+   * When at least 1/PROJECT_DOWNLOAD_FILE_RATIO of the project files are requested, a single download of the project issues is cheaper than
+   * one request per file
+   */
+  static final int PROJECT_DOWNLOAD_FILE_RATIO = 4;
+
   private final IssueStoreFactory issueStoreFactory;
   private final IssueDownloader downloader;
   private final ProjectListDownloader projectListDownloader;
   private final IssueStorePaths issueStorePaths;
   private final TempFolder tempFolder;
   private final StoragePaths storagePaths;
+  private final StorageSwitch storageSwitch;
 
   public PartialUpdater(IssueStoreFactory issueStoreFactory, IssueDownloader downloader,
-    StoragePaths storagePaths, ProjectListDownloader projectListDownloader, IssueStorePaths issueStorePaths, TempFolder tempFolder) {
+    StoragePaths storagePaths, ProjectListDownloader projectListDownloader, IssueStorePaths issueStorePaths, TempFolder tempFolder, StorageSwitch storageSwitch) {
     this.issueStoreFactory = issueStoreFactory;
     this.downloader = downloader;
     this.storagePaths = storagePaths;
     this.projectListDownloader = projectListDownloader;
     this.issueStorePaths = issueStorePaths;
     this.tempFolder = tempFolder;
+    this.storageSwitch = storageSwitch;
   }
 
   public void updateFileIssues(ProjectBinding projectBinding, Sonarlint.ProjectConfiguration projectConfiguration, String ideFilePath, boolean fetchTaintVulnerabilities,
@@ -68,19 +99,100 @@ public class PartialUpdater {
       // null as cause so that it doesn't get wrapped
       throw new DownloadException("Failed to update file issues: " + e.getMessage(), null);
     }
-    issueStore.save(issues);
+    storageSwitch.run(() -> issueStore.save(issues));
+  }
+
+  /**
+   * Same as {@link #updateFileIssues(ProjectBinding, Sonarlint.ProjectConfiguration, String, boolean, ProgressWrapper)} for several files at once.
+   * Issues are downloaded with a bounded number of concurrent requests, or for the whole project if most of its files are requested,
+   * and saved in the issue store once.
+   */
+  public void updateFileIssues(ProjectBinding projectBinding, Sonarlint.ProjectConfiguration projectConfiguration, Collection<String> ideFilePaths,
+    boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
+    Set<String> fileKeys = new LinkedHashSet<>();
+    for (String ideFilePath : ideFilePaths) {
+      String fileKey = issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, ideFilePath);
+      if (fileKey != null) {
+        fileKeys.add(fileKey);
+      }
+    }
+    if (fileKeys.isEmpty()) {
+      return;
+    }
+    String projectKey = projectBinding.projectKey();
+    if (fileKeys.size() > 1 && fileKeys.size() * PROJECT_DOWNLOAD_FILE_RATIO >= projectFileCount(projectKey)) {
+      LOG.debug("Downloading issues of project '{}' instead of {} files", projectKey, fileKeys.size());
+      try {
+        updateFileIssues(projectKey, projectConfiguration, fetchTaintVulnerabilities, progress);
+      } catch (Exception e) {
+        throw new DownloadException("Failed to update file issues: " + e.getMessage(), null);
+      }
+      return;
+    }
+    List<ServerIssue> issues = new ArrayList<>();
+    List<String> failures = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_CONCURRENT_REQUESTS, fileKeys.size()), new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-file-issues-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<Future<List<ServerIssue>>> futures = fileKeys.stream()
+        .map(fileKey -> executor.submit(() -> downloader.download(fileKey, projectConfiguration, fetchTaintVulnerabilities, new ProgressWrapper(null))))
+        .collect(toList());
+      int done = 0;
+      for (Future<List<ServerIssue>> future : futures) {
+        progress.setProgressAndCheckCancel("Downloading file issues", done / (float) futures.size());
+        try {
+          issues.addAll(future.get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new DownloadException("Interrupted while updating file issues", e);
+        } catch (ExecutionException e) {
+          failures.add(e.getCause().getMessage());
+        }
+        done++;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    // Keep what was successfully downloaded
+    IssueStore issueStore = issueStoreFactory.apply(storagePaths.getServerIssuesPath(projectKey));
+    storageSwitch.run(() -> issueStore.save(issues));
+    if (!failures.isEmpty()) {
+      // null as cause so that it doesn't get wrapped
+      throw new DownloadException("Failed to update issues of " + failures.size() + " file(s): " + failures.get(0), null);
+    }
+  }
+
+  private int projectFileCount(String projectKey) {
+    Path componentListPath = storagePaths.getComponentListPath(projectKey);
+    if (!Files.exists(componentListPath)) {
+      return Integer.MAX_VALUE;
+    }
+    return ProtobufUtil.readFile(componentListPath, Sonarlint.ProjectComponents.parser()).getComponentCount();
   }
 
   public void updateFileIssues(String projectKey, Sonarlint.ProjectConfiguration projectConfiguration, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
-    new ServerIssueUpdater(storagePaths, downloader, issueStoreFactory, tempFolder).update(projectKey, projectConfiguration, fetchTaintVulnerabilities, progress);
+    new ServerIssueUpdater(storagePaths, downloader, issueStoreFactory, tempFolder, storageSwitch).update(projectKey, projectConfiguration, fetchTaintVulnerabilities, progress);
   }
 
   public void updateProjectList(ProgressWrapper progress) {
+    Path temp = tempFolder.newDir().toPath();
     try {
-      projectListDownloader.fetchTo(storagePaths.getGlobalStorageRoot(), progress);
+      projectListDownloader.fetchTo(temp, progress);
     } catch (Exception e) {
+      FileUtils.deleteRecursively(temp);
       // null as cause so that it doesn't get wrapped
       throw new DownloadException("Failed to update module list: " + e.getMessage(), null);
     }
+    storageSwitch.run(() -> {
+      Path target = storagePaths.getGlobalStorageRoot().resolve(StoragePaths.PROJECT_LIST_PB);
+      try {
+        Files.move(temp.resolve(StoragePaths.PROJECT_LIST_PB), target, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        throw new StorageException("Unable to update " + target, e);
+      }
+    });
+    FileUtils.deleteRecursively(temp);
   }
 }
@@ -25,6 +25,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.IssueDownloader
 import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
 import org.sonarsource.sonarlint.core.container.connected.update.ProjectListDownloader;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient;
 import org.sonarsource.sonarlint.core.serverapi.ServerApiHelper;
@@ -35,11 +36,13 @@ public class PartialUpdaterFactory {
   private final StoragePaths storagePaths;
   private final IssueStorePaths issueStorePaths;
   private final TempFolder tempFolder;
+  private final StorageSwitch storageSwitch;
 
-  public PartialUpdaterFactory(StoragePaths storagePaths, IssueStorePaths issueStorePaths, TempFolder tempFolder) {
+  public PartialUpdaterFactory(StoragePaths storagePaths, IssueStorePaths issueStorePaths, TempFolder tempFolder, StorageSwitch storageSwitch) {
     this.storagePaths = storagePaths;
     this.issueStorePaths = issueStorePaths;
     this.tempFolder = tempFolder;
+    this.storageSwitch = storageSwitch;
   }
 
   public PartialUpdater create(EndpointParams endpoint, HttpClient client) {
@@ -47,6 +50,6 @@ public class PartialUpdaterFactory {
     IssueStoreFactory issueStoreFactory = new IssueStoreFactory();
     IssueDownloader downloader = new IssueDownloader(new IssueApi(serverApiHelper), new SourceApi(serverApiHelper), issueStorePaths);
     ProjectListDownloader projectListDownloader = new ProjectListDownloader(serverApiHelper);
-    return new PartialUpdater(issueStoreFactory, downloader, storagePaths, projectListDownloader, issueStorePaths, tempFolder);
+    return new PartialUpdater(issueStoreFactory, downloader, storagePaths, projectListDownloader, issueStorePaths, tempFolder, storageSwitch);
   }
 }
@@ -0,0 +1,64 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.sonarsource.sonarlint.Analysis")
+@Label("Analysis")
+@Category({"SonarLint", "Analysis"})
+@Description("Analysis of a set of files, from the engine call to the last reported issue")
+public class AnalysisEvent extends Event {
+
+  @Label("Files")
+  @Description("Number of indexed files")
+  public int fileCount;
+
+  @Label("Failed Files")
+  public int failedFileCount;
+
+  @Label("Languages")
+  @Description("Comma separated keys of the languages of the indexed files")
+  public String languages;
+
+  @Label("Issues")
+  public int issueCount;
+
+  public static AnalysisEvent start() {
+    AnalysisEvent event = new AnalysisEvent();
+    event.begin();
+    return event;
+  }
+
+  public void commit(int indexedFileCount, int failedFileCount, String languages, int issueCount) {
+    end();
+    if (shouldCommit()) {
+      this.fileCount = indexedFileCount;
+      this.failedFileCount = failedFileCount;
+      this.languages = languages;
+      this.issueCount = issueCount;
+      commit();
+    }
+  }
+}
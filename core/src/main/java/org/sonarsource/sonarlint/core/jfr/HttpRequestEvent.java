@@ -0,0 +1,68 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.sonarsource.sonarlint.HttpRequest")
+@Label("Server API Request")
+@Category({"SonarLint", "Server API"})
+public class HttpRequestEvent extends Event {
+
+  @Label("Method")
+  public String method;
+
+  @Label("Path")
+  @Description("Path of the web service, without query parameters")
+  public String path;
+
+  @Label("Status")
+  @Description("HTTP status code, or 0 if the request failed")
+  public int status;
+
+  @Label("Response Size")
+  @Description("Value of the Content-Length response header, or -1 if unknown")
+  @DataAmount
+  public long bytes;
+
+  public static HttpRequestEvent start(String method, String relativePath) {
+    HttpRequestEvent event = new HttpRequestEvent();
+    event.method = method;
+    int queryStart = relativePath.indexOf('?');
+    event.path = queryStart >= 0 ? relativePath.substring(0, queryStart) : relativePath;
+    event.bytes = -1;
+    event.begin();
+    return event;
+  }
+
+  public void commit(int status, long bytes) {
+    end();
+    if (shouldCommit()) {
+      this.status = status;
+      this.bytes = bytes;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Entry point of the Flight Recorder events of the engine. JFR is not part of every Java 8 runtime, so callers create events only when
+ * {@link #isRecording()} returns true:
+ * <pre>
+ * StorageReadEvent event = JfrEvents.isRecording() ? StorageReadEvent.start(file) : null;
+ * ...
+ * if (event != null) {
+ *   event.commit(bytes);
+ * }
+ * </pre>
+ * When JFR is not available or no recording is running, the cost is a volatile read.
+ */
+public final class JfrEvents {
+
+  private static final Logger LOG = Loggers.get(JfrEvents.class);
+
+  private static final boolean AVAILABLE = registerListener();
+  private static volatile boolean recording;
+
+  private JfrEvents() {
+    // only static stuff
+  }
+
+  public static boolean isRecording() {
+    return AVAILABLE && recording;
+  }
+
+  static void setRecording(boolean recording) {
+    JfrEvents.recording = recording;
+  }
+
+  private static boolean registerListener() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder", false, JfrEvents.class.getClassLoader());
+      return RecordingStateListener.register();
+    } catch (ClassNotFoundException | LinkageError | SecurityException e) {
+      LOG.debug("Java Flight Recorder is not available, events will not be recorded");
+      return false;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.sonarsource.sonarlint.PluginLoading")
+@Label("Plugin Loading")
+@Category({"SonarLint", "Plugins"})
+@Description("Loading of the plugin jars and creation of their classloaders")
+public class PluginLoadingEvent extends Event {
+
+  @Label("Plugins")
+  public int pluginCount;
+
+  @Label("Skipped Plugins")
+  public int skippedPluginCount;
+
+  public static PluginLoadingEvent start() {
+    PluginLoadingEvent event = new PluginLoadingEvent();
+    event.begin();
+    return event;
+  }
+
+  public void commit(int pluginCount, int skippedPluginCount) {
+    end();
+    if (shouldCommit()) {
+      this.pluginCount = pluginCount;
+      this.skippedPluginCount = skippedPluginCount;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Keeps {@link JfrEvents#isRecording()} up to date, so that no event is created while no recording is running.
+ */
+class RecordingStateListener implements FlightRecorderListener {
+
+  static boolean register() {
+    if (!FlightRecorder.isAvailable()) {
+      return false;
+    }
+    FlightRecorder.addListener(new RecordingStateListener());
+    return true;
+  }
+
+  @Override
+  public void recorderInitialized(FlightRecorder recorder) {
+    update(recorder);
+  }
+
+  @Override
+  public void recordingStateChanged(Recording recording) {
+    update(FlightRecorder.getFlightRecorder());
+  }
+
+  private static void update(FlightRecorder recorder) {
+    JfrEvents.setRecording(recorder.getRecordings().stream().anyMatch(r -> r.getState() == RecordingState.RUNNING));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("org.sonarsource.sonarlint.StorageRead")
+@Label("Storage Read")
+@Category({"SonarLint", "Storage"})
+public class StorageReadEvent extends Event {
+
+  @Label("Path")
+  public String path;
+
+  @Label("Bytes Read")
+  @DataAmount
+  public long bytes;
+
+  public static StorageReadEvent start(Path file) {
+    StorageReadEvent event = new StorageReadEvent();
+    event.path = file.toString();
+    event.begin();
+    return event;
+  }
+
+  public void commit(long bytes) {
+    end();
+    if (shouldCommit()) {
+      this.bytes = bytes;
+      commit();
+    }
+  }
+}
@@ -21,21 +21,33 @@ package org.sonarsource.sonarlint.core.log;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
 
+/**
+ * Delegates logs to the output of the current thread. Threads inherit the output of the thread that created them.
+ */
 public class LogOutputDelegator {
-  private InheritableThreadLocal<LogOutput> target = new InheritableThreadLocal<>();
+  private final InheritableThreadLocal<Target> target = new InheritableThreadLocal<>();
+
+  public boolean isEnabled(Level level) {
+    Target current = current();
+    return current != null && current.accepts(level);
+  }
 
   public void log(String formattedMessage, Level level) {
-    LogOutput output = target.get();
-    if (output != null) {
-      output.log(formattedMessage, level);
+    Target current = current();
+    if (current != null && current.accepts(level)) {
+      current.output.log(formattedMessage, level);
     }
   }
 
   public void log(String formattedMessage, Level level, Throwable t) {
+    if (!isEnabled(level)) {
+      return;
+    }
     log(formattedMessage, level);
 
     StringWriter sw = new StringWriter();
@@ -45,6 +57,52 @@ public class LogOutputDelegator {
   }
 
   public void setTarget(@Nullable LogOutput target) {
-    this.target.set(target);
+    this.target.set(target != null ? new Target(target, null) : null);
+  }
+
+  /**
+   * Route the logs of the current thread, and of the threads it creates, to the given output until the returned scope is closed.
+   * Threads created during the scope may outlive it, for example in thread pools. Once the scope is closed, they log to the target
+   * that was active when the scope was opened, rather than to an output that may belong to another call.
+   *
+   * @param output where to log, or null to discard logs during the scope
+   */
+  public LogScope openScope(@Nullable LogOutput output) {
+    Target previous = target.get();
+    Target scoped = new Target(output, previous);
+    target.set(scoped);
+    return () -> {
+      scoped.closed = true;
+      target.set(previous);
+    };
+  }
+
+  @CheckForNull
+  private Target current() {
+    Target current = target.get();
+    while (current != null && current.closed) {
+      current = current.parent;
+    }
+    return current;
+  }
+
+  private static class Target {
+    @Nullable
+    private final LogOutput output;
+    private final Level enabledLevel;
+    @Nullable
+    private final Target parent;
+    private volatile boolean closed;
+
+    private Target(@Nullable LogOutput output, @Nullable Target parent) {
+      this.output = output;
+      this.parent = parent;
+      Level level = output != null ? output.enabledLevel() : null;
+      this.enabledLevel = level != null ? level : Level.DEBUG;
+    }
+
+    private boolean accepts(Level level) {
+      return output != null && level.compareTo(enabledLevel) <= 0;
+    }
   }
 }
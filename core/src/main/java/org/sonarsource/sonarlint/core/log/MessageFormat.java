@@ -59,7 +59,13 @@ public class MessageFormat {
   private static final char DELIM_STOP = '}';
   private static final char ESCAPE_CHAR = '\\';
 
+  /**
+   * Reused buffers bigger than this are released, to not retain memory after formatting a huge message.
+   */
+  static final int MAX_REUSED_BUFFER_CAPACITY = 8 * 1024;
+
   private static ThreadLocal<SimpleDateFormat> threadLocalSimpleDateFormat = new ThreadLocal<>();
+  private static ThreadLocal<FormatBuffers> threadLocalFormatBuffers = ThreadLocal.withInitial(FormatBuffers::new);
 
   private MessageFormat() {
     // only static
@@ -73,10 +79,65 @@ public class MessageFormat {
    * @return the formatted message.
    */
   public static String format(final String messagePattern, @Nullable final Object[] arguments) {
-    final StringBuilder result = new StringBuilder();
     final int argCount = arguments == null ? 0 : arguments.length;
-    formatMessage(result, messagePattern, arguments, argCount);
-    return result.toString();
+    final FormatBuffers buffers = threadLocalFormatBuffers.get();
+    if (buffers.inUse) {
+      // re-entrant call, from the toString() of an argument
+      final StringBuilder result = new StringBuilder();
+      formatMessage(result, messagePattern, arguments, argCount);
+      return result.toString();
+    }
+    return buffers.format(messagePattern, arguments, argCount);
+  }
+
+  /**
+   * Same as {@link #format(String, Object[])} with a single argument, without allocating an array of arguments.
+   */
+  public static String format(final String messagePattern, @Nullable final Object argument) {
+    final FormatBuffers buffers = threadLocalFormatBuffers.get();
+    if (buffers.inUse) {
+      return format(messagePattern, new Object[] {argument});
+    }
+    buffers.arguments[0] = argument;
+    return buffers.format(messagePattern, buffers.arguments, 1);
+  }
+
+  /**
+   * Same as {@link #format(String, Object[])} with two arguments, without allocating an array of arguments.
+   */
+  public static String format(final String messagePattern, @Nullable final Object argument1, @Nullable final Object argument2) {
+    final FormatBuffers buffers = threadLocalFormatBuffers.get();
+    if (buffers.inUse) {
+      return format(messagePattern, new Object[] {argument1, argument2});
+    }
+    buffers.arguments[0] = argument1;
+    buffers.arguments[1] = argument2;
+    return buffers.format(messagePattern, buffers.arguments, 2);
+  }
+
+  /**
+   * Per-thread buffers reused across calls, so that formatting a message only allocates the resulting String.
+   */
+  private static class FormatBuffers {
+    private final Object[] arguments = new Object[2];
+    private StringBuilder buffer = new StringBuilder(256);
+    private boolean inUse;
+
+    private String format(final String messagePattern, @Nullable final Object[] args, final int argCount) {
+      inUse = true;
+      try {
+        buffer.setLength(0);
+        formatMessage(buffer, messagePattern, args, argCount);
+        return buffer.toString();
+      } finally {
+        arguments[0] = null;
+        arguments[1] = null;
+        if (buffer.capacity() > MAX_REUSED_BUFFER_CAPACITY) {
+          buffer = new StringBuilder(256);
+        }
+        inUse = false;
+      }
+    }
   }
 
   /**
@@ -0,0 +1,105 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.metrics;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.Counter;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.Timer;
+
+/**
+ * Gives access to the metrics of the engine running on the current thread, so that code shared by all engines, like static utilities,
+ * can record metrics. Engines open a scope on each call, like the scope of the logs, and threads created during the call inherit it.
+ * When no engine is running on the current thread, metrics are discarded.
+ */
+public final class Metrics {
+
+  private static final InheritableThreadLocal<Target> TARGET = new InheritableThreadLocal<>();
+
+  private static final Counter NO_OP_COUNTER = new Counter() {
+    @Override
+    public void add(long delta) {
+      // discarded
+    }
+
+    @Override
+    public long value() {
+      return 0;
+    }
+  };
+
+  private static final Timer NO_OP_TIMER = durationNanos -> {
+    // discarded
+  };
+
+  private Metrics() {
+    // only static stuff
+  }
+
+  /**
+   * Record the metrics of the current thread, and of the threads it creates, in the given registry until the returned scope is closed.
+   * Threads created during the scope may outlive it, for example in thread pools. Once the scope is closed, they no longer reference
+   * the registry, so that it can be garbage collected with its engine.
+   */
+  public static MetricsScope openScope(MetricsRegistry registry) {
+    Target previous = TARGET.get();
+    Target scoped = new Target(registry, previous);
+    TARGET.set(scoped);
+    return () -> {
+      scoped.registry = null;
+      TARGET.set(previous);
+    };
+  }
+
+  public static Counter counter(String name) {
+    MetricsRegistry registry = current();
+    return registry != null ? registry.counter(name) : NO_OP_COUNTER;
+  }
+
+  public static Timer timer(String name) {
+    MetricsRegistry registry = current();
+    return registry != null ? registry.timer(name) : NO_OP_TIMER;
+  }
+
+  @CheckForNull
+  private static MetricsRegistry current() {
+    Target current = TARGET.get();
+    while (current != null) {
+      MetricsRegistry registry = current.registry;
+      if (registry != null) {
+        return registry;
+      }
+      current = current.parent;
+    }
+    return null;
+  }
+
+  private static class Target {
+    @Nullable
+    private volatile MetricsRegistry registry;
+    @Nullable
+    private final Target parent;
+
+    private Target(MetricsRegistry registry, @Nullable Target parent) {
+      this.registry = registry;
+      this.parent = parent;
+    }
+  }
+}
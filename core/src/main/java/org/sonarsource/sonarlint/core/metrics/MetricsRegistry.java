@@ -0,0 +1,237 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.metrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.BatchIssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.Counter;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.EngineMetrics;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsListener;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsSnapshot;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.Timer;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.TimerSnapshot;
+import org.sonarsource.sonarlint.core.jfr.AnalysisEvent;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
+
+/**
+ * Metrics of one engine. Counters and timers are backed by {@link LongAdder}, so that concurrent updates don't contend.
+ */
+public class MetricsRegistry implements EngineMetrics {
+
+  private static final Logger LOG = Loggers.get(MetricsRegistry.class);
+
+  private final Map<String, DefaultCounter> counters = new ConcurrentHashMap<>();
+  private final Map<String, DefaultTimer> timers = new ConcurrentHashMap<>();
+  private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+  private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+  private volatile boolean hasListeners;
+
+  @Override
+  public Counter counter(String name) {
+    return counters.computeIfAbsent(name, DefaultCounter::new);
+  }
+
+  @Override
+  public Timer timer(String name) {
+    return timers.computeIfAbsent(name, DefaultTimer::new);
+  }
+
+  @Override
+  public void registerGauge(String name, LongSupplier gauge) {
+    gauges.put(name, gauge);
+  }
+
+  @Override
+  public void unregisterGauge(String name) {
+    gauges.remove(name);
+  }
+
+  @Override
+  public MetricsSnapshot snapshot() {
+    Map<String, Long> counterValues = new HashMap<>();
+    counters.forEach((name, counter) -> counterValues.put(name, counter.value()));
+    Map<String, Long> gaugeValues = new HashMap<>();
+    gauges.forEach((name, gauge) -> {
+      try {
+        gaugeValues.put(name, gauge.getAsLong());
+      } catch (RuntimeException e) {
+        LOG.debug("Unable to sample gauge '" + name + "'", e);
+      }
+    });
+    Map<String, TimerSnapshot> timerValues = new HashMap<>();
+    timers.forEach((name, timer) -> timerValues.put(name, timer.snapshot()));
+    return new MetricsSnapshot(System.currentTimeMillis(), counterValues, gaugeValues, timerValues);
+  }
+
+  /**
+   * Acquire the lock, and record the time spent waiting for it.
+   */
+  public void lock(Lock lock, String waitTimerName) {
+    long startNanos = System.nanoTime();
+    lock.lock();
+    timer(waitTimerName).recordSince(startNanos);
+  }
+
+  /**
+   * Run an analysis, and record its duration, the number of analyzed files and of reported issues.
+   */
+  public AnalysisResults recordAnalysis(IssueListener issueListener, Function<IssueListener, AnalysisResults> analysis) {
+    Counter issues = counter(MetricNames.ANALYSIS_ISSUES);
+    AtomicInteger analysisIssues = new AtomicInteger();
+    long startNanos = System.nanoTime();
+    AnalysisEvent event = JfrEvents.isRecording() ? AnalysisEvent.start() : null;
+    AnalysisResults results = analysis.apply(countingListener(issueListener, count -> {
+      issues.add(count);
+      analysisIssues.addAndGet(count);
+    }));
+    timer(MetricNames.ANALYSIS).recordSince(startNanos);
+    counter(MetricNames.ANALYSIS_FILES).add(results.indexedFileCount());
+    counter(MetricNames.ANALYSIS_FAILED_FILES).add(results.failedAnalysisFiles().size());
+    if (event != null) {
+      event.commit(results.indexedFileCount(), results.failedAnalysisFiles().size(), languages(results), analysisIssues.get());
+    }
+    return results;
+  }
+
+  /**
+   * Keep the listener a {@link BatchIssueListener} if it is one, so that issues can still be delivered in batches.
+   */
+  private static IssueListener countingListener(IssueListener issueListener, IntConsumer counter) {
+    if (issueListener instanceof BatchIssueListener) {
+      BatchIssueListener batchIssueListener = (BatchIssueListener) issueListener;
+      return new BatchIssueListener() {
+        @Override
+        public void handle(List<Issue> issues) {
+          counter.accept(issues.size());
+          batchIssueListener.handle(issues);
+        }
+
+        @Override
+        public void handle(Issue issue) {
+          counter.accept(1);
+          batchIssueListener.handle(issue);
+        }
+      };
+    }
+    return issue -> {
+      counter.accept(1);
+      issueListener.handle(issue);
+    };
+  }
+
+  private static String languages(AnalysisResults results) {
+    return results.languagePerFile().values().stream()
+      .filter(Objects::nonNull)
+      .map(Language::getLanguageKey)
+      .distinct()
+      .sorted()
+      .collect(Collectors.joining(","));
+  }
+
+  @Override
+  public void addListener(MetricsListener listener) {
+    listeners.add(listener);
+    hasListeners = true;
+  }
+
+  @Override
+  public void removeListener(MetricsListener listener) {
+    listeners.remove(listener);
+    hasListeners = !listeners.isEmpty();
+  }
+
+  private void notifyListeners(Consumer<MetricsListener> notification) {
+    for (MetricsListener listener : listeners) {
+      try {
+        notification.accept(listener);
+      } catch (RuntimeException e) {
+        LOG.debug("Metrics listener failed", e);
+      }
+    }
+  }
+
+  private class DefaultCounter implements Counter {
+    private final String name;
+    private final LongAdder value = new LongAdder();
+
+    private DefaultCounter(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void add(long delta) {
+      value.add(delta);
+      if (hasListeners) {
+        notifyListeners(l -> l.counterIncremented(name, delta));
+      }
+    }
+
+    @Override
+    public long value() {
+      return value.sum();
+    }
+  }
+
+  private class DefaultTimer implements Timer {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private DefaultTimer(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void record(long durationNanos) {
+      count.increment();
+      totalNanos.add(durationNanos);
+      maxNanos.accumulate(durationNanos);
+      if (hasListeners) {
+        notifyListeners(l -> l.timerRecorded(name, durationNanos));
+      }
+    }
+
+    private TimerSnapshot snapshot() {
+      return new TimerSnapshot(count.sum(), totalNanos.sum(), maxNanos.get());
+    }
+  }
+}
@@ -30,7 +30,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import javax.annotation.CheckForNull;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -53,15 +52,14 @@ class NotificationChecker {
 
   /**
    * Get all notification events for a set of projects after a given timestamp.
-   * Returns an empty list if an error occurred making the request or parsing the response.
+   * Returns an empty list if the response can't be parsed, and throws if the server returned an error, so that the caller can back off.
    */
-  @CheckForNull
   public List<ServerNotification> request(Map<String, ZonedDateTime> projectTimestamps) {
     String path = getWsPath(projectTimestamps);
     try (HttpClient.Response wsResponse = serverApiHelper.rawGet(path)) {
       if (!wsResponse.isSuccessful()) {
         LOG.debug("Failed to get notifications: {}, {}", wsResponse.code(), wsResponse.bodyAsString());
-        return Collections.emptyList();
+        throw new IllegalStateException("Failed to get notifications: error " + wsResponse.code());
       }
 
       return parseResponse(wsResponse.bodyAsString());
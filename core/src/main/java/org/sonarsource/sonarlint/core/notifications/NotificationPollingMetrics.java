@@ -0,0 +1,85 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.notifications;
+
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * Snapshot of the notification polling statistics of a server connection. Latencies are in milliseconds, and include failed and timed out polls.
+ */
+public class NotificationPollingMetrics {
+  private final String serverUrl;
+  @Nullable
+  private final String organization;
+  private final long pollCount;
+  private final long failureCount;
+  private final int consecutiveFailures;
+  private final long lastLatencyMs;
+  private final long maxLatencyMs;
+  private final long averageLatencyMs;
+
+  NotificationPollingMetrics(String serverUrl, @Nullable String organization, long pollCount, long failureCount, int consecutiveFailures, long lastLatencyMs,
+    long maxLatencyMs, long averageLatencyMs) {
+    this.serverUrl = serverUrl;
+    this.organization = organization;
+    this.pollCount = pollCount;
+    this.failureCount = failureCount;
+    this.consecutiveFailures = consecutiveFailures;
+    this.lastLatencyMs = lastLatencyMs;
+    this.maxLatencyMs = maxLatencyMs;
+    this.averageLatencyMs = averageLatencyMs;
+  }
+
+  public String serverUrl() {
+    return serverUrl;
+  }
+
+  public Optional<String> organization() {
+    return Optional.ofNullable(organization);
+  }
+
+  public long pollCount() {
+    return pollCount;
+  }
+
+  public long failureCount() {
+    return failureCount;
+  }
+
+  /**
+   * Number of failures since the last successful poll. The server is polled again after an exponential backoff when this is not 0.
+   */
+  public int consecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  public long lastLatencyMs() {
+    return lastLatencyMs;
+  }
+
+  public long maxLatencyMs() {
+    return maxLatencyMs;
+  }
+
+  public long averageLatencyMs() {
+    return averageLatencyMs;
+  }
+}
@@ -23,32 +23,60 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TimerTask;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.common.NotificationConfiguration;
 import org.sonarsource.sonarlint.core.client.api.notifications.ServerNotification;
+import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
+import org.sonarsource.sonarlint.core.serverapi.HttpClient;
 import org.sonarsource.sonarlint.core.serverapi.ServerApiHelper;
 
-class NotificationTimerTask extends TimerTask {
+/**
+ * Polls the notifications of all registered projects. The projects of a same server are coalesced into a single request, and servers are polled
+ * concurrently, so that a slow server doesn't delay the notifications of the others. A server that fails or doesn't answer within
+ * {@link #POLL_TIMEOUT_MS} is polled again after an exponential backoff.
+ */
+class NotificationTimerTask implements Runnable {
   // merge with most recent time
   private static final BinaryOperator<ZonedDateTime> MERGE_TIMES = (t1, t2) -> t1.toInstant().compareTo(t2.toInstant()) > 0 ? t1 : t2;
   private static final Logger LOG = Loggers.get(NotificationTimerTask.class);
+  static final long POLL_TIMEOUT_MS = 30_000;
+  static final long MIN_BACKOFF_MS = 2L * ServerNotificationsRegistry.DELAY;
+  static final long MAX_BACKOFF_MS = 60L * 60 * 1000;
+
   private Collection<NotificationConfiguration> configuredProjects = Collections.emptyList();
   private final Function<ServerApiHelper, NotificationChecker> notificationCheckerFactory;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService pollingExecutor;
+  private final LongSupplier clockMs;
+  private final Map<ServerKey, ServerPoller> pollersByServer = new ConcurrentHashMap<>();
 
-  public NotificationTimerTask() {
-    this(NotificationChecker::new);
+  NotificationTimerTask(ScheduledExecutorService scheduler, ExecutorService pollingExecutor) {
+    this(NotificationChecker::new, scheduler, pollingExecutor, System::currentTimeMillis);
   }
 
-  NotificationTimerTask(Function<ServerApiHelper, NotificationChecker> notificationCheckerFactory) {
+  NotificationTimerTask(Function<ServerApiHelper, NotificationChecker> notificationCheckerFactory, ScheduledExecutorService scheduler, ExecutorService pollingExecutor,
+    LongSupplier clockMs) {
     this.notificationCheckerFactory = notificationCheckerFactory;
+    this.scheduler = scheduler;
+    this.pollingExecutor = pollingExecutor;
+    this.clockMs = clockMs;
   }
 
   public void setProjects(Collection<NotificationConfiguration> configurations) {
@@ -57,13 +85,23 @@ class NotificationTimerTask extends TimerTask {
 
   @Override
   public void run() {
-    Map<ServerApiHelper, List<NotificationConfiguration>> mapByServer = groupByServer();
+    Map<ServerKey, List<NotificationConfiguration>> mapByServer = groupByServer();
+    pollersByServer.keySet().retainAll(mapByServer.keySet());
 
-    for (Map.Entry<ServerApiHelper, List<NotificationConfiguration>> entry : mapByServer.entrySet()) {
-      requestForServer(entry.getKey(), entry.getValue());
+    for (Map.Entry<ServerKey, List<NotificationConfiguration>> entry : mapByServer.entrySet()) {
+      pollersByServer.computeIfAbsent(entry.getKey(), ServerPoller::new).pollIfDue(entry.getValue());
     }
   }
 
+  List<NotificationPollingMetrics> metrics() {
+    return pollersByServer.values().stream().map(ServerPoller::metrics).collect(Collectors.toList());
+  }
+
+  void clear() {
+    configuredProjects = Collections.emptyList();
+    pollersByServer.clear();
+  }
+
   private static ZonedDateTime getLastNotificationTime(NotificationConfiguration config) {
     ZonedDateTime lastTime = config.lastNotificationTime().get();
     ZonedDateTime oneDayAgo = ZonedDateTime.now().minusDays(1);
@@ -71,31 +109,143 @@ class NotificationTimerTask extends TimerTask {
   }
 
   private void requestForServer(ServerApiHelper serverApiHelper, List<NotificationConfiguration> configs) {
-    try {
-      Map<String, ZonedDateTime> request = configs.stream()
-        .collect(Collectors.toMap(NotificationConfiguration::projectKey, NotificationTimerTask::getLastNotificationTime, MERGE_TIMES));
+    Map<String, ZonedDateTime> request = configs.stream()
+      .collect(Collectors.toMap(NotificationConfiguration::projectKey, NotificationTimerTask::getLastNotificationTime, MERGE_TIMES, LinkedHashMap::new));
 
-      NotificationChecker notificationChecker = notificationCheckerFactory.apply(serverApiHelper);
-      List<ServerNotification> notifications = notificationChecker.request(request);
+    NotificationChecker notificationChecker = notificationCheckerFactory.apply(serverApiHelper);
+    List<ServerNotification> notifications = notificationChecker.request(request);
 
-      for (ServerNotification n : notifications) {
-        Stream<NotificationConfiguration> matchingConfStream = configs.stream();
-        if (n.projectKey() != null) {
-          matchingConfStream = matchingConfStream.filter(c -> c.projectKey().equals(n.projectKey()));
-        }
+    for (ServerNotification n : notifications) {
+      Stream<NotificationConfiguration> matchingConfStream = configs.stream();
+      if (n.projectKey() != null) {
+        matchingConfStream = matchingConfStream.filter(c -> c.projectKey().equals(n.projectKey()));
+      }
+
+      matchingConfStream.forEach(c -> {
+        c.listener().handle(n);
+        c.lastNotificationTime().set(n.time());
+      });
+    }
+  }
+
+  private Map<ServerKey, List<NotificationConfiguration>> groupByServer() {
+    return configuredProjects.stream().collect(Collectors.groupingBy(n -> new ServerKey(n.endpoint().get(), n.client().get()), LinkedHashMap::new, Collectors.toList()));
+  }
+
+  /**
+   * Identifies a server connection. {@link EndpointParams} and {@link ServerApiHelper} don't define equality, so the endpoint attributes are compared
+   * by value and the HTTP client by identity.
+   */
+  private static class ServerKey {
+    private final EndpointParams endpoint;
+    private final HttpClient client;
 
-        matchingConfStream.forEach(c -> {
-          c.listener().handle(n);
-          c.lastNotificationTime().set(n.time());
-        });
+    private ServerKey(EndpointParams endpoint, HttpClient client) {
+      this.endpoint = endpoint;
+      this.client = client;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
       }
-    } catch (Exception e) {
-      LOG.warn("Failed to request SonarLint notifications", e);
+      if (!(o instanceof ServerKey)) {
+        return false;
+      }
+      ServerKey other = (ServerKey) o;
+      return client == other.client
+        && Objects.equals(endpoint.getBaseUrl(), other.endpoint.getBaseUrl())
+        && endpoint.isSonarCloud() == other.endpoint.isSonarCloud()
+        && Objects.equals(endpoint.getOrganization(), other.endpoint.getOrganization());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(endpoint.getBaseUrl(), endpoint.isSonarCloud(), endpoint.getOrganization(), System.identityHashCode(client));
     }
   }
 
-  private Map<ServerApiHelper, List<NotificationConfiguration>> groupByServer() {
-    return configuredProjects.stream().collect(Collectors.groupingBy(n -> new ServerApiHelper(n.endpoint().get(), n.client().get())));
+  private class ServerPoller {
+    private final ServerKey server;
+    private final ServerApiHelper serverApiHelper;
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    private volatile long nextPollTimeMs;
+
+    // guarded by this
+    private int consecutiveFailures;
+    private long pollCount;
+    private long failureCount;
+    private long lastLatencyMs;
+    private long maxLatencyMs;
+    private long totalLatencyMs;
+
+    private ServerPoller(ServerKey server) {
+      this.server = server;
+      this.serverApiHelper = new ServerApiHelper(server.endpoint, server.client);
+    }
+
+    private void pollIfDue(List<NotificationConfiguration> configs) {
+      if (clockMs.getAsLong() < nextPollTimeMs || !inFlight.compareAndSet(false, true)) {
+        return;
+      }
+      long startTimeMs = clockMs.getAsLong();
+      AtomicBoolean started = new AtomicBoolean();
+      AtomicBoolean completed = new AtomicBoolean();
+      Future<?> poll = pollingExecutor.submit(() -> {
+        started.set(true);
+        try {
+          requestForServer(serverApiHelper, configs);
+          if (completed.compareAndSet(false, true)) {
+            onSuccess(clockMs.getAsLong() - startTimeMs);
+          }
+        } catch (Exception e) {
+          if (completed.compareAndSet(false, true)) {
+            LOG.warn("Failed to request SonarLint notifications", e);
+            onFailure(clockMs.getAsLong() - startTimeMs);
+          }
+        } finally {
+          inFlight.set(false);
+        }
+      });
+      scheduler.schedule(() -> {
+        if (completed.compareAndSet(false, true)) {
+          LOG.warn("Timed out requesting SonarLint notifications from {}", server.endpoint.getBaseUrl());
+          poll.cancel(true);
+          if (!started.get()) {
+            inFlight.set(false);
+          }
+          onFailure(clockMs.getAsLong() - startTimeMs);
+        }
+      }, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void onSuccess(long latencyMs) {
+      consecutiveFailures = 0;
+      nextPollTimeMs = 0;
+      recordLatency(latencyMs);
+    }
+
+    private synchronized void onFailure(long latencyMs) {
+      consecutiveFailures++;
+      failureCount++;
+      long backoffMs = MIN_BACKOFF_MS << Math.min(consecutiveFailures - 1, 20);
+      nextPollTimeMs = clockMs.getAsLong() + Math.min(MAX_BACKOFF_MS, backoffMs);
+      recordLatency(latencyMs);
+    }
+
+    private void recordLatency(long latencyMs) {
+      pollCount++;
+      lastLatencyMs = latencyMs;
+      maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+      totalLatencyMs += latencyMs;
+    }
+
+    private synchronized NotificationPollingMetrics metrics() {
+      Optional<String> organization = server.endpoint.getOrganization();
+      return new NotificationPollingMetrics(server.endpoint.getBaseUrl(), organization.orElse(null), pollCount, failureCount, consecutiveFailures,
+        lastLatencyMs, maxLatencyMs, pollCount == 0 ? 0 : (totalLatencyMs / pollCount));
+    }
   }
 
 }
@@ -19,9 +19,15 @@
  */
 package org.sonarsource.sonarlint.core.notifications;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.List;
-import java.util.Timer;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.sonarsource.sonarlint.core.client.api.common.NotificationConfiguration;
 import org.sonarsource.sonarlint.core.client.api.notifications.ServerNotificationListener;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
@@ -31,19 +37,36 @@ import org.sonarsource.sonarlint.core.serverapi.ServerApiHelper;
 public class ServerNotificationsRegistry {
   static final int DELAY = 60_000;
 
+  /**
+   * Shared by all registries: ticks and poll timeouts run on a single scheduler thread, while the polls themselves run on the polling executor.
+   */
+  private static final ScheduledExecutorService SHARED_SCHEDULER = newScheduler();
+  private static final ExecutorService SHARED_POLLING_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+    .setNameFormat("sonarlint-notifications-poller-%d")
+    .setDaemon(true)
+    .build());
+
   private final List<NotificationConfiguration> configuredNotifications = new CopyOnWriteArrayList<>();
 
-  private Timer timer;
+  private ScheduledFuture<?> scheduledTask;
   private NotificationTimerTask task;
 
   public ServerNotificationsRegistry() {
-    this(new Timer("Notifications timer", true), new NotificationTimerTask());
+    this(SHARED_SCHEDULER, new NotificationTimerTask(SHARED_SCHEDULER, SHARED_POLLING_EXECUTOR));
   }
 
-  ServerNotificationsRegistry(Timer timer, NotificationTimerTask task) {
-    this.timer = timer;
+  ServerNotificationsRegistry(ScheduledExecutorService scheduler, NotificationTimerTask task) {
     this.task = task;
-    this.timer.scheduleAtFixedRate(task, DELAY, DELAY);
+    this.scheduledTask = scheduler.scheduleAtFixedRate(task, DELAY, DELAY, TimeUnit.MILLISECONDS);
+  }
+
+  private static ScheduledExecutorService newScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-notifications-scheduler")
+      .setDaemon(true)
+      .build());
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
   }
 
   /**
@@ -62,6 +85,13 @@ public class ServerNotificationsRegistry {
     task.setProjects(configuredNotifications);
   }
 
+  /**
+   * Polling statistics of each server having registered projects.
+   */
+  public List<NotificationPollingMetrics> pollingMetrics() {
+    return task.metrics();
+  }
+
   /**
    * Checks if a server supports notifications
    */
@@ -74,8 +104,9 @@ public class ServerNotificationsRegistry {
    * Stops notifications.
    */
   public void stop() {
-    timer.cancel();
-    timer = null;
+    scheduledTask.cancel(false);
+    scheduledTask = null;
+    task.clear();
     task = null;
     configuredNotifications.clear();
   }
@@ -28,7 +28,11 @@ import org.sonar.api.Plugin;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.container.model.DefaultLoadedAnalyzer;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
+import org.sonarsource.sonarlint.core.jfr.PluginLoadingEvent;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
 
 import static java.util.Objects.requireNonNull;
 
@@ -51,10 +55,17 @@ public class PluginRepository implements Startable {
 
   @Override
   public void start() {
+    long startNanos = System.nanoTime();
+    PluginLoadingEvent event = JfrEvents.isRecording() ? PluginLoadingEvent.start() : null;
     infosByKeys = new HashMap<>(pluginInfosLoader.load());
     Map<String, PluginInfo> nonSkippedPlugins = infosByKeys.entrySet().stream().filter(e -> !e.getValue().isSkipped())
       .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     pluginInstancesByKeys = new HashMap<>(pluginInstancesLoader.load(nonSkippedPlugins));
+    Metrics.timer(MetricNames.PLUGINS_LOAD).recordSince(startNanos);
+    Metrics.counter(MetricNames.PLUGINS_LOADED).add(pluginInstancesByKeys.size());
+    if (event != null) {
+      event.commit(pluginInstancesByKeys.size(), infosByKeys.size() - nonSkippedPlugins.size());
+    }
 
     logPlugins(nonSkippedPlugins);
   }
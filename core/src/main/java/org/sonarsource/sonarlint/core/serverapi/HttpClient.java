@@ -21,6 +21,8 @@ package org.sonarsource.sonarlint.core.serverapi;
 
 import java.io.Closeable;
 import java.io.InputStream;
+import java.util.Map;
+import javax.annotation.CheckForNull;
 
 /**
  * The client(IDE) is responsible to provide an HttpClient, configured with authentication, timeouts, proxy support, ...
@@ -41,6 +43,14 @@ public interface HttpClient {
 
     InputStream bodyAsStream();
 
+    /**
+     * Value of the given response header (case insensitive), or null if absent or not supported by the client.
+     */
+    @CheckForNull
+    default String header(String name) {
+      return null;
+    }
+
     /**
      * Only runtime exception
      */
@@ -52,6 +62,14 @@ public interface HttpClient {
 
   Response get(String url);
 
+  /**
+   * GET with additional request headers, used for conditional requests (If-None-Match, If-Modified-Since).
+   * Clients not overriding this method will ignore the headers, and the server will then always send the full response.
+   */
+  default Response get(String url, Map<String, String> headers) {
+    return get(url);
+  }
+
   Response post(String url, String contentType, String body);
 
   Response delete(String url, String contentType, String body);
@@ -0,0 +1,425 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.tracking.DigestUtils;
+
+/**
+ * Remember the validators (ETag, Last-Modified) returned by the server for each GET url, together with the response body,
+ * so that the next request for the same url can be made conditional. When the server answers 304 Not Modified, the stored body
+ * is served instead.
+ * Only the endpoints listed in {@link #CACHEABLE_ENDPOINTS} are cached, and only for clients sending the conditional headers.
+ * Bodies bigger than {@link #MAX_ENTRY_BYTES} are not stored, and the least recently used entries are removed when the cache
+ * exceeds {@link #MAX_CACHE_BYTES}. Entries not used for {@link #MAX_UNUSED_DAYS} days are removed when the cache is created.
+ */
+public class HttpValidatorCache {
+
+  private static final Logger LOG = Loggers.get(HttpValidatorCache.class);
+
+  public static final String ETAG = "ETag";
+  public static final String LAST_MODIFIED = "Last-Modified";
+  public static final String IF_NONE_MATCH = "If-None-Match";
+  public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+  static final long MAX_UNUSED_DAYS = 30;
+  static final long MAX_ENTRY_BYTES = 16L * 1024 * 1024;
+  static final long MAX_CACHE_BYTES = 128L * 1024 * 1024;
+
+  /**
+   * Global data re-downloaded by each storage update. Plugin jars are already cached by hash, and issues are downloaded per file
+   * as well as per project, so they are left out.
+   */
+  static final List<String> CACHEABLE_ENDPOINTS = Arrays.asList(
+    "api/rules/search.protobuf",
+    "api/qualityprofiles/search.protobuf",
+    "api/settings/values.protobuf",
+    "api/components/search.protobuf",
+    "api/plugins/installed");
+
+  private static final ClassValue<Boolean> SENDS_HEADERS = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        return type.getMethod("get", String.class, Map.class).getDeclaringClass() != HttpClient.class;
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private static final String META_SUFFIX = ".properties";
+  private static final String BODY_SUFFIX = ".body";
+  private static final String URL_KEY = "url";
+
+  private final Path cacheDir;
+  private final long maxEntryBytes;
+  private final long maxCacheBytes;
+
+  public HttpValidatorCache(Path cacheDir) {
+    this(cacheDir, MAX_ENTRY_BYTES, MAX_CACHE_BYTES);
+  }
+
+  HttpValidatorCache(Path cacheDir, long maxEntryBytes, long maxCacheBytes) {
+    this.cacheDir = cacheDir;
+    this.maxEntryBytes = maxEntryBytes;
+    this.maxCacheBytes = maxCacheBytes;
+    evictUnused(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS));
+  }
+
+  /**
+   * @param relativePath path of the endpoint, relative to the server url
+   * @return true if the responses of the given endpoint can be cached for the given client
+   */
+  public static boolean isCacheable(HttpClient client, String relativePath) {
+    String path = relativePath.startsWith("/") ? relativePath.substring(1) : relativePath;
+    return CACHEABLE_ENDPOINTS.stream().anyMatch(path::startsWith) && SENDS_HEADERS.get(client.getClass());
+  }
+
+  /**
+   * Execute a GET on the given url, conditional if validators are known for it.
+   */
+  public HttpClient.Response get(HttpClient client, String url) {
+    Entry cached = read(url);
+    if (cached == null) {
+      return storeIfCacheable(url, client.get(url));
+    }
+    HttpClient.Response response = client.get(url, cached.conditionalHeaders());
+    if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      response.close();
+      if (cached.touch()) {
+        LOG.debug("Not modified, reusing cached response for {}", url);
+        Metrics.counter(MetricNames.HTTP_NOT_MODIFIED).increment();
+        return cached.toResponse();
+      }
+      // Body was evicted concurrently, fallback to an unconditional request
+      return storeIfCacheable(url, client.get(url));
+    }
+    return storeIfCacheable(url, response);
+  }
+
+  private HttpClient.Response storeIfCacheable(String url, HttpClient.Response response) {
+    if (!response.isSuccessful()) {
+      return response;
+    }
+    String etag = response.header(ETAG);
+    String lastModified = response.header(LAST_MODIFIED);
+    String key = key(url);
+    if (etag == null && lastModified == null) {
+      delete(key);
+      return response;
+    }
+    try {
+      return write(key, url, etag, lastModified, response);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to store response of " + url, e);
+    }
+  }
+
+  @CheckForNull
+  private Entry read(String url) {
+    String key = key(url);
+    Path metaFile = cacheDir.resolve(key + META_SUFFIX);
+    if (!Files.exists(metaFile)) {
+      return null;
+    }
+    Properties props = new Properties();
+    try (InputStream is = Files.newInputStream(metaFile)) {
+      props.load(is);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOG.debug("Unable to read cached validators for {}", url, e);
+      return null;
+    }
+    if (!url.equals(props.getProperty(URL_KEY))) {
+      return null;
+    }
+    return new Entry(url, cacheDir.resolve(key + BODY_SUFFIX), props.getProperty(ETAG), props.getProperty(LAST_MODIFIED));
+  }
+
+  private HttpClient.Response write(String key, String url, @Nullable String etag, @Nullable String lastModified, HttpClient.Response response)
+    throws IOException {
+    FileUtils.mkdirs(cacheDir);
+    Path bodyFile = cacheDir.resolve(key + BODY_SUFFIX);
+    Path tmpBody = Files.createTempFile(cacheDir, key, BODY_SUFFIX);
+    try {
+      try (HttpClient.Response toBeClosed = response; InputStream body = toBeClosed.bodyAsStream()) {
+        Files.copy(body, tmpBody, StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (Files.size(tmpBody) > maxEntryBytes) {
+        delete(key);
+        // the body has already been consumed, serve it from the temporary file
+        CachedResponse uncached = new CachedResponse(url, tmpBody, etag, lastModified, true);
+        tmpBody = null;
+        return uncached;
+      }
+      move(tmpBody, bodyFile);
+    } finally {
+      if (tmpBody != null) {
+        Files.deleteIfExists(tmpBody);
+      }
+    }
+
+    Properties props = new Properties();
+    props.setProperty(URL_KEY, url);
+    if (etag != null) {
+      props.setProperty(ETAG, etag);
+    }
+    if (lastModified != null) {
+      props.setProperty(LAST_MODIFIED, lastModified);
+    }
+    Path tmpMeta = Files.createTempFile(cacheDir, key, META_SUFFIX);
+    try {
+      try (OutputStream os = Files.newOutputStream(tmpMeta)) {
+        props.store(os, null);
+      }
+      move(tmpMeta, cacheDir.resolve(key + META_SUFFIX));
+    } finally {
+      Files.deleteIfExists(tmpMeta);
+    }
+    evictLeastRecentlyUsed(key);
+    return new Entry(url, bodyFile, etag, lastModified).toResponse();
+  }
+
+  private static void move(Path src, Path dest) throws IOException {
+    try {
+      Files.move(src, dest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(src, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private void delete(String key) {
+    try {
+      Files.deleteIfExists(cacheDir.resolve(key + META_SUFFIX));
+      Files.deleteIfExists(cacheDir.resolve(key + BODY_SUFFIX));
+    } catch (IOException e) {
+      LOG.debug("Unable to delete cached response {}", key, e);
+    }
+  }
+
+  private void evictUnused(long unusedSinceMs) {
+    if (!Files.isDirectory(cacheDir)) {
+      return;
+    }
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      files.filter(f -> f.getFileName().toString().endsWith(BODY_SUFFIX))
+        .filter(f -> lastModifiedMs(f) < unusedSinceMs)
+        .forEach(f -> {
+          String fileName = f.getFileName().toString();
+          delete(fileName.substring(0, fileName.length() - BODY_SUFFIX.length()));
+        });
+    } catch (IOException e) {
+      LOG.debug("Unable to clean HTTP cache {}", cacheDir, e);
+    }
+  }
+
+  private void evictLeastRecentlyUsed(String keptKey) {
+    List<Path> bodies;
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      bodies = files.filter(f -> f.getFileName().toString().endsWith(BODY_SUFFIX))
+        .sorted(Comparator.comparingLong(HttpValidatorCache::lastModifiedMs))
+        .collect(Collectors.toList());
+    } catch (IOException e) {
+      LOG.debug("Unable to clean HTTP cache {}", cacheDir, e);
+      return;
+    }
+    long totalBytes = bodies.stream().mapToLong(HttpValidatorCache::size).sum();
+    for (Path body : bodies) {
+      if (totalBytes <= maxCacheBytes) {
+        return;
+      }
+      String fileName = body.getFileName().toString();
+      String key = fileName.substring(0, fileName.length() - BODY_SUFFIX.length());
+      if (!key.equals(keptKey)) {
+        totalBytes -= size(body);
+        delete(key);
+      }
+    }
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return 0L;
+    }
+  }
+
+  private static long lastModifiedMs(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  static String key(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return DigestUtils.encodeHexString(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Entry {
+    private final String url;
+    private final Path bodyFile;
+    @Nullable
+    private final String etag;
+    @Nullable
+    private final String lastModified;
+
+    private Entry(String url, Path bodyFile, @Nullable String etag, @Nullable String lastModified) {
+      this.url = url;
+      this.bodyFile = bodyFile;
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+
+    private Map<String, String> conditionalHeaders() {
+      Map<String, String> headers = new HashMap<>();
+      if (etag != null) {
+        headers.put(IF_NONE_MATCH, etag);
+      }
+      if (lastModified != null) {
+        headers.put(IF_MODIFIED_SINCE, lastModified);
+      }
+      return headers;
+    }
+
+    /**
+     * Mark the entry as recently used, so that it is not evicted
+     * @return false if the body is not available anymore
+     */
+    private boolean touch() {
+      try {
+        Files.setLastModifiedTime(bodyFile, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+
+    private HttpClient.Response toResponse() {
+      return new CachedResponse(url, bodyFile, etag, lastModified, false);
+    }
+  }
+
+  private static class CachedResponse implements HttpClient.Response {
+    private final String url;
+    private final Path bodyFile;
+    private final boolean deleteOnClose;
+    private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private InputStream openedStream;
+
+    private CachedResponse(String url, Path bodyFile, @Nullable String etag, @Nullable String lastModified, boolean deleteOnClose) {
+      this.url = url;
+      this.bodyFile = bodyFile;
+      this.deleteOnClose = deleteOnClose;
+      if (etag != null) {
+        headers.put(ETAG, etag);
+      }
+      if (lastModified != null) {
+        headers.put(LAST_MODIFIED, lastModified);
+      }
+    }
+
+    @Override
+    public int code() {
+      return HttpURLConnection.HTTP_OK;
+    }
+
+    @Override
+    public String bodyAsString() {
+      try {
+        return new String(Files.readAllBytes(bodyFile), StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read cached response of " + url, e);
+      }
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      try {
+        openedStream = Files.newInputStream(bodyFile);
+        return openedStream;
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to read cached response of " + url, e);
+      }
+    }
+
+    @CheckForNull
+    @Override
+    public String header(String name) {
+      return headers.get(name);
+    }
+
+    @Override
+    public void close() {
+      try {
+        if (openedStream != null) {
+          openedStream.close();
+        }
+        if (deleteOnClose) {
+          Files.deleteIfExists(bodyFile);
+        }
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+
+    @Override
+    public String url() {
+      return url;
+    }
+  }
+}
@@ -41,7 +41,11 @@ import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarqube.ws.Common.Paging;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.container.connected.exceptions.NotFoundException;
+import org.sonarsource.sonarlint.core.jfr.HttpRequestEvent;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
 
@@ -59,10 +63,17 @@ public class ServerApiHelper {
 
   private final HttpClient client;
   private final EndpointParams endpointParams;
+  @Nullable
+  private final HttpValidatorCache validatorCache;
 
   public ServerApiHelper(EndpointParams endpointParams, HttpClient client) {
+    this(endpointParams, client, null);
+  }
+
+  public ServerApiHelper(EndpointParams endpointParams, HttpClient client, @Nullable HttpValidatorCache validatorCache) {
     this.endpointParams = endpointParams;
     this.client = client;
+    this.validatorCache = validatorCache;
   }
 
   public HttpClient.Response get(String path) {
@@ -78,9 +89,28 @@ public class ServerApiHelper {
    */
   public HttpClient.Response rawGet(String relativePath) {
     long startTime = System2.INSTANCE.now();
+    long startNanos = System.nanoTime();
     String url = buildEndpointUrl(relativePath);
+    HttpRequestEvent event = JfrEvents.isRecording() ? HttpRequestEvent.start("GET", relativePath) : null;
 
-    HttpClient.Response response = client.get(url);
+    HttpClient.Response response;
+    try {
+      response = doGet(relativePath, url);
+    } catch (RuntimeException e) {
+      Metrics.counter(MetricNames.HTTP_ERRORS).increment();
+      if (event != null) {
+        event.commit(0, -1);
+      }
+      throw e;
+    } finally {
+      Metrics.timer(MetricNames.HTTP_REQUESTS).recordSince(startNanos);
+    }
+    if (!response.isSuccessful()) {
+      Metrics.counter(MetricNames.HTTP_ERRORS).increment();
+    }
+    if (event != null) {
+      event.commit(response.code(), contentLength(response));
+    }
     long duration = System2.INSTANCE.now() - startTime;
     if (LOG.isDebugEnabled()) {
       LOG.debug("{} {} {} | response time={}ms", "GET", response.code(), url, duration);
@@ -88,6 +118,22 @@ public class ServerApiHelper {
     return response;
   }
 
+  private static long contentLength(HttpClient.Response response) {
+    String contentLength = response.header("Content-Length");
+    if (contentLength != null) {
+      try {
+        return Long.parseLong(contentLength.trim());
+      } catch (NumberFormatException e) {
+        // unknown
+      }
+    }
+    return -1;
+  }
+
+  private HttpClient.Response doGet(String relativePath, String url) {
+    return validatorCache != null && HttpValidatorCache.isCacheable(client, relativePath) ? validatorCache.get(client, url) : client.get(url);
+  }
+
   private String buildEndpointUrl(String relativePath) {
     StringBuilder fullUrl = new StringBuilder();
     String endpointUrl = endpointParams.getBaseUrl();
@@ -150,7 +196,7 @@ public class ServerApiHelper {
       fullUrl.append(relativeUrlWithoutPaginationParams.contains("?") ? "&" : "?");
       fullUrl.append("ps=" + PAGE_SIZE + "&p=" + page);
       ServerApiHelper.consumeTimed(
-        () -> client.get(fullUrl.toString()),
+        () -> doGet(relativeUrlWithoutPaginationParams, fullUrl.toString()),
         response -> processPage(relativeUrlWithoutPaginationParams, responseParser, getPaging, itemExtractor, itemConsumer, limitToTwentyPages, progress, page, stop, loaded,
           response),
         duration -> LOG.debug("Page downloaded in {}ms", duration));
@@ -28,7 +28,7 @@ import static java.util.stream.Collectors.joining;
 public class ServerApiUtils {
 
   public static String extractCodeSnippet(String sourceCode, TextRange textRange) {
-    return extractCodeSnippet(sourceCode.split("\\r?\\n"), textRange);
+    return new SourceLines(sourceCode).extractSnippet(textRange);
   }
 
   public static String extractCodeSnippet(String[] sourceCodeLines, TextRange textRange) {
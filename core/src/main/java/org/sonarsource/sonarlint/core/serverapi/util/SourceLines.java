@@ -0,0 +1,91 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi.util;
+
+import java.util.Arrays;
+import org.sonarqube.ws.Common.TextRange;
+
+/**
+ * Source code split once into line boundaries, so that many snippets can be extracted from the same file without re-splitting it.
+ * Lines are separated like with {@code split("\\r?\\n")}, including the removal of trailing empty lines.
+ */
+public class SourceLines {
+
+  private final String source;
+  private int[] lineStarts = new int[64];
+  private int[] lineEnds = new int[64];
+  private int lineCount;
+
+  public SourceLines(String source) {
+    this.source = source;
+    int start = 0;
+    for (int i = 0; i < source.length(); i++) {
+      if (source.charAt(i) == '\n') {
+        int end = (i > start && source.charAt(i - 1) == '\r') ? (i - 1) : i;
+        addLine(start, end);
+        start = i + 1;
+      }
+    }
+    addLine(start, source.length());
+    while (lineCount > 1 && lineStarts[lineCount - 1] == lineEnds[lineCount - 1]) {
+      lineCount--;
+    }
+  }
+
+  private void addLine(int start, int end) {
+    if (lineCount == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+      lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+    }
+    lineStarts[lineCount] = start;
+    lineEnds[lineCount] = end;
+    lineCount++;
+  }
+
+  public int lineCount() {
+    return lineCount;
+  }
+
+  /**
+   * @param line 1-based line number
+   */
+  public String line(int line) {
+    if (line < 1 || line > lineCount) {
+      throw new IndexOutOfBoundsException("Line " + line + " is out of range [1, " + lineCount + "]");
+    }
+    return source.substring(lineStarts[line - 1], lineEnds[line - 1]);
+  }
+
+  public String extractSnippet(TextRange textRange) {
+    if (textRange.getStartLine() == textRange.getEndLine()) {
+      return line(textRange.getStartLine()).substring(textRange.getStartOffset(), textRange.getEndOffset());
+    }
+    if (textRange.getEndLine() < textRange.getStartLine()) {
+      throw new IllegalArgumentException("Invalid text range: " + textRange);
+    }
+    StringBuilder snippet = new StringBuilder();
+    snippet.append(line(textRange.getStartLine()).substring(textRange.getStartOffset()));
+    for (int l = textRange.getStartLine() + 1; l < textRange.getEndLine(); l++) {
+      snippet.append('\n').append(line(l));
+    }
+    snippet.append('\n').append(line(textRange.getEndLine()), 0, textRange.getEndOffset());
+    return snippet.toString();
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
+
+/**
+ * Lock-free in-memory accumulation of telemetry events, periodically merged into {@link TelemetryLocalStorage}.
+ * Only deltas since the previous merge are applied, so that processes sharing the same storage file never overwrite each other's data.
+ */
+class TelemetryAggregator {
+
+  private final NavigableSet<LocalDate> useDays = new ConcurrentSkipListSet<>();
+  private final Map<String, AnalyzerCounters> analyzers = new ConcurrentHashMap<>();
+  private final Map<String, NotificationCounters> notifications = new ConcurrentHashMap<>();
+  private final AtomicLong showHotspotRequests = new AtomicLong();
+  private final AtomicLong taintVulnerabilitiesInvestigatedLocally = new AtomicLong();
+  private final AtomicLong taintVulnerabilitiesInvestigatedRemotely = new AtomicLong();
+
+  private static class AnalyzerCounters {
+    private final Map<String, AtomicLong> frequencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> phaseTimesMs = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> analysisTimesHistogram = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, AtomicLong>> phaseTimesHistograms = new ConcurrentHashMap<>();
+  }
+
+  private static class NotificationCounters {
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong clicked = new AtomicLong();
+  }
+
+  void usedAnalysis() {
+    markUsedToday();
+  }
+
+  void usedAnalysis(String language, int analysisTimeMs) {
+    markUsedToday();
+    AnalyzerCounters counters = analyzer(language);
+    String interval = TelemetryAnalyzerPerformance.intervalOf(analysisTimeMs);
+    if (interval != null) {
+      increment(counters.frequencies, interval, 1);
+    }
+    increment(counters.analysisTimesHistogram, TelemetryLatencyHistogram.indexOf(analysisTimeMs), 1);
+  }
+
+  void usedAnalysis(String language, int analysisTimeMs, AnalysisTimings timings) {
+    usedAnalysis(language, analysisTimeMs);
+    AnalyzerCounters counters = analyzer(language);
+    TelemetryAnalyzerPerformance.phaseTimesMs(timings).forEach((phase, ms) -> {
+      increment(counters.phaseTimesMs, phase, ms);
+      increment(counters.phaseTimesHistograms.computeIfAbsent(phase, k -> new ConcurrentHashMap<>()), TelemetryLatencyHistogram.indexOf(ms), 1);
+    });
+  }
+
+  void devNotificationsReceived(String eventType) {
+    notification(eventType).received.incrementAndGet();
+  }
+
+  void devNotificationsClicked(String eventType) {
+    markUsedToday();
+    notification(eventType).clicked.incrementAndGet();
+  }
+
+  void showHotspotRequestReceived() {
+    markUsedToday();
+    showHotspotRequests.incrementAndGet();
+  }
+
+  void taintVulnerabilitiesInvestigatedLocally() {
+    markUsedToday();
+    taintVulnerabilitiesInvestigatedLocally.incrementAndGet();
+  }
+
+  void taintVulnerabilitiesInvestigatedRemotely() {
+    markUsedToday();
+    taintVulnerabilitiesInvestigatedRemotely.incrementAndGet();
+  }
+
+  /**
+   * Add everything accumulated since the previous merge to the given data. The in-memory counters are left untouched: the returned action
+   * removes the merged events from them, and is to be run only once the data has been persisted, so that nothing is lost if the write fails.
+   * Events recorded concurrently are either part of this merge or of the next one.
+   */
+  Runnable mergeInto(TelemetryLocalStorage data) {
+    List<Runnable> commits = new ArrayList<>();
+    for (LocalDate day : useDays) {
+      data.markSonarLintAsUsed(day);
+      commits.add(() -> useDays.remove(day));
+    }
+    analyzers.forEach((language, counters) -> {
+      counters.frequencies.forEach((interval, count) -> {
+        long delta = take(count, commits);
+        if (delta > 0) {
+          data.analyzers().computeIfAbsent(language, k -> new TelemetryAnalyzerPerformance()).registerAnalyses(interval, (int) delta);
+        }
+      });
+      counters.phaseTimesMs.forEach((phase, time) -> {
+        long delta = take(time, commits);
+        if (delta > 0) {
+          data.analyzers().computeIfAbsent(language, k -> new TelemetryAnalyzerPerformance()).registerPhaseTime(phase, delta);
+        }
+      });
+      counters.analysisTimesHistogram.forEach((bucket, count) -> {
+        long delta = take(count, commits);
+        if (delta > 0) {
+          data.analyzers().computeIfAbsent(language, k -> new TelemetryAnalyzerPerformance()).analysisTimesHistogram().add(bucket, delta);
+        }
+      });
+      counters.phaseTimesHistograms.forEach((phase, buckets) -> buckets.forEach((bucket, count) -> {
+        long delta = take(count, commits);
+        if (delta > 0) {
+          data.analyzers().computeIfAbsent(language, k -> new TelemetryAnalyzerPerformance()).phaseTimesHistogram(phase).add(bucket, delta);
+        }
+      }));
+    });
+    notifications.forEach((eventType, counters) -> {
+      long received = take(counters.received, commits);
+      long clicked = take(counters.clicked, commits);
+      if (received > 0 || clicked > 0) {
+        data.notifications().computeIfAbsent(eventType, k -> new TelemetryNotificationsCounter()).add((int) received, (int) clicked);
+      }
+    });
+    data.addShowHotspotRequestsCount((int) take(showHotspotRequests, commits));
+    data.addTaintVulnerabilitiesInvestigatedLocallyCount((int) take(taintVulnerabilitiesInvestigatedLocally, commits));
+    data.addTaintVulnerabilitiesInvestigatedRemotelyCount((int) take(taintVulnerabilitiesInvestigatedRemotely, commits));
+    return () -> commits.forEach(Runnable::run);
+  }
+
+  /**
+   * Only the merged value is subtracted on commit, so that the increments made meanwhile are kept for the next merge.
+   */
+  private static long take(AtomicLong counter, List<Runnable> commits) {
+    long delta = counter.get();
+    if (delta != 0) {
+      commits.add(() -> counter.addAndGet(-delta));
+    }
+    return delta;
+  }
+
+  private void markUsedToday() {
+    useDays.add(LocalDate.now());
+  }
+
+  private AnalyzerCounters analyzer(String language) {
+    return analyzers.computeIfAbsent(language, k -> new AnalyzerCounters());
+  }
+
+  private NotificationCounters notification(String eventType) {
+    return notifications.computeIfAbsent(eventType, k -> new NotificationCounters());
+  }
+
+  private static <K> void increment(Map<K, AtomicLong> counters, K key, long delta) {
+    counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Latency percentiles of the analyses of a language, and of each of their phases.
+ * @see TelemetryManager#analyzerLatencies()
+ */
+public class TelemetryAnalyzerLatencies {
+  private final TelemetryLatencyPercentiles analysis;
+  private final Map<String, TelemetryLatencyPercentiles> phases;
+
+  TelemetryAnalyzerLatencies(TelemetryLatencyPercentiles analysis, Map<String, TelemetryLatencyPercentiles> phases) {
+    this.analysis = analysis;
+    this.phases = Collections.unmodifiableMap(phases);
+  }
+
+  public TelemetryLatencyPercentiles analysis() {
+    return analysis;
+  }
+
+  /**
+   * Keys are the phase names, as in {@link TelemetryAnalyzerPerformance#phaseTimesMs()}
+   */
+  public Map<String, TelemetryLatencyPercentiles> phases() {
+    return phases;
+  }
+}
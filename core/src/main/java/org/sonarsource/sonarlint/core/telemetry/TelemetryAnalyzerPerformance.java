@@ -23,6 +23,8 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
 
 public class TelemetryAnalyzerPerformance {
   private static final TreeMap<Integer, String> INTERVALS;
@@ -39,18 +41,116 @@ public class TelemetryAnalyzerPerformance {
   }
 
   private Map<String, Integer> frequencies;
+  private Map<String, Long> phaseTimesMs;
+  private TelemetryLatencyHistogram analysisTimesHistogram;
+  private Map<String, TelemetryLatencyHistogram> phaseTimesHistograms;
 
   public TelemetryAnalyzerPerformance() {
     frequencies = new LinkedHashMap<>();
     INTERVALS.forEach((k, v) -> frequencies.put(v, 0));
+    phaseTimesMs = new LinkedHashMap<>();
+    analysisTimesHistogram = new TelemetryLatencyHistogram();
+    phaseTimesHistograms = new LinkedHashMap<>();
   }
 
   public void registerAnalysis(int analysisTimeMs) {
+    String interval = intervalOf(analysisTimeMs);
+    if (interval != null) {
+      registerAnalyses(interval, 1);
+    }
+    analysisTimesHistogram().record(analysisTimeMs);
+  }
+
+  /**
+   * Register a number of analyses whose duration falls in the given interval, as returned by {@link #intervalOf(int)}
+   */
+  void registerAnalyses(String interval, int count) {
+    frequencies.merge(interval, count, Integer::sum);
+    analysisCount += count;
+  }
+
+  @CheckForNull
+  static String intervalOf(int analysisTimeMs) {
     Entry<Integer, String> entry = INTERVALS.higherEntry(analysisTimeMs);
-    if (entry != null) {
-      frequencies.compute(entry.getValue(), (k, v) -> v != null ? (v + 1) : 1);
-      analysisCount++;
+    return entry != null ? entry.getValue() : null;
+  }
+
+  /**
+   * Cumulate the time spent in each phase of the analysis, to be able to find out where analysis time goes on average
+   */
+  public void registerPhases(AnalysisTimings timings) {
+    phaseTimesMs(timings).forEach((phase, timeMs) -> {
+      registerPhaseTime(phase, timeMs);
+      phaseTimesHistogram(phase).record(timeMs);
+    });
+  }
+
+  void registerPhaseTime(String phase, long timeMs) {
+    if (phaseTimesMs == null) {
+      // data stored by an older version
+      phaseTimesMs = new LinkedHashMap<>();
+    }
+    phaseTimesMs.merge(phase, timeMs, Long::sum);
+  }
+
+  static Map<String, Long> phaseTimesMs(AnalysisTimings timings) {
+    Map<String, Long> times = new LinkedHashMap<>();
+    times.put("containerStart", timings.containerStartMs());
+    times.put("fileIndexing", timings.fileIndexingMs());
+    times.put("fileMetadata", timings.fileMetadataMs());
+    times.put("issueFiltering", timings.issueFilteringMs());
+    times.put("issueDelivery", timings.issueDeliveryMs());
+    timings.sensors().forEach((name, sensorTimings) -> times.merge("sensor:" + name, sensorTimings.executeMs(), Long::sum));
+    return times;
+  }
+
+  public Map<String, Long> phaseTimesMs() {
+    return phaseTimesMs != null ? phaseTimesMs : new LinkedHashMap<>();
+  }
+
+  public TelemetryLatencyHistogram analysisTimesHistogram() {
+    if (analysisTimesHistogram == null) {
+      analysisTimesHistogram = new TelemetryLatencyHistogram();
+    }
+    return analysisTimesHistogram;
+  }
+
+  public Map<String, TelemetryLatencyHistogram> phaseTimesHistograms() {
+    if (phaseTimesHistograms == null) {
+      phaseTimesHistograms = new LinkedHashMap<>();
+    }
+    return phaseTimesHistograms;
+  }
+
+  TelemetryLatencyHistogram phaseTimesHistogram(String phase) {
+    return phaseTimesHistograms().computeIfAbsent(phase, k -> new TelemetryLatencyHistogram());
+  }
+
+  TelemetryAnalyzerLatencies latencies() {
+    Map<String, TelemetryLatencyPercentiles> phases = new LinkedHashMap<>();
+    phaseTimesHistograms().forEach((phase, histogram) -> phases.put(phase, new TelemetryLatencyPercentiles(histogram)));
+    return new TelemetryAnalyzerLatencies(new TelemetryLatencyPercentiles(analysisTimesHistogram()), phases);
+  }
+
+  /**
+   * Data stored by an older version only has the interval frequencies: each interval is converted to a histogram bucket around its middle,
+   * so that percentiles remain consistent with the analysis count until the next upload clears them.
+   */
+  void migrate() {
+    TelemetryLatencyHistogram histogram = analysisTimesHistogram();
+    if (histogram.totalCount() == 0 && analysisCount > 0) {
+      int lowerBound = 0;
+      for (Entry<Integer, String> interval : INTERVALS.entrySet()) {
+        int upperBound = interval.getKey();
+        int representativeValue = upperBound == Integer.MAX_VALUE ? lowerBound : (lowerBound + (upperBound - lowerBound) / 2);
+        Integer count = frequencies.get(interval.getValue());
+        if (count != null && count > 0) {
+          histogram.add(TelemetryLatencyHistogram.indexOf(representativeValue), count);
+        }
+        lowerBound = upperBound;
+      }
     }
+    phaseTimesHistograms();
   }
 
   public Map<String, Integer> frequencies() {
@@ -0,0 +1,106 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Log-linear latency histogram, in the spirit of HdrHistogram: values below {@link #SUB_BUCKETS} are counted exactly, and above that each
+ * power of two is split into {@link #SUB_BUCKETS} linear buckets, which bounds the relative error of reported percentiles to 1/{@value #SUB_BUCKETS}.
+ * Only non-empty buckets are stored, and histograms recorded separately (e.g. by different processes) can be merged by adding their counts.
+ */
+public class TelemetryLatencyHistogram {
+  static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private final TreeMap<Integer, Long> counts = new TreeMap<>();
+  private long totalCount;
+
+  public void record(long valueMs) {
+    add(indexOf(valueMs), 1);
+  }
+
+  /**
+   * Add a number of values to the bucket at the given index, as returned by {@link #indexOf(long)}
+   */
+  void add(int bucketIndex, long count) {
+    counts.merge(bucketIndex, count, Long::sum);
+    totalCount += count;
+  }
+
+  public void merge(TelemetryLatencyHistogram other) {
+    other.counts.forEach(this::add);
+  }
+
+  public long totalCount() {
+    return totalCount;
+  }
+
+  Map<Integer, Long> counts() {
+    return counts;
+  }
+
+  /**
+   * @param percentile between 0 and 100
+   * @return the highest value equivalent to the recorded value at the given percentile, or 0 if the histogram is empty
+   */
+  public long valueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+    long seen = 0;
+    for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+      seen += bucket.getValue();
+      if (seen >= rank) {
+        return highestEquivalentValue(bucket.getKey());
+      }
+    }
+    return highestEquivalentValue(counts.lastKey());
+  }
+
+  static int indexOf(long valueMs) {
+    long value = Math.max(0, valueMs);
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> magnitude) - SUB_BUCKETS;
+    return SUB_BUCKETS + magnitude * SUB_BUCKETS + subBucket;
+  }
+
+  static long lowestEquivalentValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int magnitude = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + subBucket) << magnitude;
+  }
+
+  static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int magnitude = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    return lowestEquivalentValue(index) + (1L << magnitude) - 1;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+/**
+ * Summary of a {@link TelemetryLatencyHistogram}, in milliseconds.
+ */
+public class TelemetryLatencyPercentiles {
+  private final long count;
+  private final long p50;
+  private final long p90;
+  private final long p99;
+
+  TelemetryLatencyPercentiles(TelemetryLatencyHistogram histogram) {
+    this.count = histogram.totalCount();
+    this.p50 = histogram.valueAtPercentile(50);
+    this.p90 = histogram.valueAtPercentile(90);
+    this.p99 = histogram.valueAtPercentile(99);
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public long p50() {
+    return p50;
+  }
+
+  public long p90() {
+    return p90;
+  }
+
+  public long p99() {
+    return p99;
+  }
+}
@@ -27,6 +27,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 
@@ -140,6 +141,17 @@ class TelemetryLocalStorage {
     lastUseDate = now;
   }
 
+  /**
+   * Register a use on a day that may be earlier than the last use date already stored, e.g. by another process.
+   * Such a day can't be told apart from the days already counted, so only days after the last use date are counted.
+   */
+  void markSonarLintAsUsed(LocalDate day) {
+    if (lastUseDate == null || lastUseDate.isBefore(day)) {
+      numUseDays++;
+      lastUseDate = day;
+    }
+  }
+
   /**
    * Register the analysis of a single file, with information regarding language and duration of the analysis.
    */
@@ -150,6 +162,14 @@ class TelemetryLocalStorage {
     analyzer.registerAnalysis(analysisTimeMs);
   }
 
+  /**
+   * Register the analysis of a single file, with the detailed timings collected by the engine.
+   */
+  void setUsedAnalysis(String language, int analysisTimeMs, AnalysisTimings timings) {
+    setUsedAnalysis(language, analysisTimeMs);
+    analyzers.get(language).registerPhases(timings);
+  }
+
   static boolean isOlder(@Nullable LocalDate first, @Nullable LocalDate second) {
     return first == null || (second != null && first.isBefore(second));
   }
@@ -171,6 +191,9 @@ class TelemetryLocalStorage {
       data.setInstallTime(OffsetDateTime.now());
     }
 
+    // add latency histograms to data stored by an older version
+    data.analyzers.values().forEach(TelemetryAnalyzerPerformance::migrate);
+
     // calculate use days
     LocalDate lastUseDate = data.lastUseDate();
     if (lastUseDate == null) {
@@ -208,6 +231,10 @@ class TelemetryLocalStorage {
     showHotspotRequestsCount++;
   }
 
+  void addShowHotspotRequestsCount(int count) {
+    showHotspotRequestsCount += count;
+  }
+
   public int showHotspotRequestsCount() {
     return showHotspotRequestsCount;
   }
@@ -217,6 +244,10 @@ class TelemetryLocalStorage {
     taintVulnerabilitiesInvestigatedLocallyCount++;
   }
 
+  void addTaintVulnerabilitiesInvestigatedLocallyCount(int count) {
+    taintVulnerabilitiesInvestigatedLocallyCount += count;
+  }
+
   public int taintVulnerabilitiesInvestigatedLocallyCount() {
     return taintVulnerabilitiesInvestigatedLocallyCount;
   }
@@ -226,6 +257,10 @@ class TelemetryLocalStorage {
     taintVulnerabilitiesInvestigatedRemotelyCount++;
   }
 
+  void addTaintVulnerabilitiesInvestigatedRemotelyCount(int count) {
+    taintVulnerabilitiesInvestigatedRemotelyCount += count;
+  }
+
   public int taintVulnerabilitiesInvestigatedRemotelyCount() {
     return taintVulnerabilitiesInvestigatedRemotelyCount;
   }
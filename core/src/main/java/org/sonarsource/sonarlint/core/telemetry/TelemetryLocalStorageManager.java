@@ -47,14 +47,19 @@ class TelemetryLocalStorageManager {
     this.path = path;
   }
 
-  void tryUpdateAtomically(Consumer<TelemetryLocalStorage> updater) {
+  /**
+   * @return true if the updated data has been written
+   */
+  boolean tryUpdateAtomically(Consumer<TelemetryLocalStorage> updater) {
     try {
       updateAtomically(updater);
+      return true;
     } catch (Exception e) {
       if (SonarLintUtils.isInternalDebugEnabled()) {
         LOG.error("Error updating telemetry data", e);
         throw new IllegalStateException(e);
       }
+      return false;
     }
   }
 
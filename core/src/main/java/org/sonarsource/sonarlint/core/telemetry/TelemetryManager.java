@@ -19,23 +19,39 @@
  */
 package org.sonarsource.sonarlint.core.telemetry;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
 
 import static org.sonarsource.sonarlint.core.telemetry.TelemetryUtils.dayChanged;
 
 /**
  * Manage telemetry data and persistent storage, and stateful telemetry actions.
  * The single central point for clients to manage telemetry.
+ * Usage events are accumulated in memory, and merged into the persistent storage periodically, before uploading, and on {@link #stop()}.
  */
 public class TelemetryManager {
 
   static final int MIN_HOURS_BETWEEN_UPLOAD = 5;
+  static final int FLUSH_PERIOD_SECONDS = 60;
 
   private final TelemetryLocalStorageManager storage;
   private final TelemetryHttpClient client;
   private final TelemetryClientAttributesProvider attributesProvider;
+  private final TelemetryAggregator aggregator = new TelemetryAggregator();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private volatile boolean stopped;
+  private ScheduledExecutorService flushExecutor;
 
   public TelemetryManager(Path path, TelemetryHttpClient client, TelemetryClientAttributesProvider attributesProvider) {
     this.storage = newTelemetryStorage(path);
@@ -73,12 +89,13 @@ public class TelemetryManager {
    * To be called periodically once a day.
    */
   public void uploadLazily() {
+    flush();
     TelemetryLocalStorage readData = storage.tryRead();
     if (!dayChanged(readData.lastUploadTime(), MIN_HOURS_BETWEEN_UPLOAD)) {
       return;
     }
 
-    storage.tryUpdateAtomically(data -> {
+    mergeAndUpdate(data -> {
       client.upload(data, attributesProvider);
       data.setLastUploadTime();
       data.clearAfterPing();
@@ -86,43 +103,107 @@ public class TelemetryManager {
   }
 
   public void analysisDoneOnSingleLanguage(@Nullable Language language, int analysisTimeMs) {
-    storage.tryUpdateAtomically(data -> {
-      if (language == null) {
-        data.setUsedAnalysis("others", analysisTimeMs);
-      } else {
-        data.setUsedAnalysis(language.getLanguageKey(), analysisTimeMs);
-      }
-    });
+    record(a -> a.usedAnalysis(language == null ? "others" : language.getLanguageKey(), analysisTimeMs));
+  }
+
+  /**
+   * Same as {@link #analysisDoneOnSingleLanguage(Language, int)}, also cumulating the time spent in each phase of the analysis.
+   * @see org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults#timings()
+   */
+  public void analysisDoneOnSingleLanguage(@Nullable Language language, int analysisTimeMs, AnalysisTimings timings) {
+    record(a -> a.usedAnalysis(language == null ? "others" : language.getLanguageKey(), analysisTimeMs, timings));
   }
 
   public void analysisDoneOnMultipleFiles() {
-    storage.tryUpdateAtomically(TelemetryLocalStorage::setUsedAnalysis);
+    record(TelemetryAggregator::usedAnalysis);
   }
 
   public void devNotificationsReceived(String eventType) {
-    storage.tryUpdateAtomically(s -> s.incrementDevNotificationsCount(eventType));
+    record(a -> a.devNotificationsReceived(eventType));
   }
 
   public void devNotificationsClicked(String eventType) {
-    storage.tryUpdateAtomically(s -> s.incrementDevNotificationsClicked(eventType));
+    record(a -> a.devNotificationsClicked(eventType));
   }
 
   public void showHotspotRequestReceived() {
-    storage.tryUpdateAtomically(TelemetryLocalStorage::incrementShowHotspotRequestCount);
+    record(TelemetryAggregator::showHotspotRequestReceived);
   }
 
   public void taintVulnerabilitiesInvestigatedLocally() {
-    storage.tryUpdateAtomically(TelemetryLocalStorage::incrementTaintVulnerabilitiesInvestigatedLocallyCount);
+    record(TelemetryAggregator::taintVulnerabilitiesInvestigatedLocally);
   }
 
   public void taintVulnerabilitiesInvestigatedRemotely() {
-    storage.tryUpdateAtomically(TelemetryLocalStorage::incrementTaintVulnerabilitiesInvestigatedRemotelyCount);
+    record(TelemetryAggregator::taintVulnerabilitiesInvestigatedRemotely);
+  }
+
+  private void record(Consumer<TelemetryAggregator> event) {
+    event.accept(aggregator);
+    if (stopped) {
+      flush();
+    } else if (flushScheduled.compareAndSet(false, true)) {
+      scheduleFlush();
+    }
+  }
+
+  private synchronized void scheduleFlush() {
+    if (stopped) {
+      return;
+    }
+    flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("sonarlint-telemetry-flush")
+      .setDaemon(true)
+      .build());
+    flushExecutor.scheduleWithFixedDelay(this::flush, FLUSH_PERIOD_SECONDS, FLUSH_PERIOD_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Merge the events accumulated in memory into the persistent storage.
+   */
+  void flush() {
+    mergeAndUpdate(data -> {
+      // only the merged events are written
+    });
+  }
+
+  /**
+   * Merges are serialized, as events are only removed from memory once the data has been written.
+   */
+  private void mergeAndUpdate(Consumer<TelemetryLocalStorage> updater) {
+    synchronized (aggregator) {
+      AtomicReference<Runnable> merged = new AtomicReference<>();
+      boolean written = storage.tryUpdateAtomically(data -> {
+        merged.set(aggregator.mergeInto(data));
+        updater.accept(data);
+      });
+      if (written && merged.get() != null) {
+        merged.get().run();
+      }
+    }
+  }
+
+  /**
+   * Latency percentiles of the analyses recorded since the last upload, by language.
+   */
+  public Map<String, TelemetryAnalyzerLatencies> analyzerLatencies() {
+    flush();
+    Map<String, TelemetryAnalyzerLatencies> latencies = new LinkedHashMap<>();
+    storage.tryRead().analyzers().forEach((language, performance) -> latencies.put(language, performance.latencies()));
+    return latencies;
   }
 
   /**
    * Save and upload lazily telemetry data.
    */
   public void stop() {
+    synchronized (this) {
+      stopped = true;
+      if (flushExecutor != null) {
+        flushExecutor.shutdownNow();
+        flushExecutor = null;
+      }
+    }
     uploadLazily();
   }
 }
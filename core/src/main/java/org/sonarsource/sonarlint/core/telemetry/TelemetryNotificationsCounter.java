@@ -47,4 +47,9 @@ public class TelemetryNotificationsCounter {
     this.devNotificationsClicked++;
   }
 
+  void add(int devNotificationsCount, int devNotificationsClicked) {
+    this.devNotificationsCount += devNotificationsCount;
+    this.devNotificationsClicked += devNotificationsClicked;
+  }
+
 }
@@ -21,6 +21,8 @@ package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import org.sonarsource.sonarlint.core.jfr.IssueTrackingEvent;
+import org.sonarsource.sonarlint.core.jfr.JfrEvents;
 
 /**
  * {@inheritDoc}
@@ -33,6 +35,7 @@ public class IssueTrackerImpl implements IssueTracker {
    */
   @Override
   public Collection<Trackable> apply(Collection<Trackable> baseIssues, Collection<Trackable> nextIssues, boolean inheritSeverity) {
+    IssueTrackingEvent event = JfrEvents.isRecording() ? IssueTrackingEvent.start() : null;
     Collection<Trackable> trackedIssues = new ArrayList<>();
     Tracking<Trackable, Trackable> tracking = new Tracker<>().track(() -> nextIssues, () -> baseIssues);
 
@@ -51,6 +54,9 @@ public class IssueTrackerImpl implements IssueTracker {
       trackedIssues.add(next);
     }
 
+    if (event != null) {
+      event.commit(baseIssues.size(), nextIssues.size(), tracking.getMatchedRaws().size());
+    }
     return trackedIssues;
   }
 }
@@ -26,6 +26,10 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.Counter;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.EngineMetrics;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.metrics.MetricsRegistry;
 
 public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
@@ -35,10 +39,24 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
   private final IssueStore store;
   private final Map<String, Collection<Trackable>> cache;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter persisted;
 
   public PersistentIssueTrackerCache(IssueStore store) {
+    this(store, new MetricsRegistry());
+  }
+
+  /**
+   * @param metrics where to record cache lookups and size, typically the metrics of the engine, see {@link MetricNames}
+   */
+  public PersistentIssueTrackerCache(IssueStore store, EngineMetrics metrics) {
     this.store = store;
     this.cache = new LimitedSizeLinkedHashMap();
+    this.hits = metrics.counter(MetricNames.TRACKER_CACHE_HITS);
+    this.misses = metrics.counter(MetricNames.TRACKER_CACHE_MISSES);
+    this.persisted = metrics.counter(MetricNames.TRACKER_CACHE_PERSISTED);
+    metrics.registerGauge(MetricNames.TRACKER_CACHE_SIZE, this::size);
   }
 
   /**
@@ -63,6 +81,7 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
       } catch (IOException e) {
         throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
       }
+      persisted.increment();
       return true;
     }
   }
@@ -89,8 +108,10 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   public synchronized Collection<Trackable> getCurrentTrackables(String file) {
     Collection<Trackable> liveTrackables = cache.get(file);
     if (liveTrackables != null) {
+      hits.increment();
       return liveTrackables;
     }
+    misses.increment();
 
     try {
       Collection<Trackable> storedTrackables = store.read(file);
@@ -103,6 +124,10 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
     return Collections.emptyList();
   }
 
+  public synchronized int size() {
+    return cache.size();
+  }
+
   @Override
   public synchronized void put(String file, Collection<Trackable> trackables) {
     cache.put(file, trackables);
@@ -20,7 +20,9 @@
 package org.sonarsource.sonarlint.core.tracking;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.sonar.api.utils.log.Logger;
@@ -35,6 +37,7 @@ import org.sonarsource.sonarlint.core.serverapi.HttpClient;
 public class ServerIssueTracker {
 
   private static final Logger LOGGER = Loggers.get(ServerIssueTracker.class);
+  private static final String ERROR_MESSAGE = "error while fetching and matching server issues";
 
   private final CachingIssueTracker issueTracker;
 
@@ -44,7 +47,8 @@ public class ServerIssueTracker {
 
   public void update(EndpointParams endpoint, HttpClient client, ConnectedSonarLintEngine engine, ProjectBinding projectBinding,
     Collection<String> fileKeys, boolean fetchTaintVulnerabilities) {
-    update(fileKeys, fileKey -> fetchServerIssues(endpoint, client, engine, projectBinding, fileKey, fetchTaintVulnerabilities));
+    Map<String, List<ServerIssue>> issuesByFileKey = fetchServerIssues(endpoint, client, engine, projectBinding, fileKeys, fetchTaintVulnerabilities);
+    update(fileKeys, fileKey -> issuesByFileKey.computeIfAbsent(fileKey, k -> engine.getServerIssues(projectBinding, k)));
   }
 
   public void update(ConnectedSonarLintEngine engine, ProjectBinding projectBinding, Collection<String> fileKeys) {
@@ -59,19 +63,21 @@ public class ServerIssueTracker {
         issueTracker.matchAndTrackAsBase(fileKey, serverIssuesTrackable);
       }
     } catch (Exception e) {
-      String message = "error while fetching and matching server issues";
-      LOGGER.error(message, e);
+      LOGGER.error(ERROR_MESSAGE, e);
     }
   }
 
-  private static List<ServerIssue> fetchServerIssues(EndpointParams endpoint, HttpClient client, ConnectedSonarLintEngine engine,
-    ProjectBinding projectBinding, String ideFilePath, boolean fetchTaintVulnerabilities) {
+  private static Map<String, List<ServerIssue>> fetchServerIssues(EndpointParams endpoint, HttpClient client, ConnectedSonarLintEngine engine,
+    ProjectBinding projectBinding, Collection<String> ideFilePaths, boolean fetchTaintVulnerabilities) {
     try {
-      LOGGER.debug("fetchServerIssues projectKey=" + projectBinding.projectKey() + ", ideFilePath=" + ideFilePath);
-      return engine.downloadServerIssues(endpoint, client, projectBinding, ideFilePath, fetchTaintVulnerabilities, null);
+      LOGGER.debug("fetchServerIssues projectKey=" + projectBinding.projectKey() + ", files=" + ideFilePaths.size());
+      return new HashMap<>(engine.downloadServerIssues(endpoint, client, projectBinding, ideFilePaths, fetchTaintVulnerabilities, null));
     } catch (DownloadException e) {
       LOGGER.debug("Failed to download server issues", e);
-      return engine.getServerIssues(projectBinding, ideFilePath);
+    } catch (Exception e) {
+      LOGGER.error(ERROR_MESSAGE, e);
     }
+    // Fallback on issues in the local storage, which still contains the issues of the files that were downloaded
+    return new HashMap<>();
   }
 }
@@ -19,186 +19,276 @@
  */
 package org.sonarsource.sonarlint.core.util;
 
+import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 import javax.annotation.CheckForNull;
-import javax.annotation.Nullable;
 
+/**
+ * Tree of indexed paths, starting from the file name. Path segments are interned to int ids and nodes are stored
+ * in primitive arrays, so that big projects can be indexed without creating one object per node.
+ * Indexing is not thread safe, but once all paths are indexed the tree can be searched concurrently.
+ * On Windows, segments that only differ by case are the same, as for {@link Path}. Prefixes keep the case of the first indexed path.
+ */
 public class ReversePathTree {
-  private final Node root = new MultipleChildrenNode();
+  private static final int ROOT = 0;
+  private static final int NO_NODE = -1;
+  private static final boolean IGNORE_CASE = File.separatorChar == '\\';
+
+  private final boolean ignoreCase;
+  // Ids of the (case folded if case is ignored) segments, and the original segments by id
+  private final Map<String, Integer> segmentIds = new HashMap<>();
+  private final List<String> segments = new ArrayList<>();
+
+  private int nodeCount;
+  private int[] nodeSegment = new int[16];
+  private int[] nodeParent = new int[16];
+  private int[] firstChild = new int[16];
+  private int[] nextSibling = new int[16];
+  private boolean[] terminal = new boolean[16];
+  private final ChildTable children = new ChildTable();
+
+  public ReversePathTree() {
+    this(IGNORE_CASE);
+  }
+
+  ReversePathTree(boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+    newNode(NO_NODE, NO_NODE);
+  }
 
   public void index(Path path) {
-    Node parent = null;
-    Node currentNode = root;
-    Path currentNodePath = null;
+    index(segments(path));
+  }
 
-    for (int i = path.getNameCount() - 1; i >= 0; i--) {
-      Path childNodePath = path.getName(i);
-      Node[] result = currentNode.computeChildrenIfAbsent(parent, currentNodePath, childNodePath);
-      parent = result[0];
-      currentNode = result[1];
-      currentNodePath = childNodePath;
+  public void index(String[] pathSegments) {
+    int currentNode = ROOT;
+    for (int i = pathSegments.length - 1; i >= 0; i--) {
+      int segment = intern(pathSegments[i]);
+      int child = children.get(currentNode, segment);
+      if (child == NO_NODE) {
+        child = newNode(currentNode, segment);
+        children.put(currentNode, segment, child);
+      }
+      currentNode = child;
     }
-
-    currentNode.setTerminal(true);
+    terminal[currentNode] = true;
   }
 
   public Match findLongestSuffixMatches(Path path) {
-    Node currentNode = root;
+    return findLongestSuffixMatches(segments(path));
+  }
+
+  public Match findLongestSuffixMatches(String[] pathSegments) {
+    int currentNode = ROOT;
     int matchLen = 0;
 
-    while (matchLen < path.getNameCount()) {
-      Path nextEl = path.getName(path.getNameCount() - matchLen - 1);
-      Node nextNode = currentNode.getChild(nextEl);
-      if (nextNode == null) {
+    while (matchLen < pathSegments.length) {
+      Integer segment = segmentIds.get(segmentKey(pathSegments[pathSegments.length - matchLen - 1]));
+      int nextNode = segment == null ? NO_NODE : children.get(currentNode, segment);
+      if (nextNode == NO_NODE) {
         break;
       }
       matchLen++;
       currentNode = nextNode;
     }
 
-    return collectAllPrefixes(currentNode, matchLen);
+    return new Match(matchLen > 0 ? currentNode : NO_NODE, matchLen);
   }
 
-  private static Match collectAllPrefixes(Node node, int matchLen) {
-    List<Path> paths = new ArrayList<>();
-    if (matchLen > 0) {
-      collectPrefixes(node, Paths.get(""), paths);
-    }
-    return new Match(paths, matchLen);
+  public int size() {
+    return nodeCount - 1;
   }
 
-  private static void collectPrefixes(Node node, Path currentPath, List<Path> paths) {
-    if (node.isTerminal()) {
-      paths.add(currentPath);
+  /**
+   * Split a path in its (non empty) segments. Both '/' and the platform separator are accepted.
+   */
+  public static String[] segments(String path) {
+    List<String> result = new ArrayList<>();
+    int start = 0;
+    for (int i = 0; i <= path.length(); i++) {
+      if (i == path.length() || path.charAt(i) == '/' || path.charAt(i) == File.separatorChar) {
+        if (i > start) {
+          result.add(path.substring(start, i));
+        }
+        start = i + 1;
+      }
     }
+    return result.toArray(new String[0]);
+  }
 
-    for (Map.Entry<Path, Node> child : node.childrenEntrySet()) {
-      Path childPath = child.getKey().resolve(currentPath);
-      collectPrefixes(child.getValue(), childPath, paths);
+  public static String[] segments(Path path) {
+    List<String> result = new ArrayList<>(path.getNameCount());
+    for (Path name : path) {
+      String segment = name.toString();
+      if (!segment.isEmpty()) {
+        result.add(segment);
+      }
     }
+    return result.toArray(new String[0]);
   }
 
-  /**
-   * Since it is very common that a node will have only one child, we save memory by lazily creating a children HashMap only when a second item is added.
-   */
-  private static interface Node {
-    Node[] computeChildrenIfAbsent(Node parent, Path currentNodePath, Path childNodePath);
-
-    Set<Map.Entry<Path, Node>> childrenEntrySet();
-
-    Node getChild(Path name);
-
-    void setTerminal(boolean b);
-
-    boolean isTerminal();
-
-    void put(Path path, Node node);
+  private int intern(String segment) {
+    return segmentIds.computeIfAbsent(segmentKey(segment), s -> {
+      segments.add(segment);
+      return segments.size() - 1;
+    });
   }
 
-  private abstract static class AbstractNode implements Node {
-    private boolean terminal;
+  private String segmentKey(String segment) {
+    return ignoreCase ? segment.toLowerCase(Locale.ROOT) : segment;
+  }
 
-    @Override
-    public final boolean isTerminal() {
-      return terminal;
+  private int newNode(int parent, int segment) {
+    if (nodeCount == nodeSegment.length) {
+      int newLength = nodeCount * 2;
+      nodeSegment = Arrays.copyOf(nodeSegment, newLength);
+      nodeParent = Arrays.copyOf(nodeParent, newLength);
+      firstChild = Arrays.copyOf(firstChild, newLength);
+      nextSibling = Arrays.copyOf(nextSibling, newLength);
+      terminal = Arrays.copyOf(terminal, newLength);
     }
-
-    @Override
-    public final void setTerminal(boolean b) {
-      this.terminal = b;
+    int node = nodeCount++;
+    nodeSegment[node] = segment;
+    nodeParent[node] = parent;
+    firstChild[node] = NO_NODE;
+    nextSibling[node] = NO_NODE;
+    if (parent != NO_NODE) {
+      nextSibling[node] = firstChild[parent];
+      firstChild[parent] = node;
     }
+    return node;
   }
 
-  private static class SingleChildNode extends AbstractNode {
-    @Nullable
-    private Path singleChildKey;
-    @Nullable
-    private Node singleChildValue;
-
-    @Override
-    public Node[] computeChildrenIfAbsent(Node parent, Path currentNodePath, Path childNodePath) {
-      if (singleChildKey == null) {
-        put(childNodePath, new SingleChildNode());
-        return new Node[] {this, singleChildValue};
-      }
-      if (childNodePath.equals(singleChildKey)) {
-        return new Node[] {this, singleChildValue};
-      }
-      SingleChildNode child = new SingleChildNode();
-      MultipleChildrenNode replacement = new MultipleChildrenNode();
-      replacement.put(singleChildKey, singleChildValue);
-      replacement.put(childNodePath, child);
-      parent.put(currentNodePath, replacement);
-      return new Node[] {replacement, child};
+  private List<Path> collectAllPrefixes(int node) {
+    if (node == NO_NODE) {
+      return Collections.emptyList();
     }
-
-    @Override
-    public Set<Map.Entry<Path, Node>> childrenEntrySet() {
-      if (singleChildKey == null) {
-        return Collections.emptySet();
-      } else {
-        return Collections.singleton(new AbstractMap.SimpleEntry<Path, Node>(singleChildKey, singleChildValue));
+    List<Path> paths = new ArrayList<>();
+    Deque<Integer> toVisit = new ArrayDeque<>();
+    toVisit.push(node);
+    while (!toVisit.isEmpty()) {
+      int current = toVisit.pop();
+      if (terminal[current]) {
+        paths.add(prefix(node, current));
+      }
+      for (int child = firstChild[current]; child != NO_NODE; child = nextSibling[child]) {
+        toVisit.push(child);
       }
     }
+    return paths;
+  }
 
-    @Override
-    public void put(Path path, Node node) {
-      this.singleChildKey = path;
-      this.singleChildValue = node;
+  /**
+   * Segments between a descendant and the matched node, read from the descendant up, are the path prefix.
+   */
+  private Path prefix(int matchedNode, int descendant) {
+    if (descendant == matchedNode) {
+      return Paths.get("");
     }
-
-    @Override
-    @CheckForNull
-    public Node getChild(Path name) {
-      return name.equals(singleChildKey) ? singleChildValue : null;
+    List<String> prefixSegments = new ArrayList<>();
+    for (int current = descendant; current != matchedNode; current = nodeParent[current]) {
+      prefixSegments.add(segments.get(nodeSegment[current]));
     }
+    return Paths.get(prefixSegments.get(0), prefixSegments.subList(1, prefixSegments.size()).toArray(new String[0]));
   }
 
-  private static class MultipleChildrenNode extends AbstractNode {
+  /**
+   * Open addressing hash table from (parent node, segment) to child node.
+   */
+  private static class ChildTable {
+    private static final long EMPTY = -1L;
+    private long[] keys = newKeys(16);
+    private int[] values = new int[16];
+    private int size;
+
+    private static long[] newKeys(int capacity) {
+      long[] result = new long[capacity];
+      Arrays.fill(result, EMPTY);
+      return result;
+    }
 
-    private final Map<Path, Node> children = new HashMap<>();
+    private static long key(int parent, int segment) {
+      return (((long) parent) << 32) | (segment & 0xFFFFFFFFL);
+    }
 
-    @Override
-    public Node[] computeChildrenIfAbsent(Node parent, Path currentNodePath, Path childNodePath) {
-      return new Node[] {this, children.computeIfAbsent(childNodePath, e -> new SingleChildNode())};
+    private static int slot(long key, int mask) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
     }
 
-    @Override
-    public Set<Map.Entry<Path, Node>> childrenEntrySet() {
-      return children.entrySet();
+    int get(int parent, int segment) {
+      long key = key(parent, segment);
+      int mask = keys.length - 1;
+      for (int i = slot(key, mask);; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return values[i];
+        }
+        if (keys[i] == EMPTY) {
+          return NO_NODE;
+        }
+      }
     }
 
-    @CheckForNull
-    @Override
-    public Node getChild(Path name) {
-      return children.get(name);
+    void put(int parent, int segment, int child) {
+      if ((size + 1) * 4 > keys.length * 3) {
+        rehash();
+      }
+      insert(key(parent, segment), child);
+      size++;
     }
 
-    @Override
-    public void put(Path path, Node node) {
-      children.put(path, node);
+    private void insert(long key, int value) {
+      int mask = keys.length - 1;
+      int i = slot(key, mask);
+      while (keys[i] != EMPTY) {
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      values[i] = value;
     }
 
+    private void rehash() {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = newKeys(oldKeys.length * 2);
+      values = new int[oldKeys.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != EMPTY) {
+          insert(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
   }
 
-  public static class Match {
+  /**
+   * Two matches are equal if they end on the same node of the tree, in which case they have the same prefixes.
+   */
+  public class Match {
+    private final int node;
+    private final int matchLen;
+    @CheckForNull
     private List<Path> paths;
-    private int matchLen;
 
-    private Match(List<Path> paths, int matchLen) {
-      this.paths = paths;
+    private Match(int node, int matchLen) {
+      this.node = node;
       this.matchLen = matchLen;
     }
 
     public List<Path> matchPrefixes() {
+      if (paths == null) {
+        paths = collectAllPrefixes(node);
+      }
       return paths;
     }
 
@@ -206,5 +296,25 @@ public class ReversePathTree {
       return matchLen;
     }
 
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Match match = (Match) o;
+      return node == match.node && matchLen == match.matchLen && tree() == match.tree();
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(node, matchLen);
+    }
+
+    private ReversePathTree tree() {
+      return ReversePathTree.this;
+    }
   }
 }
@@ -19,19 +19,29 @@
  */
 package org.sonar.api.utils.log;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
 import org.sonarsource.sonarlint.core.log.LogOutputDelegator;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class SonarLintLoggerTest {
   private LogOutputDelegator delegator = mock(LogOutputDelegator.class);
   private SonarLintLogger logger = new SonarLintLogger(delegator);
 
+  @Before
+  public void enableAllLevels() {
+    when(delegator.isEnabled(any())).thenReturn(true);
+  }
+
   @Test
   public void should_not_log_trace() {
     logger.doTrace("msg");
@@ -56,9 +66,23 @@ public class SonarLintLoggerTest {
   }
 
   @Test
-  public void level_is_always_debug() {
+  public void should_not_format_nor_log_disabled_levels() {
+    when(delegator.isEnabled(Level.DEBUG)).thenReturn(false);
+
+    logger.doDebug("msg {}", "a");
+    logger.doDebug("msg {} {}", "a", "a");
+    logger.doDebug("msg {}", new Object[] {"b"});
+
+    verify(delegator, never()).log(anyString(), any());
+    assertThat(logger.isDebugEnabled()).isFalse();
+  }
+
+  @Test
+  public void level_cannot_be_changed_and_follows_log_output() {
     assertThat(logger.setLevel(LoggerLevel.INFO)).isFalse();
     assertThat(logger.getLevel()).isEqualTo(LoggerLevel.DEBUG);
 
+    when(delegator.isEnabled(Level.DEBUG)).thenReturn(false);
+    assertThat(logger.getLevel()).isEqualTo(LoggerLevel.INFO);
   }
 }
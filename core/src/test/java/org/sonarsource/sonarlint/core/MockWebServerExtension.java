@@ -157,6 +157,14 @@ public class MockWebServerExtension implements BeforeEachCallback, AfterEachCall
         return executeRequest(request);
       }
 
+      @Override
+      public Response get(String url, Map<String, String> headers) {
+        Request.Builder request = new Request.Builder()
+          .url(url);
+        headers.forEach(request::header);
+        return executeRequest(request.build());
+      }
+
       @Override
       public Response delete(String url, String contentType, String bodyContent) {
         RequestBody body = RequestBody.create(MediaType.get(contentType), bodyContent);
@@ -207,6 +215,11 @@ public class MockWebServerExtension implements BeforeEachCallback, AfterEachCall
             return wrapped.body().byteStream();
           }
 
+          @Override
+          public String header(String name) {
+            return wrapped.header(name);
+          }
+
           @Override
           public String toString() {
             return wrapped.toString();
@@ -0,0 +1,134 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.BatchIssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class IssueDispatcherTests {
+
+  private final MapSettings settings = new MapSettings();
+  private final List<Issue> delivered = new CopyOnWriteArrayList<>();
+  private final List<Thread> deliveryThreads = new CopyOnWriteArrayList<>();
+  private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+  private IssueDispatcher underTest;
+
+  @AfterEach
+  void stopDispatcher() {
+    underTest.stop();
+  }
+
+  @Test
+  void should_deliver_synchronously_by_default() {
+    start(issue -> {
+      deliveryThreads.add(Thread.currentThread());
+      delivered.add(issue);
+    });
+    Issue issue = mock(Issue.class);
+
+    underTest.dispatch(issue);
+
+    assertThat(delivered).containsExactly(issue);
+    assertThat(deliveryThreads).containsOnly(Thread.currentThread());
+  }
+
+  @Test
+  void should_deliver_all_issues_in_batches_when_async() {
+    settings.setProperty(IssueDispatcher.ASYNC_PROPERTY, "true");
+    start(new RecordingBatchListener());
+
+    for (int i = 0; i < 500; i++) {
+      underTest.dispatch(mock(Issue.class));
+    }
+    underTest.finish();
+
+    assertThat(delivered).hasSize(500);
+    assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(500);
+    assertThat(deliveryThreads).doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  void should_block_producer_when_queue_is_full() throws Exception {
+    settings.setProperty(IssueDispatcher.ASYNC_PROPERTY, "true");
+    settings.setProperty(IssueDispatcher.QUEUE_SIZE_PROPERTY, "1");
+    CountDownLatch listenerReleased = new CountDownLatch(1);
+    start(issue -> {
+      try {
+        listenerReleased.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      delivered.add(issue);
+    });
+
+    CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+      for (int i = 0; i < 3; i++) {
+        underTest.dispatch(mock(Issue.class));
+      }
+    });
+    Thread.sleep(200);
+    assertThat(producer).isNotDone();
+
+    listenerReleased.countDown();
+    producer.get(5, TimeUnit.SECONDS);
+    underTest.finish();
+    assertThat(delivered).hasSize(3);
+  }
+
+  @Test
+  void should_rethrow_listener_failure_when_finishing() {
+    settings.setProperty(IssueDispatcher.ASYNC_PROPERTY, "true");
+    start(issue -> {
+      throw new IllegalStateException("listener failure");
+    });
+
+    underTest.dispatch(mock(Issue.class));
+
+    assertThatThrownBy(underTest::finish).isInstanceOf(IllegalStateException.class).hasMessage("listener failure");
+  }
+
+  private void start(IssueListener listener) {
+    underTest = new IssueDispatcher(listener, new DefaultAnalysisTimings(settings.asConfig()), settings.asConfig());
+    underTest.start();
+  }
+
+  private class RecordingBatchListener implements BatchIssueListener {
+    @Override
+    public void handle(List<Issue> issues) {
+      deliveryThreads.add(Thread.currentThread());
+      batchSizes.add(issues.size());
+      delivered.addAll(issues);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.DependedUpon;
+import org.sonar.api.batch.DependsUpon;
+import org.sonar.api.batch.sensor.Sensor;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SensorsExecutorTests {
+
+  private final List<String> executed = new CopyOnWriteArrayList<>();
+  private final MapSettings settings = new MapSettings();
+  private final DefaultSensorContext context = mock(DefaultSensorContext.class);
+  private final SensorOptimizer optimizer = mock(SensorOptimizer.class);
+  private final DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+
+  @BeforeEach
+  void prepare() {
+    when(context.config()).thenReturn(settings.asConfig());
+    when(optimizer.shouldExecute(any())).thenReturn(true);
+  }
+
+  @Test
+  void should_execute_sensors_sequentially_by_default() {
+    newExecutor(new DependentSensor(), new ProducerSensor()).execute();
+
+    assertThat(executed).containsExactly("producer", "dependent");
+    assertThat(analysisResult.sensorExecutionTimes()).containsOnlyKeys("producer", "dependent");
+  }
+
+  @Test
+  void should_record_sensor_timings_when_enabled() {
+    settings.setProperty(AnalysisTimings.ENABLED_PROPERTY, "true");
+    DefaultAnalysisTimings timings = new DefaultAnalysisTimings(settings.asConfig());
+
+    new SensorsExecutor(context, optimizer, new ProgressWrapper(null), analysisResult, timings, new Sensor[] {new SlowSensor("slow")}).execute();
+
+    assertThat(timings.sensors()).containsOnlyKeys("slow");
+    assertThat(timings.sensors().get("slow").executeMs()).isGreaterThanOrEqualTo(50);
+  }
+
+  @Test
+  void should_execute_independent_sensors_concurrently() {
+    settings.setProperty(SensorsExecutor.PARALLELISM_PROPERTY, "2");
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, "*");
+    CountDownLatch bothStarted = new CountDownLatch(2);
+
+    newExecutor(new WaitingSensor("first", bothStarted), new WaitingSensor("second", bothStarted)).execute();
+
+    assertThat(executed).containsExactlyInAnyOrder("first", "second");
+    assertThat(analysisResult.sensorExecutionTimes()).containsOnlyKeys("first", "second");
+  }
+
+  @Test
+  void should_respect_dependencies_when_executing_concurrently() {
+    settings.setProperty(SensorsExecutor.PARALLELISM_PROPERTY, "4");
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, "*");
+
+    newExecutor(new DependentSensor(), new ProducerSensor()).execute();
+
+    assertThat(executed).containsExactly("producer", "dependent");
+  }
+
+  @Test
+  void should_use_sensors_not_allowed_to_run_concurrently_as_barriers() {
+    settings.setProperty(SensorsExecutor.PARALLELISM_PROPERTY, "4");
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, "first,third");
+
+    newExecutor(new SlowSensor("first"), new SlowSensor("second"), new SlowSensor("third")).execute();
+
+    assertThat(executed).containsExactly("first", "second", "third");
+  }
+
+  @Test
+  void should_propagate_sensor_failure() {
+    settings.setProperty(SensorsExecutor.PARALLELISM_PROPERTY, "2");
+    settings.setProperty(SensorsExecutor.PARALLEL_SENSORS_PROPERTY, "*");
+
+    SensorsExecutor executor = newExecutor(new FailingSensor(), new SlowSensor("other"));
+
+    assertThatThrownBy(executor::execute).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+  }
+
+  private SensorsExecutor newExecutor(Sensor... sensors) {
+    return new SensorsExecutor(context, optimizer, new ProgressWrapper(null), analysisResult, new DefaultAnalysisTimings(settings.asConfig()), sensors);
+  }
+
+  private abstract class NamedSensor implements Sensor {
+    private final String name;
+
+    NamedSensor(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      descriptor.name(name);
+    }
+
+    @Override
+    public void execute(SensorContext context) {
+      doExecute();
+      executed.add(name);
+    }
+
+    void doExecute() {
+      // nothing by default
+    }
+  }
+
+  @DependedUpon("data")
+  private class ProducerSensor extends NamedSensor {
+    ProducerSensor() {
+      super("producer");
+    }
+
+    @Override
+    void doExecute() {
+      sleep();
+    }
+  }
+
+  @DependsUpon("data")
+  private class DependentSensor extends NamedSensor {
+    DependentSensor() {
+      super("dependent");
+    }
+  }
+
+  private class SlowSensor extends NamedSensor {
+    SlowSensor(String name) {
+      super(name);
+    }
+
+    @Override
+    void doExecute() {
+      sleep();
+    }
+  }
+
+  private class WaitingSensor extends NamedSensor {
+    private final CountDownLatch latch;
+
+    WaitingSensor(String name, CountDownLatch latch) {
+      super(name);
+      this.latch = latch;
+    }
+
+    @Override
+    void doExecute() {
+      latch.countDown();
+      try {
+        assertThat(latch.await(5, TimeUnit.SECONDS)).as("Sensors should run concurrently").isTrue();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private class FailingSensor extends NamedSensor {
+    FailingSensor() {
+      super("failing");
+    }
+
+    @Override
+    void doExecute() {
+      throw new IllegalStateException("boom");
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
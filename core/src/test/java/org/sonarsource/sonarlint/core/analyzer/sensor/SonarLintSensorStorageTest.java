@@ -33,7 +33,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class SonarLintSensorStorageTest {
 
-  private final SonarLintSensorStorage underTest = new SonarLintSensorStorage(null, null, null, null, null);
+  private final SonarLintSensorStorage underTest = new SonarLintSensorStorage(null, null, null, null, null, null, null);
 
   @Test
   public void store_Measure_doesnt_interact_with_its_param() {
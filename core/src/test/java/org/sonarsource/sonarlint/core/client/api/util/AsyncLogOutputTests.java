@@ -0,0 +1,121 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncLogOutputTests {
+
+  private final List<String> logs = new CopyOnWriteArrayList<>();
+  private final List<Thread> loggingThreads = new CopyOnWriteArrayList<>();
+
+  @Test
+  void should_deliver_all_messages_in_order_from_another_thread() throws Exception {
+    try (AsyncLogOutput output = new AsyncLogOutput(this::record, 8)) {
+      for (int i = 0; i < 100; i++) {
+        output.log("msg" + i, Level.DEBUG);
+      }
+      assertThat(output.flush(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    assertThat(logs).containsExactlyElementsOf(IntStream.range(0, 100).mapToObj(i -> "msg" + i).collect(Collectors.toList()));
+    assertThat(loggingThreads).doesNotContain(Thread.currentThread());
+  }
+
+  @Test
+  void should_deliver_pending_messages_when_closed() throws Exception {
+    CountDownLatch released = new CountDownLatch(1);
+    AsyncLogOutput output = new AsyncLogOutput((msg, level) -> {
+      try {
+        released.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      logs.add(msg);
+    }, 4);
+    output.log("first", Level.INFO);
+    output.log("second", Level.INFO);
+    assertThat(output.flush(10, TimeUnit.MILLISECONDS)).isFalse();
+
+    released.countDown();
+    output.close();
+
+    assertThat(logs).containsExactly("first", "second");
+  }
+
+  @Test
+  void should_survive_failing_output() throws Exception {
+    AsyncLogOutput output = new AsyncLogOutput((msg, level) -> {
+      if (msg.startsWith("fail")) {
+        throw new IllegalStateException(msg);
+      }
+      logs.add(msg);
+    });
+    assertThat(output.firstFailure()).isNull();
+
+    output.log("fail1", Level.ERROR);
+    output.log("ok", Level.ERROR);
+    output.log("fail2", Level.ERROR);
+    output.close();
+
+    assertThat(logs).containsExactly("ok");
+    assertThat(output.failures()).isEqualTo(2);
+    assertThat(output.firstFailure()).isInstanceOf(IllegalStateException.class).hasMessage("fail1");
+  }
+
+  @Test
+  void should_expose_enabled_level_of_decorated_output() {
+    LogOutput infoOutput = new LogOutput() {
+      @Override
+      public void log(String formattedMessage, Level level) {
+        // no-op
+      }
+
+      @Override
+      public Level enabledLevel() {
+        return Level.INFO;
+      }
+    };
+    try (AsyncLogOutput output = new AsyncLogOutput(infoOutput)) {
+      assertThat(output.enabledLevel()).isEqualTo(Level.INFO);
+    }
+  }
+
+  @Test
+  void should_reject_invalid_capacity() {
+    assertThatThrownBy(() -> new AsyncLogOutput(this::record, 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private void record(String msg, Level level) {
+    loggingThreads.add(Thread.currentThread());
+    logs.add(msg);
+  }
+}
@@ -19,6 +19,12 @@
  */
 package org.sonarsource.sonarlint.core.client.api.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -136,4 +142,65 @@ class TextSearchIndexTests {
     assertThat(index.search("mod10").keySet()).containsExactly("o2", "o3");
     assertThat(index.search("mod103").keySet()).containsExactly("o3");
   }
+
+  @Test
+  void testSameScoreKeepsIndexingOrder() {
+    index.index("o3", "sonar java");
+    index.index("o1", "sonar php");
+    index.index("o2", "sonar xml");
+
+    assertThat(index.search("sonar").keySet()).containsExactly("o3", "o1", "o2");
+    assertThat(index.search("sonar").values()).containsOnly(0.5);
+  }
+
+  @Test
+  void testIndexAfterSearch() {
+    index.index("o1", "sonar java");
+    assertThat(index.search("sonar php")).isEmpty();
+
+    index.index("o2", "sonar php");
+    assertThat(index.search("sonar php").keySet()).containsExactly("o2");
+    assertThat(index.getTokens()).containsExactly("java", "php", "sonar");
+  }
+
+  @Test
+  void testRepeatedTermsInQuery() {
+    index.index("o1", "sonar sonar sonar");
+    index.index("o2", "sonar lint sonar");
+
+    assertThat(index.search("sonar sonar")).containsOnlyKeys("o1");
+    assertThat(index.search("sonar sonar").get("o1")).isEqualTo(2.0 / 3);
+  }
+
+  @Test
+  void testManyObjects() {
+    for (int i = 0; i < 10_000; i++) {
+      index.index("o" + i, "org.sonarsource:project-" + i + " Project " + i);
+    }
+
+    assertThat(index.size()).isEqualTo(10_000);
+    assertThat(index.search("project-1234").keySet()).containsExactly("o1234");
+    assertThat(index.search("project 999")).containsOnlyKeys("o999", "o9990", "o9991", "o9992", "o9993", "o9994", "o9995", "o9996", "o9997", "o9998", "o9999");
+    assertThat(index.search("project 999").keySet().iterator().next()).isEqualTo("o999");
+  }
+
+  @Test
+  void testConcurrentSearches() throws Exception {
+    for (int i = 0; i < 1_000; i++) {
+      index.index("o" + i, "org.sonarsource:project-" + i + " Project " + i);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Map<String, Double>>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> index.search("project-12")));
+      }
+      for (Future<Map<String, Double>> result : results) {
+        assertThat(result.get()).containsOnlyKeys("o12", "o120", "o121", "o122", "o123", "o124", "o125", "o126", "o127", "o128", "o129");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
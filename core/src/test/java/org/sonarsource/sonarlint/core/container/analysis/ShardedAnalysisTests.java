@@ -0,0 +1,201 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.TestUtils;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.ShardedAnalysis.Partitioning;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ShardedAnalysisTests {
+
+  @TempDir
+  Path baseDir;
+
+  @Test
+  void should_read_shard_count() {
+    assertThat(ShardedAnalysis.shardCount(configuration(Collections.emptyList(), null))).isEqualTo(1);
+    assertThat(ShardedAnalysis.shardCount(configuration(Collections.emptyList(), "4"))).isEqualTo(4);
+    assertThat(ShardedAnalysis.shardCount(configuration(Collections.emptyList(), "0"))).isEqualTo(1);
+    assertThat(ShardedAnalysis.shardCount(configuration(Collections.emptyList(), "many"))).isEqualTo(1);
+  }
+
+  @Test
+  void should_balance_shards_by_size() throws IOException {
+    ClientInputFile big = file("big.js", 100);
+    ClientInputFile medium = file("medium.js", 60);
+    ClientInputFile small1 = file("small1.js", 30);
+    ClientInputFile small2 = file("small2.js", 30);
+
+    List<List<ClientInputFile>> shards = ShardedAnalysis.partition(Arrays.asList(small1, big, small2, medium), 2, Partitioning.SIZE);
+
+    assertThat(shards).containsExactly(Collections.singletonList(big), Arrays.asList(small1, small2, medium));
+  }
+
+  @Test
+  void should_keep_files_of_a_language_in_the_same_shard() throws IOException {
+    ClientInputFile js1 = file("a.js", 10);
+    ClientInputFile java = file("B.java", 50);
+    ClientInputFile js2 = file("c.js", 10);
+    ClientInputFile py = file("d.py", 5);
+
+    List<List<ClientInputFile>> shards = ShardedAnalysis.partition(Arrays.asList(js1, java, js2, py), 2, Partitioning.LANGUAGE);
+
+    assertThat(shards).containsExactly(Collections.singletonList(java), Arrays.asList(js1, js2, py));
+  }
+
+  @Test
+  void should_omit_empty_shards() throws IOException {
+    ClientInputFile file = file("a.js", 10);
+
+    assertThat(ShardedAnalysis.partition(Collections.singletonList(file), 4, Partitioning.SIZE)).containsExactly(Collections.singletonList(file));
+  }
+
+  @Test
+  void should_analyze_shards_concurrently_and_combine_results() throws IOException {
+    List<ClientInputFile> files = Arrays.asList(file("a.js", 10), file("b.js", 10), file("c.js", 10));
+    CountDownLatch allShardsStarted = new CountDownLatch(3);
+    List<Issue> issues = new ArrayList<>();
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    AnalysisResults results = ShardedAnalysis.analyze(configuration(files, "3"), 3, issues::add, new ProgressWrapper(null), (inputFiles, listener, progress) -> {
+      threads.add(Thread.currentThread().getName());
+      allShardsStarted.countDown();
+      await(allShardsStarted);
+      DefaultAnalysisResult result = new DefaultAnalysisResult();
+      inputFiles.forEach(f -> {
+        result.setLanguageForFile(f, Language.JS);
+        listener.handle(mock(Issue.class));
+      });
+      return result.setIndexedFileCount(inputFiles.size());
+    }, 3);
+
+    assertThat(threads).hasSize(3);
+    assertThat(issues).hasSize(3);
+    assertThat(results.indexedFileCount()).isEqualTo(3);
+    assertThat(results.languagePerFile()).containsOnlyKeys(files);
+  }
+
+  @Test
+  void should_queue_shards_beyond_max_threads() throws IOException {
+    List<ClientInputFile> files = Arrays.asList(file("a.js", 10), file("b.js", 10), file("c.js", 10));
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    AnalysisResults results = ShardedAnalysis.analyze(configuration(files, "3"), 3, i -> {
+    }, new ProgressWrapper(null), (inputFiles, listener, progress) -> {
+      threads.add(Thread.currentThread().getName());
+      return new DefaultAnalysisResult().setIndexedFileCount(inputFiles.size());
+    }, 1);
+
+    assertThat(threads).hasSize(1);
+    assertThat(results.indexedFileCount()).isEqualTo(3);
+  }
+
+  @Test
+  void should_report_failure_of_a_shard_rather_than_cancellation_of_others() throws IOException {
+    List<ClientInputFile> files = Arrays.asList(file("a.js", 10), file("b.js", 10));
+
+    assertThatThrownBy(() -> ShardedAnalysis.analyze(configuration(files, "2"), 2, i -> {
+    }, new ProgressWrapper(null), (inputFiles, listener, progress) -> {
+      if (inputFiles.get(0).relativePath().equals("b.js")) {
+        throw new IllegalStateException("boom");
+      }
+      while (true) {
+        progress.checkCancel();
+        sleep();
+      }
+    }, 2)).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+  }
+
+  @Test
+  void should_forward_cancellation() throws IOException {
+    List<ClientInputFile> files = Arrays.asList(file("a.js", 10), file("b.js", 10));
+    ProgressWrapper canceled = new ProgressWrapper(new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return true;
+      }
+    });
+
+    assertThatThrownBy(() -> ShardedAnalysis.analyze(configuration(files, "2"), 2, i -> {
+    }, canceled, (inputFiles, listener, progress) -> {
+      progress.checkCancel();
+      return new DefaultAnalysisResult();
+    })).isInstanceOf(CanceledException.class);
+  }
+
+  private StandaloneAnalysisConfiguration configuration(List<ClientInputFile> files, String shards) {
+    StandaloneAnalysisConfiguration.Builder builder = StandaloneAnalysisConfiguration.builder()
+      .setBaseDir(baseDir)
+      .addInputFiles(files);
+    if (shards != null) {
+      builder.putExtraProperty(ShardedAnalysis.SHARDS_PROPERTY, shards);
+    }
+    return builder.build();
+  }
+
+  private ClientInputFile file(String relativePath, int size) throws IOException {
+    Path path = baseDir.resolve(relativePath);
+    Files.write(path, Collections.nCopies(size, "x").stream().collect(Collectors.joining()).getBytes(StandardCharsets.UTF_8));
+    return TestUtils.createInputFile(path, relativePath, false);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(10);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rule;
+import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.sonarlint.core.TestUtils;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultClientIssue;
+import org.sonarsource.sonarlint.core.analyzer.issue.DefaultLocation;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueDispatcher;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.MutableAnalysisSettings;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultTextPointer;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.DefaultTextRange;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileContents;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalysisResultCacheTests {
+
+  private static final RuleKey RULE_KEY = RuleKey.of("java", "S1481");
+
+  @TempDir
+  Path baseDir;
+  @TempDir
+  Path storeDir;
+
+  private final Configuration config = mock(Configuration.class);
+  private final MutableAnalysisSettings settings = mock(MutableAnalysisSettings.class);
+  private final ActiveRules activeRules = mock(ActiveRules.class);
+  private final Rules rules = mock(Rules.class);
+  private final ActiveRule activeRule = mock(ActiveRule.class);
+  private final PluginRepository pluginRepository = mock(PluginRepository.class);
+  private final IssueDispatcher issueDispatcher = mock(IssueDispatcher.class);
+  private final List<Issue> dispatchedIssues = new ArrayList<>();
+  private AnalysisResultStore store;
+  private ClientInputFile file;
+
+  @BeforeEach
+  void prepare() throws IOException {
+    when(config.getBoolean(AnalysisResultCache.ENABLED_PROPERTY)).thenReturn(Optional.of(true));
+    when(config.getStringArray(AnalysisResultCache.LANGUAGES_PROPERTY)).thenReturn(new String[] {"java"});
+    when(settings.getProperties()).thenReturn(Collections.singletonMap(AnalysisResultCache.ENABLED_PROPERTY, "true"));
+    when(activeRule.ruleKey()).thenReturn(RULE_KEY);
+    when(activeRule.severity()).thenReturn("MAJOR");
+    when(activeRules.findAll()).thenReturn(Collections.singletonList(activeRule));
+    when(activeRules.find(RULE_KEY)).thenReturn(activeRule);
+    when(rules.find(RULE_KEY)).thenReturn(mock(Rule.class));
+    doAnswer(invocation -> dispatchedIssues.add(invocation.getArgument(0))).when(issueDispatcher).dispatch(any());
+    store = new AnalysisResultStore(storeDir, 1024 * 1024);
+    file = inputFile("Foo.java", "int x;");
+  }
+
+  @Test
+  void should_not_replay_when_disabled() {
+    when(config.getBoolean(AnalysisResultCache.ENABLED_PROPERTY)).thenReturn(Optional.empty());
+    AnalysisResultCache cache = newCache();
+
+    assertThat(cache.replay(file, Language.JAVA)).isFalse();
+    cache.record(issue(file, Collections.emptyList()));
+    cache.store();
+
+    assertThat(store.totalBytes()).isZero();
+  }
+
+  @Test
+  void should_not_replay_languages_not_allowed() throws IOException {
+    ClientInputFile jsFile = inputFile("foo.js", "var x;");
+    AnalysisResultCache cache = newCache();
+
+    assertThat(cache.replay(jsFile, Language.JS)).isFalse();
+    assertThat(cache.replay(jsFile, null)).isFalse();
+    cache.record(issue(jsFile, Collections.emptyList()));
+    cache.store();
+
+    assertThat(store.totalBytes()).isZero();
+  }
+
+  @Test
+  void should_replay_issues_of_unchanged_files() {
+    analyze(file, issue(file, Collections.singletonList(new DefaultLocation(file, range(2), "secondary"))));
+
+    AnalysisResultCache cache = newCache();
+
+    assertThat(cache.replay(file, Language.JAVA)).isTrue();
+    assertThat(dispatchedIssues).extracting(Issue::getRuleKey, Issue::getSeverity, Issue::getType, Issue::getMessage, Issue::getStartLine, Issue::getEndLineOffset,
+      Issue::getInputFile)
+      .containsOnly(tuple("java:S1481", "BLOCKER", "CODE_SMELL", "Remove x", 1, 5, file));
+    assertThat(dispatchedIssues.get(0).flows().get(0).locations()).extracting(IssueLocation::getInputFile, IssueLocation::getMessage, IssueLocation::getStartLine)
+      .containsOnly(tuple(file, "secondary", 2));
+  }
+
+  @Test
+  void should_replay_files_without_issues() {
+    analyze(file);
+
+    assertThat(newCache().replay(file, Language.JAVA)).isTrue();
+    assertThat(dispatchedIssues).isEmpty();
+  }
+
+  @Test
+  void should_analyze_again_modified_files() throws IOException {
+    analyze(file, issue(file, Collections.emptyList()));
+
+    assertThat(newCache().replay(inputFile("Foo.java", "int y;"), Language.JAVA)).isFalse();
+    assertThat(newCache().replay(inputFile("Foo.java", "int x;"), Language.JAVA)).isTrue();
+  }
+
+  @Test
+  void should_analyze_again_when_rules_change() {
+    analyze(file, issue(file, Collections.emptyList()));
+
+    when(activeRule.severity()).thenReturn("BLOCKER");
+
+    assertThat(newCache().replay(file, Language.JAVA)).isFalse();
+  }
+
+  @Test
+  void should_analyze_again_when_settings_change() {
+    analyze(file, issue(file, Collections.emptyList()));
+
+    when(settings.getProperties()).thenReturn(Collections.singletonMap("sonar.java.source", "11"));
+
+    assertThat(newCache().replay(file, Language.JAVA)).isFalse();
+  }
+
+  @Test
+  void should_not_store_files_that_failed_to_be_analyzed() {
+    DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+    AnalysisResultCache cache = newCache(analysisResult);
+    cache.replay(file, Language.JAVA);
+    analysisResult.addFailedAnalysisFile(file);
+    cache.store();
+
+    assertThat(newCache().replay(file, Language.JAVA)).isFalse();
+  }
+
+  @Test
+  void should_not_store_files_with_issue_locations_in_other_files() throws IOException {
+    ClientInputFile otherFile = inputFile("Bar.java", "int z;");
+    analyze(file, issue(file, Collections.singletonList(new DefaultLocation(otherFile, range(1), "elsewhere"))));
+
+    assertThat(newCache().replay(file, Language.JAVA)).isFalse();
+  }
+
+  private void analyze(ClientInputFile file, Issue... issues) {
+    AnalysisResultCache cache = newCache();
+    assertThat(cache.replay(file, Language.JAVA)).isFalse();
+    for (Issue issue : issues) {
+      cache.record(issue);
+    }
+    cache.store();
+  }
+
+  private AnalysisResultCache newCache() {
+    return newCache(new DefaultAnalysisResult());
+  }
+
+  private AnalysisResultCache newCache(DefaultAnalysisResult analysisResult) {
+    StandaloneAnalysisConfiguration analysisConfiguration = StandaloneAnalysisConfiguration.builder().setBaseDir(baseDir).build();
+    return new AnalysisResultCache(config, settings, activeRules, rules, pluginRepository, analysisConfiguration, store, new InputFileContents(config), issueDispatcher,
+      analysisResult);
+  }
+
+  private ClientInputFile inputFile(String relativePath, String content) throws IOException {
+    Path path = baseDir.resolve(relativePath);
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return TestUtils.createInputFile(path, relativePath, false);
+  }
+
+  private Issue issue(ClientInputFile file, List<IssueLocation> flowLocations) {
+    List<Issue.Flow> flows = flowLocations.isEmpty() ? Collections.emptyList() : Collections.singletonList(() -> flowLocations);
+    return new DefaultClientIssue("BLOCKER", "CODE_SMELL", activeRule, mock(Rule.class), "Remove x", range(1), file, flows);
+  }
+
+  private static DefaultTextRange range(int line) {
+    return new DefaultTextRange(new DefaultTextPointer(line, 4), new DefaultTextPointer(line, 5));
+  }
+}
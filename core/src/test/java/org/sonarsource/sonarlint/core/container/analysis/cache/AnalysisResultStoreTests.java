@@ -0,0 +1,155 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.AnalysisCacheEntry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisResultStoreTests {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void should_store_and_read_entries() {
+    AnalysisResultStore store = new AnalysisResultStore(dir, 1024);
+
+    assertThat(store.get("key")).isEmpty();
+    store.put("key", entry("java:S1481"));
+
+    assertThat(store.get("key")).contains(entry("java:S1481"));
+    assertThat(new AnalysisResultStore(dir, 1024).get("key")).contains(entry("java:S1481"));
+  }
+
+  @Test
+  void should_replace_entries() {
+    AnalysisResultStore store = new AnalysisResultStore(dir, 1024);
+    store.put("key", entry("java:S1481"));
+    store.put("key", entry("java:S106"));
+
+    assertThat(store.get("key")).contains(entry("java:S106"));
+    assertThat(store.totalBytes()).isEqualTo(entry("java:S106").getSerializedSize());
+  }
+
+  @Test
+  void should_evict_least_recently_used_entries() {
+    int entrySize = entry("java:S1481").getSerializedSize();
+    AnalysisResultStore store = new AnalysisResultStore(dir, 2L * entrySize);
+    store.put("key1", entry("java:S1481"));
+    store.put("key2", entry("java:S1481"));
+    store.get("key1");
+    store.put("key3", entry("java:S1481"));
+
+    assertThat(store.totalBytes()).isEqualTo(2L * entrySize);
+    assertThat(store.get("key2")).isEmpty();
+    assertThat(store.get("key1")).isPresent();
+    assertThat(store.get("key3")).isPresent();
+    assertThat(dir.resolve("key2.pb")).doesNotExist();
+  }
+
+  @Test
+  void should_evict_oldest_entries_when_loaded_from_disk() throws IOException {
+    int entrySize = entry("java:S1481").getSerializedSize();
+    AnalysisResultStore previousStore = new AnalysisResultStore(dir, 1024);
+    previousStore.put("old", entry("java:S1481"));
+    previousStore.put("recent", entry("java:S1481"));
+    Files.setLastModifiedTime(dir.resolve("old.pb"), FileTime.fromMillis(1000));
+
+    AnalysisResultStore store = new AnalysisResultStore(dir, entrySize);
+
+    assertThat(store.totalBytes()).isEqualTo(entrySize);
+    assertThat(store.get("old")).isEmpty();
+    assertThat(store.get("recent")).isPresent();
+  }
+
+  @Test
+  void should_ignore_corrupted_entries() throws IOException {
+    AnalysisResultStore store = new AnalysisResultStore(dir, 1024);
+    store.put("key", entry("java:S1481"));
+    Files.write(dir.resolve("key.pb"), "corrupted".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(store.get("key")).isEmpty();
+    assertThat(store.totalBytes()).isZero();
+    assertThat(dir.resolve("key.pb")).doesNotExist();
+  }
+
+  @Test
+  void should_read_entries_written_by_other_processes() {
+    AnalysisResultStore store = new AnalysisResultStore(dir, 1024);
+    assertThat(store.get("key")).isEmpty();
+
+    new AnalysisResultStore(dir, 1024).put("key", entry("java:S1481"));
+
+    assertThat(store.get("key")).contains(entry("java:S1481"));
+    assertThat(store.totalBytes()).isEqualTo(entry("java:S1481").getSerializedSize());
+  }
+
+  @Test
+  void should_not_leave_temporary_files() throws IOException {
+    AnalysisResultStore store = new AnalysisResultStore(dir, 1024);
+    store.put("key", entry("java:S1481"));
+    store.put("key", entry("java:S106"));
+
+    try (Stream<Path> files = Files.list(dir)) {
+      assertThat(files).extracting(f -> f.getFileName().toString()).containsOnly("key.pb");
+    }
+  }
+
+  @Test
+  void should_share_store_of_same_directory() {
+    AnalysisResultStore store = AnalysisResultStore.forDirectory(dir, 1024);
+
+    assertThat(AnalysisResultStore.forDirectory(dir.resolve("sub").resolve(".."), 2048)).isSameAs(store);
+    assertThat(AnalysisResultStore.forDirectory(dir.resolve("sub"), 1024)).isNotSameAs(store);
+  }
+
+  @Test
+  void should_use_default_size_when_invalid() {
+    assertThat(AnalysisResultStoreProvider.maxBytes(null)).isEqualTo(AnalysisResultStore.DEFAULT_MAX_BYTES);
+    assertThat(AnalysisResultStoreProvider.maxBytes(" 1024 ")).isEqualTo(1024);
+    assertThat(AnalysisResultStoreProvider.maxBytes("64MB")).isEqualTo(AnalysisResultStore.DEFAULT_MAX_BYTES);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsOnly("Invalid value for 'sonarlint.analysis.cache.maxBytes', using the default size: 64MB");
+  }
+
+  private static AnalysisCacheEntry entry(String ruleKey) {
+    return AnalysisCacheEntry.newBuilder()
+      .addIssue(AnalysisCacheEntry.Issue.newBuilder()
+        .setRuleKey(ruleKey)
+        .setSeverity("MAJOR")
+        .setType("CODE_SMELL")
+        .setMessage("message"))
+      .build();
+  }
+}
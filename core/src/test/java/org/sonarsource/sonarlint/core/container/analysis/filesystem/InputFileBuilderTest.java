@@ -33,10 +33,15 @@ import org.sonarsource.sonarlint.core.OnDiskTestClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner.IssueExclusionsLoader;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -51,6 +56,8 @@ public class InputFileBuilderTest {
   private LanguageDetection langDetection = mock(LanguageDetection.class);
   private IssueExclusionsLoader issueExclusionsLoader = mock(IssueExclusionsLoader.class);
   private FileMetadata metadata = new FileMetadata();
+  private DefaultAnalysisTimings timings = new DefaultAnalysisTimings(new MapSettings().asConfig());
+  private InputFileContents contents = new InputFileContents(new MapSettings().asConfig());
 
   @Test
   public void testCreate() throws IOException {
@@ -60,7 +67,7 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new OnDiskTestClientInputFile(path, "file", true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader, timings, contents);
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.type()).isEqualTo(InputFile.Type.TEST);
@@ -81,19 +88,37 @@ public class InputFileBuilderTest {
     Files.write(path, "test".getBytes(StandardCharsets.ISO_8859_1));
     ClientInputFile file = new OnDiskTestClientInputFile(path, "file", true, StandardCharsets.ISO_8859_1, Language.CPP);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader, timings, contents);
     SonarLintInputFile inputFile = builder.create(file);
 
     assertThat(inputFile.language()).isEqualTo("cpp");
     verifyZeroInteractions(langDetection);
   }
 
+  @Test
+  public void testCreateWithContentBuffer() throws IOException {
+    Path path = temp.getRoot().toPath().resolve("file");
+    Files.write(path, "line1\nline2".getBytes(StandardCharsets.ISO_8859_1));
+    ClientInputFile file = spy(new OnDiskTestClientInputFile(path, "file", false, StandardCharsets.ISO_8859_1));
+    MapSettings settings = new MapSettings();
+    settings.setProperty(InputFileContents.ENABLED_PROPERTY, "true");
+
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader, timings, new InputFileContents(settings.asConfig()));
+    SonarLintInputFile inputFile = builder.create(file);
+
+    assertThat(inputFile.lines()).isEqualTo(2);
+    assertThat(inputFile.contents()).isEqualTo("line1\nline2");
+    assertThat(inputFile.inputStream()).hasContent("line1\nline2");
+    verify(file, times(1)).inputStream();
+    verify(file, never()).contents();
+  }
+
   @Test
   public void testCreate_lazy_error() throws IOException {
     when(langDetection.language(any(InputFile.class))).thenReturn(Language.JAVA);
     ClientInputFile file = new OnDiskTestClientInputFile(Paths.get("INVALID"), "INVALID", true, StandardCharsets.ISO_8859_1);
 
-    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader);
+    InputFileBuilder builder = new InputFileBuilder(langDetection, metadata, issueExclusionsLoader, timings, contents);
     SonarLintInputFile slFile = builder.create(file);
 
     exception.expect(IllegalStateException.class);
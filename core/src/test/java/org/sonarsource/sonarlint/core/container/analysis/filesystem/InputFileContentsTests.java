@@ -0,0 +1,164 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.OnDiskTestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class InputFileContentsTests {
+
+  @TempDir
+  Path baseDir;
+
+  @Test
+  void should_read_from_client_when_disabled() throws IOException {
+    InputFileContents contents = new InputFileContents(new MapSettings().asConfig());
+    ClientInputFile file = inputFile("Foo.java", "foo");
+
+    assertThat(read(contents, file)).isEqualTo("foo");
+    assertThat(contents.contents(file, StandardCharsets.UTF_8)).isEqualTo("foo");
+
+    verify(file, times(1)).inputStream();
+    verify(file, times(1)).contents();
+    assertThat(contents.buffer(file)).isNull();
+  }
+
+  @Test
+  void should_read_from_client_only_once() throws IOException {
+    InputFileContents contents = new InputFileContents(settings(1024, null).asConfig());
+    ClientInputFile file = inputFile("Foo.java", "foo");
+
+    assertThat(contents.contents(file, StandardCharsets.UTF_8)).isEqualTo("foo");
+    assertThat(read(contents, file)).isEqualTo("foo");
+    assertThat(read(contents, file)).isEqualTo("foo");
+
+    verify(file, times(1)).inputStream();
+    verify(file, times(0)).contents();
+    assertThat(contents.clientReads()).isEqualTo(1);
+    assertThat(contents.bufferedBytes()).isEqualTo(3);
+  }
+
+  @Test
+  void should_skip_byte_order_mark_in_contents() throws IOException {
+    InputFileContents contents = new InputFileContents(settings(1024, null).asConfig());
+    ClientInputFile file = inputFile("Foo.java", "\uFEFFfoo\nbar");
+
+    assertThat(contents.contents(file, StandardCharsets.UTF_8)).isEqualTo("foo\nbar");
+    assertThat(contents.contents(file, StandardCharsets.UTF_8)).isEqualTo("foo\nbar");
+    assertThat(contents.bufferedBytes()).isEqualTo(10);
+  }
+
+  @Test
+  void should_stream_files_bigger_than_the_limit() throws IOException {
+    InputFileContents contents = new InputFileContents(settings(4, null).asConfig());
+    ClientInputFile file = inputFile("Foo.java", "too big");
+
+    assertThat(read(contents, file)).isEqualTo("too big");
+    assertThat(contents.contents(file, StandardCharsets.UTF_8)).isEqualTo("too big");
+
+    assertThat(contents.buffer(file)).isNull();
+    assertThat(contents.bufferedBytes()).isZero();
+    assertThat(contents.clientReads()).isEqualTo(2);
+  }
+
+  @Test
+  void should_read_again_files_that_do_not_fit_by_default() throws IOException {
+    InputFileContents contents = new InputFileContents(settings(5, null).asConfig());
+    ClientInputFile foo = inputFile("Foo.java", "foo");
+    ClientInputFile bar = inputFile("Bar.java", "bar");
+
+    read(contents, foo);
+    read(contents, bar);
+    read(contents, bar);
+
+    assertThat(contents.buffer(foo)).isNotNull();
+    assertThat(contents.buffer(bar)).isNull();
+    verify(bar, times(2)).inputStream();
+  }
+
+  @Test
+  void should_evict_least_recently_used_files() throws IOException {
+    InputFileContents contents = new InputFileContents(settings(5, "evict").asConfig());
+    ClientInputFile foo = inputFile("Foo.java", "foo");
+    ClientInputFile bar = inputFile("Bar.java", "bar");
+
+    read(contents, foo);
+    read(contents, bar);
+    read(contents, bar);
+
+    assertThat(contents.buffer(foo)).isNull();
+    assertThat(contents.buffer(bar)).isNotNull();
+    assertThat(contents.bufferedBytes()).isEqualTo(3);
+    verify(bar, times(1)).inputStream();
+  }
+
+  @Test
+  void should_release_buffers() throws IOException {
+    InputFileContents contents = new InputFileContents(settings(5, null).asConfig());
+    ClientInputFile foo = inputFile("Foo.java", "foo");
+    ClientInputFile bar = inputFile("Bar.java", "bar");
+
+    read(contents, foo);
+    contents.release(foo);
+    read(contents, bar);
+
+    assertThat(contents.buffer(bar)).isNotNull();
+    assertThat(contents.bufferedBytes()).isEqualTo(3);
+
+    contents.stop();
+    assertThat(contents.bufferedBytes()).isZero();
+  }
+
+  private static MapSettings settings(long maxBytes, String spill) {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(InputFileContents.ENABLED_PROPERTY, "true");
+    settings.setProperty(InputFileContents.MAX_BYTES_PROPERTY, String.valueOf(maxBytes));
+    if (spill != null) {
+      settings.setProperty(InputFileContents.SPILL_PROPERTY, spill);
+    }
+    return settings;
+  }
+
+  private ClientInputFile inputFile(String relativePath, String content) throws IOException {
+    Path path = baseDir.resolve(relativePath);
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return spy(new OnDiskTestClientInputFile(path, relativePath, false, StandardCharsets.UTF_8));
+  }
+
+  private static String read(InputFileContents contents, ClientInputFile file) throws IOException {
+    try (InputStream in = contents.inputStream(file)) {
+      return IOUtils.toString(in, StandardCharsets.UTF_8);
+    }
+  }
+}
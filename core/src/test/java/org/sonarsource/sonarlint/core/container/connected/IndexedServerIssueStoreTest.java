@@ -0,0 +1,238 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.Location;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.TextRange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IndexedServerIssueStoreTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path root;
+  private IndexedServerIssueStore store;
+
+  @Before
+  public void start() throws IOException {
+    root = temporaryFolder.newFolder().toPath();
+    store = new IndexedServerIssueStore(root);
+  }
+
+  @Test
+  public void should_read_object_written() {
+    ServerIssue issue1 = issue("path1", 1);
+    ServerIssue issue2 = issue("path2", 2);
+    ServerIssue issue3 = issue("path1", 3);
+
+    store.save(Arrays.asList(issue1, issue2, issue3));
+
+    assertThat(store.load("path1")).containsExactly(issue1, issue3);
+    assertThat(store.load("path2")).containsExactly(issue2);
+    assertThat(store.load("nonexistent")).isEmpty();
+    assertThat(root).isDirectoryContaining(p -> p.getFileName().toString().equals(IndexedServerIssueStore.INDEX_FILE));
+  }
+
+  @Test
+  public void should_read_nothing_from_empty_store() {
+    assertThat(store.load("path1")).isEmpty();
+    assertThat(new IndexedServerIssueStore(root.resolve("missing")).load("path1")).isEmpty();
+  }
+
+  @Test
+  public void should_read_object_replaced() {
+    ServerIssue issue1 = issue("path1", 11);
+    ServerIssue issue2 = issue("path1", 22);
+    ServerIssue other = issue("path2", 33);
+
+    store.save(Arrays.asList(issue1, other));
+    assertThat(store.load("path1")).containsOnly(issue1);
+
+    store.save(Collections.singletonList(issue2));
+    assertThat(store.load("path1")).containsOnly(issue2);
+    assertThat(store.load("path2")).containsOnly(other);
+  }
+
+  @Test
+  public void should_delete_entries() {
+    store.save(Arrays.asList(issue("path1", 1), issue("path2", 2)));
+    store.delete("path1");
+    store.delete("non_existing");
+
+    assertThat(store.load("path1")).isEmpty();
+    assertThat(store.load("path2")).hasSize(1);
+  }
+
+  @Test
+  public void should_find_paths_with_any_characters() {
+    List<String> paths = Arrays.asList("a/b.java", "a/é.java", "a/😀.java", "A/b.java", "a/b.java2", "a/ÿ.java", "a/�.java", "");
+    store.save(paths.stream().map(p -> issue(p, p.length())).collect(Collectors.toList()));
+
+    for (String path : paths) {
+      assertThat(store.load(path)).extracting(i -> i.getPrimaryLocation().getPath()).containsExactly(path);
+    }
+    assertThat(store.load("a/")).isEmpty();
+  }
+
+  @Test
+  public void should_compact_data_file() throws IOException {
+    store.save(IntStream.range(0, 10).mapToObj(i -> issue("path" + i, i)).collect(Collectors.toList()));
+    for (int i = 0; i < 50; i++) {
+      store.save(Collections.singletonList(issue("path0", 100 + i)));
+    }
+
+    assertThat(store.load("path0")).containsExactly(issue("path0", 149));
+    assertThat(store.load("path9")).containsExactly(issue("path9", 9));
+    try (Stream<Path> files = Files.list(root)) {
+      List<Path> dataFiles = files.filter(p -> p.getFileName().toString().endsWith(".dat")).collect(Collectors.toList());
+      assertThat(dataFiles).hasSize(1);
+      assertThat(dataFiles.get(0).getFileName().toString()).isNotEqualTo("issues-0.dat");
+    }
+  }
+
+  @Test
+  public void should_read_and_migrate_legacy_store() throws IOException {
+    ServerIssueStore legacyStore = new ServerIssueStore(root);
+    ServerIssue issue1 = issue("path1", 1);
+    ServerIssue issue2 = issue("path2", 2);
+    legacyStore.save(Arrays.asList(issue1, issue2));
+
+    assertThat(store.load("path1")).containsExactly(issue1);
+
+    ServerIssue issue3 = issue("path2", 3);
+    store.save(Collections.singletonList(issue3));
+
+    assertThat(store.load("path1")).containsExactly(issue1);
+    assertThat(store.load("path2")).containsExactly(issue3);
+    try (Stream<Path> files = Files.list(root)) {
+      assertThat(files.filter(Files::isDirectory)).isEmpty();
+    }
+  }
+
+  @Test
+  public void should_migrate_empty_legacy_store_on_delete() throws IOException {
+    Files.createDirectories(root.resolve("0").resolve("7"));
+
+    store.delete("path1");
+
+    assertThat(root.resolve(IndexedServerIssueStore.INDEX_FILE)).exists();
+    assertThat(root.resolve("0")).doesNotExist();
+  }
+
+  @Test
+  public void should_fail_to_load_corrupted_index() throws IOException {
+    Files.write(root.resolve(IndexedServerIssueStore.INDEX_FILE), new byte[] {1, 2, 3});
+
+    assertThatThrownBy(() -> store.load("path1")).isInstanceOf(StorageException.class);
+    assertThatThrownBy(() -> store.save(Collections.singletonList(issue("path1", 1)))).isInstanceOf(StorageException.class);
+  }
+
+  @Ignore("Only used to compare with the performance of ServerIssueStore")
+  @Test
+  public void performance_test() throws IOException {
+    int fileCount = 200_000;
+    List<ServerIssue> issues = IntStream.range(0, fileCount)
+      .mapToObj(i -> issue("src/main/java/org/foo/module" + (i % 100) + "/File" + i + ".java", i))
+      .collect(Collectors.toList());
+    measure("legacy", new ServerIssueStore(temporaryFolder.newFolder().toPath()), issues, fileCount);
+    measure("indexed", new IndexedServerIssueStore(temporaryFolder.newFolder().toPath()), issues, fileCount);
+  }
+
+  private static void measure(String name, IssueStore store, List<ServerIssue> issues, int fileCount) {
+    Instant start = Instant.now();
+    store.save(issues);
+    System.out.println(name + " save: " + Duration.between(start, Instant.now()).toMillis() + "ms ellapsed");
+
+    start = Instant.now();
+    for (int i = 0; i < fileCount; i += 10) {
+      store.load(issues.get(i).getPrimaryLocation().getPath());
+    }
+    System.out.println(name + " " + (fileCount / 10) + " loads: " + Duration.between(start, Instant.now()).toMillis() + "ms ellapsed");
+  }
+
+  @Test
+  public void should_keep_previous_data_file_for_other_readers() throws IOException {
+    IndexedServerIssueStore reader = new IndexedServerIssueStore(root);
+    store.save(Collections.singletonList(issue("path0", 0)));
+    assertThat(reader.load("path0")).containsExactly(issue("path0", 0));
+
+    // replacing the only entry twice compacts the data file into a new generation
+    store.save(Collections.singletonList(issue("path0", 1)));
+    store.save(Collections.singletonList(issue("path0", 1)));
+    try (Stream<Path> files = Files.list(root)) {
+      assertThat(files.filter(p -> p.getFileName().toString().endsWith(".dat"))).hasSize(2);
+    }
+
+    store.save(Collections.singletonList(issue("path1", 2)));
+    try (Stream<Path> files = Files.list(root)) {
+      assertThat(files.filter(p -> p.getFileName().toString().endsWith(".dat"))).hasSize(1);
+    }
+    assertThat(reader.load("path0")).containsExactly(issue("path0", 1));
+  }
+
+  @Test
+  public void should_not_lose_entries_of_concurrent_stores() throws Exception {
+    IndexedServerIssueStore other = new IndexedServerIssueStore(root);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> first = executor.submit(() -> IntStream.range(0, 100).forEach(i -> store.save(Collections.singletonList(issue("first" + i, i)))));
+      Future<?> second = executor.submit(() -> IntStream.range(0, 100).forEach(i -> other.save(Collections.singletonList(issue("second" + i, i)))));
+      first.get();
+      second.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    IndexedServerIssueStore reader = new IndexedServerIssueStore(root);
+    for (int i = 0; i < 100; i++) {
+      assertThat(reader.load("first" + i)).containsExactly(issue("first" + i, i));
+      assertThat(reader.load("second" + i)).containsExactly(issue("second" + i, i));
+    }
+  }
+
+  private static ServerIssue issue(String path, int line) {
+    return ServerIssue.newBuilder()
+      .setPrimaryLocation(Location.newBuilder().setPath(path).setTextRange(TextRange.newBuilder().setStartLine(line)))
+      .build();
+  }
+}
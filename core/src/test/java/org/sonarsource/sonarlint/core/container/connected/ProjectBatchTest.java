@@ -0,0 +1,111 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
+import org.sonarsource.sonarlint.core.client.api.connected.ProjectBatchResult;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProjectBatchTest {
+
+  @Test
+  void collect_results_and_failures_per_project() {
+    ProjectBatchResult<String> result = ProjectBatch.run(Arrays.asList("p1", "p2", "p1", "p3"), "Processing", new ProgressWrapper(null), (projectKey, progress) -> {
+      if (projectKey.equals("p2")) {
+        throw new IllegalStateException("boom");
+      }
+      return projectKey.toUpperCase();
+    });
+
+    assertThat(result.results()).containsOnlyKeys("p1", "p3").containsEntry("p1", "P1").containsEntry("p3", "P3");
+    assertThat(result.failures()).containsOnlyKeys("p2");
+    assertThat(result.failures().get("p2")).hasMessage("boom");
+    assertThat(result.isSuccessful()).isFalse();
+  }
+
+  @Test
+  void run_projects_concurrently() {
+    CountDownLatch allStarted = new CountDownLatch(ProjectBatch.MAX_CONCURRENT_PROJECTS);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    ProjectBatchResult<Boolean> result = ProjectBatch.run(Arrays.asList("p1", "p2", "p3", "p4", "p5", "p6"), "Processing", new ProgressWrapper(null),
+      (projectKey, progress) -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        allStarted.countDown();
+        try {
+          return allStarted.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          running.decrementAndGet();
+        }
+      });
+
+    assertThat(result.results().values()).hasSize(6).containsOnly(true);
+    assertThat(maxRunning.get()).isEqualTo(ProjectBatch.MAX_CONCURRENT_PROJECTS);
+  }
+
+  @Test
+  void report_aggregated_progress() {
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+
+    ProjectBatch.run(Collections.singletonList("p1"), "Processing", new ProgressWrapper(monitor), (projectKey, progress) -> {
+      progress.setProgress("Ignored", 0.5f);
+      return null;
+    });
+
+    verify(monitor).setMessage("Processing 'p1'");
+    verify(monitor).setFraction(0.0f);
+    verify(monitor).setFraction(1.0f);
+  }
+
+  @Test
+  void propagate_cancellation() {
+    ProgressMonitor monitor = mock(ProgressMonitor.class);
+    when(monitor.isCanceled()).thenReturn(true);
+
+    assertThrows(CanceledException.class, () -> ProjectBatch.run(Collections.singletonList("p1"), "Processing", new ProgressWrapper(monitor), (projectKey, progress) -> {
+      progress.checkCancel();
+      return null;
+    }));
+  }
+
+  @Test
+  void empty_batch() {
+    ProjectBatchResult<String> result = ProjectBatch.run(Collections.emptyList(), "Processing", new ProgressWrapper(null), (projectKey, progress) -> projectKey);
+
+    assertThat(result.results()).isEmpty();
+    assertThat(result.isSuccessful()).isTrue();
+  }
+}
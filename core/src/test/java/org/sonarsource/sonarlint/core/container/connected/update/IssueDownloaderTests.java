@@ -203,6 +203,9 @@ class IssueDownloaderTests {
     assertThat(taintIssue.getFlow(0).getLocation(3).getCodeSnippet()).isEmpty();
 
     assertThat(taintIssue.getFlow(1).getLocationList()).hasSize(1);
+
+    // Each source is only fetched once
+    assertThat(mockServer.getRequestCount()).isEqualTo(4);
   }
 
   @Test
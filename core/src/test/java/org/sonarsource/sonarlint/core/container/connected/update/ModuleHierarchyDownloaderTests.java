@@ -20,20 +20,27 @@
 package org.sonarsource.sonarlint.core.container.connected.update;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import okhttp3.mockwebserver.MockResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.sonarqube.ws.Common.Paging;
 import org.sonarqube.ws.Components.Component;
 import org.sonarqube.ws.Components.TreeWsResponse;
 import org.sonarsource.sonarlint.core.MockWebServerExtension;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectConfiguration;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonarsource.sonarlint.core.container.connected.update.ModuleHierarchyDownloader.PAGE_SIZE;
 
 class ModuleHierarchyDownloaderTests {
@@ -43,11 +50,18 @@ class ModuleHierarchyDownloaderTests {
   @RegisterExtension
   static MockWebServerExtension mockServer = new MockWebServerExtension();
 
+  @TempDir
+  Path tempDir;
+
+  private Path projectConfigurationPath;
   private ModuleHierarchyDownloader underTest;
 
   @BeforeEach
   public void setUp() {
-    underTest = new ModuleHierarchyDownloader(mockServer.serverApiHelper());
+    projectConfigurationPath = tempDir.resolve("configuration.pb");
+    StoragePaths storagePaths = mock(StoragePaths.class);
+    when(storagePaths.getProjectConfigurationPath("testRoot")).thenReturn(projectConfigurationPath);
+    underTest = new ModuleHierarchyDownloader(mockServer.serverApiHelper(), storagePaths);
   }
 
   @Test
@@ -71,6 +85,73 @@ class ModuleHierarchyDownloaderTests {
       entry("testRoot:module1:module11", "module1/module11"));
   }
 
+  @Test
+  void reuseStoredHierarchyWhenModulesDidNotChange() {
+    ProtobufUtil.writeToFile(ProjectConfiguration.newBuilder()
+      .putModulePathByKey("testRoot", "")
+      .putModulePathByKey("testRoot:module1", "module1")
+      .putModulePathByKey("testRoot:module2", "module2")
+      .putModulePathByKey("testRoot:module1:module11", "module1/module11")
+      .putModulePathByKey("testRoot:module1:module12", "module1/module12")
+      .build(), projectConfigurationPath);
+    mockServer.addResponseFromResource("/api/components/tree.protobuf?qualifiers=BRC&component=testRoot&ps=500&p=1",
+      "/update/tree.pb");
+
+    Map<String, String> fetchModuleHierarchy = underTest.fetchModuleHierarchy("testRoot", PROGRESS);
+
+    assertThat(fetchModuleHierarchy).containsOnly(
+      entry("testRoot", ""),
+      entry("testRoot:module1", "module1"),
+      entry("testRoot:module2", "module2"),
+      entry("testRoot:module1:module12", "module1/module12"),
+      entry("testRoot:module1:module11", "module1/module11"));
+    assertThat(mockServer.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  void onlyFetchAncestorsOfModulesMissingFromStoredHierarchy() {
+    ProtobufUtil.writeToFile(ProjectConfiguration.newBuilder()
+      .putModulePathByKey("testRoot", "")
+      .putModulePathByKey("testRoot:module1", "module1")
+      .putModulePathByKey("testRoot:module2", "module2")
+      .putModulePathByKey("testRoot:module1:module11", "module1/module11")
+      .build(), projectConfigurationPath);
+    mockServer.addResponseFromResource("/api/components/tree.protobuf?qualifiers=BRC&component=testRoot&ps=500&p=1",
+      "/update/tree.pb");
+    mockServer.addResponseFromResource("/api/components/show.protobuf?component=testRoot%3Amodule1%3Amodule12",
+      "/update/show_module1_module12.pb");
+
+    Map<String, String> fetchModuleHierarchy = underTest.fetchModuleHierarchy("testRoot", PROGRESS);
+
+    assertThat(fetchModuleHierarchy).containsOnly(
+      entry("testRoot", ""),
+      entry("testRoot:module1", "module1"),
+      entry("testRoot:module2", "module2"),
+      entry("testRoot:module1:module12", "module1/module12"),
+      entry("testRoot:module1:module11", "module1/module11"));
+    assertThat(mockServer.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  void fetchAncestorsWhenStoredHierarchyIsInconsistent() {
+    ProtobufUtil.writeToFile(ProjectConfiguration.newBuilder()
+      .putModulePathByKey("testRoot", "")
+      .putModulePathByKey("testRoot:module1", "module1")
+      .putModulePathByKey("testRoot:module2", "module2")
+      .putModulePathByKey("testRoot:module1:module11", "module1/legacy/module11")
+      .putModulePathByKey("testRoot:module1:module12", "module1/module12")
+      .build(), projectConfigurationPath);
+    mockServer.addResponseFromResource("/api/components/tree.protobuf?qualifiers=BRC&component=testRoot&ps=500&p=1",
+      "/update/tree.pb");
+    mockServer.addResponseFromResource("/api/components/show.protobuf?component=testRoot%3Amodule1%3Amodule11",
+      "/update/show_module1_module11.pb");
+
+    Map<String, String> fetchModuleHierarchy = underTest.fetchModuleHierarchy("testRoot", PROGRESS);
+
+    assertThat(fetchModuleHierarchy).containsEntry("testRoot:module1:module11", "module1/module11");
+    assertThat(mockServer.getRequestCount()).isEqualTo(2);
+  }
+
   @Test
   void testNoPaginationWhenJustUnderPageSize() throws IOException {
     TreeWsResponse.Builder responseBuilder = TreeWsResponse.newBuilder()
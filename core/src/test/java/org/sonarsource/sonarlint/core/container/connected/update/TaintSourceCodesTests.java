@@ -0,0 +1,80 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.serverapi.source.SourceApi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaintSourceCodesTests {
+
+  private final SourceApi sourceApi = mock(SourceApi.class);
+
+  @Test
+  void should_hold_a_bounded_number_of_sources() {
+    when(sourceApi.getRawSourceCode(anyString())).thenAnswer(invocation -> Optional.of("source of " + invocation.getArgument(0)));
+    Map<String, Integer> usesByFileKey = new LinkedHashMap<>();
+    for (int i = 0; i < 100; i++) {
+      usesByFileKey.put("file" + i, 2);
+    }
+
+    try (TaintSourceCodes sources = new TaintSourceCodes(sourceApi, usesByFileKey, MoreExecutors.newDirectExecutorService())) {
+      assertThat(sources.heldSourceCount()).isEqualTo(TaintSourceCodes.PREFETCH_SIZE);
+      verify(sourceApi, times(TaintSourceCodes.PREFETCH_SIZE)).getRawSourceCode(anyString());
+
+      for (int i = 0; i < 100; i++) {
+        assertThat(sources.take("file" + i)).map(lines -> lines.line(1)).contains("source of file" + i);
+        assertThat(sources.take("file" + i)).isPresent();
+        assertThat(sources.heldSourceCount()).isLessThanOrEqualTo(TaintSourceCodes.PREFETCH_SIZE);
+      }
+      assertThat(sources.heldSourceCount()).isZero();
+      assertThat(sources.take("file0")).isEmpty();
+    }
+    verify(sourceApi, times(100)).getRawSourceCode(anyString());
+  }
+
+  @Test
+  void should_request_sources_taken_out_of_order() {
+    when(sourceApi.getRawSourceCode(anyString())).thenAnswer(invocation -> Optional.of("source of " + invocation.getArgument(0)));
+    Map<String, Integer> usesByFileKey = new LinkedHashMap<>();
+    for (int i = 0; i < 20; i++) {
+      usesByFileKey.put("file" + i, 1);
+    }
+
+    try (TaintSourceCodes sources = new TaintSourceCodes(sourceApi, usesByFileKey, MoreExecutors.newDirectExecutorService())) {
+      assertThat(sources.take("file19")).isPresent();
+      for (int i = 0; i < 19; i++) {
+        assertThat(sources.take("file" + i)).isPresent();
+      }
+      assertThat(sources.take("unknown")).isEmpty();
+    }
+    verify(sourceApi, times(20)).getRawSourceCode(anyString());
+  }
+}
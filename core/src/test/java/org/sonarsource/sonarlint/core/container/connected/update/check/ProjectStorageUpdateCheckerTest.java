@@ -38,6 +38,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class ProjectStorageUpdateCheckerTest {
@@ -49,6 +51,7 @@ public class ProjectStorageUpdateCheckerTest {
   private ProjectStorageUpdateChecker checker;
   private StorageReader storageReader;
   private ProjectConfigurationDownloader projectConfigurationDownloader;
+  private SettingsDownloader settingsDownloader;
 
   @Before
   public void prepare() {
@@ -59,7 +62,7 @@ public class ProjectStorageUpdateCheckerTest {
     when(projectConfigurationDownloader.fetch(eq(MODULE_KEY), any(GlobalProperties.class), any(ProgressWrapper.class)))
       .thenReturn(ProjectConfiguration.newBuilder().build());
 
-    SettingsDownloader settingsDownloader = mock(SettingsDownloader.class);
+    settingsDownloader = mock(SettingsDownloader.class);
     when(settingsDownloader.fetchGlobalSettings()).thenReturn(GlobalProperties.newBuilder().build());
     checker = new ProjectStorageUpdateChecker(storageReader, projectConfigurationDownloader, settingsDownloader);
   }
@@ -78,6 +81,17 @@ public class ProjectStorageUpdateCheckerTest {
     assertThat(result.changelog()).isEmpty();
   }
 
+  @Test
+  public void reuseProvidedGlobalSettings() {
+    GlobalProperties globalProps = GlobalProperties.newBuilder().putProperties("sonar.global", "value").build();
+
+    StorageUpdateCheckResult result = checker.checkForUpdates(MODULE_KEY, globalProps, new ProgressWrapper(null));
+
+    assertThat(result.needUpdate()).isFalse();
+    verify(projectConfigurationDownloader).fetch(eq(MODULE_KEY), eq(globalProps), any(ProgressWrapper.class));
+    verifyNoInteractions(settingsDownloader);
+  }
+
   @Test
   public void addedProp() {
     when(projectConfigurationDownloader.fetch(eq(MODULE_KEY), any(GlobalProperties.class), any(ProgressWrapper.class)))
@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -38,6 +40,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloa
 import org.sonarsource.sonarlint.core.container.connected.validate.ServerVersionAndStatusChecker;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerInfos;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
@@ -63,6 +66,12 @@ class GlobalStorageUpdateExecutorTests {
   private RulesDownloader rulesDownloader;
 
   private Path destDir;
+  private final List<Boolean> storageExistsBeforeAndAfterSwitch = new ArrayList<>();
+  private final StorageSwitch storageSwitch = switchAction -> {
+    storageExistsBeforeAndAfterSwitch.add(Files.exists(destDir));
+    switchAction.run();
+    storageExistsBeforeAndAfterSwitch.add(Files.exists(destDir));
+  };
   private File tempDir;
 
   @BeforeEach
@@ -82,7 +91,7 @@ class GlobalStorageUpdateExecutorTests {
     when(storageManager.getGlobalStorageRoot()).thenReturn(destDir);
     globalUpdate = new GlobalStorageUpdateExecutor(storageManager, new ServerVersionAndStatusChecker(mockServer.serverApiHelper()),
       mock(PluginReferencesDownloader.class), mock(SettingsDownloader.class), rulesDownloader, mock(ProjectListDownloader.class),
-      mock(QualityProfilesDownloader.class), mock(PluginListDownloader.class), tempFolder);
+      mock(QualityProfilesDownloader.class), mock(PluginListDownloader.class), tempFolder, storageSwitch);
   }
 
   @Test
@@ -98,6 +107,13 @@ class GlobalStorageUpdateExecutorTests {
     assertThat(serverInfos.getVersion()).isEqualTo("6.7");
   }
 
+  @Test
+  void onlyReplaceStorageInSwitch() throws Exception {
+    globalUpdate.update(PROGRESS);
+
+    assertThat(storageExistsBeforeAndAfterSwitch).containsExactly(false, true);
+  }
+
   @Test
   void dontCopyOnError() throws IOException {
     Files.createDirectories(destDir);
@@ -108,6 +124,7 @@ class GlobalStorageUpdateExecutorTests {
     assertThat(Files.exists(destDir.resolve("test"))).isTrue();
     // tmp cleaned
     assertThat(Files.exists(tempDir.toPath())).isFalse();
+    assertThat(storageExistsBeforeAndAfterSwitch).isEmpty();
 
   }
 }
@@ -50,6 +50,7 @@ import org.sonarsource.sonarlint.core.container.connected.update.SettingsDownloa
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.container.storage.StorageReader;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectConfiguration;
@@ -65,8 +66,10 @@ import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class ProjectStorageUpdateExecutorTests {
@@ -87,6 +90,7 @@ class ProjectStorageUpdateExecutorTests {
   private final IssueStore issueStore = new InMemoryIssueStore();
   private final IssueStoreFactory issueStoreFactory = mock(IssueStoreFactory.class);
   private final ServerIssueUpdater serverIssueUpdater = mock(ServerIssueUpdater.class);
+  private final StorageSwitch storageSwitch = mock(StorageSwitch.class);
   private ProjectConfigurationDownloader projectConfigurationDownloader;
   private final ProjectFileListDownloader projectFileListDownloader = mock(ProjectFileListDownloader.class);
 
@@ -111,6 +115,10 @@ class ProjectStorageUpdateExecutorTests {
     mockServer.addProtobufResponse("/api/settings/values.protobufcomponent=" + MODULE_KEY_WITH_BRANCH_URLENCODED, response);
 
     when(tempFolder.newDir()).thenReturn(tempDir.toFile());
+    doAnswer(invocation -> {
+      invocation.getArgument(0, Runnable.class).run();
+      return null;
+    }).when(storageSwitch).run(any(Runnable.class));
     org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties.Builder propBuilder = GlobalProperties.newBuilder();
     propBuilder.putProperties("sonar.qualitygate", "2");
     propBuilder.putProperties("sonar.core.version", "6.7.1.23");
@@ -128,7 +136,7 @@ class ProjectStorageUpdateExecutorTests {
     projectConfigurationDownloader = new ProjectConfigurationDownloader(moduleHierarchy, new ProjectQualityProfilesDownloader(mockServer.serverApiHelper(organizationKey)),
       mock(SettingsDownloader.class));
 
-    underTest = new ProjectStorageUpdateExecutor(storageReader, storagePaths, tempFolder, projectConfigurationDownloader, projectFileListDownloader, serverIssueUpdater);
+    underTest = new ProjectStorageUpdateExecutor(storageReader, storagePaths, tempFolder, projectConfigurationDownloader, projectFileListDownloader, serverIssueUpdater, storageSwitch);
   }
 
   @ParameterizedTest(name = "organizationKey=[{0}]")
@@ -152,6 +160,9 @@ class ProjectStorageUpdateExecutorTests {
     assertThat(thrown)
       .hasMessage("Unable to parse WS response: Protocol message tag had invalid wire type.")
       .hasCauseInstanceOf(InvalidProtocolBufferException.class);
+    // live storage is not replaced by the incomplete snapshot
+    verifyNoInteractions(storageSwitch);
+    assertThat(storageDir).doesNotExist();
   }
 
   @ParameterizedTest(name = "organizationKey=[{0}]")
@@ -238,10 +249,11 @@ class ProjectStorageUpdateExecutorTests {
       .thenReturn(Arrays.asList(fileIssue1, fileIssue2, anotherFileIssue));
 
     underTest = new ProjectStorageUpdateExecutor(storageReader, storagePaths, tempFolder, projectConfigurationDownloader,
-      projectFileListDownloader, serverIssueUpdater);
+      projectFileListDownloader, serverIssueUpdater, storageSwitch);
     underTest.update(MODULE_KEY_WITH_BRANCH, false, PROGRESS);
 
     verify(serverIssueUpdater).updateServerIssues(eq(MODULE_KEY_WITH_BRANCH), any(ProjectConfiguration.class), any(Path.class), eq(false), any(ProgressWrapper.class));
+    verify(storageSwitch).run(any(Runnable.class));
   }
 
   @ParameterizedTest(name = "organizationKey=[{0}]")
@@ -252,7 +264,7 @@ class ProjectStorageUpdateExecutorTests {
 
     Path temp = tempFolder.newDir().toPath();
     underTest = new ProjectStorageUpdateExecutor(storageReader, storagePaths, tempFolder, projectConfigurationDownloader,
-      projectFileListDownloader, serverIssueUpdater);
+      projectFileListDownloader, serverIssueUpdater, storageSwitch);
     ProjectConfiguration.Builder projectConfigurationBuilder = ProjectConfiguration.newBuilder();
     projectConfigurationBuilder.putModulePathByKey("rootModule", "");
     projectConfigurationBuilder.putModulePathByKey("moduleA", "A");
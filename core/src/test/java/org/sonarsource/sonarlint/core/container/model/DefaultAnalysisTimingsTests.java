@@ -0,0 +1,66 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.model;
+
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.Phase;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisTimings.SensorStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefaultAnalysisTimingsTests {
+
+  private static final long ONE_SECOND_AGO = 1_000_000_000L;
+
+  @Test
+  void should_not_record_when_disabled() {
+    DefaultAnalysisTimings timings = new DefaultAnalysisTimings(new MapSettings().asConfig());
+
+    assertThat(timings.isEnabled()).isFalse();
+    assertThat(timings.start()).isZero();
+    timings.record(Phase.FILE_INDEXING, System.nanoTime() - ONE_SECOND_AGO);
+    timings.recordSensor("sensor", SensorStep.EXECUTE, System.nanoTime() - ONE_SECOND_AGO);
+
+    assertThat(timings.fileIndexingMs()).isZero();
+    assertThat(timings.sensors()).isEmpty();
+  }
+
+  @Test
+  void should_cumulate_phases_and_sensor_steps_when_enabled() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(AnalysisTimings.ENABLED_PROPERTY, "true");
+    DefaultAnalysisTimings timings = new DefaultAnalysisTimings(settings.asConfig());
+
+    timings.record(Phase.ISSUE_FILTERING, System.nanoTime() - ONE_SECOND_AGO);
+    timings.record(Phase.ISSUE_FILTERING, System.nanoTime() - ONE_SECOND_AGO);
+    timings.recordSensor("sensor", SensorStep.DESCRIBE, System.nanoTime() - ONE_SECOND_AGO);
+    timings.recordSensor("sensor", SensorStep.EXECUTE, System.nanoTime() - 2 * ONE_SECOND_AGO);
+
+    assertThat(timings.isEnabled()).isTrue();
+    assertThat(timings.issueFilteringMs()).isGreaterThanOrEqualTo(2000);
+    assertThat(timings.issueDeliveryMs()).isZero();
+    assertThat(timings.sensors()).containsOnlyKeys("sensor");
+    assertThat(timings.sensors().get("sensor").describeMs()).isGreaterThanOrEqualTo(1000);
+    assertThat(timings.sensors().get("sensor").optimizeMs()).isZero();
+    assertThat(timings.sensors().get("sensor").executeMs()).isGreaterThanOrEqualTo(2000);
+  }
+}
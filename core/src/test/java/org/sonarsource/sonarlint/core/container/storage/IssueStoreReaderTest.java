@@ -20,6 +20,8 @@
 package org.sonarsource.sonarlint.core.container.storage;
 
 import com.google.common.base.Objects;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,6 +33,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
 import org.sonarsource.sonarlint.core.container.connected.InMemoryIssueStore;
@@ -46,6 +49,8 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.Location;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.TextRange;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -60,9 +65,15 @@ public class IssueStoreReaderTest {
   private final ProjectBinding projectBinding = new ProjectBinding(PROJECT_KEY, "", "");
   @Rule
   public ExpectedException exception = ExpectedException.none();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private Path projectConfigurationPath;
 
   @Before
-  public void setUp() {
+  public void setUp() throws IOException {
+    projectConfigurationPath = temp.newFile().toPath();
+    when(storagePaths.getProjectConfigurationPath(anyString())).thenReturn(temp.getRoot().toPath().resolve("missing"));
+    when(storagePaths.getProjectConfigurationPath(PROJECT_KEY)).thenReturn(projectConfigurationPath);
     IssueStoreFactory issueStoreFactory = mock(IssueStoreFactory.class);
     Path storagePath = mock(Path.class);
     when(storagePaths.getServerIssuesPath(PROJECT_KEY)).thenReturn(storagePath);
@@ -269,6 +280,67 @@ public class IssueStoreReaderTest {
     assertThat(serverIssue.getFlows().get(0).locations().get(2).getFilePath()).isEqualTo("src/path2");
   }
 
+  @Test
+  public void should_cache_issues_until_invalidated() {
+    setModulePaths(Collections.singletonMap(PROJECT_KEY, ""));
+    issueStore.save(Arrays.asList(createServerIssue("src/path1"), createServerIssue("src/path2")));
+
+    List<ServerIssue> issues = issueStoreReader.getServerIssues(projectBinding, "src/path1");
+    assertThat(issueStoreReader.getServerIssues(projectBinding, "src/path1")).isSameAs(issues);
+    List<ServerIssue> otherIssues = issueStoreReader.getServerIssues(projectBinding, "src/path2");
+
+    issueStoreReader.invalidate(projectBinding, "src/path1");
+    assertThat(issueStoreReader.getServerIssues(projectBinding, "src/path1")).isNotSameAs(issues).hasSize(1);
+    assertThat(issueStoreReader.getServerIssues(projectBinding, "src/path2")).isSameAs(otherIssues);
+
+    issueStore.save(Collections.singletonList(createServerIssue("src/path3")));
+    issueStoreReader.invalidate(PROJECT_KEY);
+    assertThat(issueStoreReader.getServerIssues(projectBinding, "src/path2")).isEmpty();
+  }
+
+  @Test
+  public void should_not_serve_cached_issues_of_removed_project() throws IOException {
+    setModulePaths(Collections.singletonMap(PROJECT_KEY, ""));
+    issueStore.save(Collections.singletonList(createServerIssue("src/path1")));
+    issueStoreReader.getServerIssues(projectBinding, "src/path1");
+
+    Files.delete(projectConfigurationPath);
+    when(storageReader.readProjectConfig(PROJECT_KEY)).thenReturn(null);
+
+    assertThatThrownBy(() -> issueStoreReader.getServerIssues(projectBinding, "src/path1"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("project not in storage: " + PROJECT_KEY);
+    assertThat(issueStoreReader.cachedFileCount()).isZero();
+  }
+
+  @Test
+  public void should_not_reuse_issues_cached_for_another_ide_path() {
+    setModulePaths(Collections.singletonMap(PROJECT_KEY, ""));
+    issueStore.save(Collections.singletonList(createServerIssue("src/path1")));
+
+    issueStoreReader.getServerIssues(projectBinding, "src/path1");
+
+    assertThat(issueStoreReader.getServerIssues(new ProjectBinding(PROJECT_KEY, "", "local"), "local/src/path1"))
+      .extracting(ServerIssue::getFilePath)
+      .containsOnly("local/src/path1");
+  }
+
+  @Test
+  public void should_limit_cache_size() {
+    setModulePaths(Collections.singletonMap(PROJECT_KEY, ""));
+    issueStore.save(Collections.singletonList(createServerIssue("src/path0")));
+
+    List<ServerIssue> issues = issueStoreReader.getServerIssues(projectBinding, "src/path0");
+    for (int i = 1; i <= IssueStoreReader.MAX_CACHED_FILES; i++) {
+      issueStoreReader.getServerIssues(projectBinding, "src/path" + i);
+    }
+
+    assertThat(issueStoreReader.getServerIssues(projectBinding, "src/path0"))
+      .isNotSameAs(issues)
+      .usingElementComparator(simpleComparator)
+      .containsOnly(createApiIssue("src/path0"));
+  }
+
   private final Comparator<ServerIssue> simpleComparator = (o1, o2) -> {
     if (Objects.equal(o1.getFilePath(), o2.getFilePath())) {
       return 0;
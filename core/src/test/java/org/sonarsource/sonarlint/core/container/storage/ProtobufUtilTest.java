@@ -31,7 +31,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsSnapshot;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.metrics.Metrics;
+import org.sonarsource.sonarlint.core.metrics.MetricsRegistry;
+import org.sonarsource.sonarlint.core.metrics.MetricsScope;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,6 +49,8 @@ import static org.sonarsource.sonarlint.core.container.storage.ProtobufUtil.read
 public class ProtobufUtilTest {
   @Rule
   public ExpectedException exception = ExpectedException.none();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
 
   @Test
   public void test_readMessages_empty() throws IOException {
@@ -88,6 +96,23 @@ public class ProtobufUtilTest {
     ProtobufUtil.writeToFile(ServerIssue.newBuilder().build(), p);
   }
 
+  @Test
+  public void test_read_and_write_metrics() throws IOException {
+    MetricsRegistry metrics = new MetricsRegistry();
+    try (MetricsScope scope = Metrics.openScope(metrics)) {
+      ServerIssue issue = ServerIssue.newBuilder().setKey("key").build();
+      Path p = temp.getRoot().toPath().resolve("issue.pb");
+      ProtobufUtil.writeToFile(issue, p);
+      assertThat(ProtobufUtil.readFile(p, ServerIssue.parser())).isEqualTo(issue);
+    }
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.counter(MetricNames.STORAGE_WRITE_FILES)).isEqualTo(1);
+    assertThat(snapshot.counter(MetricNames.STORAGE_WRITE_BYTES)).isEqualTo(5);
+    assertThat(snapshot.counter(MetricNames.STORAGE_READ_FILES)).isEqualTo(1);
+    assertThat(snapshot.counter(MetricNames.STORAGE_READ_BYTES)).isEqualTo(5);
+  }
+
   @Test
   public void test_writeMessage_error() throws IOException {
     OutputStream out = mock(OutputStream.class);
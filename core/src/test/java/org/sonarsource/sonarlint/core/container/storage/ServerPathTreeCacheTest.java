@@ -0,0 +1,120 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectComponents;
+import org.sonarsource.sonarlint.core.util.ReversePathTree;
+
+import static java.nio.file.Files.getLastModifiedTime;
+import static java.nio.file.Files.setLastModifiedTime;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerPathTreeCacheTest {
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path componentList;
+  private StorageReader storageReader;
+  private ServerPathTreeCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    componentList = temp.getRoot().toPath().resolve("components.pb");
+    StoragePaths storagePaths = mock(StoragePaths.class);
+    when(storagePaths.getComponentListPath("project")).thenReturn(componentList);
+    when(storagePaths.getStorageStatusPath()).thenReturn(temp.getRoot().toPath().resolve("storage_status.pb"));
+    storageReader = spy(new StorageReader(storagePaths));
+    cache = new ServerPathTreeCache(storagePaths, storageReader);
+  }
+
+  @Test
+  public void should_read_components_once() {
+    writeComponents("sq/src/main/java/File.java");
+
+    ReversePathTree tree = cache.get("project");
+
+    assertThat(tree.findLongestSuffixMatches(Paths.get("src/main/java/File.java")).matchPrefixes()).containsExactly(Paths.get("sq"));
+    assertThat(cache.get("project")).isSameAs(tree);
+    verify(storageReader, times(1)).readProjectComponents("project");
+  }
+
+  @Test
+  public void should_rebuild_tree_when_components_change() throws Exception {
+    writeComponents("sq/src/main/java/File.java");
+    ReversePathTree tree = cache.get("project");
+
+    writeComponents("other/src/main/java/File.java");
+    setLastModifiedTime(componentList, FileTime.fromMillis(0));
+    ReversePathTree newTree = cache.get("project");
+
+    assertThat(newTree).isNotSameAs(tree);
+    assertThat(newTree.findLongestSuffixMatches(Paths.get("src/main/java/File.java")).matchPrefixes()).containsExactly(Paths.get("other"));
+  }
+
+  @Test
+  public void should_rebuild_tree_after_clear() {
+    writeComponents("sq/src/main/java/File.java");
+    ReversePathTree tree = cache.get("project");
+
+    cache.clear();
+
+    assertThat(cache.get("project")).isNotSameAs(tree);
+  }
+
+  @Test
+  public void should_rebuild_tree_after_invalidate_even_if_components_look_unchanged() throws Exception {
+    writeComponents("sq/src/main/java/File.java");
+    FileTime lastModifiedTime = getLastModifiedTime(componentList);
+    ReversePathTree tree = cache.get("project");
+
+    // same size, and within the granularity of the modification time
+    writeComponents("qs/src/main/java/File.java");
+    setLastModifiedTime(componentList, lastModifiedTime);
+    cache.invalidate("project");
+    ReversePathTree newTree = cache.get("project");
+
+    assertThat(newTree).isNotSameAs(tree);
+    assertThat(newTree.findLongestSuffixMatches(Paths.get("src/main/java/File.java")).matchPrefixes()).containsExactly(Paths.get("qs"));
+  }
+
+  @Test
+  public void should_fail_if_no_component_list() {
+    assertThatThrownBy(() -> cache.get("project")).isInstanceOf(StorageException.class);
+  }
+
+  private void writeComponents(String... components) {
+    ProtobufUtil.writeToFile(ProjectComponents.newBuilder().addAllComponent(Arrays.asList(components)).build(), componentList);
+  }
+}
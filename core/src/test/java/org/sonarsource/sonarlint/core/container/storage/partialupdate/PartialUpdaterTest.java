@@ -21,8 +21,12 @@ package org.sonarsource.sonarlint.core.container.storage.partialupdate;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -35,17 +39,25 @@ import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
 import org.sonarsource.sonarlint.core.container.connected.update.ProjectListDownloader;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.StorageSwitch;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectList;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -66,11 +78,17 @@ public class PartialUpdaterTest {
   private final Sonarlint.ProjectConfiguration projectConfiguration = Sonarlint.ProjectConfiguration.newBuilder().build();
   private final ProjectBinding projectBinding = new ProjectBinding("module", "", "");
 
+  private final List<Runnable> switchActions = new ArrayList<>();
+  private final StorageSwitch storageSwitch = switchAction -> {
+    switchActions.add(switchAction);
+    switchAction.run();
+  };
+
   private PartialUpdater updater;
 
   @Before
   public void setUp() {
-    updater = new PartialUpdater(issueStoreFactory, downloader, storagePaths, projectListDownloader, issueStorePaths, tempFolder);
+    updater = new PartialUpdater(issueStoreFactory, downloader, storagePaths, projectListDownloader, issueStorePaths, tempFolder, storageSwitch);
     when(issueStoreFactory.apply(any(Path.class))).thenReturn(issueStore);
   }
 
@@ -85,6 +103,7 @@ public class PartialUpdaterTest {
     updater.updateFileIssues(projectBinding, projectConfiguration, "file", false, PROGRESS);
 
     verify(issueStore).save(anyList());
+    assertThat(switchActions).hasSize(1);
   }
 
   @Test
@@ -104,6 +123,68 @@ public class PartialUpdaterTest {
     assertThrows(DownloadException.class, () -> updater.updateFileIssues(projectBinding, projectConfiguration, "file", false, PROGRESS));
   }
 
+  @Test
+  public void update_issues_of_several_files_with_one_save() throws IOException {
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "file1")).thenReturn("module:file1");
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "file2")).thenReturn("module:file2");
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "unknown")).thenReturn(null);
+    when(storagePaths.getServerIssuesPath("module")).thenReturn(temp.getRoot().toPath());
+    when(storagePaths.getComponentListPath("module")).thenReturn(componentList(100));
+    when(downloader.download(eq("module:file1"), eq(projectConfiguration), eq(false), any(ProgressWrapper.class)))
+      .thenReturn(Collections.singletonList(ServerIssue.newBuilder().setKey("issue1").build()));
+    when(downloader.download(eq("module:file2"), eq(projectConfiguration), eq(false), any(ProgressWrapper.class)))
+      .thenReturn(Collections.singletonList(ServerIssue.newBuilder().setKey("issue2").build()));
+
+    updater.updateFileIssues(projectBinding, projectConfiguration, Arrays.asList("file1", "file2", "unknown"), false, PROGRESS);
+
+    verify(issueStore).save(argThat(issues -> issues.stream().map(ServerIssue::getKey).collect(Collectors.toSet()).equals(new HashSet<>(Arrays.asList("issue1", "issue2")))));
+    verify(downloader, never()).download(eq("module"), any(), anyBoolean(), any());
+    assertThat(switchActions).hasSize(1);
+  }
+
+  @Test
+  public void update_issues_of_most_files_by_project() throws IOException {
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "file1")).thenReturn("module:file1");
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "file2")).thenReturn("module:file2");
+    when(storagePaths.getServerIssuesPath("module")).thenReturn(temp.newFolder().toPath());
+    when(storagePaths.getComponentListPath("module")).thenReturn(componentList(5));
+    when(downloader.download("module", projectConfiguration, false, PROGRESS)).thenReturn(Collections.emptyList());
+
+    updater.updateFileIssues(projectBinding, projectConfiguration, Arrays.asList("file1", "file2"), false, PROGRESS);
+
+    verify(downloader).download("module", projectConfiguration, false, PROGRESS);
+    verify(downloader, never()).download(eq("module:file1"), any(), anyBoolean(), any());
+    assertThat(switchActions).hasSize(1);
+  }
+
+  @Test
+  public void keep_downloaded_issues_of_several_files_when_some_fail() throws IOException {
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "file1")).thenReturn("module:file1");
+    when(issueStorePaths.idePathToFileKey(projectConfiguration, projectBinding, "file2")).thenReturn("module:file2");
+    when(storagePaths.getServerIssuesPath("module")).thenReturn(temp.getRoot().toPath());
+    when(storagePaths.getComponentListPath("module")).thenReturn(componentList(100));
+    when(downloader.download(eq("module:file1"), eq(projectConfiguration), eq(false), any(ProgressWrapper.class)))
+      .thenReturn(Collections.singletonList(ServerIssue.newBuilder().setKey("issue1").build()));
+    when(downloader.download(eq("module:file2"), eq(projectConfiguration), eq(false), any(ProgressWrapper.class)))
+      .thenThrow(new IllegalStateException("boom"));
+
+    DownloadException thrown = assertThrows(DownloadException.class,
+      () -> updater.updateFileIssues(projectBinding, projectConfiguration, Arrays.asList("file1", "file2"), false, PROGRESS));
+
+    assertThat(thrown).hasMessage("Failed to update issues of 1 file(s): boom");
+    verify(issueStore).save(argThat(issues -> issues.size() == 1 && issues.get(0).getKey().equals("issue1")));
+  }
+
+  private Path componentList(int fileCount) throws IOException {
+    Sonarlint.ProjectComponents.Builder components = Sonarlint.ProjectComponents.newBuilder();
+    for (int i = 0; i < fileCount; i++) {
+      components.addComponent("file" + i);
+    }
+    Path path = temp.newFolder().toPath().resolve(StoragePaths.COMPONENT_LIST_PB);
+    ProtobufUtil.writeToFile(components.build(), path);
+    return path;
+  }
+
   @Test
   public void update_file_issues_by_project() throws IOException {
     ServerIssue issue = ServerIssue.newBuilder().setKey("issue1").build();
@@ -115,20 +196,29 @@ public class PartialUpdaterTest {
     updater.updateFileIssues(projectBinding.projectKey(), projectConfiguration, false, PROGRESS);
 
     verify(issueStore).save(anyList());
+    assertThat(switchActions).hasSize(1);
   }
 
   @Test
   public void error_downloading_modules() {
     when(storagePaths.getGlobalStorageRoot()).thenReturn(temp.getRoot().toPath());
-    doThrow(IllegalArgumentException.class).when(projectListDownloader).fetchTo(eq(temp.getRoot().toPath()), any(ProgressWrapper.class));
+    doThrow(IllegalArgumentException.class).when(projectListDownloader).fetchTo(any(Path.class), any(ProgressWrapper.class));
 
     assertThrows(DownloadException.class, () -> updater.updateProjectList(PROGRESS));
+    assertThat(switchActions).isEmpty();
   }
 
   @Test
   public void update_module_list() {
     when(storagePaths.getGlobalStorageRoot()).thenReturn(temp.getRoot().toPath());
+    doAnswer(invocation -> {
+      ProtobufUtil.writeToFile(ProjectList.newBuilder().build(), invocation.getArgument(0, Path.class).resolve(StoragePaths.PROJECT_LIST_PB));
+      return null;
+    }).when(projectListDownloader).fetchTo(any(Path.class), any(ProgressWrapper.class));
+
     updater.updateProjectList(PROGRESS);
-    verify(projectListDownloader).fetchTo(eq(temp.getRoot().toPath()), any(ProgressWrapper.class));
+
+    assertThat(temp.getRoot().toPath().resolve(StoragePaths.PROJECT_LIST_PB)).exists();
+    assertThat(switchActions).hasSize(1);
   }
 }
@@ -0,0 +1,116 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.MockWebServerExtension;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+import org.sonarsource.sonarlint.core.tracking.IssueTrackerImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrEventsTests {
+
+  @RegisterExtension
+  static MockWebServerExtension mockServer = new MockWebServerExtension();
+
+  @TempDir
+  Path temp;
+
+  @Test
+  void should_only_be_recording_while_a_recording_is_running() {
+    assertThat(JfrEvents.isRecording()).isFalse();
+    try (Recording recording = new Recording()) {
+      recording.start();
+      assertThat(JfrEvents.isRecording()).isTrue();
+      recording.stop();
+    }
+    assertThat(JfrEvents.isRecording()).isFalse();
+  }
+
+  @Test
+  void should_record_storage_events() throws IOException {
+    ServerIssue issue = ServerIssue.newBuilder().setKey("key").build();
+    Path file = temp.resolve("issue.pb");
+
+    List<RecordedEvent> events = record(() -> {
+      ProtobufUtil.writeToFile(issue, file);
+      ProtobufUtil.readFile(file, ServerIssue.parser());
+    });
+
+    RecordedEvent write = single(events, "org.sonarsource.sonarlint.StorageWrite");
+    assertThat(write.getString("path")).isEqualTo(file.toString());
+    assertThat(write.getLong("bytes")).isEqualTo(issue.getSerializedSize());
+    RecordedEvent read = single(events, "org.sonarsource.sonarlint.StorageRead");
+    assertThat(read.getString("path")).isEqualTo(file.toString());
+    assertThat(read.getLong("bytes")).isEqualTo(issue.getSerializedSize());
+  }
+
+  @Test
+  void should_record_http_requests_without_query_parameters() throws IOException {
+    mockServer.addStringResponse("/api/system/status?foo=bar", "{\"status\": \"UP\"}");
+
+    List<RecordedEvent> events = record(() -> mockServer.serverApiHelper().rawGet("api/system/status?foo=bar").close());
+
+    RecordedEvent request = single(events, "org.sonarsource.sonarlint.HttpRequest");
+    assertThat(request.getString("method")).isEqualTo("GET");
+    assertThat(request.getString("path")).isEqualTo("api/system/status");
+    assertThat(request.getInt("status")).isEqualTo(200);
+    assertThat(request.getLong("bytes")).isEqualTo(16);
+  }
+
+  @Test
+  void should_record_issue_tracking_rounds() throws IOException {
+    List<RecordedEvent> events = record(() -> new IssueTrackerImpl().apply(Collections.emptyList(), Collections.emptyList(), false));
+
+    RecordedEvent tracking = single(events, "org.sonarsource.sonarlint.IssueTracking");
+    assertThat(tracking.getInt("baseIssueCount")).isZero();
+    assertThat(tracking.getInt("rawIssueCount")).isZero();
+    assertThat(tracking.getInt("matchedIssueCount")).isZero();
+  }
+
+  private List<RecordedEvent> record(Runnable runnable) throws IOException {
+    Path dump = temp.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.start();
+      runnable.run();
+      recording.stop();
+      recording.dump(dump);
+    }
+    return RecordingFile.readAllEvents(dump);
+  }
+
+  private static RecordedEvent single(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> matching = events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    assertThat(matching).hasSize(1);
+    return matching.get(0);
+  }
+}
@@ -19,15 +19,19 @@
  */
 package org.sonarsource.sonarlint.core.log;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput.Level;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
-import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class LogOutputDelegatorTest {
   private LogOutputDelegator delegator = new LogOutputDelegator();
@@ -50,7 +54,30 @@ public class LogOutputDelegatorTest {
     delegator.setTarget(output);
     delegator.setTarget(null);
     delegator.log("asd", Level.DEBUG);
-    verifyZeroInteractions(output);
+    verify(output, never()).log(Mockito.anyString(), Mockito.any());
+  }
+
+  @Test
+  public void should_filter_levels_more_verbose_than_enabled_level() {
+    LogOutput infoOutput = mock(LogOutput.class);
+    Mockito.when(infoOutput.enabledLevel()).thenReturn(Level.INFO);
+    delegator.setTarget(infoOutput);
+
+    delegator.log("debug", Level.DEBUG);
+    delegator.log("info", Level.INFO);
+    delegator.log("error", Level.ERROR);
+
+    assertThat(delegator.isEnabled(Level.DEBUG)).isFalse();
+    assertThat(delegator.isEnabled(Level.WARN)).isTrue();
+    verify(infoOutput).enabledLevel();
+    verify(infoOutput).log("info", Level.INFO);
+    verify(infoOutput).log("error", Level.ERROR);
+    verifyNoMoreInteractions(infoOutput);
+  }
+
+  @Test
+  public void should_not_be_enabled_when_not_set() {
+    assertThat(delegator.isEnabled(Level.ERROR)).isFalse();
   }
 
   @Test
@@ -59,6 +86,91 @@ public class LogOutputDelegatorTest {
     delegator.log("msg", Level.ERROR, new NullPointerException("error"));
     verify(output).log("msg", Level.ERROR);
     verify(output).log(Mockito.startsWith("java.lang.NullPointerException: error"), Mockito.eq(Level.ERROR));
+    verify(output).enabledLevel();
     verifyNoMoreInteractions(output);
   }
+
+  @Test
+  public void should_restore_previous_target_when_scope_is_closed() {
+    LogOutput scopedOutput = mock(LogOutput.class);
+    delegator.setTarget(output);
+
+    try (LogScope scope = delegator.openScope(scopedOutput)) {
+      delegator.log("in scope", Level.DEBUG);
+    }
+    delegator.log("after scope", Level.DEBUG);
+
+    verify(scopedOutput).log("in scope", Level.DEBUG);
+    verify(output).log("after scope", Level.DEBUG);
+    verify(output, never()).log("in scope", Level.DEBUG);
+  }
+
+  @Test
+  public void should_discard_logs_of_scope_without_output() {
+    delegator.setTarget(output);
+
+    try (LogScope scope = delegator.openScope(null)) {
+      assertThat(delegator.isEnabled(Level.ERROR)).isFalse();
+      delegator.log("in scope", Level.ERROR);
+    }
+
+    verify(output, never()).log(Mockito.anyString(), Mockito.any());
+  }
+
+  @Test
+  public void should_isolate_scopes_of_concurrent_threads() throws InterruptedException {
+    LogOutput otherOutput = mock(LogOutput.class);
+    CyclicBarrier bothInScope = new CyclicBarrier(2);
+
+    Thread thread1 = new Thread(() -> logInScope(output, "thread1", bothInScope));
+    Thread thread2 = new Thread(() -> logInScope(otherOutput, "thread2", bothInScope));
+    thread1.start();
+    thread2.start();
+    thread1.join();
+    thread2.join();
+
+    verify(output).log("thread1", Level.INFO);
+    verify(output, never()).log("thread2", Level.INFO);
+    verify(otherOutput).log("thread2", Level.INFO);
+    verify(otherOutput, never()).log("thread1", Level.INFO);
+  }
+
+  @Test
+  public void threads_outliving_a_scope_should_not_log_to_its_output() throws InterruptedException {
+    LogOutput scopedOutput = mock(LogOutput.class);
+    delegator.setTarget(output);
+    CountDownLatch scopeClosed = new CountDownLatch(1);
+    Thread child;
+
+    try (LogScope scope = delegator.openScope(scopedOutput)) {
+      child = new Thread(() -> {
+        delegator.log("during scope", Level.INFO);
+        await(scopeClosed);
+        delegator.log("after scope", Level.INFO);
+      });
+      child.start();
+    }
+    scopeClosed.countDown();
+    child.join();
+
+    verify(scopedOutput, never()).log("after scope", Level.INFO);
+    verify(output).log("after scope", Level.INFO);
+  }
+
+  private void logInScope(LogOutput output, String message, CyclicBarrier barrier) {
+    try (LogScope scope = delegator.openScope(output)) {
+      barrier.await(10, TimeUnit.SECONDS);
+      delegator.log(message, Level.INFO);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 }
@@ -35,6 +35,34 @@ public class MessageFormatTest {
     assertThat(MessageFormat.format("test {} msg {}", new Object[] {"a", 3})).isEqualTo("test a msg 3");
   }
 
+  @Test
+  public void testFormatWithoutArray() {
+    assertThat(MessageFormat.format("test {} msg", "a")).isEqualTo("test a msg");
+    assertThat(MessageFormat.format("test {} msg {}", "a", 3)).isEqualTo("test a msg 3");
+    assertThat(MessageFormat.format("test {} msg", (Object) new String[] {"s1", "s2"})).isEqualTo("test [s1, s2] msg");
+  }
+
+  @Test
+  public void testReentrantFormat() {
+    Object nested = new Object() {
+      @Override
+      public String toString() {
+        return MessageFormat.format("nested {}", "b");
+      }
+    };
+    assertThat(MessageFormat.format("outer {} {}", "a", nested)).isEqualTo("outer a nested b");
+    assertThat(MessageFormat.format("outer {}", "c")).isEqualTo("outer c");
+  }
+
+  @Test
+  public void testHugeMessageDoesNotAffectNextOnes() {
+    char[] chars = new char[MessageFormat.MAX_REUSED_BUFFER_CAPACITY * 2];
+    Arrays.fill(chars, 'x');
+    String huge = new String(chars);
+    assertThat(MessageFormat.format("{}", huge)).isEqualTo(huge);
+    assertThat(MessageFormat.format("small {}", 1)).isEqualTo("small 1");
+  }
+
   @Test
   public void testTooManyPlaceholders() {
     assertThat(MessageFormat.format("test {} msg {} {}", new Object[] {"a", 3})).isEqualTo("test a msg 3 {}");
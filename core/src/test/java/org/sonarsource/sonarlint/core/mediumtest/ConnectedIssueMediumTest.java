@@ -27,6 +27,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.junit.AfterClass;
@@ -37,15 +38,21 @@ import org.junit.rules.TemporaryFolder;
 import org.sonarsource.sonarlint.core.ConnectedSonarLintEngineImpl;
 import org.sonarsource.sonarlint.core.NodeJsHelper;
 import org.sonarsource.sonarlint.core.TestUtils;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueDispatcher;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.BatchIssueListener;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedRuleDetails;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.analysis.ShardedAnalysis;
+import org.sonarsource.sonarlint.core.container.analysis.cache.AnalysisResultCache;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.InputFileContents;
 import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.container.storage.StoragePaths;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
@@ -269,6 +276,99 @@ public class ConnectedIssueMediumTest {
       tuple("java:S1481", 3, inputFile.getPath(), "BLOCKER"));
   }
 
+  @Test
+  public void simpleJavaBindedWithContentBuffer() throws Exception {
+    ClientInputFile inputFile = prepareJavaInputFile();
+
+    final List<Issue> issues = new ArrayList<>();
+    sonarlint.analyze(ConnectedAnalysisConfiguration.builder()
+      .setProjectKey(JAVA_MODULE_KEY)
+      .setBaseDir(baseDir.toPath())
+      .addInputFile(inputFile)
+      .putExtraProperty(InputFileContents.ENABLED_PROPERTY, "true")
+      .build(),
+      new StoreIssueListener(issues), null, null);
+
+    assertThat(issues).extracting("ruleKey", "startLine", "inputFile.path", "severity").containsOnly(
+      tuple("java:S106", 4, inputFile.getPath(), "MAJOR"),
+      tuple("java:S1220", null, inputFile.getPath(), "MINOR"),
+      tuple("java:S1481", 3, inputFile.getPath(), "BLOCKER"));
+  }
+
+  @Test
+  public void simpleJavaBindedWithAnalysisCache() throws Exception {
+    ClientInputFile inputFile = prepareJavaInputFile();
+    ConnectedAnalysisConfiguration config = ConnectedAnalysisConfiguration.builder()
+      .setProjectKey(JAVA_MODULE_KEY)
+      .setBaseDir(baseDir.toPath())
+      .addInputFile(inputFile)
+      .putExtraProperty(AnalysisResultCache.ENABLED_PROPERTY, "true")
+      .putExtraProperty(AnalysisResultCache.LANGUAGES_PROPERTY, "java")
+      .build();
+    long hitsBefore = sonarlint.getMetrics().snapshot().counter(MetricNames.ANALYSIS_CACHE_HITS);
+
+    final List<Issue> analyzedIssues = new ArrayList<>();
+    sonarlint.analyze(config, new StoreIssueListener(analyzedIssues), null, null);
+    final List<Issue> replayedIssues = new ArrayList<>();
+    sonarlint.analyze(config, new StoreIssueListener(replayedIssues), null, null);
+
+    assertThat(sonarlint.getMetrics().snapshot().counter(MetricNames.ANALYSIS_CACHE_HITS)).isEqualTo(hitsBefore + 1);
+    assertThat(replayedIssues).extracting("ruleKey", "startLine", "startLineOffset", "endLine", "endLineOffset", "message", "inputFile.path", "severity")
+      .containsExactlyElementsOf(analyzedIssues.stream()
+        .map(i -> tuple(i.getRuleKey(), i.getStartLine(), i.getStartLineOffset(), i.getEndLine(), i.getEndLineOffset(), i.getMessage(), i.getInputFile().getPath(),
+          i.getSeverity()))
+        .collect(Collectors.toList()))
+      .contains(tuple("java:S1481", 3, 8, 3, 9, "Remove this unused \"x\" local variable.", inputFile.getPath(), "BLOCKER"));
+  }
+
+  @Test
+  public void simpleJavaBindedWithAsyncBatchDelivery() throws Exception {
+    ClientInputFile inputFile = prepareJavaInputFile();
+
+    StoreBatchIssueListener issueListener = new StoreBatchIssueListener();
+    sonarlint.analyze(ConnectedAnalysisConfiguration.builder()
+      .setProjectKey(JAVA_MODULE_KEY)
+      .setBaseDir(baseDir.toPath())
+      .addInputFile(inputFile)
+      .putExtraProperty(IssueDispatcher.ASYNC_PROPERTY, "true")
+      .build(),
+      issueListener, null, null);
+
+    assertThat(issueListener.singleIssues).isEmpty();
+    assertThat(issueListener.batches).isNotEmpty();
+    assertThat(issueListener.batches.stream().flatMap(List::stream)).extracting("ruleKey", "startLine", "inputFile.path").containsOnly(
+      tuple("java:S106", 4, inputFile.getPath()),
+      tuple("java:S1220", null, inputFile.getPath()),
+      tuple("java:S1481", 3, inputFile.getPath()));
+  }
+
+  @Test
+  public void shardedJavaBindedWithAsyncBatchDelivery() throws Exception {
+    ClientInputFile inputFile = prepareJavaInputFile();
+    ClientInputFile otherInputFile = prepareInputFile("Bar.java",
+      "public class Bar {\n"
+        + "  public void bar() {\n"
+        + "    int y;\n"
+        + "  }\n"
+        + "}",
+      false);
+
+    StoreBatchIssueListener issueListener = new StoreBatchIssueListener();
+    sonarlint.analyze(ConnectedAnalysisConfiguration.builder()
+      .setProjectKey(JAVA_MODULE_KEY)
+      .setBaseDir(baseDir.toPath())
+      .addInputFiles(inputFile, otherInputFile)
+      .putExtraProperty(IssueDispatcher.ASYNC_PROPERTY, "true")
+      .putExtraProperty(ShardedAnalysis.SHARDS_PROPERTY, "2")
+      .build(),
+      issueListener, null, null);
+
+    assertThat(issueListener.singleIssues).isEmpty();
+    assertThat(issueListener.batches.stream().flatMap(List::stream)).extracting("ruleKey", "startLine", "inputFile.path").contains(
+      tuple("java:S1481", 3, inputFile.getPath()),
+      tuple("java:S1481", 3, otherInputFile.getPath()));
+  }
+
   @Test
   public void emptyQPJava() throws IOException {
     ClientInputFile inputFile = prepareJavaInputFile();
@@ -312,6 +412,21 @@ public class ConnectedIssueMediumTest {
     return inputFile;
   }
 
+  static class StoreBatchIssueListener implements BatchIssueListener {
+    private final List<List<Issue>> batches = new ArrayList<>();
+    private final List<Issue> singleIssues = new ArrayList<>();
+
+    @Override
+    public void handle(List<Issue> issues) {
+      batches.add(new ArrayList<>(issues));
+    }
+
+    @Override
+    public void handle(Issue issue) {
+      singleIssues.add(issue);
+    }
+  }
+
   static class StoreIssueListener implements IssueListener {
     private final List<Issue> issues;
 
@@ -24,15 +24,22 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
 import org.sonarsource.sonarlint.core.TestUtils;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
@@ -109,6 +116,64 @@ public class LogMediumTest {
     assertThat(logs2.get(LogOutput.Level.DEBUG)).isNotEmpty();
   }
 
+  @Test
+  public void restoreLogOutputAfterAnalysis() throws Exception {
+    ClientInputFile inputFile = prepareInputFile("foo.js", "function foo() {var x;}", false);
+    final Multimap<LogOutput.Level, String> logs2 = Multimaps.synchronizedListMultimap(LinkedListMultimap.create());
+
+    sonarlint.analyze(createConfig(inputFile), createNoOpIssueListener(), createLogOutput(logs2), null);
+    logs.clear();
+    Loggers.get(LogMediumTest.class).info("after analysis");
+
+    assertThat(logs.get(LogOutput.Level.INFO)).containsExactly("after analysis");
+    assertThat(logs2.get(LogOutput.Level.INFO)).doesNotContain("after analysis");
+  }
+
+  @Test
+  public void concurrentAnalysesLogToTheirOwnOutput() throws Exception {
+    ClientInputFile inputFile = prepareInputFile("foo.js", "function foo() {var x;}", false);
+    Multimap<LogOutput.Level, String> logs1 = Multimaps.synchronizedListMultimap(LinkedListMultimap.create());
+    Multimap<LogOutput.Level, String> logs2 = Multimaps.synchronizedListMultimap(LinkedListMultimap.create());
+    CyclicBarrier bothAnalyzing = new CyclicBarrier(2);
+    logs.clear();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> analysis1 = executor.submit(() -> sonarlint.analyze(createConfig(inputFile), createNoOpIssueListener(), createLogOutput(logs1), waitFor(bothAnalyzing)));
+      Future<?> analysis2 = executor.submit(() -> sonarlint.analyze(createConfig(inputFile), createNoOpIssueListener(), createLogOutput(logs2), waitFor(bothAnalyzing)));
+      analysis1.get(1, TimeUnit.MINUTES);
+      analysis2.get(1, TimeUnit.MINUTES);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(logs1.get(LogOutput.Level.DEBUG)).containsOnlyOnce("Start analysis");
+    assertThat(logs2.get(LogOutput.Level.DEBUG)).containsOnlyOnce("Start analysis");
+    assertThat(logs.get(LogOutput.Level.DEBUG)).doesNotContain("Start analysis");
+  }
+
+  /**
+   * Wait for the other analysis on the first cancellation check, so that both analyses run at the same time
+   */
+  private static ProgressMonitor waitFor(CyclicBarrier barrier) {
+    return new ProgressMonitor() {
+      private boolean waited;
+
+      @Override
+      public boolean isCanceled() {
+        if (!waited) {
+          waited = true;
+          try {
+            barrier.await(1, TimeUnit.MINUTES);
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        return false;
+      }
+    };
+  }
+
   private ClientInputFile prepareInputFile(String relativePath, String content, final boolean isTest) throws IOException {
     final File file = new File(baseDir, relativePath);
     FileUtils.write(file, content);
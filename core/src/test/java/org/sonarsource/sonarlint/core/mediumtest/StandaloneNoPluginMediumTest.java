@@ -36,9 +36,12 @@ import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsSnapshot;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneSonarLintEngine;
+import org.sonarsource.sonarlint.core.container.analysis.ShardedAnalysis;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -83,6 +86,31 @@ public class StandaloneNoPluginMediumTest {
     assertThat(results.languagePerFile()).containsEntry(inputFile, Language.JS);
 
     assertThat(sonarlint.getAllRuleDetails()).isEmpty();
+
+    MetricsSnapshot metrics = sonarlint.getMetrics().snapshot();
+    assertThat(metrics.timer(MetricNames.ANALYSIS).count()).isEqualTo(1);
+    assertThat(metrics.counter(MetricNames.ANALYSIS_FILES)).isEqualTo(1);
+    assertThat(metrics.timer(MetricNames.PLUGINS_LOAD).count()).isEqualTo(1);
+    assertThat(metrics.timer(MetricNames.LOCK_READ_WAIT).count()).isPositive();
+  }
+
+  @Test
+  public void analyze_in_shards() throws Exception {
+    ClientInputFile jsFile = prepareInputFile("foo.js", "function foo() {var x;}", false);
+    ClientInputFile javaFile = prepareInputFile("Foo.java", "class Foo {}", false);
+    ClientInputFile pyFile = prepareInputFile("foo.py", "x = 1", false);
+
+    AnalysisResults results = sonarlint.analyze(
+      StandaloneAnalysisConfiguration.builder()
+        .setBaseDir(baseDir.toPath())
+        .addInputFiles(jsFile, javaFile, pyFile)
+        .putExtraProperty(ShardedAnalysis.SHARDS_PROPERTY, "2")
+        .build(),
+      i -> {
+      }, null, null);
+
+    assertThat(results.indexedFileCount()).isEqualTo(3);
+    assertThat(results.languagePerFile()).containsEntry(jsFile, Language.JS).containsEntry(javaFile, Language.JAVA).containsEntry(pyFile, Language.PYTHON);
   }
 
   private ClientInputFile prepareInputFile(String relativePath, String content, final boolean isTest) throws IOException {
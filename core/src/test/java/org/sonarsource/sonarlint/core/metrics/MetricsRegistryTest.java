@@ -0,0 +1,222 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsListener;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsSnapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MetricsRegistryTest {
+
+  private final MetricsRegistry registry = new MetricsRegistry();
+
+  @Test
+  void should_snapshot_counters_gauges_and_timers() {
+    registry.counter("c").increment();
+    registry.counter("c").add(4);
+    registry.registerGauge("g", () -> 42);
+    registry.timer("t").record(10);
+    registry.timer("t").record(30);
+
+    MetricsSnapshot snapshot = registry.snapshot();
+
+    assertThat(snapshot.counters()).containsExactly(entry("c", 5L));
+    assertThat(snapshot.counter("unknown")).isZero();
+    assertThat(snapshot.gauges()).containsExactly(entry("g", 42L));
+    assertThat(snapshot.timer("t").count()).isEqualTo(2);
+    assertThat(snapshot.timer("t").totalNanos()).isEqualTo(40);
+    assertThat(snapshot.timer("t").maxNanos()).isEqualTo(30);
+    assertThat(snapshot.timer("t").meanNanos()).isEqualTo(20);
+    assertThat(snapshot.timer("unknown").count()).isZero();
+  }
+
+  @Test
+  void should_replace_and_unregister_gauges() {
+    registry.registerGauge("g", () -> 1);
+    registry.registerGauge("g", () -> 2);
+    assertThat(registry.snapshot().gauges()).containsExactly(entry("g", 2L));
+
+    registry.unregisterGauge("g");
+    assertThat(registry.snapshot().gauges()).isEmpty();
+  }
+
+  @Test
+  void should_ignore_failing_gauges() {
+    registry.registerGauge("failing", () -> {
+      throw new IllegalStateException("stopped");
+    });
+    registry.registerGauge("ok", () -> 1);
+
+    assertThat(registry.snapshot().gauges()).containsExactly(entry("ok", 1L));
+  }
+
+  @Test
+  void should_notify_listeners_until_removed() {
+    List<String> events = new ArrayList<>();
+    MetricsListener listener = new MetricsListener() {
+      @Override
+      public void counterIncremented(String name, long delta) {
+        events.add(name + "+" + delta);
+      }
+
+      @Override
+      public void timerRecorded(String name, long durationNanos) {
+        events.add(name + "=" + durationNanos);
+      }
+    };
+    registry.counter("before").increment();
+    registry.addListener(listener);
+    registry.counter("c").add(3);
+    registry.timer("t").record(7);
+    registry.removeListener(listener);
+    registry.counter("after").increment();
+
+    assertThat(events).containsExactly("c+3", "t=7");
+  }
+
+  @Test
+  void should_not_propagate_listener_failures() {
+    registry.addListener(new MetricsListener() {
+      @Override
+      public void counterIncremented(String name, long delta) {
+        throw new IllegalStateException("boom");
+      }
+    });
+
+    registry.counter("c").increment();
+
+    assertThat(registry.snapshot().counter("c")).isEqualTo(1);
+  }
+
+  @Test
+  void should_count_concurrent_increments() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 4; i++) {
+      executor.submit(() -> {
+        for (int j = 0; j < 10_000; j++) {
+          registry.counter("c").increment();
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(registry.snapshot().counter("c")).isEqualTo(40_000);
+  }
+
+  @Test
+  void should_record_lock_wait() {
+    ReentrantLock lock = new ReentrantLock();
+    registry.lock(lock, MetricNames.LOCK_READ_WAIT);
+    try {
+      assertThat(lock.isHeldByCurrentThread()).isTrue();
+    } finally {
+      lock.unlock();
+    }
+
+    assertThat(registry.snapshot().timer(MetricNames.LOCK_READ_WAIT).count()).isEqualTo(1);
+  }
+
+  @Test
+  void should_record_analysis() {
+    AnalysisResults results = mock(AnalysisResults.class);
+    when(results.indexedFileCount()).thenReturn(3);
+    when(results.failedAnalysisFiles()).thenReturn(Collections.singletonList(mock(ClientInputFile.class)));
+    List<Issue> issues = new ArrayList<>();
+
+    AnalysisResults returned = registry.recordAnalysis(issues::add, listener -> {
+      listener.handle(mock(Issue.class));
+      listener.handle(mock(Issue.class));
+      return results;
+    });
+
+    assertThat(returned).isSameAs(results);
+    assertThat(issues).hasSize(2);
+    MetricsSnapshot snapshot = registry.snapshot();
+    assertThat(snapshot.timer(MetricNames.ANALYSIS).count()).isEqualTo(1);
+    assertThat(snapshot.counter(MetricNames.ANALYSIS_FILES)).isEqualTo(3);
+    assertThat(snapshot.counter(MetricNames.ANALYSIS_FAILED_FILES)).isEqualTo(1);
+    assertThat(snapshot.counter(MetricNames.ANALYSIS_ISSUES)).isEqualTo(2);
+  }
+
+  @Test
+  void should_record_in_target_of_current_thread_and_inheriting_threads() throws InterruptedException {
+    Metrics.counter("discarded").increment();
+    Metrics.timer("discarded").record(1);
+
+    try (MetricsScope scope = Metrics.openScope(registry)) {
+      Metrics.counter("c").increment();
+      Thread child = new Thread(() -> Metrics.timer("t").record(5));
+      child.start();
+      child.join();
+    }
+
+    MetricsSnapshot snapshot = registry.snapshot();
+    assertThat(snapshot.counters()).containsOnlyKeys("c");
+    assertThat(snapshot.timers()).containsOnlyKeys("t");
+    assertThat(Arrays.asList(snapshot.counter("c"), snapshot.timer("t").totalNanos())).containsExactly(1L, 5L);
+  }
+
+  @Test
+  void should_restore_previous_target_and_release_registry_when_scope_is_closed() throws InterruptedException {
+    MetricsRegistry outer = new MetricsRegistry();
+    try (MetricsScope outerScope = Metrics.openScope(outer)) {
+      ExecutorService pool;
+      try (MetricsScope scope = Metrics.openScope(registry)) {
+        Metrics.counter("c").increment();
+        // the thread of the pool is created during the scope, and inherits it
+        pool = Executors.newSingleThreadExecutor();
+        pool.submit(() -> Metrics.counter("c").increment()).get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e);
+      }
+      Metrics.counter("after").increment();
+      try {
+        pool.submit(() -> Metrics.counter("pooled").increment()).get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    Metrics.counter("discarded").increment();
+
+    assertThat(registry.snapshot().counters()).containsOnly(entry("c", 2L));
+    assertThat(outer.snapshot().counters()).containsOnly(entry("after", 1L), entry("pooled", 1L));
+  }
+}
@@ -23,6 +23,7 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import okhttp3.mockwebserver.MockResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,6 +32,7 @@ import org.sonarsource.sonarlint.core.MockWebServerExtension;
 import org.sonarsource.sonarlint.core.client.api.notifications.ServerNotification;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class NotificationCheckerTests {
 
@@ -110,7 +112,8 @@ class NotificationCheckerTests {
 
     mockServer.addResponse(expectedUrl, new MockResponse().setResponseCode(500).setBody("failed"));
 
-    List<ServerNotification> notifications = underTest.request(Collections.singletonMap("myproject", timestamp));
-    assertThat(notifications).isEmpty();
+    Map<String, ZonedDateTime> request = Collections.singletonMap("myproject", timestamp);
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> underTest.request(request));
+    assertThat(thrown).hasMessage("Failed to get notifications: error 500");
   }
 }
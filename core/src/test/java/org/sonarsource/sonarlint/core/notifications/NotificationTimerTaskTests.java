@@ -19,22 +19,42 @@
  */
 package org.sonarsource.sonarlint.core.notifications;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.sonarsource.sonarlint.core.client.api.common.NotificationConfiguration;
 import org.sonarsource.sonarlint.core.client.api.notifications.LastNotificationTime;
 import org.sonarsource.sonarlint.core.client.api.notifications.ServerNotification;
 import org.sonarsource.sonarlint.core.client.api.notifications.ServerNotificationListener;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
+import org.sonarsource.sonarlint.core.serverapi.HttpClient;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 class NotificationTimerTaskTests {
@@ -42,13 +62,16 @@ class NotificationTimerTaskTests {
   private final NotificationChecker notificationChecker = mock(NotificationChecker.class);
   private final LastNotificationTime notificationTime = mock(LastNotificationTime.class);
 
+  private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+  private final AtomicLong clock = new AtomicLong(1_000_000);
+
   private final ZonedDateTime time = ZonedDateTime.now();
   private NotificationTimerTask timerTask;
 
   @BeforeEach
   public void setup() {
     when(notificationTime.get()).thenReturn(time);
-    timerTask = new NotificationTimerTask(c -> notificationChecker);
+    timerTask = new NotificationTimerTask(c -> notificationChecker, scheduler, MoreExecutors.newDirectExecutorService(), clock::get);
   }
 
   @Test
@@ -143,17 +166,125 @@ class NotificationTimerTaskTests {
     verify(listener).handle(notif);
   }
 
+  @Test
+  void testCoalesceProjectsOfSameServer() {
+    HttpClient client = mock(HttpClient.class);
+    NotificationConfiguration project1 = createProject("project1", new EndpointParams("http://server", false, null), client);
+    NotificationConfiguration project2 = createProject("project2", new EndpointParams("http://server", false, null), client);
+    NotificationConfiguration otherServerProject = createProject("project3", new EndpointParams("http://other", false, null), client);
+
+    timerTask.setProjects(Arrays.asList(project1, project2, otherServerProject));
+    timerTask.run();
+
+    Map<String, ZonedDateTime> expectedRequest = new HashMap<>();
+    expectedRequest.put("project1", time);
+    expectedRequest.put("project2", time);
+    verify(notificationChecker).request(expectedRequest);
+    verify(notificationChecker).request(Collections.singletonMap("project3", time));
+    verifyNoMoreInteractions(notificationChecker);
+  }
+
+  @Test
+  void testBackoffAfterFailures() {
+    when(notificationChecker.request(anyMap())).thenThrow(new IllegalStateException());
+    timerTask.setProjects(Collections.singleton(createProject("myproject")));
+
+    timerTask.run();
+    timerTask.run();
+    verify(notificationChecker, times(1)).request(anyMap());
+
+    clock.addAndGet(NotificationTimerTask.MIN_BACKOFF_MS);
+    timerTask.run();
+    verify(notificationChecker, times(2)).request(anyMap());
+
+    // backoff doubles
+    clock.addAndGet(NotificationTimerTask.MIN_BACKOFF_MS);
+    timerTask.run();
+    verify(notificationChecker, times(2)).request(anyMap());
+
+    clock.addAndGet(NotificationTimerTask.MIN_BACKOFF_MS);
+    timerTask.run();
+    verify(notificationChecker, times(3)).request(anyMap());
+
+    assertThat(timerTask.metrics()).extracting(NotificationPollingMetrics::failureCount, NotificationPollingMetrics::consecutiveFailures)
+      .containsExactly(tuple(3L, 3));
+
+    // success resets the backoff
+    reset(notificationChecker);
+    when(notificationChecker.request(anyMap())).thenReturn(Collections.emptyList());
+    clock.addAndGet(NotificationTimerTask.MAX_BACKOFF_MS);
+    timerTask.run();
+    timerTask.run();
+    verify(notificationChecker, times(2)).request(anyMap());
+    assertThat(timerTask.metrics()).extracting(NotificationPollingMetrics::pollCount, NotificationPollingMetrics::consecutiveFailures)
+      .containsExactly(tuple(5L, 0));
+  }
+
+  @Test
+  void testTimeoutAndNoConcurrentPollOfSameServer() {
+    ExecutorService pollingExecutor = mock(ExecutorService.class);
+    Future<?> pendingPoll = mock(Future.class);
+    doReturn(pendingPoll).when(pollingExecutor).submit(any(Runnable.class));
+    timerTask = new NotificationTimerTask(c -> notificationChecker, scheduler, pollingExecutor, clock::get);
+    timerTask.setProjects(Collections.singleton(createProject("myproject")));
+
+    timerTask.run();
+    timerTask.run();
+    verify(pollingExecutor, times(1)).submit(any(Runnable.class));
+
+    ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(timeout.capture(), eq(NotificationTimerTask.POLL_TIMEOUT_MS), eq(TimeUnit.MILLISECONDS));
+    clock.addAndGet(NotificationTimerTask.POLL_TIMEOUT_MS);
+    timeout.getValue().run();
+
+    verify(pendingPoll).cancel(true);
+    NotificationPollingMetrics metrics = timerTask.metrics().get(0);
+    assertThat(metrics.failureCount()).isEqualTo(1);
+    assertThat(metrics.lastLatencyMs()).isEqualTo(NotificationTimerTask.POLL_TIMEOUT_MS);
+
+    clock.addAndGet(NotificationTimerTask.MIN_BACKOFF_MS);
+    timerTask.run();
+    verify(pollingExecutor, times(2)).submit(any(Runnable.class));
+  }
+
+  @Test
+  void testLatencyMetrics() {
+    when(notificationChecker.request(anyMap())).thenAnswer(invocation -> {
+      clock.addAndGet(100);
+      return Collections.emptyList();
+    });
+    timerTask.setProjects(Collections.singleton(createProject("myproject", new EndpointParams("https://sonarcloud.io", true, "org"), null)));
+
+    timerTask.run();
+    clock.addAndGet(ServerNotificationsRegistry.DELAY);
+    timerTask.run();
+
+    assertThat(timerTask.metrics()).hasSize(1);
+    NotificationPollingMetrics metrics = timerTask.metrics().get(0);
+    assertThat(metrics.serverUrl()).isEqualTo("https://sonarcloud.io");
+    assertThat(metrics.organization()).contains("org");
+    assertThat(metrics.pollCount()).isEqualTo(2);
+    assertThat(metrics.failureCount()).isZero();
+    assertThat(metrics.lastLatencyMs()).isEqualTo(100);
+    assertThat(metrics.maxLatencyMs()).isEqualTo(100);
+    assertThat(metrics.averageLatencyMs()).isEqualTo(100);
+  }
+
   private NotificationConfiguration createProject(String key) {
     return createProject(key, mock(EndpointParams.class));
   }
 
   private NotificationConfiguration createProject(String key, EndpointParams endpoint) {
+    return createProject(key, endpoint, null);
+  }
+
+  private NotificationConfiguration createProject(String key, EndpointParams endpoint, @Nullable HttpClient client) {
     NotificationConfiguration project = mock(NotificationConfiguration.class);
 
     when(project.listener()).thenReturn(listener);
     when(project.projectKey()).thenReturn(key);
     when(project.endpoint()).thenReturn(() -> endpoint);
-    when(project.client()).thenReturn(() -> null);
+    when(project.client()).thenReturn(() -> client);
     when(project.lastNotificationTime()).thenReturn(notificationTime);
     return project;
   }
@@ -19,7 +19,9 @@
  */
 package org.sonarsource.sonarlint.core.notifications;
 
-import java.util.Timer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import okhttp3.mockwebserver.MockResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,7 +31,10 @@ import org.sonarsource.sonarlint.core.client.api.common.NotificationConfiguratio
 import org.sonarsource.sonarlint.core.client.api.notifications.ServerNotificationListener;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -43,20 +48,23 @@ class ServerNotificationsRegistryTests {
 
   private NotificationTimerTask timerTask;
   private NotificationConfiguration config;
-  private Timer timer;
+  private ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> scheduledTask;
 
   @BeforeEach
   public void setUp() {
     timerTask = mock(NotificationTimerTask.class);
     config = mock(NotificationConfiguration.class);
-    timer = mock(Timer.class);
+    scheduler = mock(ScheduledExecutorService.class);
+    scheduledTask = mock(ScheduledFuture.class);
+    doReturn(scheduledTask).when(scheduler).scheduleAtFixedRate(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
   }
 
   @Test
   void testRegistration() {
     ServerNotificationListener listener = mock(ServerNotificationListener.class);
     when(config.listener()).thenReturn(listener);
-    ServerNotificationsRegistry notifications = new ServerNotificationsRegistry(timer, timerTask);
+    ServerNotificationsRegistry notifications = new ServerNotificationsRegistry(scheduler, timerTask);
 
     notifications.register(config);
     notifications.remove(listener);
@@ -64,14 +72,15 @@ class ServerNotificationsRegistryTests {
     verify(timerTask, times(2)).setProjects(anyCollection());
 
     verifyNoMoreInteractions(timerTask);
-    verify(timer).scheduleAtFixedRate(timerTask, ServerNotificationsRegistry.DELAY, ServerNotificationsRegistry.DELAY);
+    verify(scheduler).scheduleAtFixedRate(timerTask, ServerNotificationsRegistry.DELAY, ServerNotificationsRegistry.DELAY, TimeUnit.MILLISECONDS);
   }
 
   @Test
   void testStop() {
-    ServerNotificationsRegistry notifications = new ServerNotificationsRegistry(timer, timerTask);
+    ServerNotificationsRegistry notifications = new ServerNotificationsRegistry(scheduler, timerTask);
     notifications.stop();
-    verify(timer).cancel();
+    verify(scheduledTask).cancel(false);
+    verify(timerTask).clear();
   }
 
   @Test
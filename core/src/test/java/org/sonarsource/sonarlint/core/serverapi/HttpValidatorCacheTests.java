@@ -0,0 +1,209 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.MockWebServerExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpValidatorCacheTests {
+
+  private static final String PATH = "/api/settings/values.protobuf";
+
+  @RegisterExtension
+  static MockWebServerExtension mockServer = new MockWebServerExtension();
+
+  @TempDir
+  Path cacheDir;
+
+  private ServerApiHelper helper;
+
+  @BeforeEach
+  void prepare() {
+    helper = new ServerApiHelper(mockServer.endpointParams(), MockWebServerExtension.httpClient(), new HttpValidatorCache(cacheDir));
+  }
+
+  @Test
+  void send_conditional_request_and_reuse_body_on_not_modified() {
+    mockServer.addResponse(PATH, new MockResponse().setBody("content").setHeader("ETag", "\"v1\"").setHeader("Last-Modified", "Tue, 15 Nov 1994 12:45:26 GMT"));
+
+    try (HttpClient.Response response = helper.get(PATH)) {
+      assertThat(response.bodyAsString()).isEqualTo("content");
+      assertThat(response.header("etag")).isEqualTo("\"v1\"");
+    }
+    assertThat(mockServer.takeRequest().getHeader(HttpValidatorCache.IF_NONE_MATCH)).isNull();
+
+    mockServer.addResponse(PATH, new MockResponse().setResponseCode(304));
+    try (HttpClient.Response response = helper.get(PATH)) {
+      assertThat(response.code()).isEqualTo(200);
+      assertThat(response.bodyAsString()).isEqualTo("content");
+    }
+    RecordedRequest conditional = mockServer.takeRequest();
+    assertThat(conditional.getHeader(HttpValidatorCache.IF_NONE_MATCH)).isEqualTo("\"v1\"");
+    assertThat(conditional.getHeader(HttpValidatorCache.IF_MODIFIED_SINCE)).isEqualTo("Tue, 15 Nov 1994 12:45:26 GMT");
+  }
+
+  @Test
+  void replace_cached_body_when_modified() throws IOException {
+    mockServer.addResponse(PATH, new MockResponse().setBody("v1").setHeader("ETag", "\"v1\""));
+    helper.get(PATH).close();
+
+    mockServer.addResponse(PATH, new MockResponse().setBody("v2").setHeader("ETag", "\"v2\""));
+    try (HttpClient.Response response = helper.get(PATH); InputStream body = response.bodyAsStream()) {
+      assertThat(IOUtils.toString(body, StandardCharsets.UTF_8)).isEqualTo("v2");
+    }
+
+    mockServer.addResponse(PATH, new MockResponse().setResponseCode(304));
+    try (HttpClient.Response response = helper.get(PATH)) {
+      assertThat(response.bodyAsString()).isEqualTo("v2");
+    }
+    mockServer.takeRequest();
+    mockServer.takeRequest();
+    assertThat(mockServer.takeRequest().getHeader(HttpValidatorCache.IF_NONE_MATCH)).isEqualTo("\"v2\"");
+  }
+
+  @Test
+  void dont_cache_responses_without_validators() throws IOException {
+    mockServer.addStringResponse(PATH, "content");
+
+    try (HttpClient.Response response = helper.get(PATH)) {
+      assertThat(response.bodyAsString()).isEqualTo("content");
+    }
+    helper.get(PATH).close();
+
+    mockServer.takeRequest();
+    assertThat(mockServer.takeRequest().getHeader(HttpValidatorCache.IF_NONE_MATCH)).isNull();
+    assertThat(cachedFiles()).isEmpty();
+  }
+
+  @Test
+  void dont_cache_errors() throws IOException {
+    mockServer.addResponse(PATH, new MockResponse().setResponseCode(500).setHeader("ETag", "\"v1\""));
+
+    try (HttpClient.Response response = helper.rawGet(PATH)) {
+      assertThat(response.code()).isEqualTo(500);
+    }
+    assertThat(cachedFiles()).isEmpty();
+  }
+
+  @Test
+  void evict_entries_unused_for_a_long_time() throws IOException {
+    mockServer.addResponse(PATH, new MockResponse().setBody("content").setHeader("ETag", "\"v1\""));
+    helper.get(PATH).close();
+    Path body = cacheDir.resolve(HttpValidatorCache.key(mockServer.url(PATH)) + ".body");
+    assertThat(body).exists();
+
+    Files.setLastModifiedTime(body, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(HttpValidatorCache.MAX_UNUSED_DAYS + 1)));
+    new HttpValidatorCache(cacheDir);
+
+    assertThat(cachedFiles()).isEmpty();
+  }
+
+  @Test
+  void dont_cache_other_endpoints() throws IOException {
+    String sourcePath = "/api/sources/raw?key=project%3Afile";
+    mockServer.addResponse(sourcePath, new MockResponse().setBody("content").setHeader("ETag", "\"v1\""));
+
+    helper.get(sourcePath).close();
+    helper.get(sourcePath).close();
+
+    mockServer.takeRequest();
+    assertThat(mockServer.takeRequest().getHeader(HttpValidatorCache.IF_NONE_MATCH)).isNull();
+    assertThat(cachedFiles()).isEmpty();
+  }
+
+  @Test
+  void dont_cache_for_clients_ignoring_request_headers() throws IOException {
+    HttpClient delegate = MockWebServerExtension.httpClient();
+    HttpClient withoutHeaders = new HttpClient() {
+      @Override
+      public Response get(String url) {
+        return delegate.get(url);
+      }
+
+      @Override
+      public Response post(String url, String contentType, String body) {
+        return delegate.post(url, contentType, body);
+      }
+
+      @Override
+      public Response delete(String url, String contentType, String body) {
+        return delegate.delete(url, contentType, body);
+      }
+    };
+    helper = new ServerApiHelper(mockServer.endpointParams(), withoutHeaders, new HttpValidatorCache(cacheDir));
+    mockServer.addResponse(PATH, new MockResponse().setBody("content").setHeader("ETag", "\"v1\""));
+
+    try (HttpClient.Response response = helper.get(PATH)) {
+      assertThat(response.bodyAsString()).isEqualTo("content");
+    }
+    assertThat(cachedFiles()).isEmpty();
+  }
+
+  @Test
+  void dont_store_big_bodies() throws IOException {
+    helper = new ServerApiHelper(mockServer.endpointParams(), MockWebServerExtension.httpClient(), new HttpValidatorCache(cacheDir, 3, 100));
+    mockServer.addResponse(PATH, new MockResponse().setBody("content").setHeader("ETag", "\"v1\""));
+
+    try (HttpClient.Response response = helper.get(PATH)) {
+      assertThat(response.bodyAsString()).isEqualTo("content");
+    }
+    assertThat(cachedFiles()).isEmpty();
+  }
+
+  @Test
+  void evict_least_recently_used_entries_above_max_size() throws IOException {
+    helper = new ServerApiHelper(mockServer.endpointParams(), MockWebServerExtension.httpClient(), new HttpValidatorCache(cacheDir, 100, 10));
+    String otherPath = "/api/plugins/installed";
+    mockServer.addResponse(PATH, new MockResponse().setBody("content").setHeader("ETag", "\"v1\""));
+    mockServer.addResponse(otherPath, new MockResponse().setBody("plugins").setHeader("ETag", "\"v1\""));
+
+    helper.get(PATH).close();
+    helper.get(otherPath).close();
+
+    assertThat(cachedFiles()).extracting(p -> p.getFileName().toString())
+      .allMatch(name -> name.startsWith(HttpValidatorCache.key(mockServer.url(otherPath))))
+      .hasSize(2);
+  }
+
+  private List<Path> cachedFiles() throws IOException {
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+}
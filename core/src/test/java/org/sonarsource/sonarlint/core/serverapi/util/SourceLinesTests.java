@@ -0,0 +1,71 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi.util;
+
+import org.junit.jupiter.api.Test;
+import org.sonarqube.ws.Common.TextRange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceLinesTests {
+
+  @Test
+  void split_lines_like_regex() {
+    String source = "first\r\nsecond\n\nfourth\rstill fourth\n\n\n";
+    SourceLines lines = new SourceLines(source);
+
+    String[] expected = source.split("\\r?\\n");
+    assertThat(lines.lineCount()).isEqualTo(expected.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertThat(lines.line(i + 1)).isEqualTo(expected[i]);
+    }
+  }
+
+  @Test
+  void extract_single_line_snippet() {
+    SourceLines lines = new SourceLines("Even\nBefore My\n\tCode");
+
+    assertThat(lines.extractSnippet(range(2, 0, 2, 6))).isEqualTo("Before");
+  }
+
+  @Test
+  void extract_multi_line_snippet() {
+    String source = "Even\r\nBefore My\n\tCode\n  Snippet And\n After";
+    TextRange textRange = range(2, 7, 4, 9);
+
+    assertThat(new SourceLines(source).extractSnippet(textRange))
+      .isEqualTo("My\n\tCode\n  Snippet")
+      .isEqualTo(ServerApiUtils.extractCodeSnippet(source.split("\\r?\\n"), textRange));
+  }
+
+  @Test
+  void fail_on_invalid_text_range() {
+    SourceLines lines = new SourceLines("Even\nBefore My\n\tCode\n");
+
+    assertThatThrownBy(() -> lines.extractSnippet(range(4, 0, 4, 1))).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> lines.extractSnippet(range(1, 0, 1, 10))).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> lines.extractSnippet(range(3, 0, 2, 1))).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static TextRange range(int startLine, int startOffset, int endLine, int endOffset) {
+    return TextRange.newBuilder().setStartLine(startLine).setStartOffset(startOffset).setEndLine(endLine).setEndOffset(endOffset).build();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TelemetryLatencyHistogramTest {
+
+  @Test
+  public void small_values_should_be_exact() {
+    for (int value = 0; value < 2 * TelemetryLatencyHistogram.SUB_BUCKETS; value++) {
+      int index = TelemetryLatencyHistogram.indexOf(value);
+      assertThat(TelemetryLatencyHistogram.lowestEquivalentValue(index)).isEqualTo(value);
+      assertThat(TelemetryLatencyHistogram.highestEquivalentValue(index)).isEqualTo(value);
+    }
+  }
+
+  @Test
+  public void buckets_should_be_contiguous_with_bounded_relative_error() {
+    long previousHighest = -1;
+    for (int index = 0; index <= TelemetryLatencyHistogram.indexOf(Long.MAX_VALUE); index++) {
+      long lowest = TelemetryLatencyHistogram.lowestEquivalentValue(index);
+      long highest = TelemetryLatencyHistogram.highestEquivalentValue(index);
+      assertThat(lowest).isEqualTo(previousHighest + 1);
+      assertThat(TelemetryLatencyHistogram.indexOf(lowest)).isEqualTo(index);
+      assertThat(TelemetryLatencyHistogram.indexOf(highest)).isEqualTo(index);
+      assertThat((double) (highest - lowest)).isLessThanOrEqualTo((double) lowest / TelemetryLatencyHistogram.SUB_BUCKETS);
+      previousHighest = highest;
+    }
+    assertThat(previousHighest).isEqualTo(Long.MAX_VALUE);
+    assertThat(TelemetryLatencyHistogram.indexOf(-5)).isZero();
+  }
+
+  @Test
+  public void should_compute_percentiles() {
+    TelemetryLatencyHistogram histogram = new TelemetryLatencyHistogram();
+    assertThat(histogram.valueAtPercentile(50)).isZero();
+
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+
+    assertThat(histogram.totalCount()).isEqualTo(1000);
+    assertThat((double) histogram.valueAtPercentile(50)).isCloseTo(500, within(500.0 / TelemetryLatencyHistogram.SUB_BUCKETS));
+    assertThat((double) histogram.valueAtPercentile(90)).isCloseTo(900, within(900.0 / TelemetryLatencyHistogram.SUB_BUCKETS));
+    assertThat((double) histogram.valueAtPercentile(99)).isCloseTo(990, within(990.0 / TelemetryLatencyHistogram.SUB_BUCKETS));
+    assertThat(histogram.valueAtPercentile(100)).isGreaterThanOrEqualTo(1000);
+    assertThat(histogram.valueAtPercentile(0)).isEqualTo(1);
+  }
+
+  @Test
+  public void should_distinguish_close_latencies() {
+    TelemetryLatencyHistogram before = new TelemetryLatencyHistogram();
+    TelemetryLatencyHistogram after = new TelemetryLatencyHistogram();
+    for (int i = 0; i < 90; i++) {
+      before.record(100);
+      after.record(100);
+    }
+    for (int i = 0; i < 10; i++) {
+      before.record(350);
+      after.record(480);
+    }
+
+    assertThat(before.valueAtPercentile(95)).isLessThan(after.valueAtPercentile(95));
+  }
+
+  @Test
+  public void merge_should_be_equivalent_to_recording_in_a_single_histogram() {
+    TelemetryLatencyHistogram first = new TelemetryLatencyHistogram();
+    TelemetryLatencyHistogram second = new TelemetryLatencyHistogram();
+    TelemetryLatencyHistogram all = new TelemetryLatencyHistogram();
+    for (int i = 0; i < 500; i++) {
+      (i % 3 == 0 ? first : second).record(i * 7L);
+      all.record(i * 7L);
+    }
+
+    first.merge(second);
+
+    assertThat(first.totalCount()).isEqualTo(all.totalCount());
+    assertThat(first.counts()).isEqualTo(all.counts());
+  }
+
+  @Test
+  public void should_survive_json_round_trip() {
+    TelemetryLatencyHistogram histogram = new TelemetryLatencyHistogram();
+    histogram.record(3);
+    histogram.record(1234);
+    histogram.record(1234);
+
+    Gson gson = new Gson();
+    TelemetryLatencyHistogram reloaded = gson.fromJson(gson.toJson(histogram), TelemetryLatencyHistogram.class);
+
+    assertThat(reloaded.totalCount()).isEqualTo(3);
+    assertThat(reloaded.counts()).isEqualTo(histogram.counts());
+    assertThat(reloaded.valueAtPercentile(50)).isEqualTo(histogram.valueAtPercentile(50));
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.telemetry;
 
+import com.google.gson.Gson;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
@@ -53,6 +54,21 @@ public class TelemetryLocalStorageTest {
     assertThat(data.numUseDays()).isEqualTo(1);
   }
 
+  @Test
+  public void should_only_count_use_days_after_last_use_date() {
+    TelemetryLocalStorage data = new TelemetryLocalStorage();
+    LocalDate today = LocalDate.now();
+
+    data.markSonarLintAsUsed(today);
+    data.markSonarLintAsUsed(today.minusDays(1));
+    data.markSonarLintAsUsed(today);
+    assertThat(data.numUseDays()).isEqualTo(1);
+    assertThat(data.lastUseDate()).isEqualTo(today);
+
+    data.markSonarLintAsUsed(today.plusDays(1));
+    assertThat(data.numUseDays()).isEqualTo(2);
+  }
+
   @Test
   public void usedAnalysis_with_duration_should_register_analyzer_performance() {
     TelemetryLocalStorage data = new TelemetryLocalStorage();
@@ -198,4 +214,25 @@ public class TelemetryLocalStorageTest {
     assertThat(valid.installTime()).isEqualTo(installTime);
     assertThat(valid.lastUseDate()).isEqualTo(lastUseDate);
   }
+
+  @Test
+  public void validate_should_add_latency_histograms_to_old_analyzer_data() {
+    TelemetryAnalyzerPerformance oldPerformance = new Gson().fromJson(
+      "{\"analysisCount\":10,\"frequencies\":{\"0-300\":8,\"300-500\":0,\"500-1000\":0,\"1000-2000\":2,\"2000-4000\":0,\"4000+\":0}}",
+      TelemetryAnalyzerPerformance.class);
+    TelemetryLocalStorage data = new TelemetryLocalStorage();
+    data.setLastUseDate(LocalDate.now());
+    data.analyzers().put("java", oldPerformance);
+
+    TelemetryAnalyzerPerformance migrated = validateAndMigrate(data).analyzers().get("java");
+
+    assertThat(migrated.analysisTimesHistogram().totalCount()).isEqualTo(10);
+    assertThat(migrated.analysisTimesHistogram().valueAtPercentile(50)).isBetween(0L, 300L);
+    assertThat(migrated.analysisTimesHistogram().valueAtPercentile(90)).isBetween(1000L, 2000L);
+    assertThat(migrated.phaseTimesHistograms()).isEmpty();
+
+    migrated.registerAnalysis(100);
+    assertThat(migrated.analysisCount()).isEqualTo(11);
+    assertThat(migrated.analysisTimesHistogram().totalCount()).isEqualTo(11);
+  }
 }
@@ -25,7 +25,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Rule;
@@ -34,6 +39,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisTimings;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -110,6 +116,7 @@ public class TelemetryManagerTest {
     TelemetryLocalStorageManager storage = mockTelemetryStorage();
     TelemetryManager manager = stubbedTelemetryManager(storage);
     manager.analysisDoneOnMultipleFiles();
+    manager.flush();
     verify(storage).tryUpdateAtomically(any(Consumer.class));
   }
 
@@ -123,6 +130,7 @@ public class TelemetryManagerTest {
     // note: the manager hasn't seen the saved data
     manager.analysisDoneOnMultipleFiles();
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.numUseDays()).isEqualTo(6);
 
@@ -250,6 +258,7 @@ public class TelemetryManagerTest {
     // note: the manager hasn't seen the saved data
     manager.analysisDoneOnMultipleFiles();
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.enabled()).isEqualTo(data.enabled());
     assertThat(reloaded.installTime()).isEqualTo(data.installTime().truncatedTo(ChronoUnit.MILLIS));
@@ -269,6 +278,7 @@ public class TelemetryManagerTest {
     // note: the manager hasn't seen the saved data
     manager.analysisDoneOnSingleLanguage(Language.JAVA, 1000);
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.enabled()).isEqualTo(data.enabled());
     assertThat(reloaded.installTime()).isEqualTo(data.installTime().truncatedTo(ChronoUnit.MILLIS));
@@ -279,6 +289,23 @@ public class TelemetryManagerTest {
     assertThat(reloaded.notifications().get(FOO_EVENT).getDevNotificationsCount()).isEqualTo(10);
   }
 
+  @Test
+  public void reporting_analysis_on_language_with_timings() throws IOException {
+    AnalysisTimings timings = mock(AnalysisTimings.class);
+    when(timings.fileIndexingMs()).thenReturn(10L);
+    AnalysisTimings.SensorTimings sensorTimings = mock(AnalysisTimings.SensorTimings.class);
+    when(sensorTimings.executeMs()).thenReturn(100L);
+    when(timings.sensors()).thenReturn(Collections.singletonMap("JavaSensor", sensorTimings));
+
+    manager.analysisDoneOnSingleLanguage(Language.JAVA, 1000, timings);
+    manager.analysisDoneOnSingleLanguage(Language.JAVA, 1000, timings);
+
+    manager.flush();
+    TelemetryLocalStorage reloaded = storage.tryRead();
+    assertThat(reloaded.analyzers().get("java").analysisCount()).isEqualTo(2);
+    assertThat(reloaded.analyzers().get("java").phaseTimesMs()).containsEntry("fileIndexing", 20L).containsEntry("sensor:JavaSensor", 200L);
+  }
+
   @Test
   public void accumulate_received_dev_notifications() throws IOException {
     createAndSaveSampleData(storage);
@@ -290,6 +317,7 @@ public class TelemetryManagerTest {
     manager.devNotificationsReceived(FOO_EVENT);
     manager.devNotificationsReceived(FOO_EVENT);
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.enabled()).isEqualTo(data.enabled());
     assertThat(reloaded.installTime()).isEqualTo(data.installTime().truncatedTo(ChronoUnit.MILLIS));
@@ -310,6 +338,7 @@ public class TelemetryManagerTest {
     manager.devNotificationsClicked(FOO_EVENT);
     manager.devNotificationsClicked(FOO_EVENT);
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
 
     assertThat(reloaded.numUseDays()).isEqualTo(data.numUseDays() + 1);
@@ -324,6 +353,7 @@ public class TelemetryManagerTest {
     manager.showHotspotRequestReceived();
     manager.showHotspotRequestReceived();
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
 
     assertThat(reloaded.showHotspotRequestsCount()).isEqualTo(2);
@@ -339,6 +369,7 @@ public class TelemetryManagerTest {
     manager.taintVulnerabilitiesInvestigatedLocally();
     manager.taintVulnerabilitiesInvestigatedRemotely();
 
+    manager.flush();
     TelemetryLocalStorage reloaded = storage.tryRead();
 
     assertThat(reloaded.taintVulnerabilitiesInvestigatedLocallyCount()).isEqualTo(3);
@@ -366,6 +397,121 @@ public class TelemetryManagerTest {
     assertThat(reloaded.taintVulnerabilitiesInvestigatedRemotelyCount()).isZero();
   }
 
+  @Test
+  public void events_should_only_be_persisted_on_flush() {
+    manager.analysisDoneOnSingleLanguage(Language.JAVA, 10);
+    manager.showHotspotRequestReceived();
+
+    assertThat(storage.tryRead().showHotspotRequestsCount()).isZero();
+    assertThat(storage.tryRead().analyzers()).isEmpty();
+
+    manager.flush();
+
+    TelemetryLocalStorage reloaded = storage.tryRead();
+    assertThat(reloaded.showHotspotRequestsCount()).isEqualTo(1);
+    assertThat(reloaded.analyzers().get("java").analysisCount()).isEqualTo(1);
+    assertThat(reloaded.numUseDays()).isEqualTo(1);
+
+    manager.flush();
+
+    assertThat(storage.tryRead().showHotspotRequestsCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_keep_events_until_written() throws IOException {
+    TelemetryLocalStorageManager storage = mock(TelemetryLocalStorageManager.class);
+    List<TelemetryLocalStorage> merged = new ArrayList<>();
+    when(storage.tryUpdateAtomically(any(Consumer.class))).thenAnswer(invocation -> {
+      TelemetryLocalStorage data = new TelemetryLocalStorage();
+      invocation.<Consumer<TelemetryLocalStorage>>getArgument(0).accept(data);
+      merged.add(data);
+      // the first write fails
+      return merged.size() > 1;
+    });
+    TelemetryManager manager = stubbedTelemetryManager(storage);
+
+    manager.showHotspotRequestReceived();
+    manager.flush();
+    manager.flush();
+    manager.flush();
+
+    assertThat(merged).extracting(TelemetryLocalStorage::showHotspotRequestsCount).containsExactly(1, 1, 0);
+    assertThat(merged).extracting(TelemetryLocalStorage::numUseDays).containsExactly(1L, 1L, 0L);
+  }
+
+  @Test
+  public void stop_should_flush_events() {
+    AtomicInteger uploadedCount = new AtomicInteger();
+    doAnswer(invocation -> {
+      uploadedCount.set(invocation.<TelemetryLocalStorage>getArgument(0).notifications().get(FOO_EVENT).getDevNotificationsCount());
+      return null;
+    }).when(client).upload(any(TelemetryLocalStorage.class), eq(attributes));
+
+    manager.devNotificationsReceived(FOO_EVENT);
+    manager.stop();
+
+    assertThat(uploadedCount.get()).isEqualTo(1);
+
+    manager.devNotificationsReceived(FOO_EVENT);
+
+    assertThat(storage.tryRead().notifications().get(FOO_EVENT).getDevNotificationsCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void managers_sharing_storage_should_merge_their_events() throws InterruptedException {
+    createAndSaveSampleData(storage);
+    TelemetryManager otherManager = new TelemetryManager(storagePath, client, attributes);
+
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      TelemetryManager m = i % 2 == 0 ? manager : otherManager;
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 100; j++) {
+          m.analysisDoneOnSingleLanguage(Language.JAVA, 100);
+          m.devNotificationsReceived(FOO_EVENT);
+          if (j % 10 == 0) {
+            m.flush();
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    manager.flush();
+    otherManager.flush();
+
+    TelemetryLocalStorage reloaded = storage.tryRead();
+    assertThat(reloaded.analyzers().get("java").analysisCount()).isEqualTo(400);
+    assertThat(reloaded.analyzers().get("java").frequencies()).containsEntry("0-300", 400);
+    assertThat(reloaded.notifications().get(FOO_EVENT).getDevNotificationsCount()).isEqualTo(DEFAULT_NOTIF_COUNT + 400);
+    assertThat(reloaded.numUseDays()).isEqualTo(6);
+    assertThat(reloaded.lastUseDate()).isEqualTo(LocalDate.now());
+  }
+
+  @Test
+  public void should_expose_latency_percentiles_per_language_and_phase() {
+    AnalysisTimings timings = mock(AnalysisTimings.class);
+    when(timings.fileIndexingMs()).thenReturn(10L);
+    for (int i = 1; i <= 100; i++) {
+      manager.analysisDoneOnSingleLanguage(Language.JAVA, i, timings);
+    }
+    manager.analysisDoneOnSingleLanguage(Language.JS, 5000);
+
+    Map<String, TelemetryAnalyzerLatencies> latencies = manager.analyzerLatencies();
+
+    assertThat(latencies).containsOnlyKeys("java", "js");
+    TelemetryLatencyPercentiles java = latencies.get("java").analysis();
+    assertThat(java.count()).isEqualTo(100);
+    assertThat(java.p50()).isBetween(50L, 53L);
+    assertThat(java.p90()).isBetween(90L, 93L);
+    assertThat(java.p99()).isBetween(99L, 103L);
+    assertThat(latencies.get("java").phases().get("fileIndexing").p99()).isEqualTo(10L);
+    assertThat(latencies.get("js").analysis().p50()).isBetween(5000L, 5000L + 5000L / TelemetryLatencyHistogram.SUB_BUCKETS);
+    assertThat(latencies.get("js").phases()).isEmpty();
+  }
+
   private void createAndSaveSampleData(TelemetryLocalStorageManager storage) {
     storage.tryUpdateAtomically(data -> {
       data.setEnabled(false);
@@ -380,12 +526,12 @@ public class TelemetryManagerTest {
   private TelemetryLocalStorageManager mockTelemetryStorage() {
     TelemetryLocalStorageManager storage = mock(TelemetryLocalStorageManager.class);
     when(storage.tryRead()).thenReturn(new TelemetryLocalStorage());
-    doAnswer(new Answer<Void>() {
+    doAnswer(new Answer<Boolean>() {
       @Override
-      public Void answer(InvocationOnMock invocation) throws Throwable {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
         Object[] args = invocation.getArguments();
         ((Consumer) args[0]).accept(mock(TelemetryLocalStorage.class));
-        return null;
+        return true;
       }
     }).when(storage).tryUpdateAtomically(any(Consumer.class));
     return storage;
@@ -29,6 +29,9 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricNames;
+import org.sonarsource.sonarlint.core.client.api.common.metrics.MetricsSnapshot;
+import org.sonarsource.sonarlint.core.metrics.MetricsRegistry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -194,4 +197,21 @@ public class PersistentIssueTrackerCacheTest {
       cache.put("dummy" + i, Collections.emptyList());
     }
   }
+
+  @Test
+  public void should_record_metrics() {
+    MetricsRegistry metrics = new MetricsRegistry();
+    PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(stubIssueStore, metrics);
+    for (int i = 0; i < PersistentIssueTrackerCache.MAX_ENTRIES + 1; i++) {
+      cache.put("file" + i, Collections.emptyList());
+    }
+    cache.getCurrentTrackables("file1");
+    cache.getCurrentTrackables("file0");
+
+    MetricsSnapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.counter(MetricNames.TRACKER_CACHE_HITS)).isEqualTo(1);
+    assertThat(snapshot.counter(MetricNames.TRACKER_CACHE_MISSES)).isEqualTo(1);
+    assertThat(snapshot.counter(MetricNames.TRACKER_CACHE_PERSISTED)).isEqualTo(1);
+    assertThat(snapshot.gauges()).containsEntry(MetricNames.TRACKER_CACHE_SIZE, (long) PersistentIssueTrackerCache.MAX_ENTRIES);
+  }
 }
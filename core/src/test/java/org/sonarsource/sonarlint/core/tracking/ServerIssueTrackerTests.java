@@ -19,7 +19,10 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.sonarsource.sonarlint.core.MockWebServerExtension;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
@@ -52,18 +55,45 @@ class ServerIssueTrackerTests {
   @Test
   void should_download_issues_from_engine() {
     HttpClient client = MockWebServerExtension.httpClient();
-    tracker.update(endpoint, client, engine, projectBinding, Collections.singleton(filePath), true);
-    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePath, true, null);
+    Set<String> filePaths = Collections.singleton(filePath);
+    when(engine.downloadServerIssues(endpoint, client, projectBinding, filePaths, true, null)).thenReturn(Collections.singletonMap(filePath, Collections.emptyList()));
+    tracker.update(endpoint, client, engine, projectBinding, filePaths, true);
+    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePaths, true, null);
+    verifyNoMoreInteractions(engine);
+  }
+
+  @Test
+  void should_download_issues_of_all_files_at_once() {
+    HttpClient client = MockWebServerExtension.httpClient();
+    List<String> filePaths = Arrays.asList(filePath, "other file");
+    tracker.update(endpoint, client, engine, projectBinding, filePaths, false);
+    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePaths, false, null);
+    // Files missing from the result are read from the storage
+    verify(engine).getServerIssues(projectBinding, filePath);
+    verify(engine).getServerIssues(projectBinding, "other file");
     verifyNoMoreInteractions(engine);
   }
 
   @Test
   void should_get_issues_from_engine_if_download_failed() {
     HttpClient client = MockWebServerExtension.httpClient();
-    when(engine.downloadServerIssues(endpoint, client, projectBinding, filePath, false, null)).thenThrow(new DownloadException());
-    tracker.update(endpoint, client, engine, projectBinding, Collections.singleton(filePath), false);
-    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePath, false, null);
+    Set<String> filePaths = Collections.singleton(filePath);
+    when(engine.downloadServerIssues(endpoint, client, projectBinding, filePaths, false, null)).thenThrow(new DownloadException());
+    tracker.update(endpoint, client, engine, projectBinding, filePaths, false);
+    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePaths, false, null);
+    verify(engine).getServerIssues(projectBinding, filePath);
+    verifyNoMoreInteractions(engine);
+  }
+
+  @Test
+  void should_get_issues_from_engine_if_download_failed_unexpectedly() {
+    HttpClient client = MockWebServerExtension.httpClient();
+    List<String> filePaths = Arrays.asList(filePath, "other file");
+    when(engine.downloadServerIssues(endpoint, client, projectBinding, filePaths, false, null)).thenThrow(new IllegalStateException());
+    tracker.update(endpoint, client, engine, projectBinding, filePaths, false);
+    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePaths, false, null);
     verify(engine).getServerIssues(projectBinding, filePath);
+    verify(engine).getServerIssues(projectBinding, "other file");
     verifyNoMoreInteractions(engine);
   }
 }
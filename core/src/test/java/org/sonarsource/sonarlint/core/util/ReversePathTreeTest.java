@@ -37,6 +37,27 @@ public class ReversePathTreeTest {
     assertThat(match.matchPrefixes()).containsExactly(Paths.get("A"));
   }
 
+  @Test
+  public void should_ignore_case_if_file_system_is_case_insensitive() {
+    tree = new ReversePathTree(true);
+    tree.index(Paths.get("A/src/main/java/File.java"));
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("B/SRC/Main/java/file.JAVA"));
+
+    assertThat(match.matchLen()).isEqualTo(4);
+    assertThat(match.matchPrefixes()).containsExactly(Paths.get("A"));
+  }
+
+  @Test
+  public void should_not_ignore_case_if_file_system_is_case_sensitive() {
+    tree = new ReversePathTree(false);
+    tree.index(Paths.get("A/src/main/java/File.java"));
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("B/src/main/java/file.java"));
+
+    assertThat(match.matchLen()).isZero();
+  }
+
   @Test
   public void should_return_matching_prefixes() {
     tree.index(Paths.get("project1/src/main/java/File.java"));
@@ -84,4 +105,48 @@ public class ReversePathTreeTest {
 
   }
 
+  @Test
+  public void should_index_segments() {
+    tree.index(ReversePathTree.segments("project1//src/main/java/File.java/"));
+    tree.index(new String[] {"project2", "src", "main", "java", "File.java"});
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches(ReversePathTree.segments("src/main/java/File.java"));
+
+    assertThat(match.matchLen()).isEqualTo(4);
+    assertThat(match.matchPrefixes()).containsExactlyInAnyOrder(Paths.get("project1"), Paths.get("project2"));
+    assertThat(tree.size()).isEqualTo(6);
+  }
+
+  @Test
+  public void should_split_segments() {
+    assertThat(ReversePathTree.segments("")).isEmpty();
+    assertThat(ReversePathTree.segments("/a//b/c.txt")).containsExactly("a", "b", "c.txt");
+    assertThat(ReversePathTree.segments(Paths.get(""))).isEmpty();
+    assertThat(ReversePathTree.segments(Paths.get("a/b/c.txt"))).containsExactly("a", "b", "c.txt");
+  }
+
+  @Test
+  public void matches_ending_on_same_node_should_be_equal() {
+    tree.index(Paths.get("project1/src/main/java/File.java"));
+    tree.index(Paths.get("project1/src/test/java/File.java"));
+
+    ReversePathTree.Match match1 = tree.findLongestSuffixMatches(Paths.get("a/main/java/File.java"));
+    ReversePathTree.Match match2 = tree.findLongestSuffixMatches(Paths.get("b/main/java/File.java"));
+    ReversePathTree.Match match3 = tree.findLongestSuffixMatches(Paths.get("b/test/java/File.java"));
+
+    assertThat(match1).isEqualTo(match2).hasSameHashCodeAs(match2).isNotEqualTo(match3);
+    assertThat(match1.matchPrefixes()).containsExactly(Paths.get("project1/src"));
+  }
+
+  @Test
+  public void should_grow_beyond_initial_capacity() {
+    for (int i = 0; i < 1000; i++) {
+      tree.index(Paths.get("project" + i, "src", "File" + (i % 10) + ".java"));
+    }
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("src/File3.java"));
+
+    assertThat(match.matchLen()).isEqualTo(2);
+    assertThat(match.matchPrefixes()).hasSize(100).contains(Paths.get("project3"), Paths.get("project993"));
+  }
 }